@@ -0,0 +1,148 @@
+package com.bootcamp.ntt.card_service.benchmark;
+
+import com.bootcamp.ntt.card_service.client.dto.transaction.AccountUsage;
+import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionAccount;
+import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionResponse;
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.DebitCard;
+import com.bootcamp.ntt.card_service.enums.CardType;
+import com.bootcamp.ntt.card_service.enums.CreditCardType;
+import com.bootcamp.ntt.card_service.model.DebitPurchaseRequest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datos de prueba con la forma de producción (ids de Mongo, tarjetas de 16 dígitos,
+ * montos con dos decimales). Semilla fija para que las corridas sean comparables.
+ */
+final class BenchmarkFixtures {
+
+  private static final String[] TRANSACTION_TYPES = {"PURCHASE", "WITHDRAWAL", "PAYMENT", "CHARGE"};
+  private static final String[] STATUSES = {"COMPLETED", "COMPLETED", "COMPLETED", "PENDING", "FAILED"};
+  private static final String[] MERCHANTS = {"Amazon", "Wong Supermercados", "Uber", "Netflix", "Cineplanet"};
+
+  private final Random random;
+
+  BenchmarkFixtures(long seed) {
+    this.random = new Random(seed);
+  }
+
+  CreditCard creditCard() {
+    BigDecimal creditLimit = amount(1_000, 50_000);
+    BigDecimal currentBalance = creditLimit.multiply(BigDecimal.valueOf(random.nextDouble()))
+      .setScale(2, RoundingMode.HALF_UP);
+
+    CreditCard card = new CreditCard();
+    card.setId(objectId());
+    card.setCardNumber(cardNumber());
+    card.setCustomerId(objectId());
+    card.setType(CardType.CREDIT);
+    card.setActive(true);
+    card.setCreditCardType(random.nextBoolean() ? CreditCardType.PERSONAL : CreditCardType.ENTERPRISE);
+    card.setCreditLimit(creditLimit);
+    card.setCurrentBalance(currentBalance);
+    card.setAvailableCredit(creditLimit.subtract(currentBalance));
+    card.setPaymentDueDate(LocalDate.now().minusDays(random.nextInt(30)));
+    card.setMinimumPayment(currentBalance.multiply(BigDecimal.valueOf(0.05)).setScale(2, RoundingMode.HALF_UP));
+    card.setIsOverdue(random.nextInt(10) == 0);
+    card.setOverdueDays(card.getIsOverdue() ? random.nextInt(60) : 0);
+    card.setCreatedAt(Instant.now().minusSeconds(random.nextInt(31_536_000)));
+    card.setUpdatedAt(Instant.now());
+    return card;
+  }
+
+  DebitCard debitCard(int associatedAccounts) {
+    List<String> accounts = new ArrayList<>(associatedAccounts);
+    for (int i = 0; i < associatedAccounts; i++) {
+      accounts.add(objectId());
+    }
+
+    DebitCard card = new DebitCard();
+    card.setId(objectId());
+    card.setCardNumber(cardNumber());
+    card.setCustomerId(objectId());
+    card.setType(CardType.DEBIT);
+    card.setActive(true);
+    card.setPrimaryAccountId(accounts.isEmpty() ? objectId() : accounts.get(0));
+    card.setAssociatedAccountIds(accounts);
+    card.setCreatedAt(Instant.now().minusSeconds(random.nextInt(31_536_000)));
+    card.setUpdatedAt(Instant.now());
+    return card;
+  }
+
+  DebitPurchaseRequest purchaseRequest() {
+    DebitPurchaseRequest request = new DebitPurchaseRequest();
+    request.setAmount(amount(5, 2_000).doubleValue());
+    request.setDescription(MERCHANTS[random.nextInt(MERCHANTS.length)] + " purchase");
+    request.setTransactionType(DebitPurchaseRequest.TransactionTypeEnum.PURCHASE);
+    return request;
+  }
+
+  // Cascada de cuentas: la mayoría de compras se cubren con la cuenta principal
+  List<AccountUsage> accountUsages(DebitCard card) {
+    int used = 1 + (random.nextInt(4) == 0 ? random.nextInt(card.getAssociatedAccountIds().size()) : 0);
+    List<AccountUsage> usages = new ArrayList<>(used);
+    for (int i = 0; i < used; i++) {
+      AccountUsage usage = new AccountUsage();
+      usage.setAccountId(card.getAssociatedAccountIds().get(i));
+      usage.setAmountDeducted(amount(5, 500).doubleValue());
+      usage.setRemainingBalance(amount(0, 10_000).doubleValue());
+      usages.add(usage);
+    }
+    return usages;
+  }
+
+  List<TransactionResponse> transactions(String cardId, int count) {
+    List<TransactionResponse> transactions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      TransactionResponse transaction = new TransactionResponse();
+      transaction.setTransactionId(objectId());
+      transaction.setCardId(cardId);
+      transaction.setAmount(amount(1, 3_000).doubleValue());
+      transaction.setTransactionType(TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)]);
+      transaction.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+      transaction.setMerchantInfo(MERCHANTS[random.nextInt(MERCHANTS.length)]);
+      transaction.setProcessedAt(OffsetDateTime.now(ZoneOffset.UTC).minusMinutes(random.nextInt(43_200)));
+
+      int affected = 1 + random.nextInt(2);
+      List<TransactionAccount> accounts = new ArrayList<>(affected);
+      for (int j = 0; j < affected; j++) {
+        TransactionAccount account = new TransactionAccount();
+        account.setAccountId(objectId());
+        account.setAmountDeducted(amount(1, 1_500).doubleValue());
+        accounts.add(account);
+      }
+      transaction.setAccountsAffected(accounts);
+      transactions.add(transaction);
+    }
+    return transactions;
+  }
+
+  private BigDecimal amount(int min, int max) {
+    return BigDecimal.valueOf(min + random.nextDouble() * (max - min)).setScale(2, RoundingMode.HALF_UP);
+  }
+
+  private String cardNumber() {
+    StringBuilder sb = new StringBuilder(16);
+    for (int i = 0; i < 16; i++) {
+      sb.append(random.nextInt(10));
+    }
+    return sb.toString();
+  }
+
+  private String objectId() {
+    StringBuilder sb = new StringBuilder(24);
+    for (int i = 0; i < 24; i++) {
+      sb.append(Character.forDigit(random.nextInt(16), 16));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,45 @@
+package com.bootcamp.ntt.card_service.benchmark;
+
+import com.bootcamp.ntt.card_service.utils.CardUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardUtilsBenchmark {
+
+  private static final String BIN = "455700";
+
+  private final CardUtils cardUtils = new CardUtils();
+
+  @Benchmark
+  public String generateCardNumber() {
+    return cardUtils.generateCardNumber(BIN);
+  }
+
+  // El SecureRandom compartido es un punto de contención con varios hilos
+  @Benchmark
+  @Threads(4)
+  public String generateCardNumberContended() {
+    return cardUtils.generateCardNumber(BIN);
+  }
+
+  @Benchmark
+  public String generateAuthCode() {
+    return cardUtils.generateAuthCode();
+  }
+}
@@ -0,0 +1,86 @@
+package com.bootcamp.ntt.card_service.benchmark;
+
+import com.bootcamp.ntt.card_service.client.dto.transaction.AccountUsage;
+import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionResponse;
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.DebitCard;
+import com.bootcamp.ntt.card_service.mapper.CardMapper;
+import com.bootcamp.ntt.card_service.mapper.CreditCardMapper;
+import com.bootcamp.ntt.card_service.mapper.DebitCardMapper;
+import com.bootcamp.ntt.card_service.model.CardMovement;
+import com.bootcamp.ntt.card_service.model.CreditCardResponse;
+import com.bootcamp.ntt.card_service.model.DebitPurchaseRequest;
+import com.bootcamp.ntt.card_service.model.DebitPurchaseResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+  private final CreditCardMapper creditCardMapper = new CreditCardMapper();
+  private final DebitCardMapper debitCardMapper = new DebitCardMapper();
+  private final CardMapper cardMapper = new CardMapper();
+
+  private CreditCard creditCard;
+  private DebitCard debitCard;
+  private DebitPurchaseRequest purchaseRequest;
+  private List<AccountUsage> accountUsages;
+
+  @Setup
+  public void setUp() {
+    BenchmarkFixtures fixtures = new BenchmarkFixtures(42L);
+    creditCard = fixtures.creditCard();
+    debitCard = fixtures.debitCard(3);
+    purchaseRequest = fixtures.purchaseRequest();
+    accountUsages = fixtures.accountUsages(debitCard);
+  }
+
+  // Solo el listado de movimientos depende del tamaño de página: el resto no se multiplica por @Param
+  @State(Scope.Benchmark)
+  public static class MovementPage {
+
+    // Tamaño de la página de movimientos (getCardMovements usa 10 por defecto)
+    @Param({"10", "100"})
+    private int movements;
+
+    private List<TransactionResponse> transactions;
+
+    @Setup
+    public void setUp() {
+      BenchmarkFixtures fixtures = new BenchmarkFixtures(42L);
+      transactions = fixtures.transactions(fixtures.creditCard().getId(), movements);
+    }
+  }
+
+  @Benchmark
+  public CreditCardResponse creditCardToResponse() {
+    return creditCardMapper.toResponse(creditCard);
+  }
+
+  @Benchmark
+  public DebitPurchaseResponse debitPurchaseResponse() {
+    return debitCardMapper.toDebitPurchaseResponse(debitCard, purchaseRequest, accountUsages, "TXN-000001");
+  }
+
+  @Benchmark
+  public List<CardMovement> cardMovementList(MovementPage page) {
+    return cardMapper.toCardMovementList(page.transactions);
+  }
+}
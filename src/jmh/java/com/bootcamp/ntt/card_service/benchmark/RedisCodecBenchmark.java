@@ -0,0 +1,61 @@
+package com.bootcamp.ntt.card_service.benchmark;
+
+import com.bootcamp.ntt.card_service.codec.CompactRedisSerializer;
+import com.bootcamp.ntt.card_service.codec.CreditCardResponseCodec;
+import com.bootcamp.ntt.card_service.codec.DebitCardResponseCodec;
+import com.bootcamp.ntt.card_service.config.RedisConfig;
+import com.bootcamp.ntt.card_service.mapper.CreditCardMapper;
+import com.bootcamp.ntt.card_service.model.CreditCardResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+  // Mismos valores que cache.redis.value-codec
+  @Param({"json", "binary"})
+  private String codec;
+
+  private RedisSerializer<Object> serializer;
+  private CreditCardResponse value;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() {
+    RedisSerializer<Object> json = RedisConfig.jsonValueSerializer();
+    serializer = "json".equals(codec)
+      ? json
+      : new CompactRedisSerializer(json, List.of(new CreditCardResponseCodec(), new DebitCardResponseCodec()));
+
+    value = new CreditCardMapper().toResponse(new BenchmarkFixtures(42L).creditCard());
+    encoded = serializer.serialize(value);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return serializer.serialize(value);
+  }
+
+  @Benchmark
+  public Object decode() {
+    return serializer.deserialize(encoded);
+  }
+}
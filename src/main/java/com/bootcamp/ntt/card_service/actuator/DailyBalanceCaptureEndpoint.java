@@ -0,0 +1,70 @@
+package com.bootcamp.ntt.card_service.actuator;
+
+import com.bootcamp.ntt.card_service.service.DailyBalanceCaptureService;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * /actuator/dailybalancecapture: avance de la captura de saldos por fecha (GET) y
+ * reanudación manual de una fecha (POST /actuator/dailybalancecapture/{yyyy-MM-dd}).
+ */
+@Slf4j
+@Component
+@Endpoint(id = "dailybalancecapture")
+@RequiredArgsConstructor
+public class DailyBalanceCaptureEndpoint {
+
+  private final DailyBalanceCaptureService dailyBalanceCaptureService;
+
+  @ReadOperation
+  public Mono<DailyBalanceCaptureProgress> today() {
+    return progress(LocalDate.now());
+  }
+
+  @ReadOperation
+  public Mono<DailyBalanceCaptureProgress> progress(@Selector String date) {
+    return progress(parse(date));
+  }
+
+  // La captura puede durar minutos: se lanza en segundo plano y se sigue con el GET
+  @WriteOperation
+  public Map<String, Object> resume(@Selector String date) {
+    LocalDate captureDate = parse(date);
+
+    dailyBalanceCaptureService.resumeCapture(captureDate)
+      .subscribe(
+        inserted -> log.info("Manual daily balance capture for {} finished: {} snapshots inserted",
+          captureDate, inserted),
+        error -> log.error("Manual daily balance capture for {} failed", captureDate, error));
+
+    return Map.of("date", captureDate.toString(), "status", "RESUMING");
+  }
+
+  private Mono<DailyBalanceCaptureProgress> progress(LocalDate date) {
+    return dailyBalanceCaptureService.getPartitions(date)
+      .collectList()
+      .map(partitions -> DailyBalanceCaptureProgress.of(date, partitions));
+  }
+
+  private LocalDate parse(String date) {
+    try {
+      return LocalDate.parse(date);
+    } catch (DateTimeParseException e) {
+      throw new InvalidEndpointRequestException("Invalid date: " + date, "Expected format yyyy-MM-dd");
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.bootcamp.ntt.card_service.actuator;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalancePartition;
+import com.bootcamp.ntt.card_service.enums.PartitionStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class DailyBalanceCaptureProgress {
+
+  private LocalDate date;
+  private int totalPartitions;
+  private long completedPartitions;
+  private long processingPartitions;
+  private long pendingPartitions;
+  private long processedCards;
+  private long capturedSnapshots;
+  private List<DailyBalancePartition> partitions;
+
+  public static DailyBalanceCaptureProgress of(LocalDate date, List<DailyBalancePartition> partitions) {
+    DailyBalanceCaptureProgress progress = new DailyBalanceCaptureProgress();
+    progress.setDate(date);
+    progress.setTotalPartitions(partitions.size());
+    progress.setCompletedPartitions(count(partitions, PartitionStatus.COMPLETED));
+    progress.setProcessingPartitions(count(partitions, PartitionStatus.PROCESSING));
+    progress.setPendingPartitions(count(partitions, PartitionStatus.PENDING));
+    progress.setProcessedCards(partitions.stream().mapToLong(DailyBalancePartition::getProcessedCount).sum());
+    progress.setCapturedSnapshots(partitions.stream().mapToLong(DailyBalancePartition::getCapturedCount).sum());
+    progress.setPartitions(partitions);
+    return progress;
+  }
+
+  private static long count(List<DailyBalancePartition> partitions, PartitionStatus status) {
+    return partitions.stream().filter(partition -> partition.getStatus() == status).count();
+  }
+}
@@ -28,6 +28,8 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class TransactionServiceClient {
 
+  private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
   private final WebClient webClient;
 
   @Value("${services.transaction.base-url:transaction-service}")
@@ -45,6 +47,11 @@ public class TransactionServiceClient {
     return webClient
       .post()
       .uri(transactionServiceUrl + "/transactions/charge")
+      .headers(headers -> {
+        if (request.getIdempotencyKey() != null) {
+          headers.set(IDEMPOTENCY_KEY_HEADER, request.getIdempotencyKey());
+        }
+      })
       .bodyValue(request)
       .retrieve()
       .onStatus(HttpStatus::is4xxClientError, response -> {
@@ -157,6 +164,11 @@ public class TransactionServiceClient {
     return webClient
       .post()
       .uri(transactionServiceUrl + "/transactions/debit-purchase")
+      .headers(headers -> {
+        if (request.getIdempotencyKey() != null) {
+          headers.set(IDEMPOTENCY_KEY_HEADER, request.getIdempotencyKey());
+        }
+      })
       .bodyValue(request)
       .retrieve()
       .onStatus(HttpStatus::is4xxClientError, response -> {
@@ -17,4 +17,6 @@ public class TransactionRequest {
   private LocalDateTime timestamp;
   //private String merchantInfo;
   private List<AccountUsage> accountsAffected;
+  // Id del registro de outbox: igual en cada reintento, el transaction-service descarta los repetidos
+  private String idempotencyKey;
 }
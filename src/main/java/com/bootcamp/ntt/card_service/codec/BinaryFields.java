@@ -0,0 +1,113 @@
+package com.bootcamp.ntt.card_service.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura/escritura de campos opcionales: un byte de presencia seguido del valor.
+ */
+final class BinaryFields {
+
+  private BinaryFields() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  static void writeString(DataOutput out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  static String readString(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  static void writeDouble(DataOutput out, Double value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeDouble(value);
+    }
+  }
+
+  static Double readDouble(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readDouble() : null;
+  }
+
+  static void writeInteger(DataOutput out, Integer value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeInt(value);
+    }
+  }
+
+  static Integer readInteger(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readInt() : null;
+  }
+
+  // Boolean nullable en un solo byte: 0 = null, 1 = false, 2 = true
+  static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+    out.writeByte(value == null ? 0 : (value ? 2 : 1));
+  }
+
+  static Boolean readBoolean(DataInput in) throws IOException {
+    byte value = in.readByte();
+    return value == 0 ? null : value == 2;
+  }
+
+  static void writeLocalDate(DataOutput out, LocalDate value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeInt((int) value.toEpochDay());
+    }
+  }
+
+  static LocalDate readLocalDate(DataInput in) throws IOException {
+    return in.readBoolean() ? LocalDate.ofEpochDay(in.readInt()) : null;
+  }
+
+  static void writeOffsetDateTime(DataOutput out, OffsetDateTime value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeLong(value.toEpochSecond());
+      out.writeInt(value.getNano());
+      out.writeInt(value.getOffset().getTotalSeconds());
+    }
+  }
+
+  static OffsetDateTime readOffsetDateTime(DataInput in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+    return OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(in.readInt()));
+  }
+
+  static void writeStringList(DataOutput out, List<String> values) throws IOException {
+    out.writeInt(values == null ? -1 : values.size());
+    if (values != null) {
+      for (String value : values) {
+        writeString(out, value);
+      }
+    }
+  }
+
+  static List<String> readStringList(DataInput in) throws IOException {
+    int size = in.readInt();
+    if (size < 0) {
+      return null;
+    }
+    List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,35 @@
+package com.bootcamp.ntt.card_service.codec;
+
+/**
+ * Envoltorio de los valores de la caché de tarjetas: guarda junto al valor la expiración
+ * lógica y el coste de recálculo que usa XFetch, de modo que un solo GET basta para
+ * decidir el refresco anticipado.
+ */
+public class CachedValue {
+
+  private Object value;
+  private long expiresAtMillis;
+  private long recomputeMillis;
+
+  // Para Jackson
+  private CachedValue() {
+  }
+
+  public CachedValue(Object value, long expiresAtMillis, long recomputeMillis) {
+    this.value = value;
+    this.expiresAtMillis = expiresAtMillis;
+    this.recomputeMillis = recomputeMillis;
+  }
+
+  public Object getValue() {
+    return value;
+  }
+
+  public long getExpiresAtMillis() {
+    return expiresAtMillis;
+  }
+
+  public long getRecomputeMillis() {
+    return recomputeMillis;
+  }
+}
@@ -0,0 +1,149 @@
+package com.bootcamp.ntt.card_service.codec;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializador de valores Redis: los tipos con codec registrado se escriben en binario
+ * con cabecera [MAGIC, FORMAT_VERSION, typeId, schemaVersion]; el resto (y cualquier
+ * entrada antigua sin cabecera) pasa por el serializador JSON de respaldo. Un
+ * {@link CachedValue} usa el typeId reservado 0: expiración y coste de recálculo como
+ * dos long seguidos del valor interno serializado con estas mismas reglas.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+  static final byte MAGIC = (byte) 0xB1;
+  static final byte FORMAT_VERSION = 1;
+  static final byte ENVELOPE_TYPE_ID = 0;
+  private static final byte ENVELOPE_SCHEMA_VERSION = 1;
+  private static final int HEADER_LENGTH = 4;
+  private static final int ENVELOPE_LENGTH = HEADER_LENGTH + 2 * Long.BYTES;
+  private static final int INITIAL_BUFFER_SIZE = 256;
+
+  private final RedisSerializer<Object> fallback;
+  private final Map<Class<?>, RedisValueCodec<?>> codecsByType = new HashMap<>();
+  private final Map<Byte, RedisValueCodec<?>> codecsById = new HashMap<>();
+
+  public CompactRedisSerializer(RedisSerializer<Object> fallback, List<RedisValueCodec<?>> codecs) {
+    this.fallback = fallback;
+    for (RedisValueCodec<?> codec : codecs) {
+      if (codec.typeId() == ENVELOPE_TYPE_ID) {
+        throw new IllegalStateException("Redis codec typeId " + ENVELOPE_TYPE_ID + " is reserved: "
+          + codec.type().getName());
+      }
+      RedisValueCodec<?> previous = codecsById.put(codec.typeId(), codec);
+      if (previous != null) {
+        throw new IllegalStateException("Duplicate Redis codec typeId " + codec.typeId() + ": "
+          + previous.type().getName() + " and " + codec.type().getName());
+      }
+      codecsByType.put(codec.type(), codec);
+    }
+  }
+
+  @Override
+  public byte[] serialize(Object value) throws SerializationException {
+    if (value == null) {
+      return fallback.serialize(null);
+    }
+    if (value instanceof CachedValue) {
+      return serializeEnvelope((CachedValue) value);
+    }
+
+    RedisValueCodec<?> codec = codecsByType.get(value.getClass());
+    if (codec == null) {
+      return fallback.serialize(value);
+    }
+
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+      DataOutputStream out = new DataOutputStream(buffer);
+      out.writeByte(MAGIC);
+      out.writeByte(FORMAT_VERSION);
+      out.writeByte(codec.typeId());
+      out.writeByte(codec.schemaVersion());
+      writeValue(codec, value, out);
+      out.flush();
+      return buffer.toByteArray();
+    } catch (IOException e) {
+      throw new SerializationException("Could not write " + value.getClass().getSimpleName(), e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0 || bytes[0] != MAGIC) {
+      return fallback.deserialize(bytes);
+    }
+    if (bytes.length < HEADER_LENGTH || bytes[1] != FORMAT_VERSION) {
+      throw new SerializationException("Unsupported binary cache format version: " + bytes[1]);
+    }
+
+    if (bytes[2] == ENVELOPE_TYPE_ID) {
+      return deserializeEnvelope(bytes);
+    }
+
+    RedisValueCodec<?> codec = codecsById.get(bytes[2]);
+    if (codec == null) {
+      throw new SerializationException("No Redis codec registered for typeId " + bytes[2]);
+    }
+
+    try {
+      DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH));
+      return codec.read(in, bytes[3]);
+    } catch (IOException e) {
+      throw new SerializationException("Could not read " + codec.type().getSimpleName(), e);
+    }
+  }
+
+  private byte[] serializeEnvelope(CachedValue envelope) {
+    byte[] inner = serialize(envelope.getValue());
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(ENVELOPE_LENGTH + inner.length);
+      DataOutputStream out = new DataOutputStream(buffer);
+      out.writeByte(MAGIC);
+      out.writeByte(FORMAT_VERSION);
+      out.writeByte(ENVELOPE_TYPE_ID);
+      out.writeByte(ENVELOPE_SCHEMA_VERSION);
+      out.writeLong(envelope.getExpiresAtMillis());
+      out.writeLong(envelope.getRecomputeMillis());
+      out.write(inner);
+      out.flush();
+      return buffer.toByteArray();
+    } catch (IOException e) {
+      throw new SerializationException("Could not write CachedValue", e);
+    }
+  }
+
+  private Object deserializeEnvelope(byte[] bytes) {
+    if (bytes.length < ENVELOPE_LENGTH || bytes[3] != ENVELOPE_SCHEMA_VERSION) {
+      throw new SerializationException("Unsupported CachedValue layout, schemaVersion " + bytes[3]);
+    }
+    try {
+      DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(bytes, HEADER_LENGTH, 2 * Long.BYTES));
+      long expiresAtMillis = in.readLong();
+      long recomputeMillis = in.readLong();
+      Object value = deserialize(Arrays.copyOfRange(bytes, ENVELOPE_LENGTH, bytes.length));
+      return new CachedValue(value, expiresAtMillis, recomputeMillis);
+    } catch (IOException e) {
+      throw new SerializationException("Could not read CachedValue", e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void writeValue(RedisValueCodec<T> codec, Object value, DataOutputStream out)
+    throws IOException {
+    codec.write((T) value, out);
+  }
+}
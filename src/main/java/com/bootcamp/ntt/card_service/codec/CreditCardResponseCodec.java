@@ -0,0 +1,72 @@
+package com.bootcamp.ntt.card_service.codec;
+
+import com.bootcamp.ntt.card_service.model.CreditCardResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.bootcamp.ntt.card_service.codec.BinaryFields.*;
+
+@Component
+public class CreditCardResponseCodec implements RedisValueCodec<CreditCardResponse> {
+
+  private static final byte TYPE_ID = 1;
+  private static final byte SCHEMA_VERSION = 1;
+
+  @Override
+  public Class<CreditCardResponse> type() {
+    return CreditCardResponse.class;
+  }
+
+  @Override
+  public byte typeId() {
+    return TYPE_ID;
+  }
+
+  @Override
+  public byte schemaVersion() {
+    return SCHEMA_VERSION;
+  }
+
+  @Override
+  public void write(CreditCardResponse value, DataOutput out) throws IOException {
+    writeString(out, value.getId());
+    writeString(out, value.getCardNumber());
+    writeString(out, value.getCustomerId());
+    writeString(out, value.getCreditCardType() != null ? value.getCreditCardType().getValue() : null);
+    writeDouble(out, value.getCreditLimit());
+    writeDouble(out, value.getAvailableCredit());
+    writeDouble(out, value.getCurrentBalance());
+    writeBoolean(out, value.getIsActive());
+    writeLocalDate(out, value.getPaymentDueDate());
+    writeDouble(out, value.getMinimumPayment());
+    writeBoolean(out, value.getIsOverdue());
+    writeInteger(out, value.getOverdueDays());
+    writeOffsetDateTime(out, value.getCreatedAt());
+    writeOffsetDateTime(out, value.getUpdatedAt());
+  }
+
+  @Override
+  public CreditCardResponse read(DataInput in, byte schemaVersion) throws IOException {
+    CreditCardResponse value = new CreditCardResponse();
+    value.setId(readString(in));
+    value.setCardNumber(readString(in));
+    value.setCustomerId(readString(in));
+    String creditCardType = readString(in);
+    value.setCreditCardType(creditCardType != null
+      ? CreditCardResponse.CreditCardTypeEnum.fromValue(creditCardType) : null);
+    value.setCreditLimit(readDouble(in));
+    value.setAvailableCredit(readDouble(in));
+    value.setCurrentBalance(readDouble(in));
+    value.setIsActive(readBoolean(in));
+    value.setPaymentDueDate(readLocalDate(in));
+    value.setMinimumPayment(readDouble(in));
+    value.setIsOverdue(readBoolean(in));
+    value.setOverdueDays(readInteger(in));
+    value.setCreatedAt(readOffsetDateTime(in));
+    value.setUpdatedAt(readOffsetDateTime(in));
+    return value;
+  }
+}
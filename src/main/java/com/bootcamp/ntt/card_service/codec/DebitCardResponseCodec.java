@@ -0,0 +1,58 @@
+package com.bootcamp.ntt.card_service.codec;
+
+import com.bootcamp.ntt.card_service.model.DebitCardResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.bootcamp.ntt.card_service.codec.BinaryFields.*;
+
+@Component
+public class DebitCardResponseCodec implements RedisValueCodec<DebitCardResponse> {
+
+  private static final byte TYPE_ID = 2;
+  private static final byte SCHEMA_VERSION = 1;
+
+  @Override
+  public Class<DebitCardResponse> type() {
+    return DebitCardResponse.class;
+  }
+
+  @Override
+  public byte typeId() {
+    return TYPE_ID;
+  }
+
+  @Override
+  public byte schemaVersion() {
+    return SCHEMA_VERSION;
+  }
+
+  @Override
+  public void write(DebitCardResponse value, DataOutput out) throws IOException {
+    writeString(out, value.getId());
+    writeString(out, value.getCardNumber());
+    writeString(out, value.getCustomerId());
+    writeString(out, value.getPrimaryAccountId());
+    writeStringList(out, value.getAssociatedAccountIds());
+    writeBoolean(out, value.getIsActive());
+    writeOffsetDateTime(out, value.getCreatedAt());
+    writeOffsetDateTime(out, value.getUpdatedAt());
+  }
+
+  @Override
+  public DebitCardResponse read(DataInput in, byte schemaVersion) throws IOException {
+    DebitCardResponse value = new DebitCardResponse();
+    value.setId(readString(in));
+    value.setCardNumber(readString(in));
+    value.setCustomerId(readString(in));
+    value.setPrimaryAccountId(readString(in));
+    value.setAssociatedAccountIds(readStringList(in));
+    value.setIsActive(readBoolean(in));
+    value.setCreatedAt(readOffsetDateTime(in));
+    value.setUpdatedAt(readOffsetDateTime(in));
+    return value;
+  }
+}
@@ -0,0 +1,23 @@
+package com.bootcamp.ntt.card_service.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Serializador binario específico de un tipo cacheado en Redis.
+ * Cada codec declara un typeId único y la versión de esquema con la que escribe;
+ * read recibe la versión almacenada para poder leer entradas antiguas.
+ */
+public interface RedisValueCodec<T> {
+
+  Class<T> type();
+
+  byte typeId();
+
+  byte schemaVersion();
+
+  void write(T value, DataOutput out) throws IOException;
+
+  T read(DataInput in, byte schemaVersion) throws IOException;
+}
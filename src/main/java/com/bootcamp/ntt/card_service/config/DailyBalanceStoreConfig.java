@@ -0,0 +1,24 @@
+package com.bootcamp.ntt.card_service.config;
+
+import com.bootcamp.ntt.card_service.repository.DailyBalanceBucketStore;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceDocumentStore;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceStore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class DailyBalanceStoreConfig {
+
+  // Ambos formatos existen siempre como beans para que la migración pueda escribir buckets
+  @Bean
+  @Primary
+  public DailyBalanceStore dailyBalanceStore(
+    @Value("${cards.daily-balance.layout:document}") String layout,
+    DailyBalanceDocumentStore documentStore,
+    DailyBalanceBucketStore bucketStore) {
+    return "bucketed".equalsIgnoreCase(layout) ? bucketStore : documentStore;
+  }
+}
@@ -0,0 +1,56 @@
+package com.bootcamp.ntt.card_service.config;
+
+import com.bootcamp.ntt.card_service.event.CardEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+@Configuration
+public class KafkaProducerConfig {
+
+  @Value("${kafka.producer.linger-ms:5}")
+  private int lingerMs;
+
+  @Value("${kafka.producer.batch-size:65536}")
+  private int batchSize;
+
+  @Value("${kafka.producer.compression-type:lz4}")
+  private String compressionType;
+
+  @Bean
+  public ProducerFactory<String, CardEvent> cardEventProducerFactory(KafkaProperties kafkaProperties) {
+    Map<String, Object> props = new HashMap<>(kafkaProperties.buildProducerProperties());
+
+    props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+    props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+
+    // Lotes y compresión: varios eventos por request al broker
+    props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+    props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+    props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+
+    // Idempotencia para no duplicar ni reordenar eventos de una misma tarjeta en reintentos
+    props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    props.put(ProducerConfig.ACKS_CONFIG, "all");
+
+    return new DefaultKafkaProducerFactory<>(props);
+  }
+
+  @Bean
+  public KafkaTemplate<String, CardEvent> cardEventKafkaTemplate(
+    ProducerFactory<String, CardEvent> cardEventProducerFactory) {
+    return new KafkaTemplate<>(cardEventProducerFactory);
+  }
+}
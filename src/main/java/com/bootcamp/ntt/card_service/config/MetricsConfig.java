@@ -0,0 +1,38 @@
+package com.bootcamp.ntt.card_service.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public MeterRegistryCustomizer<MeterRegistry> commonTagsCustomizer(
+    @Value("${spring.application.name:card-service}") String applicationName) {
+    return registry -> registry.config().commonTags("application", applicationName);
+  }
+
+  // Histogramas de percentiles para los timers propios y las peticiones HTTP entrantes
+  @Bean
+  public MeterFilter cardTimersHistogramFilter() {
+    return new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+        if (id.getType() == Meter.Type.TIMER
+          && (id.getName().startsWith("card.") || id.getName().equals("http.server.requests"))) {
+          return DistributionStatisticConfig.builder()
+            .percentilesHistogram(true)
+            .build()
+            .merge(config);
+        }
+        return config;
+      }
+    };
+  }
+}
@@ -1,10 +1,13 @@
 package com.bootcamp.ntt.card_service.config;
 
+import com.bootcamp.ntt.card_service.codec.CompactRedisSerializer;
+import com.bootcamp.ntt.card_service.codec.RedisValueCodec;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,9 +16,11 @@ import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.text.SimpleDateFormat;
+import java.util.List;
 
 @Configuration
 @EnableCaching
@@ -23,8 +28,27 @@ public class RedisConfig {
 
   @Bean
   public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(
-    ReactiveRedisConnectionFactory factory) {
+    ReactiveRedisConnectionFactory factory,
+    List<RedisValueCodec<?>> codecs,
+    @Value("${cache.redis.value-codec:binary}") String valueCodec) {
 
+    Jackson2JsonRedisSerializer<Object> jsonSerializer = jsonValueSerializer();
+
+    // "binary": codecs por tipo con JSON como respaldo; "json": formato anterior sin cambios
+    RedisSerializer<Object> valueSerializer = "json".equalsIgnoreCase(valueCodec)
+      ? jsonSerializer
+      : new CompactRedisSerializer(jsonSerializer, codecs);
+
+    RedisSerializationContext<String, Object> context =
+      RedisSerializationContext.<String, Object>newSerializationContext(
+          new StringRedisSerializer())
+        .value(valueSerializer)
+        .build();
+
+    return new ReactiveRedisTemplate<>(factory, context);
+  }
+
+  public static Jackson2JsonRedisSerializer<Object> jsonValueSerializer() {
     Jackson2JsonRedisSerializer<Object> jsonSerializer =
       new Jackson2JsonRedisSerializer<>(Object.class);
 
@@ -42,13 +66,6 @@ public class RedisConfig {
     );
 
     jsonSerializer.setObjectMapper(objectMapper);
-
-    RedisSerializationContext<String, Object> context =
-      RedisSerializationContext.<String, Object>newSerializationContext(
-          new StringRedisSerializer())
-        .value(jsonSerializer)
-        .build();
-
-    return new ReactiveRedisTemplate<>(factory, context);
+    return jsonSerializer;
   }
 }
@@ -4,6 +4,8 @@ import com.bootcamp.ntt.card_service.api.CreditCardsApiDelegate;
 import com.bootcamp.ntt.card_service.entity.CreditCard;
 import com.bootcamp.ntt.card_service.exception.AccessDeniedException;
 import com.bootcamp.ntt.card_service.mapper.CreditCardMapper;
+import com.bootcamp.ntt.card_service.model.BatchChargeAuthorizationRequest;
+import com.bootcamp.ntt.card_service.model.BatchChargeAuthorizationResult;
 import com.bootcamp.ntt.card_service.model.CreditCardBalanceResponse;
 import com.bootcamp.ntt.card_service.model.CreditCardCreateRequest;
 import com.bootcamp.ntt.card_service.model.CreditCardResponse;
@@ -16,6 +18,7 @@ import com.bootcamp.ntt.card_service.model.PaymentProcessRequest;
 import com.bootcamp.ntt.card_service.model.PaymentProcessResponse;
 import com.bootcamp.ntt.card_service.model.ProductEligibilityResponse;
 import com.bootcamp.ntt.card_service.service.CreditCardService;
+import com.bootcamp.ntt.card_service.service.IdempotencyService;
 
 import com.bootcamp.ntt.card_service.utils.SecurityUtils;
 import lombok.RequiredArgsConstructor;
@@ -45,6 +48,7 @@ public class CreditCardsApiDelegateImpl implements CreditCardsApiDelegate {
   private final CreditCardService creditCardService;
   private final SecurityUtils securityUtils;
   private final CreditCardMapper creditCardMapper;
+  private final IdempotencyService idempotencyService;
 
   /**
    * Crea una nueva tarjeta de crédito para un cliente.
@@ -192,6 +196,7 @@ public class CreditCardsApiDelegateImpl implements CreditCardsApiDelegate {
    *
    * @param cardNumber                   Número de la tarjeta para el cargo
    * @param chargeAuthorizationRequest   Datos del cargo (monto, descripción, etc.)
+   * @param idempotencyKey               Clave para que los reintentos no repitan el cargo (opcional)
    * @param exchange                     Contexto del servidor web
    * @return Mono con ResponseEntity que contiene la respuesta de autorización
    */
@@ -199,6 +204,7 @@ public class CreditCardsApiDelegateImpl implements CreditCardsApiDelegate {
   public Mono<ResponseEntity<ChargeAuthorizationResponse>> authorizeCharge(
     String cardNumber,
     Mono<ChargeAuthorizationRequest> chargeAuthorizationRequest,
+    String idempotencyKey,
     ServerWebExchange exchange) {
 
     log.info("Authorizing charge for card: {}", cardNumber);
@@ -207,7 +213,8 @@ public class CreditCardsApiDelegateImpl implements CreditCardsApiDelegate {
       .flatMap(card -> securityUtils.validateReadAccess(card.getCustomerId(), exchange)
         .thenReturn(card))
       .flatMap(card -> chargeAuthorizationRequest
-        .flatMap(request -> creditCardService.authorizeCharge(cardNumber, request)))
+        .flatMap(request -> idempotencyService.execute("authorize-charge:" + cardNumber, idempotencyKey, request,
+          ChargeAuthorizationResponse.class, () -> creditCardService.authorizeCharge(cardNumber, request))))
       .map(response -> {
         log.info("Charge authorized for card: {}", cardNumber);
         return ResponseEntity.ok(response);
@@ -218,12 +225,33 @@ public class CreditCardsApiDelegateImpl implements CreditCardsApiDelegate {
       }));
   }
 
+  /**
+   * Autoriza en bloque un flujo NDJSON de cargos (reenvíos store-and-forward del gateway).
+   * Los cargos de una misma tarjeta se procesan en orden y los de tarjetas distintas en paralelo;
+   * cada resultado se emite en cuanto se resuelve.
+   *
+   * @param charges  Flujo de cargos a autorizar
+   * @param exchange Contexto del servidor web
+   * @return Mono con ResponseEntity que contiene el flujo de resultados por cargo
+   */
+  @Override
+  public Mono<ResponseEntity<Flux<BatchChargeAuthorizationResult>>> batchAuthorizeCharges(
+    Flux<BatchChargeAuthorizationRequest> charges,
+    ServerWebExchange exchange) {
+
+    log.info("Authorizing charge batch");
+
+    return securityUtils.validateAdminOnly(exchange)
+      .then(Mono.fromCallable(() -> ResponseEntity.ok(creditCardService.authorizeChargeBatch(charges))));
+  }
+
   /**
    * Procesa un pago hacia una tarjeta de crédito.
    * Reduce el saldo pendiente de la tarjeta y aumenta el crédito disponible.
    *
    * @param cardNumber               Número de la tarjeta para el pago
    * @param paymentProcessRequest    Datos del pago (monto, método, etc.)
+   * @param idempotencyKey           Clave para que los reintentos no repitan el pago (opcional)
    * @param exchange                 Contexto del servidor web
    * @return Mono con ResponseEntity que contiene el resultado del procesamiento del pago
    */
@@ -231,11 +259,13 @@ public class CreditCardsApiDelegateImpl implements CreditCardsApiDelegate {
   public Mono<ResponseEntity<PaymentProcessResponse>> processCardPayment(
     String cardNumber,
     Mono<PaymentProcessRequest> paymentProcessRequest,
+    String idempotencyKey,
     ServerWebExchange exchange) {
     log.info("Processing payment for card: {}", cardNumber);
     return paymentProcessRequest
       .doOnNext(request -> log.info("Payment request for card {}: amount {}", cardNumber, request.getAmount()))
-      .flatMap(request -> creditCardService.processPayment(cardNumber, request))
+      .flatMap(request -> idempotencyService.execute("process-payment:" + cardNumber, idempotencyKey, request,
+        PaymentProcessResponse.class, () -> creditCardService.processPayment(cardNumber, request)))
       .map(response -> {
         if (response.getSuccess()) {
           log.info("Payment processed successfully for card {}: paid {}",
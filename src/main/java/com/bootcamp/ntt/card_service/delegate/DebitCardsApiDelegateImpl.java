@@ -12,6 +12,7 @@ import com.bootcamp.ntt.card_service.model.DebitPurchaseResponse;
 import com.bootcamp.ntt.card_service.model.PrimaryAccountBalanceResponse;
 import com.bootcamp.ntt.card_service.model.AssociateAccountRequest;
 import com.bootcamp.ntt.card_service.service.DebitCardService;
+import com.bootcamp.ntt.card_service.service.IdempotencyService;
 
 import com.bootcamp.ntt.card_service.utils.SecurityUtils;
 import lombok.RequiredArgsConstructor;
@@ -41,6 +42,7 @@ public class DebitCardsApiDelegateImpl implements DebitCardsApiDelegate {
   private final DebitCardService debitCardService;
   private final DebitCardMapper debitCardMapper;
   private final SecurityUtils securityUtils;
+  private final IdempotencyService idempotencyService;
   /**
    * Crea una nueva tarjeta de débito para un cliente.
    * Valida los datos del cliente y genera una nueva tarjeta con número único
@@ -248,6 +250,7 @@ public class DebitCardsApiDelegateImpl implements DebitCardsApiDelegate {
    *
    * @param cardNumber             Número de la tarjeta de débito para la compra
    * @param debitPurchaseRequest   Datos de la compra (monto, comercio, descripción, etc.)
+   * @param idempotencyKey         Clave para que los reintentos no repitan la compra (opcional)
    * @param exchange               Contexto del servidor web
    * @return Mono con ResponseEntity que contiene la respuesta del procesamiento de la compra
    */
@@ -255,6 +258,7 @@ public class DebitCardsApiDelegateImpl implements DebitCardsApiDelegate {
   public Mono<ResponseEntity<DebitPurchaseResponse>> processDebitCardPurchase(
     String cardNumber,
     Mono<DebitPurchaseRequest> debitPurchaseRequest,
+    String idempotencyKey,
     ServerWebExchange exchange) {
 
     log.info("Processing debit card transaction for card: {}", cardNumber);
@@ -264,7 +268,8 @@ public class DebitCardsApiDelegateImpl implements DebitCardsApiDelegate {
         DebitCardResponse::getCustomerId,
         exchange)
       .then(debitPurchaseRequest)
-      .flatMap(request -> debitCardService.processDebitCardPurchase(cardNumber, request))
+      .flatMap(request -> idempotencyService.execute("debit-purchase:" + cardNumber, idempotencyKey, request,
+        DebitPurchaseResponse.class, () -> debitCardService.processDebitCardPurchase(cardNumber, request)))
       .map(response -> {
         log.info("Debit transaction processed successfully for card: {}", cardNumber);
         return ResponseEntity.ok(response);
@@ -46,7 +46,7 @@ public abstract class Card {
   private String cardNumber;
 
   @NotBlank(message = "El ID del cliente es obligatorio")
-  @Indexed
+  // Cubierto por el prefijo de customerId_1_isActive_1_type_1 (ver CardIndexPlan)
   @Field("customerId")
   private String customerId;
 
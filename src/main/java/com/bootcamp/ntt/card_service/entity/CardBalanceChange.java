@@ -0,0 +1,45 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import lombok.Data;
+
+/**
+ * Último saldo conocido de una tarjeta de crédito según el change stream de cards.
+ * El _id es el de la tarjeta; cada cambio sobrescribe al anterior.
+ */
+@Data
+@Document(collection = "card_balance_changes")
+public class CardBalanceChange {
+
+  @Id
+  private String id;
+
+  private String customerId;
+
+  private String cardNumber;
+
+  private boolean active;
+
+  // La tarjeta se borró: no se captura ni se arrastra su foto anterior
+  private boolean deleted;
+
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal currentBalance;
+
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal availableCredit;
+
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal creditLimit;
+
+  @Indexed
+  private Instant changedAt;
+}
@@ -0,0 +1,37 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import com.bootcamp.ntt.card_service.enums.CardType;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Número de tarjetas de un tipo en un estado (activas o inactivas), mantenido con $inc en cada
+ * alta, cambio de estado y baja. El id es "TIPO:ACTIVE" o "TIPO:INACTIVE".
+ */
+@Data
+@Document(collection = "card_counters")
+public class CardCounter {
+
+  @Id
+  private String id;
+
+  private CardType type;
+
+  private boolean active;
+
+  private long count;
+
+  private Instant updatedAt;
+
+  // Última vez que la reconciliación comparó el contador con un count real
+  private Instant reconciledAt;
+
+  public static String idFor(CardType type, boolean active) {
+    return type.name() + (active ? ":ACTIVE" : ":INACTIVE");
+  }
+}
@@ -0,0 +1,36 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import com.bootcamp.ntt.card_service.enums.CardType;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.Data;
+
+/**
+ * Vista de solo lectura de cards con los campos del resumen de cliente, para crédito y débito a la vez.
+ * Los campos que no son del tipo de la tarjeta quedan a null.
+ */
+@Data
+public class CardSummaryProjection {
+
+  @Id
+  private String id;
+
+  private String cardNumber;
+
+  private CardType type;
+
+  @Field("isActive")
+  private boolean active;
+
+  // Crédito
+  private BigDecimal availableCredit;
+
+  private BigDecimal currentBalance;
+
+  // Débito
+  private String primaryAccountId;
+}
@@ -0,0 +1,37 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Posición de un change stream compartida por las réplicas, para reanudarlo tras un reinicio.
+ * Solo la instancia con el lease vigente tiene el stream abierto y escribe aquí.
+ */
+@Data
+@Document(collection = "change_stream_state")
+public class ChangeStreamState {
+
+  @Id
+  private String id;
+
+  // Resume token en JSON
+  private String resumeToken;
+
+  // Desde cuándo no se ha perdido ningún evento; se reinicia si el token deja de ser válido
+  private Instant coveredSince;
+
+  private Instant updatedAt;
+
+  // Instancia dueña del stream hasta leaseUntil; si cae, otra lo retoma al vencer
+  private String owner;
+
+  private Instant leaseUntil;
+
+  // Hasta cuándo el dueño tiene escritos todos los cambios: último evento guardado, o el momento
+  // de la última renovación si el stream estaba abierto y sin eventos pendientes
+  private Instant checkpointAt;
+}
@@ -6,6 +6,7 @@ import com.bootcamp.ntt.card_service.enums.CreditCardType;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotNull;
@@ -18,6 +19,7 @@ import lombok.NoArgsConstructor;
 
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -32,17 +34,17 @@ public class CreditCard extends Card {
 
   @NotNull(message = "El límite de crédito es obligatorio")
   @DecimalMin(value = "0.01", message = "El límite de crédito debe ser mayor a 0")
-  @Field("creditLimit")
+  @Field(value = "creditLimit", targetType = FieldType.DECIMAL128)
   private BigDecimal creditLimit;
 
   @NotNull(message = "El crédito disponible es obligatorio")
   @DecimalMin(value = "0.00", message = "El crédito disponible no puede ser negativo")
-  @Field("availableCredit")
+  @Field(value = "availableCredit", targetType = FieldType.DECIMAL128)
   private BigDecimal availableCredit;
 
   @NotNull(message = "El balance actual es obligatorio")
   @DecimalMin(value = "0.00", message = "El balance actual no puede ser negativo")
-  @Field("currentBalance")
+  @Field(value = "currentBalance", targetType = FieldType.DECIMAL128)
   private BigDecimal currentBalance;
 
   @Field("paymentDueDate")
@@ -59,6 +61,10 @@ public class CreditCard extends Card {
   @Field("overdueDays")
   private Integer overdueDays;
 
+  // Cargos reservados que aún no están en el outbox; los drena TransactionOutboxScheduler
+  @Field("pendingPostings")
+  private List<PendingPosting> pendingPostings;
+
 
   @Override
   public CardType getCardType() {
@@ -0,0 +1,65 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import lombok.Data;
+
+/**
+ * Fotos de saldo de una tarjeta para un mes: un documento por tarjeta y mes (_id cardId:yyyy-MM)
+ * en lugar de uno por día. "days" tiene siempre 31 posiciones; la del día d es d - 1 y vale null sin captura.
+ */
+@Data
+@Document(collection = "daily_balance_buckets")
+@CompoundIndex(def = "{'customerId': 1, 'period': 1}")
+public class DailyBalanceBucket {
+
+  public static final int DAYS_PER_BUCKET = 31;
+
+  @Id
+  private String id;
+
+  private String customerId;
+
+  private String cardId;
+
+  private String cardNumber;
+
+  // yyyy-MM, ordena igual que la fecha
+  private String period;
+
+  private List<DayBalance> days;
+
+  public static String idOf(String cardId, LocalDate date) {
+    return cardId + ":" + periodOf(date);
+  }
+
+  public static String periodOf(LocalDate date) {
+    return String.format("%04d-%02d", date.getYear(), date.getMonthValue());
+  }
+
+  @Data
+  public static class DayBalance {
+
+    private LocalDate date;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal currentBalance;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal availableCredit;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal creditLimit;
+
+    private LocalDateTime capturedAt;
+  }
+}
@@ -0,0 +1,43 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import com.bootcamp.ntt.card_service.enums.CaptureMode;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Plan de la captura de saldos de un día. El _id es la fecha, así que solo la primera
+ * instancia en llegar fija los límites de las particiones; el resto lo lee.
+ */
+@Data
+@Document(collection = "daily_balance_capture_runs")
+public class DailyBalanceCaptureRun {
+
+  @Id
+  private String id;
+
+  private LocalDate date;
+
+  private int partitionCount;
+
+  // _id inicial de cada partición a partir de la segunda
+  private List<String> boundaries;
+
+  private CaptureMode mode;
+
+  // En modo CHANGES: inicio de la captura anterior; los cambios desde entonces se escriben
+  private Instant changesSince;
+
+  // En modo CHANGES: fecha de las fotos que se arrastran a las tarjetas sin cambios
+  private LocalDate previousDate;
+
+  @Indexed(expireAfterSeconds = 604800)
+  private Instant createdAt;
+}
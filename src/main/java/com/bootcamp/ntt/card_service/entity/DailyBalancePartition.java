@@ -0,0 +1,55 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import com.bootcamp.ntt.card_service.enums.PartitionStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Rango de _id de tarjetas de crédito a capturar para una fecha.
+ * Las instancias lo toman con un lease; si la dueña cae, otra lo retoma al vencer.
+ */
+@Data
+@Document(collection = "daily_balance_partitions")
+@CompoundIndex(def = "{'status': 1, 'leaseUntil': 1}")
+public class DailyBalancePartition {
+
+  @Id
+  private String id;
+
+  private LocalDate date;
+
+  private int index;
+
+  // null en los extremos: rango abierto
+  private String lowerBound;
+
+  private String upperBound;
+
+  private PartitionStatus status;
+
+  private String owner;
+
+  private Instant leaseUntil;
+
+  private int attempts;
+
+  // _id de la última tarjeta cuyo bloque ya se escribió; al retomar se continúa desde aquí
+  private String checkpoint;
+
+  private long processedCount;
+
+  private long capturedCount;
+
+  private Instant completedAt;
+
+  @Indexed(expireAfterSeconds = 604800)
+  private Instant createdAt;
+}
@@ -0,0 +1,49 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import lombok.Data;
+
+/**
+ * Acumulado mensual de las fotos de saldo de una tarjeta; se actualiza con cada captura diaria.
+ * El _id es cardId:yyyy-MM.
+ */
+@Data
+@Document(collection = "monthly_balance_aggregates")
+@CompoundIndex(def = "{'customerId': 1, 'year': 1, 'month': 1}")
+public class MonthlyBalanceAggregate {
+
+  @Id
+  private String id;
+
+  private String customerId;
+
+  private String cardId;
+
+  private String cardNumber;
+
+  private int year;
+
+  private int month;
+
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal sumCurrentBalance;
+
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal sumAvailableCredit;
+
+  private int dayCount;
+
+  // Días ya sumados; evita contar dos veces la misma foto si la captura se reintenta
+  private List<Integer> days;
+
+  private Instant updatedAt;
+}
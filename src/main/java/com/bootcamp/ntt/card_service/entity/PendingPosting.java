@@ -0,0 +1,25 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
+import com.bootcamp.ntt.card_service.enums.OutboxEventType;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+/**
+ * Envío al transaction-service guardado en la propia tarjeta, en la misma escritura que mueve el saldo.
+ * TransactionOutboxService lo pasa al outbox con postingId como _id y después lo quita de la tarjeta.
+ */
+@Data
+public class PendingPosting {
+
+  // No se llama "id": en un subdocumento Spring lo guardaría como _id
+  private String postingId;
+
+  private OutboxEventType eventType;
+
+  private TransactionRequest payload;
+
+  private Instant createdAt;
+}
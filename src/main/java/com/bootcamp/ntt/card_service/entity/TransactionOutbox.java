@@ -0,0 +1,45 @@
+package com.bootcamp.ntt.card_service.entity;
+
+import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
+import com.bootcamp.ntt.card_service.enums.OutboxEventType;
+import com.bootcamp.ntt.card_service.enums.OutboxStatus;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Registro pendiente de envío al transaction-service.
+ * Se escribe junto al cambio de saldo y lo drena TransactionOutboxScheduler.
+ */
+@Data
+@Document(collection = "transaction_outbox")
+@CompoundIndex(def = "{'status': 1, 'nextAttemptAt': 1}")
+public class TransactionOutbox {
+
+  @Id
+  private String id;
+
+  private OutboxEventType eventType;
+
+  private OutboxStatus status;
+
+  private TransactionRequest payload;
+
+  private int attempts;
+
+  private String lastError;
+
+  private Instant createdAt;
+
+  private Instant nextAttemptAt;
+
+  // Los registros enviados se eliminan a los 7 días
+  @Indexed(expireAfterSeconds = 604800)
+  private Instant sentAt;
+}
@@ -0,0 +1,11 @@
+package com.bootcamp.ntt.card_service.enums;
+
+import lombok.ToString;
+
+@ToString
+public enum CaptureMode {
+  // Recorre todas las tarjetas activas
+  SCAN,
+  // Escribe solo las tarjetas que cambiaron según el change stream y arrastra el resto del día anterior
+  CHANGES
+}
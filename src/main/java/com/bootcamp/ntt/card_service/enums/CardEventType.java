@@ -0,0 +1,13 @@
+package com.bootcamp.ntt.card_service.enums;
+
+import lombok.ToString;
+
+@ToString
+public enum CardEventType {
+  CHARGE_AUTHORIZED,
+  PAYMENT_PROCESSED,
+  DEBIT_PURCHASE_PROCESSED,
+  CARD_ACTIVATED,
+  CARD_DEACTIVATED,
+  CREDIT_LIMIT_CHANGED
+}
@@ -0,0 +1,9 @@
+package com.bootcamp.ntt.card_service.enums;
+
+import lombok.ToString;
+
+@ToString
+public enum OutboxEventType {
+  CHARGE,
+  DEBIT_PURCHASE
+}
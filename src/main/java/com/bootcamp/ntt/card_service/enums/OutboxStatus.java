@@ -0,0 +1,11 @@
+package com.bootcamp.ntt.card_service.enums;
+
+import lombok.ToString;
+
+@ToString
+public enum OutboxStatus {
+  PENDING,
+  PROCESSING,
+  SENT,
+  FAILED
+}
@@ -0,0 +1,10 @@
+package com.bootcamp.ntt.card_service.enums;
+
+import lombok.ToString;
+
+@ToString
+public enum PartitionStatus {
+  PENDING,
+  PROCESSING,
+  COMPLETED
+}
@@ -0,0 +1,33 @@
+package com.bootcamp.ntt.card_service.event;
+
+import com.bootcamp.ntt.card_service.enums.CardEventType;
+import com.bootcamp.ntt.card_service.enums.CardType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento de libro mayor de tarjeta publicado en Kafka.
+ * La clave del mensaje es cardNumber para conservar el orden por tarjeta.
+ */
+@Data
+@NoArgsConstructor
+public class CardEvent {
+  private String eventId;
+  private CardEventType eventType;
+  private CardType cardType;
+  private String cardId;
+  private String cardNumber;
+  private String customerId;
+  private BigDecimal amount;
+  private BigDecimal availableCredit;
+  private BigDecimal currentBalance;
+  private BigDecimal creditLimit;
+  private BigDecimal previousCreditLimit;
+  private String authorizationCode;
+  private String transactionId;
+  private Instant occurredAt;
+}
@@ -0,0 +1,50 @@
+package com.bootcamp.ntt.card_service.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardEventPublisher {
+
+  private final KafkaTemplate<String, CardEvent> cardEventKafkaTemplate;
+
+  @Value("${kafka.topics.card-events:card-events}")
+  private String topic;
+
+  /**
+   * Publica el evento sin bloquear el flujo de negocio; los errores solo se registran.
+   */
+  public void publish(CardEvent event) {
+    if (event == null) {
+      return;
+    }
+    send(event).subscribe();
+  }
+
+  /**
+   * Envía el evento y completa cuando el broker lo confirma.
+   */
+  public Mono<Void> send(CardEvent event) {
+    // send() puede bloquear esperando metadata, por eso no corre en el event loop
+    return Mono.fromCallable(() -> cardEventKafkaTemplate.send(topic, event.getCardNumber(), event))
+      .subscribeOn(Schedulers.boundedElastic())
+      .flatMap(future -> Mono.fromFuture(future.completable()))
+      .doOnSuccess(result -> log.debug("Card event {} published for card {}",
+        event.getEventType(), event.getCardNumber()))
+      .then()
+      .onErrorResume(error -> {
+        log.error("Card event {} could not be published for card {}: {}",
+          event.getEventType(), event.getCardNumber(), error.getMessage());
+        return Mono.empty();
+      });
+  }
+}
@@ -0,0 +1,67 @@
+package com.bootcamp.ntt.card_service.mapper;
+
+import com.bootcamp.ntt.card_service.entity.Card;
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.DebitCard;
+import com.bootcamp.ntt.card_service.enums.CardEventType;
+import com.bootcamp.ntt.card_service.event.CardEvent;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class CardEventMapper {
+
+  public CardEvent toChargeAuthorizedEvent(CreditCard card, BigDecimal amount, String authCode) {
+    CardEvent event = toCreditCardEvent(CardEventType.CHARGE_AUTHORIZED, card);
+    event.setAmount(amount);
+    event.setAuthorizationCode(authCode);
+    return event;
+  }
+
+  public CardEvent toPaymentProcessedEvent(CreditCard card, BigDecimal amount) {
+    CardEvent event = toCreditCardEvent(CardEventType.PAYMENT_PROCESSED, card);
+    event.setAmount(amount);
+    return event;
+  }
+
+  public CardEvent toCreditLimitChangedEvent(CreditCard card, BigDecimal previousCreditLimit) {
+    CardEvent event = toCreditCardEvent(CardEventType.CREDIT_LIMIT_CHANGED, card);
+    event.setPreviousCreditLimit(previousCreditLimit);
+    return event;
+  }
+
+  public CardEvent toDebitPurchaseEvent(DebitCard card, Double amount, String transactionId) {
+    CardEvent event = toBaseEvent(CardEventType.DEBIT_PURCHASE_PROCESSED, card);
+    event.setAmount(amount != null ? BigDecimal.valueOf(amount) : null);
+    event.setTransactionId(transactionId);
+    return event;
+  }
+
+  public CardEvent toStatusChangedEvent(Card card) {
+    return toBaseEvent(card.isActive() ? CardEventType.CARD_ACTIVATED : CardEventType.CARD_DEACTIVATED, card);
+  }
+
+  private CardEvent toCreditCardEvent(CardEventType eventType, CreditCard card) {
+    CardEvent event = toBaseEvent(eventType, card);
+    event.setAvailableCredit(card.getAvailableCredit());
+    event.setCurrentBalance(card.getCurrentBalance());
+    event.setCreditLimit(card.getCreditLimit());
+    return event;
+  }
+
+  private CardEvent toBaseEvent(CardEventType eventType, Card card) {
+    CardEvent event = new CardEvent();
+    event.setEventId(UUID.randomUUID().toString());
+    event.setEventType(eventType);
+    event.setCardType(card.getCardType());
+    event.setCardId(card.getId());
+    event.setCardNumber(card.getCardNumber());
+    event.setCustomerId(card.getCustomerId());
+    event.setOccurredAt(Instant.now());
+    return event;
+  }
+}
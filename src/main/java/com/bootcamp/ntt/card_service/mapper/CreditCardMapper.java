@@ -1,9 +1,15 @@
 package com.bootcamp.ntt.card_service.mapper;
 
 import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
+import com.bootcamp.ntt.card_service.entity.CardSummaryProjection;
 import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+import com.bootcamp.ntt.card_service.entity.PendingPosting;
 import com.bootcamp.ntt.card_service.enums.CardType;
 import com.bootcamp.ntt.card_service.enums.CreditCardType;
+import com.bootcamp.ntt.card_service.enums.OutboxEventType;
+import com.bootcamp.ntt.card_service.model.BatchChargeAuthorizationRequest;
+import com.bootcamp.ntt.card_service.model.BatchChargeAuthorizationResult;
 import com.bootcamp.ntt.card_service.model.ChargeAuthorizationRequest;
 import com.bootcamp.ntt.card_service.model.ChargeAuthorizationResponse;
 import com.bootcamp.ntt.card_service.model.CreditCardBalanceResponse;
@@ -22,14 +28,15 @@ import com.bootcamp.ntt.card_service.model.CustomerDailyAverageResponseProductsI
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -196,6 +203,35 @@ public class CreditCardMapper {
     return response;
   }
 
+  public ChargeAuthorizationRequest toChargeAuthorizationRequest(BatchChargeAuthorizationRequest item) {
+    ChargeAuthorizationRequest request = new ChargeAuthorizationRequest();
+    request.setAmount(item.getAmount());
+    return request;
+  }
+
+  public BatchChargeAuthorizationResult toBatchChargeResult(BatchChargeAuthorizationRequest item,
+                                                            ChargeAuthorizationResponse authorization) {
+    BatchChargeAuthorizationResult result = new BatchChargeAuthorizationResult();
+    result.setReferenceId(item.getReferenceId());
+    result.setCardNumber(item.getCardNumber());
+    result.setOutcome(authorization.getStatus() == ChargeAuthorizationResponse.StatusEnum.APPROVED
+      ? BatchChargeAuthorizationResult.OutcomeEnum.APPROVED
+      : BatchChargeAuthorizationResult.OutcomeEnum.DECLINED);
+    result.setAuthorization(authorization);
+    return result;
+  }
+
+  public BatchChargeAuthorizationResult toBatchChargeErrorResult(BatchChargeAuthorizationRequest item,
+                                                                 String errorCode, String errorMessage) {
+    BatchChargeAuthorizationResult result = new BatchChargeAuthorizationResult();
+    result.setReferenceId(item.getReferenceId());
+    result.setCardNumber(item.getCardNumber());
+    result.setOutcome(BatchChargeAuthorizationResult.OutcomeEnum.ERROR);
+    result.setErrorCode(errorCode);
+    result.setErrorMessage(errorMessage);
+    return result;
+  }
+
   public PaymentProcessResponse toPaymentSuccessResponse(CreditCard card, BigDecimal requestedAmount,
                                                          BigDecimal actualAmount) {
     PaymentProcessResponse response = new PaymentProcessResponse();
@@ -239,19 +275,25 @@ public class CreditCardMapper {
     return response;
   }
 
-  public TransactionRequest toTransactionRequest(CreditCard card, ChargeAuthorizationRequest request, String authCode) {
-    if (card == null || request == null) {
+  // El cardId lo pone el drenado del outbox: al reservar solo se conoce el número de tarjeta
+  public PendingPosting toPendingCharge(ChargeAuthorizationRequest request, String authCode) {
+    if (request == null) {
       return null;
     }
 
     TransactionRequest transactionRequest = new TransactionRequest();
-    transactionRequest.setCardId(card.getId());
     transactionRequest.setAmount(request.getAmount());
     transactionRequest.setTransactionType("CHARGE");
     transactionRequest.setAuthorizationCode(authCode);
     transactionRequest.setStatus("APPROVED");
     transactionRequest.setTimestamp(java.time.LocalDateTime.now());
-    return transactionRequest;
+
+    PendingPosting posting = new PendingPosting();
+    posting.setPostingId(new ObjectId().toHexString());
+    posting.setEventType(OutboxEventType.CHARGE);
+    posting.setPayload(transactionRequest);
+    posting.setCreatedAt(Instant.now());
+    return posting;
   }
 
   public ProductEligibilityResponse toProductEligibilityResponse(String customerId,
@@ -290,31 +332,39 @@ public class CreditCardMapper {
 
     return response;
   }
-  public CreditCardSummary toCreditCardSummary(CreditCardResponse cardResponse) {
-    if (cardResponse == null) {
+
+  public CustomerDailyAverageResponseProductsInner toDailyAverageProduct(MonthlyBalanceAggregate aggregate,
+                                                                        int daysInMonth) {
+    int days = aggregate.getDayCount();
+    BigDecimal divisor = BigDecimal.valueOf(days);
+
+    CustomerDailyAverageResponseProductsInner product = new CustomerDailyAverageResponseProductsInner();
+    product.setCardId(aggregate.getCardId());
+    product.setCardNumber(aggregate.getCardNumber());
+    product.setProductType(CustomerDailyAverageResponseProductsInner.ProductTypeEnum.CREDIT_CARD);
+    product.setAverageDailyBalance(
+      aggregate.getSumCurrentBalance().divide(divisor, 2, RoundingMode.HALF_UP).doubleValue());
+    product.setAverageDailyAvailable(
+      aggregate.getSumAvailableCredit().divide(divisor, 2, RoundingMode.HALF_UP).doubleValue());
+    product.setTotalDaysWithData(days);
+    product.setIsComplete(days >= daysInMonth);
+    return product;
+  }
+
+  public CreditCardSummary toCreditCardSummary(CardSummaryProjection card) {
+    if (card == null) {
       return null;
     }
 
     CreditCardSummary summary = new CreditCardSummary();
-    summary.setCardId(cardResponse.getId());
-    summary.setCardNumber(cardResponse.getCardNumber());
-    summary.setAvailableCredit(cardResponse.getAvailableCredit() != null ?
-      BigDecimal.valueOf(cardResponse.getAvailableCredit()) : BigDecimal.ZERO);
-    summary.setCurrentBalance(cardResponse.getCurrentBalance() != null ?
-      BigDecimal.valueOf(cardResponse.getCurrentBalance()) : BigDecimal.ZERO);
-    summary.setIsActive(cardResponse.getIsActive());
+    summary.setCardId(card.getId());
+    summary.setCardNumber(card.getCardNumber());
+    summary.setAvailableCredit(card.getAvailableCredit() != null ? card.getAvailableCredit() : BigDecimal.ZERO);
+    summary.setCurrentBalance(card.getCurrentBalance() != null ? card.getCurrentBalance() : BigDecimal.ZERO);
+    summary.setIsActive(card.isActive());
     return summary;
   }
 
-  public List<CreditCardSummary> toCreditCardSummaryList(List<CreditCardResponse> creditCards) {
-    if (creditCards == null) {
-      return Collections.emptyList();
-    }
-
-    return creditCards.stream()
-      .map(this::toCreditCardSummary)
-      .collect(Collectors.toList());
-  }
   public CreditCardCreateRequest secureCreateRequest(
     CreditCardCreateRequest originalRequest,
     String authenticatedCustomerId,
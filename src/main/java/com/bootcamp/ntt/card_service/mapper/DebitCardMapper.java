@@ -5,6 +5,7 @@ import com.bootcamp.ntt.card_service.client.dto.account.AccountDetailsResponse;
 import com.bootcamp.ntt.card_service.client.dto.transaction.AccountUsage;
 import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionAccount;
 import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
+import com.bootcamp.ntt.card_service.entity.CardSummaryProjection;
 import com.bootcamp.ntt.card_service.entity.DebitCard;
 import com.bootcamp.ntt.card_service.enums.CardType;
 import com.bootcamp.ntt.card_service.model.DebitCardCreateRequest;
@@ -18,7 +19,6 @@ import com.bootcamp.ntt.card_service.model.PrimaryAccountBalanceResponse;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -180,28 +180,19 @@ public class DebitCardMapper {
 
     return transactionRequest;
   }
-  public DebitCardSummary toDebitCardSummary(DebitCardResponse cardResponse) {
-    if (cardResponse == null) {
+  public DebitCardSummary toDebitCardSummary(CardSummaryProjection card) {
+    if (card == null) {
       return null;
     }
 
     DebitCardSummary summary = new DebitCardSummary();
-    summary.setCardId(cardResponse.getId());
-    summary.setCardNumber(cardResponse.getCardNumber());
-    summary.setPrimaryAccountId(cardResponse.getPrimaryAccountId());
-    summary.setIsActive(cardResponse.getIsActive());
+    summary.setCardId(card.getId());
+    summary.setCardNumber(card.getCardNumber());
+    summary.setPrimaryAccountId(card.getPrimaryAccountId());
+    summary.setIsActive(card.isActive());
     return summary;
   }
 
-  public List<DebitCardSummary> toDebitCardSummaryList(List<DebitCardResponse> debitCards) {
-    if (debitCards == null) {
-      return Collections.emptyList();
-    }
-
-    return debitCards.stream()
-      .map(this::toDebitCardSummary)
-      .collect(Collectors.toList());
-  }
   public DebitCardCreateRequest secureCreateRequest(
     DebitCardCreateRequest originalRequest,
     String authenticatedCustomerId,
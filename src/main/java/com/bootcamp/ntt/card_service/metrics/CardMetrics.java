@@ -0,0 +1,156 @@
+package com.bootcamp.ntt.card_service.metrics;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Punto único para las métricas propias del servicio. Todos los nombres empiezan por "card."
+ * para que MetricsConfig les aplique histogramas de percentiles.
+ */
+@Component
+@RequiredArgsConstructor
+public class CardMetrics {
+
+  public static final String OUTCOME_SUCCESS = "success";
+  public static final String OUTCOME_ERROR = "error";
+
+  private static final String EXTERNAL_CALLS = "card.external.calls";
+  private static final String EXTERNAL_IN_FLIGHT = "card.external.inflight";
+  private static final String CHARGES = "card.charges";
+  private static final String DAILY_BALANCE_CAPTURE = "card.daily_balance.capture";
+  private static final String DAILY_BALANCE_CHUNK = "card.daily_balance.chunk";
+  private static final String DAILY_BALANCE_SNAPSHOTS = "card.daily_balance.snapshots";
+  private static final String OVERDUE_UPDATES = "card.overdue.updates";
+  private static final String COUNTER_CORRECTIONS = "card.counters.corrections";
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, AtomicInteger> inFlightByDownstream = new ConcurrentHashMap<>();
+
+  /**
+   * Mide latencia y resultado de una llamada a otro microservicio (incluye circuit breaker y timeout).
+   */
+  public <T> Function<Mono<T>, Mono<T>> timedCall(String downstream, String operation) {
+    return call -> Mono.defer(() -> {
+      AtomicInteger inFlight = inFlight(downstream);
+      inFlight.incrementAndGet();
+      Timer.Sample sample = Timer.start(meterRegistry);
+
+      return call
+        .doOnSuccess(value -> stopExternalCall(sample, downstream, operation, OUTCOME_SUCCESS))
+        .doOnError(error -> stopExternalCall(sample, downstream, operation, outcomeOf(error)))
+        .doOnCancel(() -> stopExternalCall(sample, downstream, operation, "cancelled"))
+        .doFinally(signal -> inFlight.decrementAndGet());
+    });
+  }
+
+  public <T> Function<Flux<T>, Flux<T>> timedStream(String downstream, String operation) {
+    return call -> Flux.defer(() -> {
+      AtomicInteger inFlight = inFlight(downstream);
+      inFlight.incrementAndGet();
+      Timer.Sample sample = Timer.start(meterRegistry);
+
+      return call
+        .doOnComplete(() -> stopExternalCall(sample, downstream, operation, OUTCOME_SUCCESS))
+        .doOnError(error -> stopExternalCall(sample, downstream, operation, outcomeOf(error)))
+        .doOnCancel(() -> stopExternalCall(sample, downstream, operation, "cancelled"))
+        .doFinally(signal -> inFlight.decrementAndGet());
+    });
+  }
+
+  /**
+   * outcome: approved, declined o error; reason: motivo del rechazo o código de error.
+   */
+  public void recordCharge(String outcome, String reason) {
+    Counter.builder(CHARGES)
+      .description("Charge authorizations by outcome and reason")
+      .tags("outcome", outcome, "reason", reason != null ? reason : "none")
+      .register(meterRegistry)
+      .increment();
+  }
+
+  public Timer.Sample startDailyBalanceCapture() {
+    return Timer.start(meterRegistry);
+  }
+
+  public void stopDailyBalanceCapture(Timer.Sample sample, String outcome) {
+    sample.stop(Timer.builder(DAILY_BALANCE_CAPTURE)
+      .description("Duration of the daily balance capture job")
+      .tags("outcome", outcome)
+      .register(meterRegistry));
+  }
+
+  /**
+   * Mide cada bloque del upsert masivo y cuenta fotos insertadas frente a ya existentes.
+   */
+  public Function<Mono<Integer>, Mono<Integer>> timedBalanceChunk(int chunkSize) {
+    return write -> Mono.defer(() -> {
+      Timer.Sample sample = Timer.start(meterRegistry);
+
+      return write
+        .doOnSuccess(inserted -> {
+          stopBalanceChunk(sample, OUTCOME_SUCCESS);
+          int insertedCount = inserted != null ? inserted : 0;
+          meterRegistry.counter(DAILY_BALANCE_SNAPSHOTS, "result", "inserted").increment(insertedCount);
+          meterRegistry.counter(DAILY_BALANCE_SNAPSHOTS, "result", "existing").increment(chunkSize - insertedCount);
+        })
+        .doOnError(error -> stopBalanceChunk(sample, OUTCOME_ERROR));
+    });
+  }
+
+  /**
+   * Tarjetas cambiadas por el recálculo de mora: marcadas (o con días actualizados) y liberadas.
+   */
+  public void recordOverdueUpdates(long overdue, long cleared) {
+    meterRegistry.counter(OVERDUE_UPDATES, "result", "overdue").increment(overdue);
+    meterRegistry.counter(OVERDUE_UPDATES, "result", "cleared").increment(cleared);
+  }
+
+  /**
+   * Corrección aplicada por la reconciliación a un contador de tarjetas (tamaño de la desviación).
+   */
+  public void recordCounterCorrection(String cardType, long drift) {
+    meterRegistry.counter(COUNTER_CORRECTIONS, "type", cardType).increment(Math.abs(drift));
+  }
+
+  private void stopBalanceChunk(Timer.Sample sample, String outcome) {
+    sample.stop(Timer.builder(DAILY_BALANCE_CHUNK)
+      .description("Duration of each bulk write of the daily balance capture")
+      .tags("outcome", outcome)
+      .register(meterRegistry));
+  }
+
+  private void stopExternalCall(Timer.Sample sample, String downstream, String operation, String outcome) {
+    sample.stop(Timer.builder(EXTERNAL_CALLS)
+      .description("Calls to downstream services")
+      .tags(Tags.of("downstream", downstream, "operation", operation, "outcome", outcome))
+      .register(meterRegistry));
+  }
+
+  private AtomicInteger inFlight(String downstream) {
+    return inFlightByDownstream.computeIfAbsent(downstream, name ->
+      meterRegistry.gauge(EXTERNAL_IN_FLIGHT, Tags.of("downstream", name), new AtomicInteger()));
+  }
+
+  private static String outcomeOf(Throwable error) {
+    if (error instanceof CallNotPermittedException) {
+      return "circuit_open";
+    }
+    if (error instanceof TimeoutException) {
+      return "timeout";
+    }
+    return OUTCOME_ERROR;
+  }
+}
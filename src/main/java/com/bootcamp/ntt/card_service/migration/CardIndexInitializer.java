@@ -0,0 +1,160 @@
+package com.bootcamp.ntt.card_service.migration;
+
+import com.bootcamp.ntt.card_service.repository.CardIndexPlan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compara los índices de cards con CardIndexPlan al arrancar. En modo create crea los que faltan;
+ * en modo verify solo informa. Nunca borra: un índice sobrante o distinto se avisa para revisarlo
+ * a mano, porque borrar uno en uso puede dejar consultas recorriendo la colección entera.
+ *
+ * Sin cardNumber_1 dos altas podrían repetir número: en cualquier modo, si falta o no es único (en create,
+ * porque no se pudo crear), el arranque falla. En create el plan se aplica antes de terminar el arranque;
+ * en verify el informe se hace en segundo plano.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardIndexInitializer implements ApplicationRunner {
+
+  private static final String ID_INDEX = "_id_";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  // create | verify | off
+  @Value("${cards.indexes.mode:create}")
+  private String mode;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    // En create se espera a que el plan quede aplicado: las altas necesitan cardNumber_1 desde el inicio
+    if ("create".equalsIgnoreCase(mode)) {
+      report(reconcile().block());
+    }
+    requireUniqueCardNumberIndex().block();
+    if (!"verify".equalsIgnoreCase(mode)) {
+      return;
+    }
+
+    reconcile().subscribe(this::report,
+      error -> log.error("Card index verification failed: {}", error.getMessage()));
+  }
+
+  private void report(List<String> drift) {
+    if (drift.isEmpty()) {
+      log.info("Card indexes match the declared plan");
+    } else {
+      drift.forEach(problem -> log.warn("Card index drift: {}", problem));
+    }
+  }
+
+  /**
+   * Devuelve las diferencias que quedan tras aplicar el plan (vacío si todo coincide).
+   */
+  public Mono<List<String>> reconcile() {
+    boolean create = "create".equalsIgnoreCase(mode);
+    ReactiveIndexOperations indexOps = mongoTemplate.indexOps(CardIndexPlan.COLLECTION);
+
+    return indexOps.getIndexInfo()
+      .collectList()
+      .flatMap(existing -> {
+        List<String> drift = new ArrayList<>();
+        List<Index> missing = new ArrayList<>();
+
+        // Se compara por claves y no por nombre: un índice creado antes con otro nombre sigue valiendo
+        for (Index declared : CardIndexPlan.indexes()) {
+          IndexInfo match = existing.stream()
+            .filter(info -> sameKeys(info, declared))
+            .findFirst()
+            .orElse(null);
+
+          if (match == null) {
+            missing.add(declared);
+          } else if (!sameOptions(match, declared)) {
+            drift.add("index " + match.getName() + " differs from declared " + name(declared)
+              + " (unique/partial options)");
+          }
+        }
+
+        existing.stream()
+          .filter(info -> !ID_INDEX.equals(info.getName()))
+          .filter(info -> CardIndexPlan.indexes().stream().noneMatch(declared -> sameKeys(info, declared)))
+          .forEach(info -> drift.add("undeclared index " + info.getName() + " on " + keys(info)));
+
+        if (!create) {
+          missing.forEach(declared -> drift.add("missing index " + name(declared)));
+          return Mono.just(drift);
+        }
+
+        return Flux.fromIterable(missing)
+          .concatMap(declared -> indexOps.ensureIndex(declared)
+            .doOnNext(created -> log.info("Created card index {}", created))
+            .onErrorResume(error -> {
+              drift.add("could not create index " + name(declared) + ": " + error.getMessage());
+              return Mono.empty();
+            }))
+          .then(Mono.just(drift));
+      });
+  }
+
+  /**
+   * Falla si cards no tiene un índice único sobre cardNumber (se busca por claves, como en reconcile).
+   */
+  public Mono<Void> requireUniqueCardNumberIndex() {
+    return mongoTemplate.indexOps(CardIndexPlan.COLLECTION).getIndexInfo()
+      .filter(info -> keys(info).equals(List.of("cardNumber")))
+      .collectList()
+      .flatMap(cardNumberIndexes -> {
+        if (cardNumberIndexes.isEmpty()) {
+          return Mono.error(new IllegalStateException("Missing index " + CardIndexPlan.CARD_NUMBER_INDEX
+            + " on " + CardIndexPlan.COLLECTION + "; create it or start with cards.indexes.mode=create"));
+        }
+        if (cardNumberIndexes.stream().noneMatch(IndexInfo::isUnique)) {
+          return Mono.error(new IllegalStateException("Index " + cardNumberIndexes.get(0).getName()
+            + " on " + CardIndexPlan.COLLECTION + " must be unique"));
+        }
+        return Mono.empty();
+      });
+  }
+
+  private static boolean sameKeys(IndexInfo info, Index declared) {
+    return keys(info).equals(new ArrayList<>(declared.getIndexKeys().keySet()));
+  }
+
+  private static boolean sameOptions(IndexInfo info, Index declared) {
+    Document options = declared.getIndexOptions();
+    boolean unique = Boolean.TRUE.equals(options.get("unique"));
+    boolean partial = options.containsKey("partialFilterExpression");
+    return info.isUnique() == unique && (info.getPartialFilterExpression() != null) == partial;
+  }
+
+  private static List<String> keys(IndexInfo info) {
+    return info.getIndexFields().stream()
+      .map(IndexField::getKey)
+      .collect(Collectors.toList());
+  }
+
+  private static String name(Index declared) {
+    return declared.getIndexOptions().getString("name");
+  }
+}
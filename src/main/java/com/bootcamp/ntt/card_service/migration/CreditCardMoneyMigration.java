@@ -0,0 +1,37 @@
+package com.bootcamp.ntt.card_service.migration;
+
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Convierte a Decimal128 creditLimit, availableCredit y currentBalance de las tarjetas guardadas
+ * como texto antes de la reserva atómica. Es idempotente: solo toca documentos con algún importe en texto.
+ *
+ * Mientras no se lance, reserveCredit convierte cada tarjeta antigua la primera vez que se usa,
+ * así que ninguna se rechaza; la migración evita ese coste en la primera compra y deja consistentes
+ * las consultas que comparan importes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cards.money-migration.enabled", havingValue = "true")
+public class CreditCardMoneyMigration implements ApplicationRunner {
+
+  private final CreditCardRepository creditCardRepository;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    log.info("Starting credit card money migration");
+
+    creditCardRepository.convertLegacyMoney(null).subscribe(
+      converted -> log.info("Credit card money migration completed: {} cards converted", converted),
+      error -> log.error("Credit card money migration failed: {}", error.getMessage()));
+  }
+}
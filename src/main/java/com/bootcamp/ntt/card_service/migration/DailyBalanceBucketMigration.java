@@ -0,0 +1,60 @@
+package com.bootcamp.ntt.card_service.migration;
+
+import com.bootcamp.ntt.card_service.repository.DailyBalanceBucketStore;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Copia el histórico de daily_balances al formato por buckets. Es idempotente: un día ya presente
+ * en el bucket no se sobrescribe, así que puede relanzarse sin riesgo.
+ *
+ * Pasos: arrancar una instancia con cards.daily-balance.migration.enabled=true, cambiar
+ * cards.daily-balance.layout a bucketed y relanzar la migración para copiar lo capturado entre medias.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cards.daily-balance.migration.enabled", havingValue = "true")
+public class DailyBalanceBucketMigration implements ApplicationRunner {
+
+  private final DailyBalanceRepository dailyBalanceRepository;
+  private final DailyBalanceBucketStore bucketStore;
+
+  @Value("${cards.daily-balance.migration.chunk-size:1000}")
+  private int chunkSize;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    migrate().subscribe(
+      copied -> log.info("Daily balance bucket migration completed: {} days copied", copied),
+      error -> log.error("Daily balance bucket migration failed: {}", error.getMessage()));
+  }
+
+  public Mono<Long> migrate() {
+    AtomicLong read = new AtomicLong();
+    log.info("Starting daily balance bucket migration");
+
+    // Orden del índice único: las fotos de una tarjeta y mes caen en el mismo bloque casi siempre
+    return dailyBalanceRepository.findAll(Sort.by("customerId", "cardId", "date"))
+      .buffer(chunkSize)
+      .concatMap(chunk -> bucketStore.saveAll(chunk)
+        .doOnNext(copied -> {
+          long total = read.addAndGet(chunk.size());
+          log.debug("Daily balance bucket migration: {} read, {} copied in last chunk", total, copied);
+        }))
+      .reduce(0L, (total, copied) -> total + copied);
+  }
+}
@@ -0,0 +1,51 @@
+package com.bootcamp.ntt.card_service.migration;
+
+import com.bootcamp.ntt.card_service.repository.DailyBalanceStore;
+
+import java.time.YearMonth;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Rellena monthly_balance_aggregates desde las fotos diarias. En el mes del despliegue el acumulado
+ * solo tiene los días capturados después, y sin esta migración los promedios de ese mes salen
+ * con los días anteriores de menos.
+ *
+ * Es idempotente y se puede relanzar: cards.monthly-aggregates.backfill.period (yyyy-MM) limita el
+ * recálculo a un mes; vacío recalcula todos.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cards.monthly-aggregates.backfill.enabled", havingValue = "true")
+public class MonthlyBalanceAggregateBackfill implements ApplicationRunner {
+
+  private final DailyBalanceStore dailyBalanceStore;
+
+  @Value("${cards.monthly-aggregates.backfill.period:}")
+  private String period;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    backfill().subscribe(
+      unused -> { },
+      error -> log.error("Monthly balance aggregate backfill failed: {}", error.getMessage()),
+      () -> log.info("Monthly balance aggregate backfill completed"));
+  }
+
+  public Mono<Void> backfill() {
+    YearMonth target = period == null || period.isBlank() ? null : YearMonth.parse(period);
+    log.info("Starting monthly balance aggregate backfill for {}", target != null ? target : "all periods");
+
+    return dailyBalanceStore.rebuildMonthlyAggregates(target);
+  }
+}
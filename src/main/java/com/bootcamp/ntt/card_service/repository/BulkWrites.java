@@ -0,0 +1,24 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOptions;
+
+/**
+ * Opciones comunes de los bulkWrite hechos con el driver.
+ */
+final class BulkWrites {
+
+  static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+  static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+  private BulkWrites() {
+  }
+
+  // dos upserts concurrentes sobre la misma clave: el perdedor choca con el índice único
+  static boolean onlyDuplicateKeys(MongoBulkWriteException error) {
+    return error.getWriteConcernError() == null && error.getWriteErrors().stream()
+      .allMatch(writeError -> ErrorCategory.fromErrorCode(writeError.getCode()) == ErrorCategory.DUPLICATE_KEY);
+  }
+}
@@ -0,0 +1,11 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CardBalanceChange;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CardBalanceChangeRepository
+  extends ReactiveMongoRepository<CardBalanceChange, String>, CardBalanceChangeRepositoryCustom {
+}
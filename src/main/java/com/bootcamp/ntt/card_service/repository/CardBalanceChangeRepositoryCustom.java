@@ -0,0 +1,22 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CardBalanceChange;
+
+import java.time.Instant;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface CardBalanceChangeRepositoryCustom {
+
+  /**
+   * Guarda en bloque el último saldo de cada tarjeta; un cambio más antiguo que el guardado no lo pisa.
+   */
+  Mono<Void> recordAll(List<CardBalanceChange> changes);
+
+  /**
+   * Tarjetas del rango de _id [lowerBound, upperBound) que cambiaron desde el instante dado, ordenadas por _id.
+   */
+  Flux<CardBalanceChange> findChangedSince(Instant since, String lowerBound, String upperBound);
+}
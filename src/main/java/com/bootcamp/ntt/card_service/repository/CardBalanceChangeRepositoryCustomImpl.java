@@ -0,0 +1,79 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CardBalanceChange;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class CardBalanceChangeRepositoryCustomImpl implements CardBalanceChangeRepositoryCustom {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<Void> recordAll(List<CardBalanceChange> changes) {
+    if (changes.isEmpty()) {
+      return Mono.empty();
+    }
+
+    List<UpdateOneModel<Document>> writes = changes.stream()
+      .map(this::toUpsert)
+      .collect(Collectors.toList());
+
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(CardBalanceChange.class))
+      .flatMap(collection -> Mono.from(collection.bulkWrite(writes, BulkWrites.UNORDERED)))
+      .onErrorResume(MongoBulkWriteException.class, error -> BulkWrites.onlyDuplicateKeys(error)
+        ? Mono.empty()
+        : Mono.error(error))
+      .then();
+  }
+
+  @Override
+  public Flux<CardBalanceChange> findChangedSince(Instant since, String lowerBound, String upperBound) {
+    Criteria criteria = Criteria.where("changedAt").gte(since);
+    if (lowerBound != null || upperBound != null) {
+      Criteria idRange = Criteria.where("_id");
+      if (lowerBound != null) {
+        idRange.gte(lowerBound);
+      }
+      if (upperBound != null) {
+        idRange.lt(upperBound);
+      }
+      criteria.andOperator(idRange);
+    }
+
+    Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id"));
+    return mongoTemplate.find(query, CardBalanceChange.class);
+  }
+
+  // Si ya hay un cambio más reciente (lo escribió el nuevo dueño del stream antes de que el anterior viera
+  // que perdió el lease), el filtro no coincide y el upsert choca con el _id existente: clave duplicada
+  // que aquí significa "ya al día".
+  private UpdateOneModel<Document> toUpsert(CardBalanceChange change) {
+    Document document = new Document();
+    mongoTemplate.getConverter().write(change, document);
+    Object id = document.remove("_id");
+
+    return new UpdateOneModel<>(
+      Filters.and(
+        Filters.eq("_id", id),
+        Filters.lte("changedAt", document.get("changedAt"))),
+      new Document("$set", document),
+      BulkWrites.UPSERT);
+  }
+}
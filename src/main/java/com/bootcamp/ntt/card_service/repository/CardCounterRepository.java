@@ -0,0 +1,11 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CardCounter;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CardCounterRepository extends ReactiveMongoRepository<CardCounter, String>,
+  CardCounterRepositoryCustom {
+}
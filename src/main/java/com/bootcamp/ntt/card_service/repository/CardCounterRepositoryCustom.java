@@ -0,0 +1,24 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.enums.CardType;
+
+import reactor.core.publisher.Mono;
+
+public interface CardCounterRepositoryCustom {
+
+  /**
+   * Suma delta al contador de forma atómica; lo crea si no existe.
+   */
+  Mono<Void> increment(CardType type, boolean active, long delta);
+
+  /**
+   * Fija el contador a actual solo si sigue valiendo expected; si otra escritura lo cambió entre
+   * medias devuelve false y se deja para la siguiente reconciliación.
+   */
+  Mono<Boolean> reconcile(CardType type, boolean active, long expected, long actual);
+
+  /**
+   * Count real sobre cards, para reconciliar.
+   */
+  Mono<Long> countCards(CardType type, boolean active);
+}
@@ -0,0 +1,62 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CardCounter;
+import com.bootcamp.ntt.card_service.enums.CardType;
+
+import java.time.Instant;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class CardCounterRepositoryCustomImpl implements CardCounterRepositoryCustom {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<Void> increment(CardType type, boolean active, long delta) {
+    Update update = new Update()
+      .inc("count", delta)
+      .set("updatedAt", Instant.now())
+      .setOnInsert("type", type)
+      .setOnInsert("active", active);
+
+    return mongoTemplate.upsert(byId(type, active), update, CardCounter.class).then();
+  }
+
+  @Override
+  public Mono<Boolean> reconcile(CardType type, boolean active, long expected, long actual) {
+    Query query = byId(type, active).addCriteria(Criteria.where("count").is(expected));
+
+    Update update = new Update()
+      .set("count", actual)
+      .set("reconciledAt", Instant.now())
+      .setOnInsert("type", type)
+      .setOnInsert("active", active);
+
+    // Si el documento no existe se crea con el valor real; si existe con otro count, el upsert
+    // intenta insertar el mismo _id y falla por clave duplicada: alguien lo cambió entre medias
+    return mongoTemplate.upsert(query, update, CardCounter.class)
+      .map(result -> result.getMatchedCount() > 0 || result.getUpsertedId() != null)
+      .onErrorReturn(DuplicateKeyException.class, false);
+  }
+
+  @Override
+  public Mono<Long> countCards(CardType type, boolean active) {
+    // Lo resuelve el índice type_1_isActive_1
+    Query query = new Query(Criteria.where("type").is(type.name()).and("isActive").is(active));
+
+    return mongoTemplate.count(query, CardIndexPlan.COLLECTION);
+  }
+
+  private static Query byId(CardType type, boolean active) {
+    return new Query(Criteria.where("_id").is(CardCounter.idFor(type, active)));
+  }
+}
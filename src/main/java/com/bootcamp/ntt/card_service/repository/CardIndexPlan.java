@@ -0,0 +1,64 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Índices declarados de la colección cards (compartida por crédito y débito). Cada consulta, derivada o
+ * de los fragmentos custom, debe tener un índice cuyo prefijo sean sus campos de igualdad seguidos de
+ * los de orden o rango; CardIndexPlanTest lo comprueba al añadir métodos nuevos.
+ */
+public final class CardIndexPlan {
+
+  public static final String COLLECTION = "cards";
+
+  public static final String CARD_NUMBER_INDEX = "cardNumber_1";
+
+  private CardIndexPlan() {
+  }
+
+  public static List<Index> indexes() {
+    return List.of(
+      // findByCardNumber, findExistingCardNumbers, reserveCredit, findAllCardNumbers (cubierta)
+      new Index().on("cardNumber", Sort.Direction.ASC).unique().named(CARD_NUMBER_INDEX),
+
+      // findByCustomerId, findByIsActiveAndCustomerIdAndType, countByCustomerIdAndIsActiveTrue,
+      // findActiveCardSummaries
+      new Index().on("customerId", Sort.Direction.ASC)
+        .on("isActive", Sort.Direction.ASC)
+        .on("type", Sort.Direction.ASC)
+        .named("customerId_1_isActive_1_type_1"),
+
+      // Tarjetas activas por tipo: findActiveByIdRange, findActiveAfterId, findActivePartitionBoundaries.
+      // Parcial: las inactivas no ocupan sitio en el índice más usado
+      new Index().on("type", Sort.Direction.ASC)
+        .on("_id", Sort.Direction.ASC)
+        .partial(PartialIndexFilter.of(Criteria.where("isActive").is(true)))
+        .named("type_1__id_1_active"),
+
+      // Tarjetas por tipo y rango de _id sin mirar isActive: findPartitionBoundaries, markOverdue, clearOverdue
+      new Index().on("type", Sort.Direction.ASC)
+        .on("_id", Sort.Direction.ASC)
+        .named("type_1__id_1"),
+
+      // findByIsActiveAndType / countByIsActiveAndType con isActive como parámetro (también false)
+      new Index().on("type", Sort.Direction.ASC)
+        .on("isActive", Sort.Direction.ASC)
+        .named("type_1_isActive_1"),
+
+      // findByPrimaryAccountId
+      new Index().on("primaryAccountId", Sort.Direction.ASC).named("primaryAccountId_1"),
+
+      // findByAssociatedAccountIdsContaining: multikey sobre el array
+      new Index().on("associatedAccountIds", Sort.Direction.ASC).named("associatedAccountIds_1"),
+
+      // findWithPendingPostings. Disperso: las tarjetas que nunca tuvieron envíos pendientes no ocupan sitio
+      new Index().on("pendingPostings.createdAt", Sort.Direction.ASC).sparse()
+        .named("pendingPostings.createdAt_1")
+    );
+  }
+}
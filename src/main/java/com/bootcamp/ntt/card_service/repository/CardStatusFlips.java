@@ -0,0 +1,26 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Cambio de isActive condicionado al estado contrario, común a crédito y débito. De dos cambios
+ * concurrentes solo uno coincide. Una tarjeta sin isActive cuenta como inactiva.
+ */
+final class CardStatusFlips {
+
+  private CardStatusFlips() {
+  }
+
+  static Query query(String cardId, boolean active) {
+    Criteria card = Criteria.where("_id").is(cardId);
+    return new Query(active ? card.and("isActive").ne(true) : card.and("isActive").is(true));
+  }
+
+  static Update update(boolean active) {
+    return new Update()
+      .set("isActive", active)
+      .currentDate("updatedAt");
+  }
+}
@@ -0,0 +1,35 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CardSummaryProjection;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Consultas sobre cards que cruzan ambos tipos de tarjeta; no pertenecen al repositorio de crédito
+ * ni al de débito.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardSummaryRepository {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  /**
+   * Tarjetas activas del cliente, de crédito y de débito, en una sola consulta y solo con los campos
+   * del resumen.
+   */
+  public Flux<CardSummaryProjection> findActiveCardSummaries(String customerId) {
+    // Sin filtro de tipo: la resuelve customerId_1_isActive_1_type_1
+    Query query = new Query(Criteria.where("customerId").is(customerId).and("isActive").is(true));
+    query.fields().include("cardNumber", "type", "isActive", "availableCredit", "currentBalance", "primaryAccountId");
+
+    return mongoTemplate.find(query, CardSummaryProjection.class, CardIndexPlan.COLLECTION);
+  }
+}
@@ -0,0 +1,28 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Capacidad de los formatos de fotos diarias que pueden arrastrar fotos de un día a otro sin sacarlas
+ * de Mongo. La captura por cambios solo se usa si el DailyBalanceStore activo la implementa.
+ */
+public interface CarryForwardStore {
+
+  /**
+   * Copia a toDate las fotos de fromDate de las tarjetas del rango de _id [lowerBound, upperBound)
+   * sin un cambio registrado en [changedSince, changedUntil), y las suma al acumulado mensual.
+   * Las fotos ya existentes no se tocan.
+   */
+  Mono<Void> carryForward(LocalDate fromDate, LocalDate toDate, String lowerBound, String upperBound,
+                          Instant changedSince, Instant changedUntil);
+
+  /**
+   * Clientes distintos con foto en date dentro del rango de _id [lowerBound, upperBound); tras un arrastre
+   * a un mes ya cerrado son los informes que hay que invalidar.
+   */
+  Flux<String> findCustomerIds(LocalDate date, String lowerBound, String upperBound);
+}
@@ -10,7 +10,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface CreditCardRepository extends ReactiveMongoRepository<CreditCard, String> {
+public interface CreditCardRepository extends ReactiveMongoRepository<CreditCard, String>, CreditCardRepositoryCustom {
   Flux<CreditCard> findByIsActiveAndType(Boolean isActive, CardType type);
   Flux<CreditCard> findByIsActiveAndCustomerIdAndType(Boolean isActive, String customerId, CardType type);
   Flux<CreditCard> findByCustomerId(String customerId);
@@ -0,0 +1,104 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.PendingPosting;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface CreditCardRepositoryCustom {
+
+  /**
+   * Mueve el monto de availableCredit a currentBalance y añade posting a pendingPostings en una sola
+   * escritura, solo si la tarjeta está activa y tiene crédito suficiente.
+   * Devuelve la tarjeta actualizada o vacío si la condición no se cumple.
+   */
+  Mono<CreditCard> reserveCredit(String cardNumber, BigDecimal amount, PendingPosting posting);
+
+  /**
+   * Pasa a Decimal128 los importes guardados como texto (formato anterior a reserveCredit).
+   * Con cardNumber null convierte todas las tarjetas de crédito; devuelve cuántas cambió.
+   */
+  Mono<Long> convertLegacyMoney(String cardNumber);
+
+  /**
+   * Hasta limit tarjetas con envíos en pendingPostings; solo se leen _id y pendingPostings.
+   */
+  Flux<CreditCard> findWithPendingPostings(int limit);
+
+  /**
+   * Quita de pendingPostings los envíos ya pasados al outbox.
+   */
+  Mono<Void> removePendingPostings(String cardId, List<String> postingIds);
+
+  /**
+   * Pago en una sola escritura: mueve el monto de currentBalance a availableCredit solo si la tarjeta
+   * está activa y su saldo pendiente cubre el monto. Devuelve la tarjeta actualizada o vacío si no aplica.
+   */
+  Mono<CreditCard> applyPayment(String cardNumber, BigDecimal amount);
+
+  /**
+   * Escribe con $set solo los importes no nulos, sin reescribir el resto del documento (los saldos pueden
+   * estar cambiando con $inc a la vez). Devuelve la tarjeta tal como estaba antes del cambio.
+   */
+  Mono<CreditCard> updateFields(String cardId, BigDecimal creditLimit, BigDecimal availableCredit,
+                                BigDecimal currentBalance);
+
+  /**
+   * Activa o desactiva la tarjeta con $set de isActive, solo si estaba en el estado contrario.
+   * Devuelve la tarjeta ya cambiada, o vacío si no existe o ya estaba así.
+   */
+  Mono<CreditCard> setActive(String cardId, boolean active);
+
+  /**
+   * Límites de _id que reparten las tarjetas de crédito activas en hasta "partitions" rangos de tamaño similar.
+   * Cada elemento es el _id inicial de un rango a partir del segundo.
+   */
+  Mono<List<String>> findActivePartitionBoundaries(int partitions);
+
+  /**
+   * Tarjetas de crédito activas con lowerBound <= _id < upperBound, ordenadas por _id. Un límite null no acota.
+   */
+  Flux<CreditCard> findActiveByIdRange(String lowerBound, String upperBound);
+
+  /**
+   * Igual que findActiveByIdRange pero excluyendo afterId; se usa para retomar desde un checkpoint.
+   */
+  Flux<CreditCard> findActiveAfterId(String afterId, String upperBound);
+
+  /**
+   * Como findActivePartitionBoundaries pero sobre todas las tarjetas de crédito, activas o no.
+   */
+  Mono<List<String>> findPartitionBoundaries(int partitions);
+
+  /**
+   * Números de la lista que ya usa alguna tarjeta, de cualquier tipo (cards es compartida).
+   */
+  Flux<String> findExistingCardNumbers(List<String> cardNumbers);
+
+  /**
+   * Todos los cardNumber de cards, de cualquier tipo y estado.
+   */
+  Flux<String> findAllCardNumbers();
+
+  /**
+   * Tamaño aproximado de cards a partir de los metadatos de la colección.
+   */
+  Mono<Long> estimateCardCount();
+
+  /**
+   * Marca en mora las tarjetas de crédito del rango de _id con paymentDueDate anterior a today y
+   * recalcula overdueDays, en un único update con pipeline. Solo toca las que cambian; devuelve cuántas.
+   */
+  Mono<Long> markOverdue(LocalDate today, String lowerBound, String upperBound);
+
+  /**
+   * Quita la mora a las tarjetas de crédito del rango de _id cuyo paymentDueDate aún no ha pasado.
+   * Devuelve cuántas cambiaron.
+   */
+  Mono<Long> clearOverdue(LocalDate today, String lowerBound, String upperBound);
+}
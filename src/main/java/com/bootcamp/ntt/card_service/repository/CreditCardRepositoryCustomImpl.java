@@ -0,0 +1,279 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.PendingPosting;
+import com.bootcamp.ntt.card_service.enums.CardType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class CreditCardRepositoryCustomImpl implements CreditCardRepositoryCustom {
+
+  private static final List<String> LEGACY_MONEY_FIELDS = List.of("availableCredit", "creditLimit", "currentBalance");
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<CreditCard> reserveCredit(String cardNumber, BigDecimal amount, PendingPosting posting) {
+    Decimal128 decimalAmount = new Decimal128(amount);
+
+    Query query = new Query(Criteria.where("cardNumber").is(cardNumber)
+      .and("type").is(CardType.CREDIT)
+      .and("isActive").is(true)
+      .and("availableCredit").gte(decimalAmount));
+
+    Update update = new Update()
+      .inc("availableCredit", new Decimal128(amount.negate()))
+      .inc("currentBalance", decimalAmount)
+      .push("pendingPostings", posting)
+      .currentDate("updatedAt");
+
+    return modifyConvertingLegacyMoney(cardNumber, query, update);
+  }
+
+  @Override
+  public Mono<Long> convertLegacyMoney(String cardNumber) {
+    Document filter = new Document("type", CardType.CREDIT.name())
+      .append("$or", LEGACY_MONEY_FIELDS.stream()
+        .map(field -> new Document(field, new Document("$type", "string")))
+        .collect(Collectors.toList()));
+    if (cardNumber != null) {
+      filter.append("cardNumber", cardNumber);
+    }
+
+    // $toDecimal deja igual los valores que ya son Decimal128 y los null
+    Document converted = new Document();
+    LEGACY_MONEY_FIELDS.forEach(field -> converted.append(field, new Document("$toDecimal", "$" + field)));
+    List<Document> update = Collections.singletonList(new Document("$set", converted));
+
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(CreditCard.class))
+      .flatMap(collection -> Mono.from(collection.updateMany(filter, update)))
+      .map(result -> result.getModifiedCount());
+  }
+
+  @Override
+  public Flux<CreditCard> findWithPendingPostings(int limit) {
+    Query query = new Query(Criteria.where("pendingPostings.createdAt").exists(true)).limit(limit);
+    query.fields().include("pendingPostings");
+
+    return mongoTemplate.find(query, CreditCard.class);
+  }
+
+  @Override
+  public Mono<Void> removePendingPostings(String cardId, List<String> postingIds) {
+    Update update = new Update().pull("pendingPostings",
+      new Document("postingId", new Document("$in", postingIds)));
+
+    return mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(cardId)), update, CreditCard.class)
+      .then();
+  }
+
+  @Override
+  public Mono<CreditCard> applyPayment(String cardNumber, BigDecimal amount) {
+    Decimal128 decimalAmount = new Decimal128(amount);
+
+    Query query = new Query(Criteria.where("cardNumber").is(cardNumber)
+      .and("type").is(CardType.CREDIT)
+      .and("isActive").is(true)
+      .and("currentBalance").gte(decimalAmount));
+
+    Update update = new Update()
+      .inc("availableCredit", decimalAmount)
+      .inc("currentBalance", new Decimal128(amount.negate()))
+      .currentDate("updatedAt");
+
+    return modifyConvertingLegacyMoney(cardNumber, query, update);
+  }
+
+  @Override
+  public Mono<CreditCard> updateFields(String cardId, BigDecimal creditLimit, BigDecimal availableCredit,
+                                       BigDecimal currentBalance) {
+    Update update = new Update().currentDate("updatedAt");
+    if (creditLimit != null) {
+      update.set("creditLimit", new Decimal128(creditLimit));
+    }
+    if (availableCredit != null) {
+      update.set("availableCredit", new Decimal128(availableCredit));
+    }
+    if (currentBalance != null) {
+      update.set("currentBalance", new Decimal128(currentBalance));
+    }
+
+    return mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(cardId)), update,
+      FindAndModifyOptions.options().returnNew(false), CreditCard.class);
+  }
+
+  @Override
+  public Mono<CreditCard> setActive(String cardId, boolean active) {
+    return mongoTemplate.findAndModify(CardStatusFlips.query(cardId, active), CardStatusFlips.update(active),
+      FindAndModifyOptions.options().returnNew(true), CreditCard.class);
+  }
+
+  // Una tarjeta antigua con importes en texto nunca cumple el $gte: se convierte y se reintenta una vez
+  private Mono<CreditCard> modifyConvertingLegacyMoney(String cardNumber, Query query, Update update) {
+    return mongoTemplate.findAndModify(query, update,
+        FindAndModifyOptions.options().returnNew(true), CreditCard.class)
+      .switchIfEmpty(Mono.defer(() -> convertLegacyMoney(cardNumber)
+        .filter(converted -> converted > 0)
+        .flatMap(converted -> mongoTemplate.findAndModify(query, update,
+          FindAndModifyOptions.options().returnNew(true), CreditCard.class))));
+  }
+
+  @Override
+  public Mono<List<String>> findActivePartitionBoundaries(int partitions) {
+    return findPartitionBoundaries(activeCreditCards(), partitions);
+  }
+
+  @Override
+  public Mono<List<String>> findPartitionBoundaries(int partitions) {
+    return findPartitionBoundaries(Criteria.where("type").is(CardType.CREDIT), partitions);
+  }
+
+  @Override
+  public Flux<String> findExistingCardNumbers(List<String> cardNumbers) {
+    Query query = new Query(Criteria.where("cardNumber").in(cardNumbers));
+    query.fields().include("cardNumber").exclude("_id");
+
+    return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(CreditCard.class))
+      .map(card -> card.getString("cardNumber"));
+  }
+
+  @Override
+  public Flux<String> findAllCardNumbers() {
+    // Consulta cubierta: el rango desde "" solo admite textos, así que los documentos sin número
+    // quedan fuera y Mongo responde desde cardNumber_1 sin leer ningún documento
+    Query query = new Query(Criteria.where("cardNumber").gte(""))
+      .withHint(CardIndexPlan.CARD_NUMBER_INDEX);
+    query.fields().include("cardNumber").exclude("_id");
+
+    return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(CreditCard.class))
+      .map(card -> card.getString("cardNumber"));
+  }
+
+  @Override
+  public Mono<Long> estimateCardCount() {
+    return mongoTemplate.estimatedCount(CreditCard.class);
+  }
+
+  @Override
+  public Mono<Long> markOverdue(LocalDate today, String lowerBound, String upperBound) {
+    Object todayValue = mongoTemplate.getConverter().convertToMongoType(today);
+
+    // Días completos entre el vencimiento y hoy; $round absorbe los días de 23 o 25 horas por horario de verano
+    Document overdueDays = new Document("$toInt", new Document("$round", Arrays.asList(
+      new Document("$divide", Arrays.asList(
+        new Document("$subtract", Arrays.asList(todayValue, "$paymentDueDate")), 86_400_000L)),
+      0)));
+
+    Document filter = creditCardsInRange(lowerBound, upperBound)
+      .append("paymentDueDate", new Document("$lt", todayValue))
+      .append("$expr", new Document("$or", Arrays.asList(
+        new Document("$ne", Arrays.asList("$isOverdue", true)),
+        new Document("$ne", Arrays.asList("$overdueDays", overdueDays)))));
+
+    List<Document> update = Collections.singletonList(new Document("$set", new Document()
+      .append("isOverdue", new Document("$literal", true))
+      .append("overdueDays", overdueDays)
+      .append("updatedAt", "$$NOW")));
+
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(CreditCard.class))
+      .flatMap(collection -> Mono.from(collection.updateMany(filter, update)))
+      .map(result -> result.getModifiedCount());
+  }
+
+  @Override
+  public Mono<Long> clearOverdue(LocalDate today, String lowerBound, String upperBound) {
+    Document filter = creditCardsInRange(lowerBound, upperBound)
+      .append("paymentDueDate", new Document("$gte", mongoTemplate.getConverter().convertToMongoType(today)))
+      .append("$or", Arrays.asList(
+        new Document("isOverdue", new Document("$ne", false)),
+        new Document("overdueDays", new Document("$ne", 0))));
+
+    Document update = new Document()
+      .append("$set", new Document("isOverdue", false).append("overdueDays", 0))
+      .append("$currentDate", new Document("updatedAt", true));
+
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(CreditCard.class))
+      .flatMap(collection -> Mono.from(collection.updateMany(filter, update)))
+      .map(result -> result.getModifiedCount());
+  }
+
+  private Mono<List<String>> findPartitionBoundaries(Criteria cards, int partitions) {
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(cards),
+        Aggregation.bucketAuto("_id", partitions))
+      .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+    // $bucketAuto devuelve los rangos ordenados; el mínimo del primero no hace falta
+    return mongoTemplate.aggregate(aggregation, CreditCard.class, Document.class)
+      .map(bucket -> String.valueOf(bucket.get("_id", Document.class).get("min")))
+      .skip(1)
+      .collectList();
+  }
+
+  @Override
+  public Flux<CreditCard> findActiveByIdRange(String lowerBound, String upperBound) {
+    Criteria idRange = Criteria.where("_id");
+    if (lowerBound != null) {
+      idRange.gte(lowerBound);
+    }
+    return findActiveInRange(idRange, lowerBound != null, upperBound);
+  }
+
+  @Override
+  public Flux<CreditCard> findActiveAfterId(String afterId, String upperBound) {
+    return findActiveInRange(Criteria.where("_id").gt(afterId), true, upperBound);
+  }
+
+  private Flux<CreditCard> findActiveInRange(Criteria idRange, boolean lowerBounded, String upperBound) {
+    Criteria criteria = activeCreditCards();
+    if (upperBound != null) {
+      idRange.lt(upperBound);
+    }
+    if (lowerBounded || upperBound != null) {
+      criteria.andOperator(idRange);
+    }
+
+    Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id"));
+    return mongoTemplate.find(query, CreditCard.class);
+  }
+
+  // Filtro en crudo para el driver: el _id se guarda como ObjectId y type como texto
+  private Document creditCardsInRange(String lowerBound, String upperBound) {
+    Document filter = new Document("type", CardType.CREDIT.name());
+    Document idRange = new Document();
+    if (lowerBound != null) {
+      idRange.append("$gte", mongoTemplate.getConverter().convertId(lowerBound, ObjectId.class));
+    }
+    if (upperBound != null) {
+      idRange.append("$lt", mongoTemplate.getConverter().convertId(upperBound, ObjectId.class));
+    }
+    return idRange.isEmpty() ? filter : filter.append("_id", idRange);
+  }
+
+  private Criteria activeCreditCards() {
+    return Criteria.where("type").is(CardType.CREDIT).and("isActive").is(true);
+  }
+}
@@ -0,0 +1,180 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.DailyBalanceBucket;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Formato por buckets: un documento por tarjeta y mes en daily_balance_buckets. No implementa
+ * CarryForwardStore: el arrastre escribiría posiciones sueltas de otro bucket, así que se captura entero.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyBalanceBucketStore implements DailyBalanceStore {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<Integer> saveAll(List<DailyBalance> balances) {
+    if (balances.isEmpty()) {
+      return Mono.just(0);
+    }
+
+    Map<String, DailyBalance> firstByBucket = new LinkedHashMap<>();
+    balances.forEach(balance -> firstByBucket.putIfAbsent(
+      DailyBalanceBucket.idOf(balance.getCardId(), balance.getDate()), balance));
+
+    List<UpdateOneModel<Document>> buckets = firstByBucket.entrySet().stream()
+      .map(entry -> toBucketUpsert(entry.getKey(), entry.getValue()))
+      .collect(Collectors.toList());
+    List<UpdateOneModel<Document>> days = balances.stream()
+      .map(this::toDaySet)
+      .collect(Collectors.toList());
+
+    // Primero se asegura el bucket con sus 31 posiciones; luego se llena cada día si sigue vacío
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(DailyBalanceBucket.class))
+      .flatMap(collection -> Mono.from(collection.bulkWrite(buckets, BulkWrites.UNORDERED))
+        .onErrorResume(MongoBulkWriteException.class, error -> BulkWrites.onlyDuplicateKeys(error)
+          ? Mono.just(error.getWriteResult())
+          : Mono.error(error))
+        .then(Mono.from(collection.bulkWrite(days, BulkWrites.UNORDERED))))
+      .map(result -> result.getModifiedCount());
+  }
+
+  @Override
+  public Flux<DailyBalance> findByCustomerIdAndDateBetween(String customerId, LocalDate startDate,
+                                                           LocalDate endDate) {
+    Query query = new Query(Criteria.where("customerId").is(customerId)
+      .and("period").gte(DailyBalanceBucket.periodOf(startDate)).lte(DailyBalanceBucket.periodOf(endDate)));
+
+    return mongoTemplate.find(query, DailyBalanceBucket.class)
+      .flatMapIterable(this::toDailyBalances)
+      .filter(balance -> !balance.getDate().isBefore(startDate) && !balance.getDate().isAfter(endDate));
+  }
+
+  @Override
+  public Flux<MonthlyBalanceAggregate> aggregateByCard(String customerId, LocalDate startDate, LocalDate endDate) {
+    // Las posiciones sin captura son null y no pasan el filtro por fecha tras el $unwind
+    TypedAggregation<DailyBalanceBucket> aggregation = Aggregation.newAggregation(DailyBalanceBucket.class,
+      Aggregation.match(Criteria.where("customerId").is(customerId)
+        .and("period").gte(DailyBalanceBucket.periodOf(startDate)).lte(DailyBalanceBucket.periodOf(endDate))),
+      Aggregation.unwind("days"),
+      Aggregation.match(Criteria.where("days.date").gte(startDate).lte(endDate)),
+      Aggregation.group("cardId")
+        .first("cardNumber").as("cardNumber")
+        .sum("days.currentBalance").as("sumCurrentBalance")
+        .sum("days.availableCredit").as("sumAvailableCredit")
+        .count().as("dayCount"),
+      Aggregation.project("cardNumber", "sumCurrentBalance", "sumAvailableCredit", "dayCount")
+        .and("_id").as("cardId"));
+
+    return mongoTemplate.aggregate(aggregation, MonthlyBalanceAggregate.class);
+  }
+
+  @Override
+  public Mono<Void> rebuildMonthlyAggregates(YearMonth period) {
+    List<Document> pipeline = new ArrayList<>();
+    if (period != null) {
+      pipeline.add(new Document("$match", new Document("period", period.toString())));
+    }
+    pipeline.add(new Document("$unwind", "$days"));
+    pipeline.add(new Document("$match", new Document("days", new Document("$ne", null))));
+    pipeline.add(new Document("$group", new Document()
+      .append("_id", "$_id")
+      .append("customerId", new Document("$first", "$customerId"))
+      .append("cardId", new Document("$first", "$cardId"))
+      .append("cardNumber", new Document("$first", "$cardNumber"))
+      .append("period", new Document("$first", "$period"))
+      .append("sumCurrentBalance", new Document("$sum",
+        MonthlyAggregateRebuild.toDecimal("$days.currentBalance")))
+      .append("sumAvailableCredit", new Document("$sum",
+        MonthlyAggregateRebuild.toDecimal("$days.availableCredit")))
+      .append("days", new Document("$addToSet", MonthlyAggregateRebuild.dayOfMonth("$days.date")))));
+    pipeline.add(MonthlyAggregateRebuild.toAggregate("$cardId", "$period"));
+    pipeline.add(MonthlyAggregateRebuild.merge(mongoTemplate.getCollectionName(MonthlyBalanceAggregate.class)));
+
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(DailyBalanceBucket.class))
+      .flatMap(collection -> Mono.from(collection.aggregate(pipeline).allowDiskUse(true).toCollection()));
+  }
+
+  private UpdateOneModel<Document> toBucketUpsert(String bucketId, DailyBalance balance) {
+    Document bucket = new Document()
+      .append("customerId", balance.getCustomerId())
+      .append("cardId", balance.getCardId())
+      .append("cardNumber", balance.getCardNumber())
+      .append("period", DailyBalanceBucket.periodOf(balance.getDate()))
+      .append("days", Collections.nCopies(DailyBalanceBucket.DAYS_PER_BUCKET, null));
+
+    return new UpdateOneModel<>(Filters.eq("_id", bucketId), new Document("$setOnInsert", bucket), BulkWrites.UPSERT);
+  }
+
+  // Solo escribe la posición si está vacía: se conserva la primera captura del día
+  private UpdateOneModel<Document> toDaySet(DailyBalance balance) {
+    DailyBalanceBucket.DayBalance day = new DailyBalanceBucket.DayBalance();
+    day.setDate(balance.getDate());
+    day.setCurrentBalance(balance.getCurrentBalance());
+    day.setAvailableCredit(balance.getAvailableCredit());
+    day.setCreditLimit(balance.getCreditLimit());
+    day.setCapturedAt(balance.getCapturedAt());
+
+    Document dayDocument = new Document();
+    mongoTemplate.getConverter().write(day, dayDocument);
+    dayDocument.remove("_class");
+
+    String position = "days." + (balance.getDate().getDayOfMonth() - 1);
+    return new UpdateOneModel<>(
+      Filters.and(
+        Filters.eq("_id", DailyBalanceBucket.idOf(balance.getCardId(), balance.getDate())),
+        Filters.eq(position, null)),
+      new Document("$set", new Document(position, dayDocument)));
+  }
+
+  private List<DailyBalance> toDailyBalances(DailyBalanceBucket bucket) {
+    List<DailyBalance> balances = new ArrayList<>();
+    if (bucket.getDays() == null) {
+      return balances;
+    }
+
+    for (DailyBalanceBucket.DayBalance day : bucket.getDays()) {
+      if (day == null) {
+        continue;
+      }
+      DailyBalance balance = new DailyBalance();
+      balance.setCustomerId(bucket.getCustomerId());
+      balance.setCardId(bucket.getCardId());
+      balance.setCardNumber(bucket.getCardNumber());
+      balance.setDate(day.getDate());
+      balance.setCurrentBalance(day.getCurrentBalance());
+      balance.setAvailableCredit(day.getAvailableCredit());
+      balance.setCreditLimit(day.getCreditLimit());
+      balance.setCapturedAt(day.getCapturedAt());
+      balances.add(balance);
+    }
+    return balances;
+  }
+}
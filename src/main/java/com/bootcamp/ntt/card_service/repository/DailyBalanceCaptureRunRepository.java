@@ -0,0 +1,10 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalanceCaptureRun;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DailyBalanceCaptureRunRepository extends ReactiveMongoRepository<DailyBalanceCaptureRun, String> {
+}
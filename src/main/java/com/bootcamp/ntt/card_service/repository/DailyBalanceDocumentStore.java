@@ -0,0 +1,59 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Formato original: un documento por tarjeta y día en daily_balances.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyBalanceDocumentStore implements DailyBalanceStore, CarryForwardStore {
+
+  private final DailyBalanceRepository dailyBalanceRepository;
+
+  @Override
+  public Mono<Integer> saveAll(List<DailyBalance> balances) {
+    return dailyBalanceRepository.upsertAll(balances);
+  }
+
+  @Override
+  public Flux<DailyBalance> findByCustomerIdAndDateBetween(String customerId, LocalDate startDate,
+                                                           LocalDate endDate) {
+    return dailyBalanceRepository.findByCustomerIdAndDateBetween(customerId, startDate, endDate);
+  }
+
+  @Override
+  public Flux<MonthlyBalanceAggregate> aggregateByCard(String customerId, LocalDate startDate, LocalDate endDate) {
+    return dailyBalanceRepository.aggregateByCard(customerId, startDate, endDate);
+  }
+
+  @Override
+  public Mono<Void> carryForward(LocalDate fromDate, LocalDate toDate, String lowerBound, String upperBound,
+                                 Instant changedSince, Instant changedUntil) {
+    return dailyBalanceRepository.carryForward(fromDate, toDate, lowerBound, upperBound, changedSince,
+      changedUntil);
+  }
+
+  @Override
+  public Flux<String> findCustomerIds(LocalDate date, String lowerBound, String upperBound) {
+    return dailyBalanceRepository.findCustomerIds(date, lowerBound, upperBound);
+  }
+
+  @Override
+  public Mono<Void> rebuildMonthlyAggregates(YearMonth period) {
+    return dailyBalanceRepository.rebuildMonthlyAggregates(period);
+  }
+}
@@ -0,0 +1,21 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalancePartition;
+import com.bootcamp.ntt.card_service.enums.PartitionStatus;
+
+import java.time.LocalDate;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface DailyBalancePartitionRepository
+  extends ReactiveMongoRepository<DailyBalancePartition, String>, DailyBalancePartitionRepositoryCustom {
+
+  Flux<DailyBalancePartition> findByDateOrderByIndexAsc(LocalDate date);
+
+  Mono<Long> countByDateAndStatusNot(LocalDate date, PartitionStatus status);
+}
@@ -0,0 +1,41 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalancePartition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import reactor.core.publisher.Mono;
+
+public interface DailyBalancePartitionRepositoryCustom {
+
+  /**
+   * Toma de forma exclusiva la siguiente partición pendiente (o con lease vencido), la más antigua primero.
+   * Vacío si no queda ninguna.
+   */
+  Mono<DailyBalancePartition> claimNext(String owner, Instant now, Duration lease);
+
+  /**
+   * Extiende el lease; false si la partición ya no pertenece a este owner.
+   */
+  Mono<Boolean> renewLease(String id, String owner, Instant leaseUntil);
+
+  /**
+   * Guarda el avance tras escribir un bloque y extiende el lease; false si la partición ya no es de este owner.
+   */
+  Mono<Boolean> saveCheckpoint(String id, String owner, String checkpoint, long processed, long captured,
+                               Instant leaseUntil);
+
+  Mono<Boolean> markCompleted(String id, String owner, Instant completedAt);
+
+  /**
+   * Devuelve la partición a PENDING para que otra instancia la reintente a partir de retryAt.
+   */
+  Mono<Void> release(String id, String owner, Instant retryAt);
+
+  /**
+   * Quita la espera de reintento a las particiones pendientes de una fecha; devuelve cuántas cambiaron.
+   */
+  Mono<Long> makeDue(LocalDate date, Instant now);
+}
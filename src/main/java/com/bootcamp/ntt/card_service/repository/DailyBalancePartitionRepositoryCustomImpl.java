@@ -0,0 +1,100 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalancePartition;
+import com.bootcamp.ntt.card_service.enums.PartitionStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class DailyBalancePartitionRepositoryCustomImpl implements DailyBalancePartitionRepositoryCustom {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<DailyBalancePartition> claimNext(String owner, Instant now, Duration lease) {
+    // PROCESSING con lease vencido indica una instancia caída a mitad de la partición
+    Query query = new Query(Criteria.where("status").in(PartitionStatus.PENDING, PartitionStatus.PROCESSING)
+      .and("leaseUntil").lte(now))
+      .with(Sort.by(Sort.Direction.ASC, "date", "index"));
+
+    Update update = new Update()
+      .set("status", PartitionStatus.PROCESSING)
+      .set("owner", owner)
+      .set("leaseUntil", now.plus(lease))
+      .inc("attempts", 1);
+
+    return mongoTemplate.findAndModify(query, update,
+      FindAndModifyOptions.options().returnNew(true), DailyBalancePartition.class);
+  }
+
+  @Override
+  public Mono<Boolean> renewLease(String id, String owner, Instant leaseUntil) {
+    Update update = new Update().set("leaseUntil", leaseUntil);
+
+    return mongoTemplate.updateFirst(ownedBy(id, owner), update, DailyBalancePartition.class)
+      .map(result -> result.getModifiedCount() > 0);
+  }
+
+  @Override
+  public Mono<Boolean> saveCheckpoint(String id, String owner, String checkpoint, long processed, long captured,
+                                      Instant leaseUntil) {
+    Update update = new Update()
+      .set("checkpoint", checkpoint)
+      .inc("processedCount", processed)
+      .inc("capturedCount", captured)
+      .set("leaseUntil", leaseUntil);
+
+    return mongoTemplate.updateFirst(ownedBy(id, owner), update, DailyBalancePartition.class)
+      .map(result -> result.getModifiedCount() > 0);
+  }
+
+  @Override
+  public Mono<Boolean> markCompleted(String id, String owner, Instant completedAt) {
+    Update update = new Update()
+      .set("status", PartitionStatus.COMPLETED)
+      .set("completedAt", completedAt)
+      .unset("leaseUntil");
+
+    return mongoTemplate.updateFirst(ownedBy(id, owner), update, DailyBalancePartition.class)
+      .map(result -> result.getModifiedCount() > 0);
+  }
+
+  @Override
+  public Mono<Void> release(String id, String owner, Instant retryAt) {
+    Update update = new Update()
+      .set("status", PartitionStatus.PENDING)
+      .set("leaseUntil", retryAt)
+      .unset("owner");
+
+    return mongoTemplate.updateFirst(ownedBy(id, owner), update, DailyBalancePartition.class).then();
+  }
+
+  @Override
+  public Mono<Long> makeDue(LocalDate date, Instant now) {
+    Query query = new Query(Criteria.where("date").is(date)
+      .and("status").is(PartitionStatus.PENDING)
+      .and("leaseUntil").gt(now));
+
+    return mongoTemplate.updateMulti(query, new Update().set("leaseUntil", now), DailyBalancePartition.class)
+      .map(result -> result.getModifiedCount());
+  }
+
+  private Query ownedBy(String id, String owner) {
+    return new Query(Criteria.where("_id").is(id)
+      .and("status").is(PartitionStatus.PROCESSING)
+      .and("owner").is(owner));
+  }
+}
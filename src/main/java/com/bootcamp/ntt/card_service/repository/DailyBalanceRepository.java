@@ -8,12 +8,10 @@ import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 @Repository
-public interface DailyBalanceRepository extends ReactiveMongoRepository<DailyBalance, String> {
+public interface DailyBalanceRepository
+  extends ReactiveMongoRepository<DailyBalance, String>, DailyBalanceRepositoryCustom {
 
   Flux<DailyBalance> findByCustomerIdAndDateBetween(String customerId, LocalDate startDate, LocalDate endDate);
-
-  Mono<Boolean> existsByCardIdAndDate(String cardId, LocalDate date);
 }
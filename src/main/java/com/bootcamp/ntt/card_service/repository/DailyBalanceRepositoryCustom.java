@@ -0,0 +1,45 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface DailyBalanceRepositoryCustom {
+
+  /**
+   * Upsert en bloque (unordered) por {customerId, cardId, date}; las fotos ya capturadas no se tocan.
+   * Devuelve cuántas se insertaron.
+   */
+  Mono<Integer> upsertAll(List<DailyBalance> balances);
+
+  /**
+   * Suma en Mongo las fotos del cliente entre ambas fechas, un resultado por tarjeta
+   * con la misma forma que el acumulado mensual.
+   */
+  Flux<MonthlyBalanceAggregate> aggregateByCard(String customerId, LocalDate startDate, LocalDate endDate);
+
+  /**
+   * Copia con $merge las fotos de fromDate del rango de tarjetas a toDate, salvo las que tienen un cambio
+   * en [changedSince, changedUntil), y las suma al acumulado mensual. Ningún documento sale de Mongo.
+   */
+  Mono<Void> carryForward(LocalDate fromDate, LocalDate toDate, String lowerBound, String upperBound,
+                          Instant changedSince, Instant changedUntil);
+
+  /**
+   * customerId distintos de las fotos de date en el rango de tarjetas [lowerBound, upperBound).
+   */
+  Flux<String> findCustomerIds(LocalDate date, String lowerBound, String upperBound);
+
+  /**
+   * Recalcula con $group/$merge el acumulado mensual de period (de todos los meses si es null)
+   * a partir de las fotos diarias.
+   */
+  Mono<Void> rebuildMonthlyAggregates(YearMonth period);
+}
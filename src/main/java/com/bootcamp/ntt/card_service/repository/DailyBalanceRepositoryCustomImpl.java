@@ -0,0 +1,255 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CardBalanceChange;
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class DailyBalanceRepositoryCustomImpl implements DailyBalanceRepositoryCustom {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<Integer> upsertAll(List<DailyBalance> balances) {
+    if (balances.isEmpty()) {
+      return Mono.just(0);
+    }
+
+    List<UpdateOneModel<Document>> writes = balances.stream()
+      .map(this::toUpsert)
+      .collect(Collectors.toList());
+
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(DailyBalance.class))
+      .flatMap(collection -> Mono.from(collection.bulkWrite(writes, BulkWrites.UNORDERED)))
+      .map(result -> result.getUpserts().size())
+      .onErrorResume(MongoBulkWriteException.class, error -> BulkWrites.onlyDuplicateKeys(error)
+        ? Mono.just(error.getWriteResult().getUpserts().size())
+        : Mono.error(error));
+  }
+
+  @Override
+  public Flux<MonthlyBalanceAggregate> aggregateByCard(String customerId, LocalDate startDate, LocalDate endDate) {
+    // $toDecimal cubre fotos guardadas como texto y como Decimal128; $sum ignora los nulos
+    TypedAggregation<DailyBalance> aggregation = Aggregation.newAggregation(DailyBalance.class,
+      Aggregation.match(Criteria.where("customerId").is(customerId).and("date").gte(startDate).lte(endDate)),
+      Aggregation.group("cardId")
+        .first("cardNumber").as("cardNumber")
+        .sum(ConvertOperators.valueOf("currentBalance").convertToDecimal()).as("sumCurrentBalance")
+        .sum(ConvertOperators.valueOf("availableCredit").convertToDecimal()).as("sumAvailableCredit")
+        .count().as("dayCount"),
+      Aggregation.project("cardNumber", "sumCurrentBalance", "sumAvailableCredit", "dayCount")
+        .and("_id").as("cardId"));
+
+    return mongoTemplate.aggregate(aggregation, MonthlyBalanceAggregate.class);
+  }
+
+  @Override
+  public Mono<Void> carryForward(LocalDate fromDate, LocalDate toDate, String lowerBound, String upperBound,
+                                 Instant changedSince, Instant changedUntil) {
+    Document cardId = new Document();
+    if (lowerBound != null) {
+      cardId.append("$gte", lowerBound);
+    }
+    if (upperBound != null) {
+      cardId.append("$lt", upperBound);
+    }
+    Document match = new Document("date", mongoTemplate.getConverter().convertToMongoType(fromDate));
+    if (!cardId.isEmpty()) {
+      match.append("cardId", cardId);
+    }
+    List<Document> previousSnapshots = new ArrayList<>();
+    previousSnapshots.add(new Document("$match", match));
+    previousSnapshots.addAll(withoutChanges(changedSince, changedUntil));
+
+    // Primero el acumulado: ambos pasos son idempotentes, así que un reintento tras un fallo
+    // parcial rehace lo que falte sin duplicar
+    return merge(concat(previousSnapshots, toMonthlyAggregate(toDate), mergeIntoMonthlyAggregates(toDate)))
+      .then(merge(concat(previousSnapshots, toSnapshot(toDate), mergeIntoSnapshots())));
+  }
+
+  @Override
+  public Flux<String> findCustomerIds(LocalDate date, String lowerBound, String upperBound) {
+    Criteria criteria = Criteria.where("date").is(date);
+    if (lowerBound != null && upperBound != null) {
+      criteria.and("cardId").gte(lowerBound).lt(upperBound);
+    } else if (lowerBound != null) {
+      criteria.and("cardId").gte(lowerBound);
+    } else if (upperBound != null) {
+      criteria.and("cardId").lt(upperBound);
+    }
+
+    return mongoTemplate.findDistinct(new Query(criteria), "customerId", DailyBalance.class, String.class);
+  }
+
+  // Anti-join contra card_balance_changes por su índice de _id: se descartan las tarjetas con un cambio
+  // en [since, until). El _id de los cambios es ObjectId y cardId un String, de ahí el $convert
+  private List<Document> withoutChanges(Instant since, Instant until) {
+    Document changedAt = new Document()
+      .append("$gte", mongoTemplate.getConverter().convertToMongoType(since))
+      .append("$lt", mongoTemplate.getConverter().convertToMongoType(until));
+
+    return Arrays.asList(
+      new Document("$addFields", new Document("changeId", new Document("$convert", new Document()
+        .append("input", "$cardId")
+        .append("to", "objectId")
+        .append("onError", "$cardId")))),
+      new Document("$lookup", new Document()
+        .append("from", mongoTemplate.getCollectionName(CardBalanceChange.class))
+        .append("localField", "changeId")
+        .append("foreignField", "_id")
+        .append("as", "changes")),
+      new Document("$match", new Document("changes",
+        new Document("$not", new Document("$elemMatch", new Document("changedAt", changedAt))))));
+  }
+
+  private List<Document> concat(List<Document> head, Document... tail) {
+    List<Document> pipeline = new ArrayList<>(head);
+    pipeline.addAll(Arrays.asList(tail));
+    return pipeline;
+  }
+
+  @Override
+  public Mono<Void> rebuildMonthlyAggregates(YearMonth period) {
+    List<Document> pipeline = new ArrayList<>();
+    if (period != null) {
+      pipeline.add(new Document("$match", new Document("date", new Document()
+        .append("$gte", mongoTemplate.getConverter().convertToMongoType(period.atDay(1)))
+        .append("$lte", mongoTemplate.getConverter().convertToMongoType(period.atEndOfMonth())))));
+    }
+
+    Document month = new Document("$dateToString", new Document()
+      .append("format", "%Y-%m")
+      .append("date", "$date")
+      .append("timezone", MonthlyAggregateRebuild.ZONE));
+    pipeline.add(new Document("$group", new Document()
+      .append("_id", new Document("cardId", "$cardId").append("period", month))
+      .append("customerId", new Document("$first", "$customerId"))
+      .append("cardNumber", new Document("$first", "$cardNumber"))
+      .append("sumCurrentBalance", new Document("$sum", toDecimal("$currentBalance")))
+      .append("sumAvailableCredit", new Document("$sum", toDecimal("$availableCredit")))
+      .append("days", new Document("$addToSet", MonthlyAggregateRebuild.dayOfMonth("$date")))));
+    pipeline.add(MonthlyAggregateRebuild.toAggregate("$_id.cardId", "$_id.period"));
+    pipeline.add(MonthlyAggregateRebuild.merge(mongoTemplate.getCollectionName(MonthlyBalanceAggregate.class)));
+
+    return merge(pipeline);
+  }
+
+  private Mono<Void> merge(List<Document> pipeline) {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(DailyBalance.class))
+      .flatMap(collection -> Mono.from(collection.aggregate(pipeline).allowDiskUse(true).toCollection()));
+  }
+
+  private Document toSnapshot(LocalDate toDate) {
+    return new Document("$project", new Document()
+      .append("_id", 0)
+      .append("_class", 1)
+      .append("customerId", 1)
+      .append("cardId", 1)
+      .append("cardNumber", 1)
+      .append("date", new Document("$literal", mongoTemplate.getConverter().convertToMongoType(toDate)))
+      .append("currentBalance", 1)
+      .append("availableCredit", 1)
+      .append("creditLimit", 1)
+      .append("capturedAt", new Document("$literal",
+        mongoTemplate.getConverter().convertToMongoType(LocalDateTime.now()))));
+  }
+
+  // Requiere el índice único {customerId, cardId, date}; la foto ya capturada del día se conserva
+  private Document mergeIntoSnapshots() {
+    return new Document("$merge", new Document()
+      .append("into", mongoTemplate.getCollectionName(DailyBalance.class))
+      .append("on", Arrays.asList("customerId", "cardId", "date"))
+      .append("whenMatched", "keepExisting")
+      .append("whenNotMatched", "insert"));
+  }
+
+  private Document toMonthlyAggregate(LocalDate toDate) {
+    String period = String.format(":%04d-%02d", toDate.getYear(), toDate.getMonthValue());
+
+    return new Document("$project", new Document()
+      .append("_id", new Document("$concat", Arrays.asList("$cardId", period)))
+      .append("customerId", 1)
+      .append("cardId", 1)
+      .append("cardNumber", 1)
+      .append("year", new Document("$literal", toDate.getYear()))
+      .append("month", new Document("$literal", toDate.getMonthValue()))
+      .append("sumCurrentBalance", toDecimal("$currentBalance"))
+      .append("sumAvailableCredit", toDecimal("$availableCredit"))
+      .append("dayCount", new Document("$literal", 1))
+      .append("days", new Document("$literal", Collections.singletonList(toDate.getDayOfMonth())))
+      .append("updatedAt", new Document("$literal", Date.from(Instant.now()))));
+  }
+
+  // Igual que addSnapshots: un día ya sumado no se vuelve a sumar
+  private Document mergeIntoMonthlyAggregates(LocalDate toDate) {
+    Document alreadyCounted = new Document("$in", Arrays.asList(toDate.getDayOfMonth(),
+      new Document("$ifNull", Arrays.asList("$days", Collections.emptyList()))));
+
+    Document set = new Document()
+      .append("sumCurrentBalance", unlessCounted(alreadyCounted, "$sumCurrentBalance",
+        new Document("$add", Arrays.asList("$sumCurrentBalance", "$$new.sumCurrentBalance"))))
+      .append("sumAvailableCredit", unlessCounted(alreadyCounted, "$sumAvailableCredit",
+        new Document("$add", Arrays.asList("$sumAvailableCredit", "$$new.sumAvailableCredit"))))
+      .append("dayCount", unlessCounted(alreadyCounted, "$dayCount",
+        new Document("$add", Arrays.asList("$dayCount", 1))))
+      .append("days", unlessCounted(alreadyCounted, "$days",
+        new Document("$concatArrays", Arrays.asList("$days", "$$new.days"))))
+      .append("updatedAt", "$$new.updatedAt");
+
+    return new Document("$merge", new Document()
+      .append("into", mongoTemplate.getCollectionName(MonthlyBalanceAggregate.class))
+      .append("on", "_id")
+      .append("whenMatched", Collections.singletonList(new Document("$set", set)))
+      .append("whenNotMatched", "insert"));
+  }
+
+  private Document unlessCounted(Document alreadyCounted, Object current, Document added) {
+    return new Document("$cond", Arrays.asList(alreadyCounted, current, added));
+  }
+
+  private Document toDecimal(String field) {
+    return MonthlyAggregateRebuild.toDecimal(field);
+  }
+
+  // $setOnInsert: si la foto del día ya existe se conserva la primera captura
+  private UpdateOneModel<Document> toUpsert(DailyBalance balance) {
+    Document document = new Document();
+    mongoTemplate.getConverter().write(balance, document);
+    document.remove("_id");
+
+    return new UpdateOneModel<>(
+      Filters.and(
+        Filters.eq("customerId", document.get("customerId")),
+        Filters.eq("cardId", document.get("cardId")),
+        Filters.eq("date", document.get("date"))),
+      new Document("$setOnInsert", document),
+      BulkWrites.UPSERT);
+  }
+}
@@ -0,0 +1,37 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Acceso a las fotos diarias de saldo independiente del formato de almacenamiento
+ * (cards.daily-balance.layout: document o bucketed). El arrastre entre días es una capacidad aparte,
+ * CarryForwardStore.
+ */
+public interface DailyBalanceStore {
+
+  /**
+   * Guarda las fotos que aún no existen para su tarjeta y fecha; devuelve cuántas se insertaron.
+   */
+  Mono<Integer> saveAll(List<DailyBalance> balances);
+
+  Flux<DailyBalance> findByCustomerIdAndDateBetween(String customerId, LocalDate startDate, LocalDate endDate);
+
+  /**
+   * Sumas por tarjeta calculadas en Mongo, con la misma forma que el acumulado mensual.
+   */
+  Flux<MonthlyBalanceAggregate> aggregateByCard(String customerId, LocalDate startDate, LocalDate endDate);
+
+  /**
+   * Recalcula desde las fotos el acumulado mensual de period (de todos los meses si es null).
+   * Un acumulado con días que el recálculo no ve se conserva.
+   */
+  Mono<Void> rebuildMonthlyAggregates(YearMonth period);
+}
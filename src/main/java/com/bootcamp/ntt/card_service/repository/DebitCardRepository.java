@@ -10,7 +10,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface DebitCardRepository extends ReactiveMongoRepository<DebitCard, String> {
+public interface DebitCardRepository extends ReactiveMongoRepository<DebitCard, String>, DebitCardRepositoryCustom {
   Flux<DebitCard> findByIsActiveAndType(Boolean isActive, CardType type);
   Flux<DebitCard> findByIsActiveAndCustomerIdAndType(Boolean isActive, String customerId, CardType type);
   Flux<DebitCard> findByCustomerId(String customerId);
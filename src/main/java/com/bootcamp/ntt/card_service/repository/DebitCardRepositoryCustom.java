@@ -0,0 +1,14 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DebitCard;
+
+import reactor.core.publisher.Mono;
+
+public interface DebitCardRepositoryCustom {
+
+  /**
+   * Activa o desactiva la tarjeta con $set de isActive, solo si estaba en el estado contrario.
+   * Devuelve la tarjeta ya cambiada, o vacío si no existe o ya estaba así.
+   */
+  Mono<DebitCard> setActive(String cardId, boolean active);
+}
@@ -0,0 +1,22 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DebitCard;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class DebitCardRepositoryCustomImpl implements DebitCardRepositoryCustom {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<DebitCard> setActive(String cardId, boolean active) {
+    return mongoTemplate.findAndModify(CardStatusFlips.query(cardId, active), CardStatusFlips.update(active),
+      FindAndModifyOptions.options().returnNew(true), DebitCard.class);
+  }
+}
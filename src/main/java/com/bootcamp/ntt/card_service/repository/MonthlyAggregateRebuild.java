@@ -0,0 +1,60 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.bson.Document;
+
+/**
+ * Etapas comunes para recalcular monthly_balance_aggregates desde las fotos diarias,
+ * sea cual sea el formato en que se guardan.
+ */
+final class MonthlyAggregateRebuild {
+
+  // Spring guarda LocalDate como medianoche en la zona del sistema
+  static final String ZONE = ZoneId.systemDefault().getId();
+
+  private MonthlyAggregateRebuild() {
+  }
+
+  static Document dayOfMonth(String dateField) {
+    return new Document("$dayOfMonth", new Document("date", dateField).append("timezone", ZONE));
+  }
+
+  static Document toDecimal(String field) {
+    return new Document("$toDecimal", new Document("$ifNull", Arrays.asList(field, 0)));
+  }
+
+  /**
+   * Da al grupo la forma del acumulado; espera customerId, cardNumber, las sumas y "days".
+   */
+  static Document toAggregate(String cardId, String period) {
+    return new Document("$project", new Document()
+      .append("_id", new Document("$concat", Arrays.asList(cardId, ":", period)))
+      .append("customerId", 1)
+      .append("cardId", cardId)
+      .append("cardNumber", 1)
+      .append("year", new Document("$toInt", new Document("$substrBytes", Arrays.asList(period, 0, 4))))
+      .append("month", new Document("$toInt", new Document("$substrBytes", Arrays.asList(period, 5, 2))))
+      .append("sumCurrentBalance", 1)
+      .append("sumAvailableCredit", 1)
+      .append("dayCount", new Document("$size", "$days"))
+      .append("days", 1)
+      .append("updatedAt", "$$NOW"));
+  }
+
+  // El recálculo solo sustituye al acumulado si cubre todos sus días: un día capturado mientras
+  // corría la migración no se pierde, y relanzarla termina de corregirlo
+  static Document merge(String into) {
+    Document covers = new Document("$setIsSubset", Arrays.asList(
+      new Document("$ifNull", Arrays.asList("$days", Collections.emptyList())), "$$new.days"));
+
+    return new Document("$merge", new Document()
+      .append("into", into)
+      .append("on", "_id")
+      .append("whenMatched", Collections.singletonList(
+        new Document("$replaceWith", new Document("$cond", Arrays.asList(covers, "$$new", "$$ROOT")))))
+      .append("whenNotMatched", "insert"));
+  }
+}
@@ -0,0 +1,15 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface MonthlyBalanceAggregateRepository
+  extends ReactiveMongoRepository<MonthlyBalanceAggregate, String>, MonthlyBalanceAggregateRepositoryCustom {
+
+  Flux<MonthlyBalanceAggregate> findByCustomerIdAndYearAndMonth(String customerId, int year, int month);
+}
@@ -0,0 +1,16 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+
+import java.util.List;
+
+import reactor.core.publisher.Mono;
+
+public interface MonthlyBalanceAggregateRepositoryCustom {
+
+  /**
+   * Suma las fotos al acumulado mensual de cada tarjeta en un solo bulkWrite.
+   * Una foto cuyo día ya está en el acumulado se ignora.
+   */
+  Mono<Void> addSnapshots(List<DailyBalance> balances);
+}
@@ -0,0 +1,82 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class MonthlyBalanceAggregateRepositoryCustomImpl implements MonthlyBalanceAggregateRepositoryCustom {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  private static String aggregateId(String cardId, int year, int month) {
+    return String.format("%s:%04d-%02d", cardId, year, month);
+  }
+
+  @Override
+  public Mono<Void> addSnapshots(List<DailyBalance> balances) {
+    if (balances.isEmpty()) {
+      return Mono.empty();
+    }
+
+    List<UpdateOneModel<Document>> writes = balances.stream()
+      .map(this::toIncrement)
+      .collect(Collectors.toList());
+
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(MonthlyBalanceAggregate.class))
+      .flatMap(collection -> Mono.from(collection.bulkWrite(writes, BulkWrites.UNORDERED)))
+      .onErrorResume(MongoBulkWriteException.class, error -> BulkWrites.onlyDuplicateKeys(error)
+        ? Mono.empty()
+        : Mono.error(error))
+      .then();
+  }
+
+  // El filtro excluye el día ya sumado; si el documento existe con ese día, el upsert
+  // intenta insertar el mismo _id y falla por clave duplicada, que aquí significa "ya contado".
+  private UpdateOneModel<Document> toIncrement(DailyBalance balance) {
+    int year = balance.getDate().getYear();
+    int month = balance.getDate().getMonthValue();
+    int day = balance.getDate().getDayOfMonth();
+
+    Document update = new Document()
+      .append("$inc", new Document()
+        .append("sumCurrentBalance", decimal(balance.getCurrentBalance()))
+        .append("sumAvailableCredit", decimal(balance.getAvailableCredit()))
+        .append("dayCount", 1))
+      .append("$addToSet", new Document("days", day))
+      .append("$set", new Document("updatedAt", Date.from(Instant.now())))
+      .append("$setOnInsert", new Document()
+        .append("customerId", balance.getCustomerId())
+        .append("cardId", balance.getCardId())
+        .append("cardNumber", balance.getCardNumber())
+        .append("year", year)
+        .append("month", month));
+
+    return new UpdateOneModel<>(
+      Filters.and(
+        Filters.eq("_id", aggregateId(balance.getCardId(), year, month)),
+        Filters.ne("days", day)),
+      update,
+      BulkWrites.UPSERT);
+  }
+
+  private Decimal128 decimal(BigDecimal value) {
+    return new Decimal128(value != null ? value : BigDecimal.ZERO);
+  }
+}
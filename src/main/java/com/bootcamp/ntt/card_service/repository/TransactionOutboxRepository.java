@@ -0,0 +1,11 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.TransactionOutbox;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TransactionOutboxRepository
+  extends ReactiveMongoRepository<TransactionOutbox, String>, TransactionOutboxRepositoryCustom {
+}
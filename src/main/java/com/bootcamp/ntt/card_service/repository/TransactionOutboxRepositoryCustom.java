@@ -0,0 +1,28 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.TransactionOutbox;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface TransactionOutboxRepositoryCustom {
+
+  /**
+   * Registros pendientes (o con lease vencido) cuyo próximo intento ya corresponde.
+   */
+  Flux<TransactionOutbox> findDue(Instant now, int limit);
+
+  /**
+   * Toma un registro de forma exclusiva; vacío si otra instancia ya lo tomó.
+   */
+  Mono<TransactionOutbox> claim(String id, Instant now, Duration lease);
+
+  Mono<Void> markSent(String id, Instant sentAt);
+
+  Mono<Void> markRetry(String id, String error, Instant nextAttemptAt);
+
+  Mono<Void> markFailed(String id, String error);
+}
@@ -0,0 +1,86 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.TransactionOutbox;
+import com.bootcamp.ntt.card_service.enums.OutboxStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class TransactionOutboxRepositoryCustomImpl implements TransactionOutboxRepositoryCustom {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Flux<TransactionOutbox> findDue(Instant now, int limit) {
+    Query query = new Query(dueCriteria(now))
+      .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+      .limit(limit);
+
+    return mongoTemplate.find(query, TransactionOutbox.class);
+  }
+
+  @Override
+  public Mono<TransactionOutbox> claim(String id, Instant now, Duration lease) {
+    Query query = new Query(Criteria.where("_id").is(id).andOperator(dueCriteria(now)));
+
+    Update update = new Update()
+      .set("status", OutboxStatus.PROCESSING)
+      .set("nextAttemptAt", now.plus(lease))
+      .inc("attempts", 1);
+
+    return mongoTemplate.findAndModify(query, update,
+      FindAndModifyOptions.options().returnNew(true), TransactionOutbox.class);
+  }
+
+  @Override
+  public Mono<Void> markSent(String id, Instant sentAt) {
+    Update update = new Update()
+      .set("status", OutboxStatus.SENT)
+      .set("sentAt", sentAt)
+      .unset("lastError");
+
+    return mongoTemplate.updateFirst(byId(id), update, TransactionOutbox.class).then();
+  }
+
+  @Override
+  public Mono<Void> markRetry(String id, String error, Instant nextAttemptAt) {
+    Update update = new Update()
+      .set("status", OutboxStatus.PENDING)
+      .set("lastError", error)
+      .set("nextAttemptAt", nextAttemptAt);
+
+    return mongoTemplate.updateFirst(byId(id), update, TransactionOutbox.class).then();
+  }
+
+  @Override
+  public Mono<Void> markFailed(String id, String error) {
+    Update update = new Update()
+      .set("status", OutboxStatus.FAILED)
+      .set("lastError", error);
+
+    return mongoTemplate.updateFirst(byId(id), update, TransactionOutbox.class).then();
+  }
+
+  // PROCESSING con lease vencido indica una instancia caída a mitad del envío
+  private Criteria dueCriteria(Instant now) {
+    return Criteria.where("status").in(OutboxStatus.PENDING, OutboxStatus.PROCESSING)
+      .and("nextAttemptAt").lte(now);
+  }
+
+  private Query byId(String id) {
+    return new Query(Criteria.where("_id").is(id));
+  }
+}
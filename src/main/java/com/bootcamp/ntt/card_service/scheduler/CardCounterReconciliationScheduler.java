@@ -0,0 +1,28 @@
+package com.bootcamp.ntt.card_service.scheduler;
+
+import com.bootcamp.ntt.card_service.service.CardCounterService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardCounterReconciliationScheduler {
+
+  private final CardCounterService cardCounterService;
+
+  // Sin initialDelay: la primera pasada, al arrancar, siembra los contadores que aún no tienen count real.
+  // Varias réplicas pueden coincidir: la corrección es condicional al valor leído
+  @Scheduled(fixedDelayString = "${cards.counters.reconcile-interval-ms:900000}")
+  public void reconcileCardCounters() {
+    cardCounterService.reconcile()
+      .subscribe(
+        corrected -> log.debug("Card counter reconciliation corrected {} counters", corrected),
+        error -> log.error("Card counter reconciliation failed", error)
+      );
+  }
+}
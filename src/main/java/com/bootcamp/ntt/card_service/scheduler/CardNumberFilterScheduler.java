@@ -0,0 +1,27 @@
+package com.bootcamp.ntt.card_service.scheduler;
+
+import com.bootcamp.ntt.card_service.service.CardNumberFilter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardNumberFilterScheduler {
+
+  private final CardNumberFilter cardNumberFilter;
+
+  // Al arrancar y luego periódicamente: limpia números borrados y recupera avisos perdidos
+  @Scheduled(fixedDelayString = "${cards.number-filter.rebuild-interval-ms:900000}")
+  public void rebuildCardNumberFilter() {
+    cardNumberFilter.rebuild()
+      .subscribe(
+        loaded -> log.debug("Card number filter rebuild loaded {} numbers", loaded),
+        error -> log.error("Card number filter rebuild failed", error)
+      );
+  }
+}
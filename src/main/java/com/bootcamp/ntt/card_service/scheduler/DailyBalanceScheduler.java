@@ -1,6 +1,8 @@
 package com.bootcamp.ntt.card_service.scheduler;
 
-import com.bootcamp.ntt.card_service.service.CreditCardService;
+import com.bootcamp.ntt.card_service.service.DailyBalanceCaptureService;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,18 +15,46 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class DailyBalanceScheduler {
 
-  private final CreditCardService creditCardService;
+  private final DailyBalanceCaptureService dailyBalanceCaptureService;
+
+  // Evita que captura y recuperación se solapen en la misma instancia
+  private final AtomicBoolean running = new AtomicBoolean(false);
 
-  // Todos los días a las 23:59
+  // Todos los días a las 23:59; cada réplica toma particiones hasta agotarlas
   @Scheduled(cron = "0 59 23 * * *")
   public void captureDailyBalances() {
+    // Si la recuperación sigue drenando, las particiones de hoy las crean las otras réplicas o resumeCapture
+    if (!running.compareAndSet(false, true)) {
+      log.warn("Skipping scheduled daily balance capture: partition processing still running on this instance");
+      return;
+    }
     log.info("Starting scheduled daily balance capture");
 
-    creditCardService.captureAllDailyBalances()
+    dailyBalanceCaptureService.captureDailyBalances()
+      .doFinally(signal -> running.set(false))
       .subscribe(
         null, // onNext no aplica para Mono<Void>
-        error -> log.error("Scheduled balance capture failed: {}", error.getMessage()),
+        error -> log.error("Scheduled balance capture failed, pending partitions will be recovered", error),
         () -> log.info("Scheduled daily balance capture completed")
       );
   }
+
+  // Retoma particiones de instancias caídas o fallidas cuando vence su lease
+  @Scheduled(fixedDelayString = "${cards.daily-balance.recovery-interval-ms:60000}")
+  public void recoverDailyBalancePartitions() {
+    if (!running.compareAndSet(false, true)) {
+      return;
+    }
+
+    dailyBalanceCaptureService.processDuePartitions()
+      .doFinally(signal -> running.set(false))
+      .subscribe(
+        inserted -> {
+          if (inserted > 0) {
+            log.info("Recovered daily balance partitions: {} snapshots inserted", inserted);
+          }
+        },
+        error -> log.error("Daily balance partition recovery failed", error)
+      );
+  }
 }
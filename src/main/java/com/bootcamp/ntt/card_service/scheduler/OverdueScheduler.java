@@ -0,0 +1,29 @@
+package com.bootcamp.ntt.card_service.scheduler;
+
+import com.bootcamp.ntt.card_service.service.CreditCardService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OverdueScheduler {
+
+  private final CreditCardService creditCardService;
+
+  // Tras la medianoche: los vencimientos de ayer pasan a mora y suman un día los que ya lo estaban
+  @Scheduled(cron = "${cards.overdue.cron:0 5 0 * * *}")
+  public void recomputeOverdueStatus() {
+    log.info("Starting scheduled overdue recompute");
+
+    creditCardService.recomputeOverdueStatus()
+      .subscribe(
+        changed -> log.info("Scheduled overdue recompute completed: {} cards changed", changed),
+        error -> log.error("Scheduled overdue recompute failed", error)
+      );
+  }
+}
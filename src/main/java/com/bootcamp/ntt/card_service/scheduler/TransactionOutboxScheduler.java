@@ -0,0 +1,40 @@
+package com.bootcamp.ntt.card_service.scheduler;
+
+import com.bootcamp.ntt.card_service.service.TransactionOutboxService;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionOutboxScheduler {
+
+  private final TransactionOutboxService transactionOutboxService;
+
+  // Evita que dos drenados se solapen en la misma instancia
+  private final AtomicBoolean running = new AtomicBoolean(false);
+
+  @Scheduled(fixedDelayString = "${outbox.transaction.poll-interval-ms:1000}")
+  public void publishPendingTransactions() {
+    if (!running.compareAndSet(false, true)) {
+      return;
+    }
+
+    // Primero los cargos que siguen en pendingPostings, para enviarlos en la misma pasada
+    transactionOutboxService.drainPendingPostings()
+      .then(Mono.defer(transactionOutboxService::publishPending))
+      .doFinally(signal -> running.set(false))
+      .subscribe(
+        null,
+        error -> log.error("Outbox publishing failed: {}", error.getMessage())
+      );
+  }
+}
@@ -0,0 +1,19 @@
+package com.bootcamp.ntt.card_service.service;
+
+import java.time.Instant;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Sigue el change stream de cards y guarda el último saldo de cada tarjeta de crédito que cambia
+ * (cards.daily-balance.capture-mode=change-stream). Requiere que Mongo sea un replica set.
+ * Una sola instancia del cluster tiene el stream abierto, la que tiene el lease.
+ */
+public interface BalanceChangeTracker {
+
+  /**
+   * true si el dueño del stream, sea esta u otra instancia, tiene el lease vigente, no ha perdido ningún
+   * cambio desde el instante dado y su checkpoint llega hasta ahora.
+   */
+  Mono<Boolean> coversSince(Instant since);
+}
@@ -0,0 +1,30 @@
+package com.bootcamp.ntt.card_service.service;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+public interface CardCacheService {
+
+  /**
+   * Busca primero en la caché local (L1) y luego en Redis (L2); un acierto en L2 se copia a L1.
+   */
+  <T> Mono<T> get(String key, Class<T> valueType);
+
+  /**
+   * Como get, pero ante un fallo ejecuta loader una sola vez por clave (los concurrentes comparten
+   * el resultado) y guarda el valor. Cerca de la expiración refresca en segundo plano de forma
+   * probabilística para que la clave no llegue a expirar bajo carga. Si loader no encuentra nada se
+   * guarda un tombstone de TTL corto y las siguientes consultas devuelven vacío sin ir a Mongo;
+   * quien crea el dato debe hacer evict de la clave.
+   */
+  <T> Mono<T> getOrLoad(String key, Class<T> valueType, Duration ttl, Supplier<Mono<T>> loader);
+
+  Mono<Boolean> put(String key, Object value, Duration ttl);
+
+  /**
+   * Elimina las claves en ambos niveles y avisa al resto de instancias para que limpien su L1.
+   */
+  Mono<Void> evict(String... keys);
+}
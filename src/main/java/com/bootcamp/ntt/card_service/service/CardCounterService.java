@@ -0,0 +1,29 @@
+package com.bootcamp.ntt.card_service.service;
+
+import com.bootcamp.ntt.card_service.enums.CardType;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Contadores de tarjetas por tipo y estado, para no contar la colección cards en cada informe.
+ * Las actualizaciones nunca fallan la operación de negocio: si se pierde alguna, la reconciliación
+ * periódica corrige la diferencia.
+ */
+public interface CardCounterService {
+
+  Mono<Void> cardCreated(CardType type, boolean active);
+
+  /**
+   * No hace nada si el estado no cambió (activar una tarjeta ya activa).
+   */
+  Mono<Void> statusChanged(CardType type, boolean wasActive, boolean active);
+
+  Mono<Void> cardDeleted(CardType type, boolean active);
+
+  Mono<Long> getActiveCount(CardType type);
+
+  /**
+   * Compara cada contador con un count real y corrige los que se han desviado; devuelve cuántos corrigió.
+   */
+  Mono<Long> reconcile();
+}
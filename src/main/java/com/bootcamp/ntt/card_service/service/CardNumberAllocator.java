@@ -0,0 +1,16 @@
+package com.bootcamp.ntt.card_service.service;
+
+import com.bootcamp.ntt.card_service.enums.CardType;
+
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+public interface CardNumberAllocator {
+
+  /**
+   * Ejecuta insert con un número Luhn válido del pool del tipo de tarjeta. Si el índice único de
+   * cardNumber lo rechaza, reintenta con otro número; no consulta antes de escribir.
+   */
+  <T> Mono<T> allocate(CardType cardType, Function<String, Mono<T>> insert);
+}
@@ -0,0 +1,26 @@
+package com.bootcamp.ntt.card_service.service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Filtro de Bloom por instancia con todos los cardNumber de cards, para descartar sin ir a Redis
+ * ni a Mongo los números que no existen.
+ */
+public interface CardNumberFilter {
+
+  /**
+   * false solo si el número seguro que no existe. Mientras el filtro no es fiable
+   * (sin construir o con avisos posiblemente perdidos) devuelve siempre true.
+   */
+  boolean mightExist(String cardNumber);
+
+  /**
+   * Añade un número recién emitido en esta instancia y lo avisa al resto.
+   */
+  Mono<Void> recordIssued(String cardNumber);
+
+  /**
+   * Reconstruye el filtro con todos los cardNumber de cards; devuelve cuántos cargó.
+   */
+  Mono<Long> rebuild();
+}
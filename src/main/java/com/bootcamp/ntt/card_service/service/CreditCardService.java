@@ -1,5 +1,7 @@
 package com.bootcamp.ntt.card_service.service;
 
+import com.bootcamp.ntt.card_service.model.BatchChargeAuthorizationRequest;
+import com.bootcamp.ntt.card_service.model.BatchChargeAuthorizationResult;
 import com.bootcamp.ntt.card_service.model.CreditCardResponse;
 import com.bootcamp.ntt.card_service.model.ChargeAuthorizationRequest;
 import com.bootcamp.ntt.card_service.model.ChargeAuthorizationResponse;
@@ -39,19 +41,25 @@ public interface CreditCardService {
 
   Mono<ChargeAuthorizationResponse> authorizeCharge(String cardNumber, ChargeAuthorizationRequest request);
 
+  Flux<BatchChargeAuthorizationResult> authorizeChargeBatch(Flux<BatchChargeAuthorizationRequest> charges);
+
   Mono<PaymentProcessResponse> processPayment(String cardNumber, PaymentProcessRequest paymentRequest);
 
   Mono<CreditCardBalanceResponse> getCardBalance(String cardNumber);
 
   Mono<CustomerCardValidationResponse> getCustomerCardValidation(String customerId);
 
-  Mono<Void> captureAllDailyBalances();
-
   Mono<CustomerDailyAverageResponse> getCustomerDailyAverages(String customerId, Integer year, Integer month);
 
   Mono<ProductEligibilityResponse> checkCustomerProductEligibility(String customerId);
 
   Mono<Integer> getActiveCardsCount();
 
+  /**
+   * Recalcula isOverdue y overdueDays de todas las tarjetas de crédito a partir de paymentDueDate,
+   * por rangos de _id y con updates en Mongo. Devuelve cuántas tarjetas cambiaron.
+   */
+  Mono<Long> recomputeOverdueStatus();
+
   //Flux<CreditCardResponse> getActiveCards(Boolean isActive);
 }
@@ -0,0 +1,30 @@
+package com.bootcamp.ntt.card_service.service;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalancePartition;
+
+import java.time.LocalDate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface DailyBalanceCaptureService {
+
+  /**
+   * Prepara las particiones del día (si ninguna instancia lo hizo aún) y procesa las que pueda tomar.
+   */
+  Mono<Void> captureDailyBalances();
+
+  /**
+   * Procesa las particiones pendientes o con lease vencido de cualquier fecha.
+   * Devuelve cuántas fotos nuevas se insertaron.
+   */
+  Mono<Long> processDuePartitions();
+
+  /**
+   * Reanuda (o lanza, si no existe) la captura de una fecha: las particiones completadas no se repiten
+   * y las interrumpidas continúan desde su checkpoint. Sin plan previo, la fecha recibe los saldos actuales.
+   */
+  Mono<Long> resumeCapture(LocalDate date);
+
+  Flux<DailyBalancePartition> getPartitions(LocalDate date);
+}
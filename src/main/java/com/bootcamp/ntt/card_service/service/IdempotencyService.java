@@ -0,0 +1,17 @@
+package com.bootcamp.ntt.card_service.service;
+
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+public interface IdempotencyService {
+
+  /**
+   * Ejecuta la operación una sola vez por (scope, idempotencyKey).
+   * Los duplicados concurrentes esperan a la primera ejecución y los posteriores
+   * reciben la respuesta almacenada. La clave queda ligada al hash del cuerpo de la petición:
+   * reutilizarla con otro cuerpo falla con 422. Sin clave, la operación se ejecuta normalmente.
+   */
+  <T> Mono<T> execute(String scope, String idempotencyKey, Object request, Class<T> responseType,
+                      Supplier<Mono<T>> operation);
+}
@@ -0,0 +1,329 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.entity.CardBalanceChange;
+import com.bootcamp.ntt.card_service.entity.ChangeStreamState;
+import com.bootcamp.ntt.card_service.enums.CardType;
+import com.bootcamp.ntt.card_service.repository.CardBalanceChangeRepository;
+import com.bootcamp.ntt.card_service.repository.ChangeStreamStateRepository;
+import com.bootcamp.ntt.card_service.service.BalanceChangeTracker;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceChangeTrackerImpl implements BalanceChangeTracker {
+
+  private static final String CARDS_COLLECTION = "cards";
+  private static final String CHANGE_STREAM_MODE = "change-stream";
+
+  // Campos de cards que cambian la foto diaria de una tarjeta
+  private static final Set<String> SNAPSHOT_FIELDS = Set.of(
+    "currentBalance", "availableCredit", "creditLimit", "isActive", "customerId", "cardNumber");
+
+  // ChangeStreamFatalError y ChangeStreamHistoryLost: el resume token ya no está en el oplog
+  private static final Set<Integer> LOST_POSITION_CODES = Set.of(280, 286);
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final CardBalanceChangeRepository changeRepository;
+  private final ChangeStreamStateRepository stateRepository;
+
+  // Identifica a esta instancia como dueña del lease del stream
+  private final String instanceId = UUID.randomUUID().toString();
+
+  // true mientras esta instancia tiene el stream abierto
+  private final AtomicBoolean tracking = new AtomicBoolean(false);
+
+  // Eventos recibidos que aún no se han escrito; con cero y el stream abierto, el checkpoint llega a ahora
+  private final AtomicLong pendingEvents = new AtomicLong();
+
+  @Value("${cards.daily-balance.capture-mode:scan}")
+  private String captureMode;
+
+  @Value("${cards.daily-balance.change-stream.batch-size:500}")
+  private int batchSize;
+
+  @Value("${cards.daily-balance.change-stream.batch-window-ms:1000}")
+  private long batchWindowMillis;
+
+  @Value("${cards.daily-balance.change-stream.lease-seconds:60}")
+  private long leaseSeconds;
+
+  private Disposable subscription;
+
+  // Cada instancia intenta tomar o renovar el lease; solo la dueña abre el stream y lo cierra al perderlo
+  @PostConstruct
+  void startTracking() {
+    if (!isEnabled()) {
+      return;
+    }
+
+    subscription = Flux.interval(Duration.ZERO, lease().dividedBy(3))
+      .onBackpressureDrop()
+      .concatMap(tick -> acquireLease()
+        .onErrorResume(error -> {
+          log.warn("Card balance change stream lease renewal failed: {}", error.getMessage());
+          return Mono.just(false);
+        }))
+      .distinctUntilChanged()
+      .doOnNext(owned -> log.info(owned
+        ? "This instance now owns the card balance change stream"
+        : "This instance no longer owns the card balance change stream"))
+      .switchMap(owned -> owned ? streamChanges() : Flux.empty())
+      .subscribe();
+  }
+
+  @PreDestroy
+  void stopTracking() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+
+  @Override
+  public Mono<Boolean> coversSince(Instant since) {
+    if (!isEnabled()) {
+      return Mono.just(false);
+    }
+
+    Instant now = Instant.now();
+    return stateRepository.findById(CARDS_COLLECTION)
+      .map(state -> covers(state, since, now))
+      .defaultIfEmpty(false);
+  }
+
+  // Se fía del checkpoint del dueño, no del stream de esta instancia: lease vigente, sin pérdidas desde
+  // since y al día con un retraso máximo de un lease
+  private boolean covers(ChangeStreamState state, Instant since, Instant now) {
+    return state.getOwner() != null
+      && state.getLeaseUntil() != null && state.getLeaseUntil().isAfter(now)
+      && state.getCoveredSince() != null && !state.getCoveredSince().isAfter(since)
+      && state.getCheckpointAt() != null && !state.getCheckpointAt().isBefore(now.minus(lease()));
+  }
+
+  // Toma el lease si está libre o vencido, o lo renueva si ya es de esta instancia. Con el stream abierto
+  // y todo lo recibido ya escrito, la renovación adelanta también el checkpoint
+  private Mono<Boolean> acquireLease() {
+    Instant now = Instant.now();
+    Query query = new Query(Criteria.where("_id").is(CARDS_COLLECTION).orOperator(
+      Criteria.where("owner").is(instanceId),
+      Criteria.where("owner").exists(false),
+      Criteria.where("leaseUntil").lte(now)));
+
+    Update update = new Update()
+      .set("owner", instanceId)
+      .set("leaseUntil", now.plus(lease()));
+    if (tracking.get() && pendingEvents.get() == 0) {
+      update.set("checkpointAt", now);
+    }
+
+    // Otra instancia con el lease vigente hace que el upsert choque con el _id: no se toma
+    return mongoTemplate.upsert(query, update, ChangeStreamState.class)
+      .map(result -> result.getMatchedCount() > 0 || result.getUpsertedId() != null)
+      .onErrorResume(DuplicateKeyException.class, error -> Mono.just(false));
+  }
+
+  private Flux<Void> streamChanges() {
+    return Flux.defer(this::tail)
+      .doOnError(error -> {
+        tracking.set(false);
+        log.warn("Card balance change stream error: {}", error.getMessage());
+      })
+      .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+      .doFinally(signal -> tracking.set(false));
+  }
+
+  // Reanuda desde el último token guardado; sin token, empieza ahora y la cobertura arranca de cero.
+  // Si el lease ya no es de esta instancia no abre nada
+  private Flux<Void> tail() {
+    return stateRepository.findById(CARDS_COLLECTION)
+      .filter(state -> instanceId.equals(state.getOwner()))
+      .flatMap(state -> state.getResumeToken() != null
+        ? Mono.just(options().resumeAfter(BsonDocument.parse(state.getResumeToken())).build())
+        : startFresh())
+      .flatMapMany(options -> mongoTemplate.changeStream(CARDS_COLLECTION, options, Document.class)
+        .doOnSubscribe(s -> {
+          pendingEvents.set(0);
+          tracking.set(true);
+        })
+        .doOnNext(event -> pendingEvents.incrementAndGet())
+        .bufferTimeout(batchSize, Duration.ofMillis(batchWindowMillis))
+        .concatMap(this::recordBatch))
+      .onErrorResume(this::positionLost, error -> {
+        log.warn("Card balance change stream position lost, coverage restarts now");
+        return forgetPosition().then(Mono.error(error));
+      });
+  }
+
+  private Mono<ChangeStreamOptions> startFresh() {
+    Instant now = Instant.now();
+
+    Update update = new Update()
+      .set("coveredSince", now)
+      .set("checkpointAt", now)
+      .set("updatedAt", now);
+
+    return mongoTemplate.updateFirst(ownedByThisInstance(), update, ChangeStreamState.class)
+      .flatMap(result -> result.getMatchedCount() > 0
+        ? Mono.just(options().resumeAt(now).build())
+        : Mono.empty());
+  }
+
+  private ChangeStreamOptions.ChangeStreamOptionsBuilder options() {
+    return ChangeStreamOptions.builder()
+      .filter(new Document("$match", new Document("operationType",
+        new Document("$in", Arrays.asList("insert", "update", "replace", "delete")))))
+      .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+  }
+
+  // El token se guarda después de escribir el lote: tras un reinicio se repite como mucho un lote.
+  // Si el lease pasó a otra instancia el token no se escribe y el stream se cierra
+  private Mono<Void> recordBatch(List<ChangeStreamEvent<Document>> events) {
+    Map<String, CardBalanceChange> latest = new LinkedHashMap<>();
+    events.stream()
+      .filter(this::changesSnapshot)
+      .map(this::toChange)
+      .forEach(change -> latest.put(change.getId(), change));
+
+    ChangeStreamEvent<Document> last = events.get(events.size() - 1);
+    BsonDocument resumeToken = last.getRaw().getResumeToken();
+    Update update = new Update()
+      .set("resumeToken", resumeToken.toJson())
+      .set("checkpointAt", last.getTimestamp() != null ? last.getTimestamp() : Instant.now())
+      .set("updatedAt", Instant.now());
+
+    return changeRepository.recordAll(new ArrayList<>(latest.values()))
+      .then(mongoTemplate.updateFirst(ownedByThisInstance(), update, ChangeStreamState.class))
+      .flatMap(result -> result.getMatchedCount() > 0
+        ? Mono.<Void>empty()
+        : Mono.error(new IllegalStateException("Card balance change stream lease lost")))
+      .doOnSuccess(v -> pendingEvents.addAndGet(-events.size()));
+  }
+
+  private Mono<Void> forgetPosition() {
+    return mongoTemplate.updateFirst(ownedByThisInstance(), new Update().unset("resumeToken"), ChangeStreamState.class)
+      .then();
+  }
+
+  private boolean changesSnapshot(ChangeStreamEvent<Document> event) {
+    ChangeStreamDocument<Document> raw = event.getRaw();
+    if (raw == null) {
+      return false;
+    }
+    // Un borrado no trae el documento: se registra aunque fuera de débito, sin foto que arrastrar no afecta
+    if (raw.getOperationType() == OperationType.DELETE) {
+      return true;
+    }
+
+    Document card = raw.getFullDocument();
+    if (card == null || !CardType.CREDIT.name().equals(card.getString("type"))) {
+      return false;
+    }
+    if (raw.getOperationType() != OperationType.UPDATE) {
+      return true;
+    }
+
+    UpdateDescription description = raw.getUpdateDescription();
+    if (description == null) {
+      return true;
+    }
+    boolean updated = description.getUpdatedFields() != null
+      && description.getUpdatedFields().keySet().stream().anyMatch(SNAPSHOT_FIELDS::contains);
+    boolean removed = description.getRemovedFields() != null
+      && description.getRemovedFields().stream().anyMatch(SNAPSHOT_FIELDS::contains);
+    return updated || removed;
+  }
+
+  private CardBalanceChange toChange(ChangeStreamEvent<Document> event) {
+    ChangeStreamDocument<Document> raw = event.getRaw();
+
+    CardBalanceChange change = new CardBalanceChange();
+    change.setId(idOf(raw.getDocumentKey().get("_id")));
+    change.setChangedAt(event.getTimestamp() != null ? event.getTimestamp() : Instant.now());
+    if (raw.getOperationType() == OperationType.DELETE) {
+      change.setDeleted(true);
+      return change;
+    }
+
+    Document card = raw.getFullDocument();
+    change.setCustomerId(card.getString("customerId"));
+    change.setCardNumber(card.getString("cardNumber"));
+    change.setActive(Boolean.TRUE.equals(card.getBoolean("isActive")));
+    change.setCurrentBalance(decimal(card.get("currentBalance")));
+    change.setAvailableCredit(decimal(card.get("availableCredit")));
+    change.setCreditLimit(decimal(card.get("creditLimit")));
+    return change;
+  }
+
+  private boolean positionLost(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MongoException && LOST_POSITION_CODES.contains(((MongoException) cause).getCode())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isEnabled() {
+    return CHANGE_STREAM_MODE.equalsIgnoreCase(captureMode);
+  }
+
+  private Query ownedByThisInstance() {
+    return new Query(Criteria.where("_id").is(CARDS_COLLECTION).and("owner").is(instanceId));
+  }
+
+  private Duration lease() {
+    return Duration.ofSeconds(leaseSeconds);
+  }
+
+  private String idOf(BsonValue id) {
+    if (id.isObjectId()) {
+      return id.asObjectId().getValue().toHexString();
+    }
+    return id.isString() ? id.asString().getValue() : id.toString();
+  }
+
+  private BigDecimal decimal(Object value) {
+    if (value instanceof Decimal128) {
+      return ((Decimal128) value).bigDecimalValue();
+    }
+    return value != null ? new BigDecimal(value.toString()) : null;
+  }
+}
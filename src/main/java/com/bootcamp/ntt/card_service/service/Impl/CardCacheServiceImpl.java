@@ -0,0 +1,274 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.codec.CachedValue;
+import com.bootcamp.ntt.card_service.service.CardCacheService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class CardCacheServiceImpl implements CardCacheService {
+
+  private static final String KEY_SEPARATOR = ",";
+
+  // Marca de "no existe" (tombstone); se guarda como cualquier otro valor en L1 y Redis
+  private static final String ABSENT = "__card-cache:absent__";
+
+  private final ReactiveRedisTemplate<String, Object> redisTemplate;
+  private final Cache<String, CachedEntry> localCache;
+  private final String invalidationChannel;
+
+  // Cargas en curso por clave: una sola consulta a Mongo por clave e instancia
+  private final Map<String, Mono<Object>> inFlightLoads = new ConcurrentHashMap<>();
+
+  private final Counter l1Hits;
+  private final Counter l1Misses;
+  private final Counter l2Hits;
+  private final Counter l2Misses;
+  private final Counter missLoads;
+  private final Counter earlyRefreshLoads;
+  private final Counter negativeHits;
+
+  @Value("${cache.early-refresh.beta:1.0}")
+  private double earlyRefreshBeta;
+
+  @Value("${cache.early-refresh.default-recompute-ms:50}")
+  private long defaultRecomputeMillis;
+
+  // Corto: una alta se ve como mucho con este retraso si se pierde la invalidación
+  @Value("${cache.negative-ttl-seconds:30}")
+  private long negativeTtlSeconds;
+
+  private Disposable invalidationSubscription;
+
+  public CardCacheServiceImpl(ReactiveRedisTemplate<String, Object> redisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${cache.l1.maximum-size:10000}") long maximumSize,
+                              @Value("${cache.l1.ttl-seconds:30}") long ttlSeconds,
+                              @Value("${cache.invalidation-channel:card-cache:invalidation}") String invalidationChannel) {
+    this.redisTemplate = redisTemplate;
+    this.invalidationChannel = invalidationChannel;
+
+    // TTL corto en L1: acota la desactualización si se pierde un mensaje de invalidación
+    this.localCache = Caffeine.newBuilder()
+      .maximumSize(maximumSize)
+      .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+      .recordStats()
+      .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, localCache, "card-master-l1");
+
+    this.l1Hits = cacheCounter(meterRegistry, "l1", "hit");
+    this.l1Misses = cacheCounter(meterRegistry, "l1", "miss");
+    this.l2Hits = cacheCounter(meterRegistry, "l2", "hit");
+    this.l2Misses = cacheCounter(meterRegistry, "l2", "miss");
+    this.missLoads = loadCounter(meterRegistry, "miss");
+    this.earlyRefreshLoads = loadCounter(meterRegistry, "early-refresh");
+    this.negativeHits = Counter.builder("card.cache.negative_hits")
+      .description("Card master-data lookups answered by a not-found tombstone")
+      .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void subscribeToInvalidations() {
+    invalidationSubscription = redisTemplate.listenToChannel(invalidationChannel)
+      .map(message -> String.valueOf(message.getMessage()))
+      .doOnNext(payload -> localCache.invalidateAll(Arrays.asList(payload.split(KEY_SEPARATOR))))
+      .doOnError(error -> {
+        // Mientras no hay suscripción pueden perderse invalidaciones: se vacía L1 por seguridad
+        log.warn("Cache invalidation channel error: {}", error.getMessage());
+        localCache.invalidateAll();
+      })
+      .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+      .subscribe();
+  }
+
+  @PreDestroy
+  void unsubscribeFromInvalidations() {
+    if (invalidationSubscription != null) {
+      invalidationSubscription.dispose();
+    }
+  }
+
+  @Override
+  public <T> Mono<T> get(String key, Class<T> valueType) {
+    return Mono.defer(() -> lookup(key, valueType))
+      .filter(entry -> !entry.isAbsent())
+      .map(entry -> valueType.cast(entry.value));
+  }
+
+  @Override
+  public <T> Mono<T> getOrLoad(String key, Class<T> valueType, Duration ttl, Supplier<Mono<T>> loader) {
+    return Mono.defer(() -> lookup(key, valueType))
+      .flatMap(entry -> {
+        if (entry.isAbsent()) {
+          // Optional vacío para no caer en la carga del switchIfEmpty; sin refresco anticipado
+          negativeHits.increment();
+          log.debug("NEGATIVE CACHE HIT: {}", key);
+          return Mono.just(Optional.<T>empty());
+        }
+        if (shouldRefreshEarly(entry)) {
+          earlyRefreshLoads.increment();
+          log.debug("Early refresh for key {}", key);
+          load(key, valueType, ttl, loader).subscribe();
+        }
+        return Mono.just(Optional.of(valueType.cast(entry.value)));
+      })
+      .switchIfEmpty(Mono.defer(() -> {
+        missLoads.increment();
+        return load(key, valueType, ttl, loader).map(Optional::of);
+      }))
+      .filter(Optional::isPresent)
+      .map(Optional::get);
+  }
+
+  @Override
+  public Mono<Boolean> put(String key, Object value, Duration ttl) {
+    return write(key, value, ttl, defaultRecomputeMillis);
+  }
+
+  @Override
+  public Mono<Void> evict(String... keys) {
+    localCache.invalidateAll(Arrays.asList(keys));
+
+    return Flux.just(keys)
+      .flatMap(redisTemplate::delete)
+      .then(redisTemplate.convertAndSend(invalidationChannel, String.join(KEY_SEPARATOR, keys)))
+      .doOnSuccess(receivers -> log.debug("Cache invalidated: {}", Arrays.toString(keys)))
+      .onErrorResume(error -> {
+        log.warn("Cache invalidation error for keys {}: {}", Arrays.toString(keys), error.getMessage());
+        return Mono.empty();
+      })
+      .then();
+  }
+
+  private <T> Mono<CachedEntry> lookup(String key, Class<T> valueType) {
+    CachedEntry local = localCache.getIfPresent(key);
+    if (local != null && (local.isAbsent() || valueType.isInstance(local.value))) {
+      l1Hits.increment();
+      log.debug("L1 CACHE HIT: {}", key);
+      return Mono.just(local);
+    }
+    l1Misses.increment();
+
+    // Expiración y coste de recálculo viajan dentro del valor: un solo GET por fallo de L1
+    return redisTemplate.opsForValue().get(key)
+      .map(this::toEntry)
+      .filter(entry -> entry.isAbsent() || valueType.isInstance(entry.value))
+      .map(entry -> {
+        l2Hits.increment();
+        localCache.put(key, entry);
+        log.debug("REDIS CACHE HIT: {}", key);
+        return entry;
+      })
+      .switchIfEmpty(Mono.fromRunnable(l2Misses::increment))
+      .onErrorResume(error -> {
+        log.warn("Redis read error for key {}: {}", key, error.getMessage());
+        return Mono.empty();
+      });
+  }
+
+  private <T> Mono<T> load(String key, Class<T> valueType, Duration ttl, Supplier<Mono<T>> loader) {
+    return inFlightLoads.computeIfAbsent(key, k -> Mono.defer(() -> {
+          long start = System.currentTimeMillis();
+          return loader.get()
+            .flatMap(value -> write(k, value, ttl, System.currentTimeMillis() - start).thenReturn(value))
+            .switchIfEmpty(Mono.defer(() -> write(k, ABSENT, Duration.ofSeconds(negativeTtlSeconds), 0)
+              .then(Mono.<T>empty())));
+        })
+        .cast(Object.class)
+        .doFinally(signal -> inFlightLoads.remove(k))
+        .cache())
+      .cast(valueType);
+  }
+
+  private Mono<Boolean> write(String key, Object value, Duration ttl, long recomputeMillis) {
+    long expiresAtMillis = System.currentTimeMillis() + ttl.toMillis();
+    localCache.put(key, new CachedEntry(value, expiresAtMillis, recomputeMillis));
+
+    return redisTemplate.opsForValue()
+      .set(key, new CachedValue(value, expiresAtMillis, recomputeMillis), ttl)
+      .doOnSuccess(success -> {
+        if (Boolean.TRUE.equals(success)) {
+          log.debug("REDIS CACHE SET: {} (TTL: {})", key, ttl);
+        } else {
+          log.warn("Redis cache SET failed for key: {}", key);
+        }
+      })
+      .onErrorResume(error -> {
+        log.error("Redis write error for key {}: {}", key, error.getMessage());
+        return Mono.just(false);
+      });
+  }
+
+  // XFetch: la probabilidad de refrescar crece a medida que se acerca la expiración
+  // y es mayor cuanto más cuesta recalcular el valor
+  private boolean shouldRefreshEarly(CachedEntry entry) {
+    if (entry.expiresAtMillis == Long.MAX_VALUE || earlyRefreshBeta <= 0) {
+      return false;
+    }
+    double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+    double gap = -entry.recomputeMillis * earlyRefreshBeta * Math.log(random);
+    return System.currentTimeMillis() + gap >= entry.expiresAtMillis;
+  }
+
+  // Las entradas escritas antes del envoltorio no traen expiración: nunca se refrescan antes de tiempo
+  private CachedEntry toEntry(Object stored) {
+    if (stored instanceof CachedValue) {
+      CachedValue cached = (CachedValue) stored;
+      return new CachedEntry(cached.getValue(), cached.getExpiresAtMillis(), cached.getRecomputeMillis());
+    }
+    return new CachedEntry(stored, Long.MAX_VALUE, defaultRecomputeMillis);
+  }
+
+  private static Counter cacheCounter(MeterRegistry meterRegistry, String tier, String result) {
+    return Counter.builder("card.cache.requests")
+      .description("Card master-data cache lookups per tier")
+      .tag("tier", tier)
+      .tag("result", result)
+      .register(meterRegistry);
+  }
+
+  private static Counter loadCounter(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder("card.cache.loads")
+      .description("Card master-data loads from the database")
+      .tag("reason", reason)
+      .register(meterRegistry);
+  }
+
+  private static final class CachedEntry {
+    private final Object value;
+    private final long expiresAtMillis;
+    private final long recomputeMillis;
+
+    private CachedEntry(Object value, long expiresAtMillis, long recomputeMillis) {
+      this.value = value;
+      this.expiresAtMillis = expiresAtMillis;
+      this.recomputeMillis = recomputeMillis;
+    }
+
+    private boolean isAbsent() {
+      return ABSENT.equals(value);
+    }
+  }
+}
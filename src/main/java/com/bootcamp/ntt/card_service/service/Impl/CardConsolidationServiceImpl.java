@@ -3,6 +3,8 @@ package com.bootcamp.ntt.card_service.service.Impl;
 import com.bootcamp.ntt.card_service.client.TransactionServiceClient;
 import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionAccount;
 import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionResponse;
+import com.bootcamp.ntt.card_service.entity.CardSummaryProjection;
+import com.bootcamp.ntt.card_service.enums.CardType;
 import com.bootcamp.ntt.card_service.exception.CardServiceException;
 import com.bootcamp.ntt.card_service.mapper.CardMapper;
 import com.bootcamp.ntt.card_service.mapper.CreditCardMapper;
@@ -11,11 +13,12 @@ import com.bootcamp.ntt.card_service.model.CustomerCardsSummaryResponse;
 import com.bootcamp.ntt.card_service.model.CardsPeriodicReportResponse;
 import com.bootcamp.ntt.card_service.model.CardsPeriodicReportResponseReportPeriod;
 import com.bootcamp.ntt.card_service.model.CardMovementsResponse;
-import com.bootcamp.ntt.card_service.model.CreditCardResponse;
+import com.bootcamp.ntt.card_service.model.CreditCardSummary;
 import com.bootcamp.ntt.card_service.model.CreditCardsReport;
-import com.bootcamp.ntt.card_service.model.DebitCardResponse;
+import com.bootcamp.ntt.card_service.model.DebitCardSummary;
 import com.bootcamp.ntt.card_service.model.DebitCardsReport;
 import com.bootcamp.ntt.card_service.model.TransactionsSummary;
+import com.bootcamp.ntt.card_service.repository.CardSummaryRepository;
 import com.bootcamp.ntt.card_service.service.CardConsolidationService;
 import com.bootcamp.ntt.card_service.service.CreditCardService;
 import com.bootcamp.ntt.card_service.service.DebitCardService;
@@ -29,6 +32,7 @@ import reactor.core.publisher.Mono;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -37,6 +41,7 @@ public class CardConsolidationServiceImpl implements CardConsolidationService {
 
   private final DebitCardService debitCardService;
   private final CreditCardService creditCardService;
+  private final CardSummaryRepository cardSummaryRepository;
   private final CreditCardMapper creditCardMapper;
   private final DebitCardMapper debitCardMapper;
   private final CardMapper cardMapper;
@@ -47,22 +52,28 @@ public class CardConsolidationServiceImpl implements CardConsolidationService {
   public Mono<CustomerCardsSummaryResponse> getCustomerCardsSummary(String customerId) {
     log.debug("Building cards summary for customer: {}", customerId);
 
-    return Mono.zip(
-        debitCardService.getDebitCardsByActiveAndCustomer(true, customerId).collectList(),
-        creditCardService.getCardsByActiveAndCustomer(true, customerId).collectList()
-      )
-      .map(tuple -> buildSummaryResponse(customerId, tuple.getT1(), tuple.getT2()))
+    // Una sola consulta para ambos tipos y solo con los campos del resumen
+    return cardSummaryRepository.findActiveCardSummaries(customerId)
+      .collectList()
+      .map(cards -> buildSummaryResponse(customerId, cards))
       .doOnSuccess(response -> log.debug("Summary built for customer: {} with {} total cards",
         customerId, response.getTotalActiveCards()));
   }
 
-  private CustomerCardsSummaryResponse buildSummaryResponse(String customerId,
-                                                            List<DebitCardResponse> debitCards,
-                                                            List<CreditCardResponse> creditCards) {
+  private CustomerCardsSummaryResponse buildSummaryResponse(String customerId, List<CardSummaryProjection> cards) {
+    List<CreditCardSummary> creditCards = cards.stream()
+      .filter(card -> card.getType() == CardType.CREDIT)
+      .map(creditCardMapper::toCreditCardSummary)
+      .collect(Collectors.toList());
+    List<DebitCardSummary> debitCards = cards.stream()
+      .filter(card -> card.getType() == CardType.DEBIT)
+      .map(debitCardMapper::toDebitCardSummary)
+      .collect(Collectors.toList());
+
     CustomerCardsSummaryResponse response = new CustomerCardsSummaryResponse();
     response.setCustomerId(customerId);
-    response.setCreditCards(creditCardMapper.toCreditCardSummaryList(creditCards));
-    response.setDebitCards(debitCardMapper.toDebitCardSummaryList(debitCards));
+    response.setCreditCards(creditCards);
+    response.setDebitCards(debitCards);
     response.setTotalActiveCards(creditCards.size() + debitCards.size());
     response.setRetrievedAt(OffsetDateTime.now());
     return response;
@@ -0,0 +1,108 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.entity.CardCounter;
+import com.bootcamp.ntt.card_service.enums.CardType;
+import com.bootcamp.ntt.card_service.metrics.CardMetrics;
+import com.bootcamp.ntt.card_service.repository.CardCounterRepository;
+import com.bootcamp.ntt.card_service.service.CardCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardCounterServiceImpl implements CardCounterService {
+
+  private final CardCounterRepository cardCounterRepository;
+  private final CardMetrics cardMetrics;
+
+  // Desviación vista en la pasada anterior por contador. Solo se corrige si se repite: una diferencia
+  // puntual puede ser una alta ya insertada en cards cuyo $inc aún no ha llegado
+  private final Map<String, Long> observedDrift = new ConcurrentHashMap<>();
+
+  @Override
+  public Mono<Void> cardCreated(CardType type, boolean active) {
+    return increment(type, active, 1);
+  }
+
+  @Override
+  public Mono<Void> statusChanged(CardType type, boolean wasActive, boolean active) {
+    if (wasActive == active) {
+      return Mono.empty();
+    }
+    return increment(type, wasActive, -1).then(increment(type, active, 1));
+  }
+
+  @Override
+  public Mono<Void> cardDeleted(CardType type, boolean active) {
+    return increment(type, active, -1);
+  }
+
+  @Override
+  public Mono<Long> getActiveCount(CardType type) {
+    // Un contador creado por el primer $inc empieza en 0, no en el número real: hasta que la
+    // reconciliación lo siembra (reconciledAt) se cuenta de verdad
+    return cardCounterRepository.findById(CardCounter.idFor(type, true))
+      .filter(counter -> counter.getReconciledAt() != null)
+      .map(CardCounter::getCount)
+      .switchIfEmpty(Mono.defer(() -> cardCounterRepository.countCards(type, true)));
+  }
+
+  @Override
+  public Mono<Long> reconcile() {
+    return Flux.fromArray(CardType.values())
+      .concatMap(type -> Flux.just(true, false).concatMap(active -> reconcile(type, active)))
+      .filter(Boolean::booleanValue)
+      .count();
+  }
+
+  private Mono<Boolean> reconcile(CardType type, boolean active) {
+    String id = CardCounter.idFor(type, active);
+
+    return cardCounterRepository.findById(id)
+      .map(Optional::of)
+      .defaultIfEmpty(Optional.empty())
+      .flatMap(counter -> cardCounterRepository.countCards(type, active)
+        .flatMap(actual -> {
+          long counted = counter.map(CardCounter::getCount).orElse(0L);
+
+          // Sin sembrar (no existe o solo lo han tocado los $inc): se fija al count real sin esperar
+          // a ver la desviación dos veces; si un $inc se cuela entre medias, se reintenta en la próxima
+          if (counter.map(CardCounter::getReconciledAt).isEmpty()) {
+            log.info("Seeding card counter {} with {} (was {})", id, actual, counted);
+            observedDrift.remove(id);
+            return cardCounterRepository.reconcile(type, active, counted, actual);
+          }
+
+          long drift = actual - counted;
+          Long previous = drift == 0 ? observedDrift.remove(id) : observedDrift.put(id, drift);
+          if (drift == 0 || previous == null || previous != drift) {
+            return Mono.just(false);
+          }
+
+          log.warn("Card counter {} drifted by {} (counter {}, actual {}), correcting", id, drift, counted, actual);
+          return cardCounterRepository.reconcile(type, active, counted, actual)
+            .doOnNext(corrected -> {
+              if (corrected) {
+                observedDrift.remove(id);
+                cardMetrics.recordCounterCorrection(type.name(), drift);
+              }
+            });
+        }));
+  }
+
+  private Mono<Void> increment(CardType type, boolean active, long delta) {
+    return cardCounterRepository.increment(type, active, delta)
+      .onErrorResume(error -> {
+        log.warn("Could not update card counter {}: {}", CardCounter.idFor(type, active), error.getMessage());
+        return Mono.empty();
+      });
+  }
+}
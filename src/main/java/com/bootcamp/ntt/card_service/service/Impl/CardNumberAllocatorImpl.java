@@ -0,0 +1,153 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.enums.CardType;
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+import com.bootcamp.ntt.card_service.service.CardNumberAllocator;
+import com.bootcamp.ntt.card_service.service.CardNumberFilter;
+import com.bootcamp.ntt.card_service.utils.CardUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class CardNumberAllocatorImpl implements CardNumberAllocator {
+
+  private final CreditCardRepository creditCardRepository;
+  private final CardUtils cardUtils;
+  private final CardNumberFilter cardNumberFilter;
+  private final Map<CardType, NumberPool> pools = new EnumMap<>(CardType.class);
+
+  @Value("${cards.number-pool.size:1000}")
+  private int poolSize;
+
+  // Por debajo de este nivel se rellena en segundo plano
+  @Value("${cards.number-pool.low-water:250}")
+  private int lowWater;
+
+  // Candidatos comprobados contra Mongo por consulta
+  @Value("${cards.number-pool.check-batch-size:500}")
+  private int checkBatchSize;
+
+  @Value("${cards.number-pool.max-attempts:5}")
+  private int maxAttempts;
+
+  public CardNumberAllocatorImpl(CreditCardRepository creditCardRepository,
+                                 CardUtils cardUtils,
+                                 CardNumberFilter cardNumberFilter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${cards.number-pool.credit-bins:455700}") List<String> creditBins,
+                                 @Value("${cards.number-pool.debit-bins:455800}") List<String> debitBins) {
+    this.creditCardRepository = creditCardRepository;
+    this.cardUtils = cardUtils;
+    this.cardNumberFilter = cardNumberFilter;
+    pools.put(CardType.CREDIT, new NumberPool(creditBins));
+    pools.put(CardType.DEBIT, new NumberPool(debitBins));
+
+    pools.forEach((cardType, pool) -> meterRegistry.gauge("card.number_pool.available",
+      Tags.of("type", cardType.name()), pool.available));
+  }
+
+  @PostConstruct
+  void prefillPools() {
+    pools.values().forEach(this::refillIfLow);
+  }
+
+  @Override
+  public <T> Mono<T> allocate(CardType cardType, Function<String, Mono<T>> insert) {
+    return Mono.defer(() -> {
+        String cardNumber = nextNumber(cardType);
+        return insert.apply(cardNumber)
+          .flatMap(saved -> cardNumberFilter.recordIssued(cardNumber).thenReturn(saved));
+      })
+      .retryWhen(Retry.max(Math.max(0, maxAttempts - 1))
+        .filter(DuplicateKeyException.class::isInstance)
+        .doBeforeRetry(signal -> log.debug("Card number collision on insert, retrying (attempt {})",
+          signal.totalRetries() + 1))
+        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+  }
+
+  String nextNumber(CardType cardType) {
+    NumberPool pool = pools.get(cardType);
+    String number = pool.numbers.poll();
+    if (number != null) {
+      pool.available.decrementAndGet();
+    }
+    refillIfLow(pool);
+
+    // Pool vacío (arranque o ráfaga): número sin comprobar, el índice único decide
+    return number != null ? number : pool.generate();
+  }
+
+  // Los candidatos se comprueban por lotes con una sola consulta $in en lugar de una por tarjeta;
+  // solo van a Mongo los que el filtro no descarta
+  private void refillIfLow(NumberPool pool) {
+    if (pool.available.get() >= lowWater || !pool.refilling.compareAndSet(false, true)) {
+      return;
+    }
+
+    int missing = poolSize - pool.available.get();
+    Flux.range(0, Math.max(0, missing))
+      .map(i -> pool.generate())
+      .distinct()
+      .buffer(Math.max(1, checkBatchSize))
+      .concatMap(this::discardExisting)
+      .doOnNext(fresh -> {
+        pool.numbers.addAll(fresh);
+        pool.available.addAndGet(fresh.size());
+      })
+      .doFinally(signal -> pool.refilling.set(false))
+      .subscribe(null, error -> log.warn("Card number pool refill failed: {}", error.getMessage()));
+  }
+
+  private Mono<List<String>> discardExisting(List<String> candidates) {
+    List<String> unknown = candidates.stream()
+      .filter(cardNumberFilter::mightExist)
+      .collect(Collectors.toList());
+    if (unknown.isEmpty()) {
+      return Mono.just(candidates);
+    }
+
+    return creditCardRepository.findExistingCardNumbers(unknown)
+      .collect(Collectors.toCollection(HashSet::new))
+      .map(existing -> candidates.stream()
+        .filter(candidate -> !existing.contains(candidate))
+        .collect(Collectors.toList()));
+  }
+
+  private final class NumberPool {
+
+    private final List<String> bins;
+    private final Queue<String> numbers = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() recorre la cola entera
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+    private NumberPool(List<String> bins) {
+      this.bins = bins;
+    }
+
+    private String generate() {
+      return cardUtils.generateCardNumber(bins.get(ThreadLocalRandom.current().nextInt(bins.size())));
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+import com.bootcamp.ntt.card_service.service.CardNumberFilter;
+import com.bootcamp.ntt.card_service.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class CardNumberFilterImpl implements CardNumberFilter {
+
+  private final CreditCardRepository creditCardRepository;
+  private final ReactiveRedisTemplate<String, Object> redisTemplate;
+  private final String issuedChannel;
+
+  private final Counter absentChecks;
+  private final Counter maybeChecks;
+  private final Counter unavailableChecks;
+
+  // Protege el cambio de filtro frente a altas concurrentes
+  private final Object lock = new Object();
+
+  // Cada error del canal puede haber perdido altas de otras instancias
+  private final AtomicLong channelEpoch = new AtomicLong();
+  private final AtomicBoolean listening = new AtomicBoolean(false);
+
+  @Value("${cards.number-filter.false-positive-rate:0.01}")
+  private double falsePositiveRate;
+
+  @Value("${cards.number-filter.min-capacity:100000}")
+  private long minCapacity;
+
+  // Margen de crecimiento hasta la siguiente reconstrucción
+  @Value("${cards.number-filter.capacity-factor:2.0}")
+  private double capacityFactor;
+
+  private volatile BloomFilter filter;
+  private volatile boolean ready;
+
+  // Altas recibidas mientras se reconstruye; se copian al filtro nuevo antes de usarlo
+  private Set<String> issuedDuringRebuild;
+
+  private Disposable issuedSubscription;
+
+  public CardNumberFilterImpl(CreditCardRepository creditCardRepository,
+                              ReactiveRedisTemplate<String, Object> redisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${cards.number-filter.channel:card-numbers:issued}") String issuedChannel) {
+    this.creditCardRepository = creditCardRepository;
+    this.redisTemplate = redisTemplate;
+    this.issuedChannel = issuedChannel;
+
+    this.absentChecks = checkCounter(meterRegistry, "absent");
+    this.maybeChecks = checkCounter(meterRegistry, "maybe");
+    this.unavailableChecks = checkCounter(meterRegistry, "unavailable");
+
+    Gauge.builder("card.number_filter.expected_fpp", this, self -> self.filter != null
+        ? self.filter.expectedFpp() : Double.NaN)
+      .description("Expected false-positive rate of the card number Bloom filter")
+      .register(meterRegistry);
+    Gauge.builder("card.number_filter.memory", this, self -> self.filter != null
+        ? self.filter.memoryBytes() : 0)
+      .description("Memory used by the card number Bloom filter")
+      .baseUnit("bytes")
+      .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void subscribeToIssuedNumbers() {
+    issuedSubscription = redisTemplate.listenToChannel(issuedChannel)
+      .doOnSubscribe(s -> listening.set(true))
+      .map(message -> String.valueOf(message.getMessage()))
+      .doOnNext(this::addLocally)
+      .doOnError(error -> {
+        // Hasta la próxima reconstrucción podría faltar algún número: no se descarta nada
+        log.warn("Card number channel error, filter disabled until next rebuild: {}", error.getMessage());
+        listening.set(false);
+        channelEpoch.incrementAndGet();
+        ready = false;
+      })
+      .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+      .subscribe();
+  }
+
+  @PreDestroy
+  void unsubscribeFromIssuedNumbers() {
+    if (issuedSubscription != null) {
+      issuedSubscription.dispose();
+    }
+  }
+
+  @Override
+  public boolean mightExist(String cardNumber) {
+    BloomFilter current = filter;
+    if (!ready || current == null || cardNumber == null) {
+      unavailableChecks.increment();
+      return true;
+    }
+
+    boolean maybe = current.mightContain(cardNumber);
+    (maybe ? maybeChecks : absentChecks).increment();
+    return maybe;
+  }
+
+  // Los borrados no se propagan: el número queda como posible hasta la reconstrucción
+  @Override
+  public Mono<Void> recordIssued(String cardNumber) {
+    addLocally(cardNumber);
+
+    return redisTemplate.convertAndSend(issuedChannel, cardNumber)
+      .onErrorResume(error -> {
+        log.warn("Could not announce issued card number: {}", error.getMessage());
+        return Mono.empty();
+      })
+      .then();
+  }
+
+  @Override
+  public Mono<Long> rebuild() {
+    return Mono.defer(() -> {
+      long epoch = channelEpoch.get();
+      synchronized (lock) {
+        issuedDuringRebuild = new HashSet<>();
+      }
+
+      return creditCardRepository.estimateCardCount()
+        .map(count -> BloomFilter.create(Math.max(minCapacity, (long) (count * capacityFactor)), falsePositiveRate))
+        .flatMap(next -> creditCardRepository.findAllCardNumbers()
+          .doOnNext(next::put)
+          .count()
+          .doOnNext(loaded -> swap(next, epoch)))
+        .doOnError(error -> {
+          synchronized (lock) {
+            issuedDuringRebuild = null;
+          }
+        })
+        .doOnNext(loaded -> log.info("Card number filter rebuilt with {} numbers (expected fpp {})",
+          loaded, filter.expectedFpp()));
+    });
+  }
+
+  private void swap(BloomFilter next, long epoch) {
+    synchronized (lock) {
+      issuedDuringRebuild.forEach(next::put);
+      issuedDuringRebuild = null;
+      filter = next;
+      // Solo es fiable si el canal no ha fallado mientras se cargaba
+      ready = listening.get() && channelEpoch.get() == epoch;
+    }
+  }
+
+  private void addLocally(String cardNumber) {
+    synchronized (lock) {
+      if (filter != null) {
+        filter.put(cardNumber);
+      }
+      if (issuedDuringRebuild != null) {
+        issuedDuringRebuild.add(cardNumber);
+      }
+    }
+  }
+
+  private Counter checkCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("card.number_filter.checks")
+      .description("Card number lookups answered by the Bloom filter")
+      .tag("result", result)
+      .register(meterRegistry);
+  }
+}
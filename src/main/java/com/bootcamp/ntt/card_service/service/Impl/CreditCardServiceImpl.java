@@ -2,14 +2,20 @@ package com.bootcamp.ntt.card_service.service.Impl;
 
 import com.bootcamp.ntt.card_service.client.CustomerServiceClient;
 import com.bootcamp.ntt.card_service.client.TransactionServiceClient;
-import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
 import com.bootcamp.ntt.card_service.entity.CreditCard;
 import com.bootcamp.ntt.card_service.entity.DailyBalance;
-import com.bootcamp.ntt.card_service.enums.CardStatus;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+import com.bootcamp.ntt.card_service.entity.PendingPosting;
 import com.bootcamp.ntt.card_service.enums.CardType;
 import com.bootcamp.ntt.card_service.exception.BusinessRuleException;
-import com.bootcamp.ntt.card_service.exception.TransactionServiceUnavailableException;
+import com.bootcamp.ntt.card_service.event.CardEventPublisher;
+import com.bootcamp.ntt.card_service.exception.CardServiceException;
+import com.bootcamp.ntt.card_service.exception.EntityNotFoundException;
+import com.bootcamp.ntt.card_service.mapper.CardEventMapper;
 import com.bootcamp.ntt.card_service.mapper.CreditCardMapper;
+import com.bootcamp.ntt.card_service.metrics.CardMetrics;
+import com.bootcamp.ntt.card_service.model.BatchChargeAuthorizationRequest;
+import com.bootcamp.ntt.card_service.model.BatchChargeAuthorizationResult;
 import com.bootcamp.ntt.card_service.model.CreditCardResponse;
 import com.bootcamp.ntt.card_service.model.CreditCardCreateRequest;
 import com.bootcamp.ntt.card_service.model.CreditCardUpdateRequest;
@@ -17,7 +23,6 @@ import com.bootcamp.ntt.card_service.model.ChargeAuthorizationRequest;
 import com.bootcamp.ntt.card_service.model.ChargeAuthorizationResponse;
 import com.bootcamp.ntt.card_service.model.CustomerCardValidationResponse;
 import com.bootcamp.ntt.card_service.model.CustomerDailyAverageResponse;
-import com.bootcamp.ntt.card_service.model.CustomerDailyAverageResponseProductsInner;
 import com.bootcamp.ntt.card_service.model.OverdueProduct;
 import com.bootcamp.ntt.card_service.model.PaymentProcessRequest;
 import com.bootcamp.ntt.card_service.model.PaymentProcessResponse;
@@ -25,13 +30,20 @@ import com.bootcamp.ntt.card_service.model.ProductEligibilityResponse;
 import com.bootcamp.ntt.card_service.model.CreditCardBalanceResponse;
 
 import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
-import com.bootcamp.ntt.card_service.repository.DailyBalanceRepository;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceStore;
+import com.bootcamp.ntt.card_service.repository.MonthlyBalanceAggregateRepository;
+import com.bootcamp.ntt.card_service.service.CardCacheService;
+import com.bootcamp.ntt.card_service.service.CardCounterService;
+import com.bootcamp.ntt.card_service.service.CardNumberAllocator;
+import com.bootcamp.ntt.card_service.service.CardNumberFilter;
 import com.bootcamp.ntt.card_service.service.CreditCardService;
 import com.bootcamp.ntt.card_service.service.ExternalServiceWrapper;
 import com.bootcamp.ntt.card_service.utils.CardUtils;
+import com.bootcamp.ntt.card_service.utils.ErrorCodes;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -39,12 +51,14 @@ import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.YearMonth;
 import java.util.Objects;
 
 import static com.bootcamp.ntt.card_service.utils.CacheKeys.BALANCE_TTL;
+import static com.bootcamp.ntt.card_service.utils.CacheKeys.CLOSED_MONTH_REPORT_TTL;
 import static com.bootcamp.ntt.card_service.utils.CacheKeys.MASTER_DATA_TTL;
+import static com.bootcamp.ntt.card_service.utils.CacheKeys.OPEN_MONTH_REPORT_TTL;
+import static com.bootcamp.ntt.card_service.utils.CacheKeys.dailyAveragesKey;
 
 
 @Slf4j
@@ -52,14 +66,35 @@ import static com.bootcamp.ntt.card_service.utils.CacheKeys.MASTER_DATA_TTL;
 @RequiredArgsConstructor
 public class CreditCardServiceImpl implements CreditCardService {
 
+  // Intentos de un pago cuyo saldo cambia entre la escritura condicional y la lectura del motivo
+  private static final int MAX_PAYMENT_ATTEMPTS = 3;
+
   private final CreditCardRepository creditCardRepository;
-  private final DailyBalanceRepository dailyBalanceRepository;
+  private final DailyBalanceStore dailyBalanceStore;
+  private final MonthlyBalanceAggregateRepository monthlyBalanceAggregateRepository;
   private final CreditCardMapper creditCardMapper;
   private final CustomerServiceClient customerServiceClient;
   private final TransactionServiceClient transactionServiceClient;
   private final ExternalServiceWrapper externalServiceWrapper;
   private final CardUtils cardUtils;
-  private final ReactiveRedisTemplate<String, Object> redisTemplate;
+  private final CardCacheService cardCacheService;
+  private final CardEventPublisher cardEventPublisher;
+  private final CardEventMapper cardEventMapper;
+  private final CardMetrics cardMetrics;
+  private final CardNumberAllocator cardNumberAllocator;
+  private final CardNumberFilter cardNumberFilter;
+  private final CardCounterService cardCounterService;
+
+  @Value("${cards.batch.authorize-concurrency:16}")
+  private int batchAuthorizeConcurrency;
+
+  // true: las fotos diarias se agrupan en Mongo; false: se agrupan en memoria
+  @Value("${cards.daily-averages.aggregation-pipeline:true}")
+  private boolean dailyAveragesPipelineEnabled;
+
+  // Rangos de _id del recálculo de mora; acota cuántos documentos toca cada update
+  @Value("${cards.overdue.partitions:8}")
+  private int overduePartitions;
 
 
   @Override
@@ -81,22 +116,16 @@ public class CreditCardServiceImpl implements CreditCardService {
     String cacheKey = "card:master:id:" + id;
     log.debug("Getting credit card by ID: {}", id);
 
-    return getCachedValue(cacheKey, CreditCardResponse.class)
-      .switchIfEmpty(
-        creditCardRepository.findById(id)
-          .map(creditCardMapper::toResponse)
-          .flatMap(response ->
-            setCachedValue(cacheKey, response, MASTER_DATA_TTL)
-              .thenReturn(response)
-          )
-          .doOnSuccess(card -> {
-            if (card != null) {
-              log.debug("Card found and cached: {}", id);
-            } else {
-              log.debug("Card not found: {}", id);
-            }
-          })
-      );
+    return cardCacheService.getOrLoad(cacheKey, CreditCardResponse.class, MASTER_DATA_TTL, () ->
+      creditCardRepository.findById(id)
+        .map(creditCardMapper::toResponse)
+        .doOnSuccess(card -> {
+          if (card != null) {
+            log.debug("Card found and cached: {}", id);
+          } else {
+            log.debug("Card not found: {}", id);
+          }
+        }));
   }
 
   @Override
@@ -104,22 +133,21 @@ public class CreditCardServiceImpl implements CreditCardService {
     String cacheKey = "card:master:number:" + cardNumber;
     log.debug("Getting credit card by cardNumber: {}", cardNumber);
 
-    return getCachedValue(cacheKey, CreditCardResponse.class)
-      .switchIfEmpty(
-        creditCardRepository.findByCardNumber(cardNumber)
-          .map(creditCardMapper::toResponse)
-          .flatMap(response ->
-            setCachedValue(cacheKey, response, MASTER_DATA_TTL)
-              .thenReturn(response)
-          )
-          .doOnSuccess(card -> {
-            if (card != null) {
-              log.debug("Card found and cached: {}", cardNumber);
-            } else {
-              log.debug("Card not found: {}", cardNumber);
-            }
-          })
-      );
+    if (!cardNumberFilter.mightExist(cardNumber)) {
+      log.debug("Card number not issued, skipping lookup: {}", cardNumber);
+      return Mono.empty();
+    }
+
+    return cardCacheService.getOrLoad(cacheKey, CreditCardResponse.class, MASTER_DATA_TTL, () ->
+      creditCardRepository.findByCardNumber(cardNumber)
+        .map(creditCardMapper::toResponse)
+        .doOnSuccess(card -> {
+          if (card != null) {
+            log.debug("Card found and cached: {}", cardNumber);
+          } else {
+            log.debug("Card not found: {}", cardNumber);
+          }
+        }));
   }
 
   @Override
@@ -128,14 +156,14 @@ public class CreditCardServiceImpl implements CreditCardService {
 
     return externalServiceWrapper.getCustomerTypeWithCircuitBreaker(cardRequest.getCustomerId())
       .flatMap(customerType -> validateCreditCreation(cardRequest.getCustomerId(), customerType.getCustomerType())
-        .then(generateUniqueCardNumber())
-        .map(cardNumber -> creditCardMapper.toEntity(cardRequest, customerType.getCustomerType(), cardNumber))
-        .flatMap(creditCardRepository::save)
+        .then(cardNumberAllocator.allocate(CardType.CREDIT, cardNumber -> creditCardRepository.save(
+          creditCardMapper.toEntity(cardRequest, customerType.getCustomerType(), cardNumber))))
+        .flatMap(saved -> cardCounterService.cardCreated(CardType.CREDIT, saved.isActive()).thenReturn(saved))
         .map(creditCardMapper::toResponse))
       .doOnSuccess(response -> {
         log.debug("Card created with ID: {}", response.getId());
-        // ✅ INVALIDAR CACHE DEL CLIENTE
-        invalidateCustomerCaches(response.getCustomerId());
+        // ✅ INVALIDAR CACHE DEL CLIENTE (y tombstones de "no encontrada" de la nueva tarjeta)
+        invalidateCardCaches(response.getId(), response.getCardNumber(), response.getCustomerId());
       });
   }
 
@@ -143,10 +171,24 @@ public class CreditCardServiceImpl implements CreditCardService {
   public Mono<CreditCardResponse> updateCard(String id, CreditCardUpdateRequest cardRequest) {
     log.debug("Updating card with ID: {}", id);
 
-    return creditCardRepository.findById(id)
+    // Solo los campos pedidos, con $set: un save del documento leído pisaría los cargos concurrentes
+    return creditCardRepository.updateFields(id, toAmount(cardRequest.getCreditLimit()),
+        toAmount(cardRequest.getAvailableCredit()), toAmount(cardRequest.getCurrentBalance()))
       .switchIfEmpty(Mono.error(new RuntimeException("Credit card not found")))
-      .map(existing -> creditCardMapper.updateEntity(existing, cardRequest))
-      .flatMap(creditCardRepository::save)
+      .flatMap(previous -> {
+        BigDecimal previousCreditLimit = previous.getCreditLimit();
+
+        // Estado tras la escritura: el documento anterior con los mismos campos aplicados
+        CreditCard saved = creditCardMapper.updateEntity(previous, cardRequest);
+        if (previousCreditLimit != null && saved.getCreditLimit() != null
+          && previousCreditLimit.compareTo(saved.getCreditLimit()) != 0) {
+          cardEventPublisher.publish(cardEventMapper.toCreditLimitChangedEvent(saved, previousCreditLimit));
+        }
+        Mono<CreditCard> status = cardRequest.getIsActive() == null
+          ? Mono.empty()
+          : flipStatus(id, cardRequest.getIsActive());
+        return status.thenReturn(saved);
+      })
       .map(card -> {
         invalidateCardCaches(card.getId(), card.getCardNumber(), card.getCustomerId());
         return creditCardMapper.toResponse(card);
@@ -163,6 +205,7 @@ public class CreditCardServiceImpl implements CreditCardService {
         String cardNumber = card.getCardNumber();
 
         return creditCardRepository.delete(card)
+          .then(cardCounterService.cardDeleted(CardType.CREDIT, card.isActive()))
           .doOnSuccess(unused -> {
             log.debug("Card deleted");
             invalidateCardCaches(id, cardNumber, customerId);
@@ -172,156 +215,137 @@ public class CreditCardServiceImpl implements CreditCardService {
 
   @Override
   public Mono<CreditCardResponse> deactivateCard(String id) {
-    return creditCardRepository.findById(id)
-      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + id)))
-      .flatMap(card -> {
-        card.setActive(false);  // soft delete
-        return creditCardRepository.save(card);
-      })
+    return flipStatus(id, false)  // soft delete
+      .doOnNext(card -> cardEventPublisher.publish(cardEventMapper.toStatusChangedEvent(card)))
+      .switchIfEmpty(Mono.defer(() -> findCardForStatus(id)))
       .map(creditCardMapper::toResponse)
       .doOnSuccess(c -> log.debug("Card {} deactivated", id));
   }
 
   @Override
   public Mono<CreditCardResponse> activateCard(String id) {
-    return creditCardRepository.findById(id)
-      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + id)))
-      .flatMap(card -> {
-        card.setActive(true);  // reactivar
-        return creditCardRepository.save(card);
-      })
+    return flipStatus(id, true)  // reactivar
+      .doOnNext(card -> cardEventPublisher.publish(cardEventMapper.toStatusChangedEvent(card)))
+      .switchIfEmpty(Mono.defer(() -> findCardForStatus(id)))
       .map(creditCardMapper::toResponse)
       .doOnSuccess(c -> log.debug("Card {} activated", id));
   }
 
-  //helpers
-  private <T> Mono<T> getCachedValue(String key, Class<T> valueType) {
-    return redisTemplate.opsForValue()
-      .get(key)
-      .cast(valueType)
-      .doOnNext(cached -> log.debug("REDIS CACHE HIT: {}", key))
-      .onErrorResume(error -> {
-        log.warn("Redis read error for key {}: {}", key, error.getMessage());
-        return Mono.empty();
-      });
+  // La escritura solo coincide si la tarjeta estaba en el estado contrario: de dos cambios concurrentes
+  // solo uno mueve el contador. Vacío si no cambió nada
+  private Mono<CreditCard> flipStatus(String id, boolean active) {
+    return creditCardRepository.setActive(id, active)
+      .flatMap(card -> cardCounterService.statusChanged(CardType.CREDIT, !active, active).thenReturn(card));
   }
 
-  private Mono<Boolean> setCachedValue(String key, Object value, Duration ttl) {
-    return redisTemplate.opsForValue()
-      .set(key, value, ttl)
-      .doOnSuccess(success -> {
-        if (success) {
-          log.debug("REDIS CACHE SET: {} (TTL: {})", key, ttl);
-        } else {
-          log.warn("Redis cache SET failed for key: {}", key);
-        }
-      })
-      .onErrorResume(error -> {
-        log.error("❌ Redis write error for key {}: {}", key, error.getMessage());
-        return Mono.just(false);
-      });
+  // La tarjeta ya estaba en el estado pedido: se devuelve tal cual, sin evento
+  private Mono<CreditCard> findCardForStatus(String id) {
+    return creditCardRepository.findById(id)
+      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + id)));
   }
 
   //invalidaciones
   private void invalidateCardCaches(String cardId, String cardNumber, String customerId) {
-    Flux.just(
+    cardCacheService.evict(
         "card:master:id:" + cardId,
         "card:master:number:" + cardNumber,
         "card:balance:" + cardNumber,
         "card:eligibility:" + customerId
       )
-      .flatMap(redisTemplate::delete)
-      .doOnNext(deleted -> log.debug("✅ Card cache invalidated: {}", deleted))
       .subscribe();
   }
 
-  private void invalidateCustomerCaches(String customerId) {
-    Flux.just(
-        "card:eligibility:" + customerId
-      )
-      .flatMap(redisTemplate::delete)
-      .doOnNext(deleted -> log.debug("✅ Customer cache invalidated: {}", deleted))
-      .subscribe();
+  @Override
+  public Mono<ChargeAuthorizationResponse> authorizeCharge(String cardNumber, ChargeAuthorizationRequest request) {
+    if (!cardNumberFilter.mightExist(cardNumber)) {
+      return Mono.error(new EntityNotFoundException("Card not found with id: " + cardNumber));
+    }
+
+    if (request.getAmount() == null || request.getAmount() <= 0) {
+      return creditCardRepository.findByCardNumber(cardNumber)
+        .switchIfEmpty(Mono.error(new EntityNotFoundException("Card not found with id: " + cardNumber)))
+        .map(card -> declineCharge(
+          card.getAvailableCredit().doubleValue(), card.isActive() ? "INVALID_AMOUNT" : "CARD_INACTIVE"));
+    }
+
+    BigDecimal chargeAmount = BigDecimal.valueOf(request.getAmount());
+    String authCode = cardUtils.generateAuthCode();
+    PendingPosting posting = creditCardMapper.toPendingCharge(request, authCode);
+
+    // Una sola escritura condicional (activa y con crédito suficiente) que reserva el crédito y deja el
+    // envío al transaction-service en la tarjeta: no hay reserva sin envío aunque la instancia caiga
+    return creditCardRepository.reserveCredit(cardNumber, chargeAmount, posting)
+      .map(reservedCard -> approveCharge(reservedCard, request, chargeAmount, authCode))
+      .switchIfEmpty(Mono.defer(() -> resolveDeclinedCharge(cardNumber, request)));
   }
 
   @Override
-  public Mono<ChargeAuthorizationResponse> authorizeCharge(String cardNumber, ChargeAuthorizationRequest request) {
-    return creditCardRepository.findByCardNumber(cardNumber)
-      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + cardNumber)))
-      .flatMap(creditCard -> validateAndProcessCharge(creditCard, request));
+  public Flux<BatchChargeAuthorizationResult> authorizeChargeBatch(Flux<BatchChargeAuthorizationRequest> charges) {
+    int lanes = Math.max(1, batchAuthorizeConcurrency);
+
+    // Cada tarjeta cae siempre en el mismo carril: en orden por tarjeta, en paralelo entre carriles.
+    // Los grupos están acotados a "lanes" para que flatMap nunca deje grupos sin suscriptor.
+    return charges
+      .groupBy(item -> Math.floorMod(Objects.hashCode(item.getCardNumber()), lanes))
+      .flatMap(lane -> lane.concatMap(this::authorizeBatchItem), lanes);
   }
 
-  private Mono<ChargeAuthorizationResponse> validateAndProcessCharge(CreditCard card, ChargeAuthorizationRequest request) {
-    Double availableCredit = card.getAvailableCredit().doubleValue();
+  private Mono<BatchChargeAuthorizationResult> authorizeBatchItem(BatchChargeAuthorizationRequest item) {
+    return authorizeCharge(item.getCardNumber(), creditCardMapper.toChargeAuthorizationRequest(item))
+      .map(authorization -> creditCardMapper.toBatchChargeResult(item, authorization))
+      .onErrorResume(error -> {
+        log.warn("Batch charge {} for card {} failed: {}", item.getReferenceId(), item.getCardNumber(),
+          error.getMessage());
+        return Mono.just(creditCardMapper.toBatchChargeErrorResult(item, resolveErrorCode(error), error.getMessage()));
+      });
+  }
 
-    if (!card.isActive()) {
-      return Mono.just(creditCardMapper.toChargeDeclinedResponse(availableCredit, "CARD_INACTIVE"));
+  // El código sale del tipo de excepción; el mensaje solo se copia como descripción
+  private String resolveErrorCode(Throwable error) {
+    if (error instanceof CardServiceException) {
+      return ((CardServiceException) error).getErrorCode();
     }
-
-    if (request.getAmount() <= 0) {
-      return Mono.just(creditCardMapper.toChargeDeclinedResponse(availableCredit, "INVALID_AMOUNT"));
+    if (error instanceof BusinessRuleException) {
+      return ((BusinessRuleException) error).getCode();
     }
-
-    if (card.getAvailableCredit().doubleValue() < request.getAmount()) {
-      return Mono.just(creditCardMapper.toChargeDeclinedResponse(availableCredit, "INSUFFICIENT_CREDIT"));
+    if (error instanceof EntityNotFoundException) {
+      return ErrorCodes.CARD_NOT_FOUND;
     }
-
-    return processApprovedCharge(card, request);
+    return ErrorCodes.INTERNAL_ERROR;
   }
 
-  private Mono<ChargeAuthorizationResponse> processApprovedCharge(CreditCard card, ChargeAuthorizationRequest request) {
-    BigDecimal chargeAmount = BigDecimal.valueOf(request.getAmount());
-    BigDecimal newAvailableCredit = card.getAvailableCredit().subtract(chargeAmount);
-    BigDecimal newCurrentBalance = card.getCurrentBalance().add(chargeAmount);
-    String authCode = cardUtils.generateAuthCode();
+  // Solo se lee la tarjeta cuando la reserva no aplicó, para conocer el motivo del rechazo
+  private Mono<ChargeAuthorizationResponse> resolveDeclinedCharge(String cardNumber,
+                                                                  ChargeAuthorizationRequest request) {
+    return creditCardRepository.findByCardNumber(cardNumber)
+      .switchIfEmpty(Mono.error(new EntityNotFoundException("Card not found with id: " + cardNumber)))
+      .map(card -> {
+        Double availableCredit = card.getAvailableCredit().doubleValue();
 
-    BigDecimal originalAvailableCredit = card.getAvailableCredit();
-    BigDecimal originalCurrentBalance = card.getCurrentBalance();
-    CardStatus originalStatus = card.getStatus();
-
-    card.setStatus(CardStatus.CHARGE_PENDING);
-
-    return creditCardRepository.save(card)
-      .flatMap(savedCard -> {
-        // Crear la transacción
-        TransactionRequest transactionRequest = creditCardMapper.toTransactionRequest(
-          savedCard, request, authCode);
-
-        return externalServiceWrapper.createTransactionWithCircuitBreaker(transactionRequest)
-          .then(Mono.defer(() -> {
-            savedCard.setAvailableCredit(newAvailableCredit);
-            savedCard.setCurrentBalance(newCurrentBalance);
-            savedCard.setStatus(CardStatus.ACTIVE);
-
-            return creditCardRepository.save(savedCard)
-              .map(finalCard -> creditCardMapper.toChargeApprovedResponse(
-                finalCard, request.getAmount(), authCode));
-          }))
-          .onErrorResume(error -> {
-            savedCard.setAvailableCredit(originalAvailableCredit);
-            savedCard.setCurrentBalance(originalCurrentBalance);
-            savedCard.setStatus(originalStatus != null ? originalStatus : CardStatus.ACTIVE);
-
-            return creditCardRepository.save(savedCard)
-              .then(Mono.error(new TransactionServiceUnavailableException(
-                "Transaction service failed. Charge authorization reverted.")));
-          });
+        if (!card.isActive()) {
+          return declineCharge(availableCredit, "CARD_INACTIVE");
+        }
+        return declineCharge(availableCredit, "INSUFFICIENT_CREDIT");
       });
   }
 
-  public Mono<String> generateUniqueCardNumber() {
-    String candidate = cardUtils.generateRandomCardNumber();
-    return creditCardRepository.findByCardNumber(candidate)
-      .flatMap(existing -> generateUniqueCardNumber())
-      .switchIfEmpty(Mono.just(candidate));
+  private ChargeAuthorizationResponse declineCharge(Double availableCredit, String reason) {
+    cardMetrics.recordCharge("declined", reason);
+    return creditCardMapper.toChargeDeclinedResponse(availableCredit, reason);
+  }
+
+  // El registro en transaction-service lo hace el outbox en segundo plano, a partir de pendingPostings
+  private ChargeAuthorizationResponse approveCharge(CreditCard reservedCard, ChargeAuthorizationRequest request,
+                                                    BigDecimal chargeAmount, String authCode) {
+    cardEventPublisher.publish(cardEventMapper.toChargeAuthorizedEvent(reservedCard, chargeAmount, authCode));
+    cardMetrics.recordCharge("approved", null);
+    return creditCardMapper.toChargeApprovedResponse(reservedCard, request.getAmount(), authCode);
   }
 
   @Override
   public Mono<PaymentProcessResponse> processPayment(String cardNumber, PaymentProcessRequest paymentRequest) {
     log.debug("Processing payment for card: {}, amount: {}", cardNumber, paymentRequest.getAmount());
-    return creditCardRepository.findByCardNumber(cardNumber)
-      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + cardNumber)))
-      .flatMap(card -> validateAndProcessPayment(card, paymentRequest))
+    return applyPayment(cardNumber, BigDecimal.valueOf(paymentRequest.getAmount()), MAX_PAYMENT_ATTEMPTS)
       .doOnSuccess(response -> {
         if (response.getSuccess()) {
           log.info("Payment processed successfully for card {}: paid {}",
@@ -351,88 +375,62 @@ public class CreditCardServiceImpl implements CreditCardService {
         customerId, response.getHasActiveCard()));
   }
 
-  // Método para capturar todos los saldos diarios (job programado)
-  @Override
-  public Mono<Void> captureAllDailyBalances() {
-    LocalDate today = LocalDate.now();
-    log.info("Starting daily balance capture for date: {}", today);
-
-    return creditCardRepository.findByIsActiveAndType(true, CardType.CREDIT)
-      .flatMap(card -> captureCardBalanceForDate(card, today))
-      .then()
-      .doOnSuccess(v -> log.info("Daily balance capture completed for date: {}", today));
-  }
-
-  //  helper para capturar saldo diario de una tarjeta
-  private Mono<Void> captureCardBalanceForDate(CreditCard card, LocalDate date) {
-    return dailyBalanceRepository.existsByCardIdAndDate(card.getId(), date)
-      .flatMap(exists -> {
-        if (exists) {
-          log.debug("Balance already captured for card {} on date {}", card.getId(), date);
-          return Mono.empty();
-        }
-
-        DailyBalance dailyBalance = new DailyBalance();
-        dailyBalance.setCustomerId(card.getCustomerId());
-        dailyBalance.setCardId(card.getId());
-        dailyBalance.setCardNumber(card.getCardNumber());
-        dailyBalance.setDate(date);
-        dailyBalance.setCurrentBalance(card.getCurrentBalance());
-        dailyBalance.setAvailableCredit(card.getAvailableCredit());
-        dailyBalance.setCreditLimit(card.getCreditLimit());
-        dailyBalance.setCapturedAt(LocalDateTime.now());
-
-        return dailyBalanceRepository.save(dailyBalance).then();
-      });
-  }
-
   // Método para obtener promedios diarios (para report-service)
   @Override
   public Mono<CustomerDailyAverageResponse> getCustomerDailyAverages(String customerId, Integer year, Integer month) {
     log.debug("Getting daily averages for customer: {} for {}/{}", customerId, month, year);
 
-    LocalDate startDate = LocalDate.of(year, month, 1);
-    LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
+    YearMonth period = YearMonth.of(year, month);
+    Duration ttl = period.isBefore(YearMonth.now()) ? CLOSED_MONTH_REPORT_TTL : OPEN_MONTH_REPORT_TTL;
 
-    return dailyBalanceRepository.findByCustomerIdAndDateBetween(customerId, startDate, endDate)
-      .groupBy(DailyBalance::getCardId)
-      .flatMap(this::calculateCardAverage)
+    return cardCacheService.getOrLoad(dailyAveragesKey(customerId, period), CustomerDailyAverageResponse.class, ttl,
+      () -> calculateDailyAverages(customerId, period));
+  }
+
+  private Mono<CustomerDailyAverageResponse> calculateDailyAverages(String customerId, YearMonth period) {
+    int year = period.getYear();
+    int month = period.getMonthValue();
+    LocalDate startDate = period.atDay(1);
+    LocalDate endDate = period.atEndOfMonth();
+    int daysInMonth = period.lengthOfMonth();
+
+    // Un documento por tarjeta; los meses anteriores a los acumulados se calculan desde las fotos diarias.
+    // El mes del despliegue queda completo tras MonthlyBalanceAggregateBackfill
+    return monthlyBalanceAggregateRepository.findByCustomerIdAndYearAndMonth(customerId, year, month)
+      .switchIfEmpty(Flux.defer(() -> aggregateDailyBalances(customerId, startDate, endDate)))
+      .filter(aggregate -> aggregate.getDayCount() > 0)
+      .map(aggregate -> creditCardMapper.toDailyAverageProduct(aggregate, daysInMonth))
       .collectList()
       .map(products -> creditCardMapper.toDailyAverageResponse(customerId, year, month, products))
       .doOnSuccess(response -> log.debug("Daily averages calculated for customer {}: {} products",
         customerId, response.getProducts().size()));
   }
 
-  // Helper para calcular promedio de una tarjeta
-  private Mono<CustomerDailyAverageResponseProductsInner> calculateCardAverage(Flux<DailyBalance> cardBalances) {
-    return cardBalances.collectList()
-      .mapNotNull(balances -> {
-        if (balances.isEmpty()) return null;
-
-        DailyBalance firstBalance = balances.get(0);
-        BigDecimal sumBalance = balances.stream()
-          .map(DailyBalance::getCurrentBalance)
-          .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal sumAvailable = balances.stream()
-          .map(DailyBalance::getAvailableCredit)
-          .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        double averageBalance = sumBalance.divide(BigDecimal.valueOf(balances.size()), 2, java.math.RoundingMode.HALF_UP).doubleValue();
-        double averageAvailable = sumAvailable.divide(BigDecimal.valueOf(balances.size()), 2, java.math.RoundingMode.HALF_UP).doubleValue();
+  private Flux<MonthlyBalanceAggregate> aggregateDailyBalances(String customerId, LocalDate startDate,
+                                                               LocalDate endDate) {
+    if (dailyAveragesPipelineEnabled) {
+      return dailyBalanceStore.aggregateByCard(customerId, startDate, endDate);
+    }
+    return dailyBalanceStore.findByCustomerIdAndDateBetween(customerId, startDate, endDate)
+      .groupBy(DailyBalance::getCardId)
+      .flatMap(this::aggregateCardBalances);
+  }
 
-        CustomerDailyAverageResponseProductsInner product = new CustomerDailyAverageResponseProductsInner();
-        product.setCardId(firstBalance.getCardId());
-        product.setCardNumber(firstBalance.getCardNumber());
-        product.setProductType(CustomerDailyAverageResponseProductsInner.ProductTypeEnum.CREDIT_CARD);
-        product.setAverageDailyBalance(averageBalance);
-        product.setAverageDailyAvailable(averageAvailable);
-        product.setTotalDaysWithData(balances.size());
-        product.setIsComplete(balances.size() >= LocalDate.now().lengthOfMonth());
+  // Helper para acumular en memoria las fotos de una tarjeta cuando no hay acumulado mensual
+  private Mono<MonthlyBalanceAggregate> aggregateCardBalances(Flux<DailyBalance> cardBalances) {
+    return cardBalances.reduce(new MonthlyBalanceAggregate(), (aggregate, balance) -> {
+      aggregate.setCardId(balance.getCardId());
+      aggregate.setCardNumber(balance.getCardNumber());
+      aggregate.setSumCurrentBalance(add(aggregate.getSumCurrentBalance(), balance.getCurrentBalance()));
+      aggregate.setSumAvailableCredit(add(aggregate.getSumAvailableCredit(), balance.getAvailableCredit()));
+      aggregate.setDayCount(aggregate.getDayCount() + 1);
+      return aggregate;
+    });
+  }
 
-        return product;
-      })
-      .filter(Objects::nonNull);
+  private static BigDecimal add(BigDecimal total, BigDecimal value) {
+    BigDecimal base = total != null ? total : BigDecimal.ZERO;
+    return value != null ? base.add(value) : base;
   }
 
   public Mono<ProductEligibilityResponse> checkCustomerProductEligibility(String customerId) {
@@ -468,24 +466,33 @@ public class CreditCardServiceImpl implements CreditCardService {
 
 
 
-  // Método auxiliar que puedes llamar periódicamente o al consultar
-  public Mono<Void> updateOverdueStatus(String creditCardId) {
-    return creditCardRepository.findById(creditCardId)
-      .flatMap(creditCard -> {
-        if (creditCard.getPaymentDueDate() != null) {
-          LocalDate today = LocalDate.now();
-          boolean isOverdue = today.isAfter(creditCard.getPaymentDueDate());
-          int overdueDays = isOverdue ?
-            (int) creditCard.getPaymentDueDate().until(today, ChronoUnit.DAYS) : 0;
-
-          creditCard.setIsOverdue(isOverdue);
-          creditCard.setOverdueDays(overdueDays);
-
-          return creditCardRepository.save(creditCard);
-        }
-        return Mono.just(creditCard);
+  // Dos updates por rango de _id en lugar de leer y guardar cada tarjeta. Es idempotente:
+  // una segunda ejecución el mismo día (otra réplica) no encuentra nada que cambiar.
+  @Override
+  public Mono<Long> recomputeOverdueStatus() {
+    LocalDate today = LocalDate.now();
+    log.info("Recomputing overdue status for date: {}", today);
+
+    return creditCardRepository.findPartitionBoundaries(Math.max(1, overduePartitions))
+      .flatMapMany(boundaries -> Flux.range(0, boundaries.size() + 1)
+        .concatMap(index -> {
+          String lowerBound = index > 0 ? boundaries.get(index - 1) : null;
+          String upperBound = index < boundaries.size() ? boundaries.get(index) : null;
+
+          return Mono.zip(
+            creditCardRepository.markOverdue(today, lowerBound, upperBound),
+            creditCardRepository.clearOverdue(today, lowerBound, upperBound));
+        }))
+      .reduceWith(() -> new long[2], (totals, changed) -> {
+        totals[0] += changed.getT1();
+        totals[1] += changed.getT2();
+        return totals;
+      })
+      .doOnNext(totals -> {
+        cardMetrics.recordOverdueUpdates(totals[0], totals[1]);
+        log.info("Overdue status recomputed for {}: {} cards overdue or aged, {} cleared", today, totals[0], totals[1]);
       })
-      .then();
+      .map(totals -> totals[0] + totals[1]);
   }
 
   //Validaciones
@@ -515,56 +522,77 @@ public class CreditCardServiceImpl implements CreditCardService {
     return Mono.empty();
   }
 
-  private Mono<PaymentProcessResponse> validateAndProcessPayment(CreditCard card, PaymentProcessRequest request) {
-    BigDecimal paymentAmount = BigDecimal.valueOf(request.getAmount());
-    // Validar estado de la tarjeta
-    if (!card.isActive()) {
-      return Mono.just(creditCardMapper.toPaymentFailedResponse(card.getId(), paymentAmount,
-        PaymentProcessResponse.ErrorCodeEnum.CARD_INACTIVE, "Card is not active"));
-    }
-
-    // Validar monto
+  // Una sola escritura condicional (activa y con saldo que cubra el pago); la tarjeta solo se lee si no
+  // aplicó, para saber el motivo o para pagar el saldo completo cuando el monto lo supera
+  private Mono<PaymentProcessResponse> applyPayment(String cardNumber, BigDecimal paymentAmount, int attemptsLeft) {
     if (paymentAmount.compareTo(BigDecimal.ZERO) <= 0) {
-      return Mono.just(creditCardMapper.toPaymentFailedResponse(card.getId(), paymentAmount,
-        PaymentProcessResponse.ErrorCodeEnum.INVALID_AMOUNT, "Payment amount must be greater than 0"));
-    }
-
-    //  Validar balance cero
-    if (card.getCurrentBalance().compareTo(BigDecimal.ZERO) == 0) {
-      return Mono.just(creditCardMapper.toPaymentFailedResponse(card.getId(), paymentAmount,
-        PaymentProcessResponse.ErrorCodeEnum.ZERO_CURRENT_BALANCE, "Card has no outstanding balance"));
+      return findCardForPayment(cardNumber)
+        .map(card -> card.isActive()
+          ? creditCardMapper.toPaymentFailedResponse(card.getId(), paymentAmount,
+            PaymentProcessResponse.ErrorCodeEnum.INVALID_AMOUNT, "Payment amount must be greater than 0")
+          : inactiveCardPayment(card, paymentAmount));
     }
 
-    // Determinar monto real a pagar
-    BigDecimal actualPaymentAmount = calculateActualPaymentAmount(card, paymentAmount);
+    return payBalance(cardNumber, paymentAmount, paymentAmount)
+      .switchIfEmpty(Mono.defer(() -> resolveUnappliedPayment(cardNumber, paymentAmount, attemptsLeft)));
+  }
 
-    // Calcular nuevos saldos
-    BigDecimal newCurrentBalance = card.getCurrentBalance().subtract(actualPaymentAmount);
-    BigDecimal newAvailableCredit = card.getAvailableCredit().add(actualPaymentAmount);
+  private Mono<PaymentProcessResponse> resolveUnappliedPayment(String cardNumber, BigDecimal paymentAmount,
+                                                               int attemptsLeft) {
+    return findCardForPayment(cardNumber)
+      .flatMap(card -> {
+        if (!card.isActive()) {
+          return Mono.just(inactiveCardPayment(card, paymentAmount));
+        }
+        if (card.getCurrentBalance().compareTo(BigDecimal.ZERO) == 0) {
+          return Mono.just(creditCardMapper.toPaymentFailedResponse(card.getId(), paymentAmount,
+            PaymentProcessResponse.ErrorCodeEnum.ZERO_CURRENT_BALANCE, "Card has no outstanding balance"));
+        }
+        // El saldo cambió entre la escritura y la lectura: se vuelve a intentar con el saldo nuevo
+        if (attemptsLeft <= 1) {
+          return Mono.error(new CardServiceException(
+            "Card balance changed while applying the payment", "PAYMENT_CONFLICT", HttpStatus.CONFLICT));
+        }
+        if (paymentAmount.compareTo(card.getCurrentBalance()) <= 0) {
+          return applyPayment(cardNumber, paymentAmount, attemptsLeft - 1);
+        }
 
-    // Actualizar la tarjeta
-    card.setCurrentBalance(newCurrentBalance);
-    card.setAvailableCredit(newAvailableCredit);
+        // Si el pago es mayor al balance, se paga solo lo que se debe
+        log.info("Payment amount {} exceeds balance {}, adjusting to full balance",
+          paymentAmount, card.getCurrentBalance());
+        return payBalance(cardNumber, paymentAmount, card.getCurrentBalance())
+          .switchIfEmpty(Mono.defer(() -> applyPayment(cardNumber, paymentAmount, attemptsLeft - 1)));
+      });
+  }
 
-    return creditCardRepository.save(card)
+  private Mono<PaymentProcessResponse> payBalance(String cardNumber, BigDecimal paymentAmount,
+                                                  BigDecimal actualPaymentAmount) {
+    return creditCardRepository.applyPayment(cardNumber, actualPaymentAmount)
+      .doOnNext(savedCard -> cardEventPublisher.publish(
+        cardEventMapper.toPaymentProcessedEvent(savedCard, actualPaymentAmount)))
       .map(savedCard -> creditCardMapper.toPaymentSuccessResponse(savedCard, paymentAmount, actualPaymentAmount));
   }
 
-  private BigDecimal calculateActualPaymentAmount(CreditCard card, BigDecimal requestedAmount) {
-    // Si el pago es mayor al balance, se paga solo lo que se debe
-    if (requestedAmount.compareTo(card.getCurrentBalance()) > 0) {
-      log.info("Payment amount {} exceeds balance {}, adjusting to full balance",
-        requestedAmount, card.getCurrentBalance());
-      return card.getCurrentBalance();
-    }
-    return requestedAmount;
+  private Mono<CreditCard> findCardForPayment(String cardNumber) {
+    return creditCardRepository.findByCardNumber(cardNumber)
+      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + cardNumber)));
+  }
+
+  private PaymentProcessResponse inactiveCardPayment(CreditCard card, BigDecimal paymentAmount) {
+    return creditCardMapper.toPaymentFailedResponse(card.getId(), paymentAmount,
+      PaymentProcessResponse.ErrorCodeEnum.CARD_INACTIVE, "Card is not active");
+  }
+
+  private static BigDecimal toAmount(Double value) {
+    return value != null ? BigDecimal.valueOf(value) : null;
   }
 
   @Override
   public Mono<Integer> getActiveCardsCount() {
     log.debug("Getting total count of active credit cards");
 
-    return creditCardRepository.countByIsActiveAndType(true, CardType.CREDIT)
+    // Contador mantenido en cada alta, baja y cambio de estado; no recorre cards
+    return cardCounterService.getActiveCount(CardType.CREDIT)
       .map(Long::intValue)
       .doOnSuccess(count -> log.debug("Found {} active credit cards", count));
   }
@@ -0,0 +1,379 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.entity.CardBalanceChange;
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.DailyBalanceCaptureRun;
+import com.bootcamp.ntt.card_service.entity.DailyBalancePartition;
+import com.bootcamp.ntt.card_service.enums.CaptureMode;
+import com.bootcamp.ntt.card_service.enums.PartitionStatus;
+import com.bootcamp.ntt.card_service.metrics.CardMetrics;
+import com.bootcamp.ntt.card_service.repository.CardBalanceChangeRepository;
+import com.bootcamp.ntt.card_service.repository.CarryForwardStore;
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceCaptureRunRepository;
+import com.bootcamp.ntt.card_service.repository.DailyBalancePartitionRepository;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceStore;
+import com.bootcamp.ntt.card_service.repository.MonthlyBalanceAggregateRepository;
+import com.bootcamp.ntt.card_service.service.BalanceChangeTracker;
+import com.bootcamp.ntt.card_service.service.CardCacheService;
+import com.bootcamp.ntt.card_service.service.DailyBalanceCaptureService;
+import com.bootcamp.ntt.card_service.utils.CacheKeys;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyBalanceCaptureServiceImpl implements DailyBalanceCaptureService {
+
+  private final CreditCardRepository creditCardRepository;
+  private final DailyBalanceStore dailyBalanceStore;
+  private final DailyBalanceCaptureRunRepository captureRunRepository;
+  private final DailyBalancePartitionRepository partitionRepository;
+  private final MonthlyBalanceAggregateRepository monthlyBalanceAggregateRepository;
+  private final CardCacheService cardCacheService;
+  private final CardMetrics cardMetrics;
+  private final CardBalanceChangeRepository changeRepository;
+  private final BalanceChangeTracker balanceChangeTracker;
+
+  // Identifica a esta instancia como dueña de los leases
+  private final String instanceId = UUID.randomUUID().toString();
+
+  @Value("${cards.daily-balance.chunk-size:1000}")
+  private int chunkSize;
+
+  @Value("${cards.daily-balance.write-concurrency:4}")
+  private int writeConcurrency;
+
+  @Value("${cards.daily-balance.partitions:32}")
+  private int partitions;
+
+  @Value("${cards.daily-balance.lease-seconds:300}")
+  private long leaseSeconds;
+
+  @Value("${cards.daily-balance.retry-delay-seconds:60}")
+  private long retryDelaySeconds;
+
+  // Margen sobre el inicio de la captura anterior: cubre cambios aún en el lote del stream al leerlos
+  @Value("${cards.daily-balance.change-stream.overlap-seconds:300}")
+  private long changesOverlapSeconds;
+
+  @Override
+  public Mono<Void> captureDailyBalances() {
+    LocalDate today = LocalDate.now();
+    log.info("Starting daily balance capture for date: {}", today);
+
+    return Mono.defer(() -> {
+      Timer.Sample sample = cardMetrics.startDailyBalanceCapture();
+
+      return preparePartitions(today)
+        .then(processDuePartitions())
+        .doOnNext(inserted -> log.info("Daily balance capture inserted {} snapshots on this instance", inserted))
+        .then()
+        .doOnSuccess(v -> cardMetrics.stopDailyBalanceCapture(sample, CardMetrics.OUTCOME_SUCCESS))
+        .doOnError(error -> cardMetrics.stopDailyBalanceCapture(sample, CardMetrics.OUTCOME_ERROR));
+    })
+      .doOnSuccess(v -> log.info("Daily balance capture completed for date: {}", today));
+  }
+
+  @Override
+  public Mono<Long> processDuePartitions() {
+    return drainPartitions(0L);
+  }
+
+  @Override
+  public Mono<Long> resumeCapture(LocalDate date) {
+    log.info("Resuming daily balance capture for date: {}", date);
+
+    return preparePartitions(date)
+      .then(partitionRepository.makeDue(date, Instant.now()))
+      .doOnNext(released -> log.info("Daily balance capture for {}: {} pending partitions made due", date, released))
+      .then(processDuePartitions());
+  }
+
+  @Override
+  public Flux<DailyBalancePartition> getPartitions(LocalDate date) {
+    return partitionRepository.findByDateOrderByIndexAsc(date);
+  }
+
+  // Toma particiones una a una hasta que no quede ninguna disponible
+  private Mono<Long> drainPartitions(long insertedSoFar) {
+    return partitionRepository.claimNext(instanceId, Instant.now(), lease())
+      .flatMap(partition -> capturePartition(partition)
+        .flatMap(inserted -> drainPartitions(insertedSoFar + inserted)))
+      .defaultIfEmpty(insertedSoFar);
+  }
+
+  private Mono<DailyBalanceCaptureRun> preparePartitions(LocalDate date) {
+    return captureRunRepository.findById(date.toString())
+      .switchIfEmpty(Mono.defer(() -> createRun(date)))
+      .flatMap(run -> Flux.range(0, run.getPartitionCount())
+        .map(index -> toPartition(run, index))
+        .concatMap(partition -> partitionRepository.insert(partition)
+          .onErrorResume(DuplicateKeyException.class, error -> Mono.empty()))
+        .then(Mono.just(run)))
+      .doOnNext(run -> log.debug("Daily balance capture for {} split into {} partitions",
+        date, run.getPartitionCount()));
+  }
+
+  // Si otra instancia crea el plan a la vez, el _id por fecha hace que gane una sola
+  private Mono<DailyBalanceCaptureRun> createRun(LocalDate date) {
+    return creditCardRepository.findActivePartitionBoundaries(Math.max(1, partitions))
+      .map(boundaries -> toRun(date, boundaries))
+      .flatMap(this::selectMode)
+      .flatMap(captureRunRepository::insert)
+      .onErrorResume(DuplicateKeyException.class, error -> captureRunRepository.findById(date.toString()));
+  }
+
+  // CHANGES solo si el día anterior se capturó entero y el stream no ha perdido eventos desde entonces;
+  // si no, las fotos arrastradas estarían incompletas o desactualizadas
+  private Mono<DailyBalanceCaptureRun> selectMode(DailyBalanceCaptureRun run) {
+    run.setMode(CaptureMode.SCAN);
+    if (!(dailyBalanceStore instanceof CarryForwardStore)) {
+      return Mono.just(run);
+    }
+
+    LocalDate previousDate = run.getDate().minusDays(1);
+    return captureRunRepository.findById(previousDate.toString())
+      .filterWhen(previous -> partitionRepository.countByDateAndStatusNot(previousDate, PartitionStatus.COMPLETED)
+        .map(unfinished -> unfinished == 0))
+      .map(previous -> previous.getCreatedAt().minusSeconds(changesOverlapSeconds))
+      .filterWhen(balanceChangeTracker::coversSince)
+      .map(since -> {
+        run.setMode(CaptureMode.CHANGES);
+        run.setChangesSince(since);
+        run.setPreviousDate(previousDate);
+        return run;
+      })
+      .defaultIfEmpty(run)
+      .doOnNext(selected -> log.info("Daily balance capture for {} runs in {} mode", selected.getDate(),
+        selected.getMode()));
+  }
+
+  private Mono<Long> capturePartition(DailyBalancePartition partition) {
+    Mono<Long> capture = captureRunRepository.findById(partition.getDate().toString())
+      .map(run -> usesChanges(run, partition)
+        ? captureChanges(partition, run)
+        // El checkpoint de una pasada por cambios no vale para recorrer todas las tarjetas
+        : captureAll(partition, run.getMode() == CaptureMode.CHANGES ? null : partition.getCheckpoint()))
+      .switchIfEmpty(Mono.fromSupplier(() -> captureAll(partition, partition.getCheckpoint())))
+      .flatMap(written -> written)
+      .flatMap(inserted -> partitionRepository.markCompleted(partition.getId(), instanceId, Instant.now())
+        .doOnNext(owned -> {
+          if (!owned) {
+            log.warn("Partition {} was taken over by another instance before completion", partition.getId());
+          }
+        })
+        .thenReturn(inserted));
+
+    return Mono.using(() -> renewLeaseWhileRunning(partition), lease -> capture, Disposable::dispose)
+      .onErrorResume(error -> {
+        log.error("Daily balance partition {} failed, releasing it: {}", partition.getId(), error.getMessage());
+        return partitionRepository.release(partition.getId(), instanceId,
+            Instant.now().plusSeconds(retryDelaySeconds))
+          .thenReturn(0L);
+      });
+  }
+
+  // Una partición de un mes ya cerrado se captura entera.
+  // Un plan por cambios creado antes de pasar a buckets también se captura entero
+  private boolean usesChanges(DailyBalanceCaptureRun run, DailyBalancePartition partition) {
+    return run.getMode() == CaptureMode.CHANGES
+      && dailyBalanceStore instanceof CarryForwardStore
+      && !YearMonth.from(partition.getDate()).isBefore(YearMonth.now());
+  }
+
+  private Mono<Long> captureAll(DailyBalancePartition partition, String checkpoint) {
+    Flux<CreditCard> cards;
+    if (checkpoint != null) {
+      log.info("Resuming daily balance partition {} after card {} (attempt {})",
+        partition.getId(), checkpoint, partition.getAttempts());
+      cards = creditCardRepository.findActiveAfterId(checkpoint, partition.getUpperBound());
+    } else {
+      log.debug("Capturing daily balance partition {} (attempt {})", partition.getId(), partition.getAttempts());
+      cards = creditCardRepository.findActiveByIdRange(partition.getLowerBound(), partition.getUpperBound());
+    }
+
+    return writeSnapshots(partition, cards.map(card -> toDailyBalance(card, partition.getDate())));
+  }
+
+  // Solo se leen las tarjetas que cambiaron; las demás copian en Mongo la foto del día anterior.
+  // El arrastre descarta en el propio pipeline las cambiadas antes de la lectura, aunque estén inactivas
+  // o borradas; una tarjeta que cambia después arrastra su foto anterior, como si no se hubiera leído.
+  private Mono<Long> captureChanges(DailyBalancePartition partition, DailyBalanceCaptureRun run) {
+    String checkpoint = partition.getCheckpoint();
+    log.debug("Capturing changed cards of daily balance partition {} since {} (attempt {})",
+      partition.getId(), run.getChangesSince(), partition.getAttempts());
+
+    return Mono.defer(() -> {
+      Instant readAt = Instant.now();
+      Flux<DailyBalance> snapshots = changeRepository.findChangedSince(run.getChangesSince(),
+          partition.getLowerBound(), partition.getUpperBound())
+        .filter(change -> change.isActive() && !change.isDeleted())
+        .filter(change -> checkpoint == null || change.getId().compareTo(checkpoint) > 0)
+        .map(change -> toDailyBalance(change, partition.getDate()));
+
+      return writeSnapshots(partition, snapshots)
+        .flatMap(inserted -> ((CarryForwardStore) dailyBalanceStore).carryForward(run.getPreviousDate(),
+            partition.getDate(), partition.getLowerBound(), partition.getUpperBound(), run.getChangesSince(),
+            readAt)
+          .then(Mono.defer(() -> evictCarriedMonthReports(partition)))
+          .thenReturn(inserted))
+        .doOnNext(inserted -> log.debug("Partition {}: {} new snapshots of changed cards, rest carried forward",
+          partition.getId(), inserted));
+    });
+  }
+
+  // flatMapSequential mantiene el orden de los bloques: el checkpoint solo avanza sobre bloques ya escritos
+  private Mono<Long> writeSnapshots(DailyBalancePartition partition, Flux<DailyBalance> balances) {
+    return balances
+      .buffer(chunkSize)
+      .flatMapSequential(chunk -> writeChunk(chunk).map(inserted -> Tuples.of(chunk, inserted)), writeConcurrency)
+      .concatMap(written -> saveCheckpoint(partition, written.getT1(), written.getT2())
+        .thenReturn(written.getT2().longValue()))
+      .reduce(0L, Long::sum);
+  }
+
+  private Mono<Boolean> saveCheckpoint(DailyBalancePartition partition, List<DailyBalance> chunk, int inserted) {
+    String lastCardId = chunk.get(chunk.size() - 1).getCardId();
+
+    return partitionRepository.saveCheckpoint(partition.getId(), instanceId, lastCardId, chunk.size(), inserted,
+        Instant.now().plus(lease()))
+      .flatMap(owned -> owned
+        ? Mono.just(true)
+        : Mono.error(new IllegalStateException("Lease lost on partition " + partition.getId())));
+  }
+
+  private Disposable renewLeaseWhileRunning(DailyBalancePartition partition) {
+    Duration renewEvery = lease().dividedBy(3);
+
+    return Flux.interval(renewEvery, renewEvery)
+      .concatMap(tick -> partitionRepository.renewLease(partition.getId(), instanceId, Instant.now().plus(lease())))
+      .subscribe(
+        owned -> {
+          if (!owned) {
+            log.warn("Lost lease on daily balance partition {}", partition.getId());
+          }
+        },
+        error -> log.warn("Lease renewal failed for partition {}: {}", partition.getId(), error.getMessage()));
+  }
+
+  // un bulkWrite unordered por bloque; las fotos ya capturadas se ignoran vía $setOnInsert.
+  // El acumulado mensual ignora los días ya sumados, así que un reintento no duplica.
+  private Mono<Integer> writeChunk(List<DailyBalance> chunk) {
+    return dailyBalanceStore.saveAll(chunk)
+      .flatMap(inserted -> monthlyBalanceAggregateRepository.addSnapshots(chunk)
+        .then(evictClosedMonthReports(chunk, inserted))
+        .thenReturn(inserted))
+      .transform(cardMetrics.timedBalanceChunk(chunk.size()))
+      .doOnNext(inserted -> log.debug("Daily balance chunk written: {} cards, {} new snapshots",
+        chunk.size(), inserted));
+  }
+
+  // Una foto de un mes ya cerrado (captura que terminó pasada la medianoche, reanudación manual)
+  // cambia un informe que estaba cacheado sin expiración práctica
+  private Mono<Void> evictClosedMonthReports(List<DailyBalance> chunk, int inserted) {
+    if (inserted == 0) {
+      return Mono.empty();
+    }
+
+    YearMonth currentMonth = YearMonth.now();
+    String[] keys = chunk.stream()
+      .filter(balance -> YearMonth.from(balance.getDate()).isBefore(currentMonth))
+      .map(balance -> CacheKeys.dailyAveragesKey(balance.getCustomerId(), YearMonth.from(balance.getDate())))
+      .distinct()
+      .toArray(String[]::new);
+
+    return keys.length > 0 ? cardCacheService.evict(keys) : Mono.empty();
+  }
+
+  // Si el mes se cerró mientras corría la partición, el arrastre cambió informes ya cacheados.
+  // Las fotos arrastradas no salen de Mongo: se invalidan los clientes con foto del día en el rango
+  private Mono<Void> evictCarriedMonthReports(DailyBalancePartition partition) {
+    YearMonth month = YearMonth.from(partition.getDate());
+    if (!month.isBefore(YearMonth.now())) {
+      return Mono.empty();
+    }
+
+    return ((CarryForwardStore) dailyBalanceStore).findCustomerIds(partition.getDate(),
+        partition.getLowerBound(), partition.getUpperBound())
+      .map(customerId -> CacheKeys.dailyAveragesKey(customerId, month))
+      .buffer(chunkSize)
+      .concatMap(keys -> cardCacheService.evict(keys.toArray(new String[0])))
+      .then();
+  }
+
+  private Duration lease() {
+    return Duration.ofSeconds(leaseSeconds);
+  }
+
+  private DailyBalanceCaptureRun toRun(LocalDate date, List<String> boundaries) {
+    DailyBalanceCaptureRun run = new DailyBalanceCaptureRun();
+    run.setId(date.toString());
+    run.setDate(date);
+    run.setPartitionCount(boundaries.size() + 1);
+    run.setBoundaries(boundaries);
+    run.setCreatedAt(Instant.now());
+    return run;
+  }
+
+  private DailyBalancePartition toPartition(DailyBalanceCaptureRun run, int index) {
+    List<String> boundaries = run.getBoundaries();
+    Instant now = Instant.now();
+
+    DailyBalancePartition partition = new DailyBalancePartition();
+    partition.setId(String.format("%s:%03d", run.getId(), index));
+    partition.setDate(run.getDate());
+    partition.setIndex(index);
+    partition.setLowerBound(index > 0 ? boundaries.get(index - 1) : null);
+    partition.setUpperBound(index < boundaries.size() ? boundaries.get(index) : null);
+    partition.setStatus(PartitionStatus.PENDING);
+    partition.setLeaseUntil(now);
+    partition.setAttempts(0);
+    partition.setCreatedAt(now);
+    return partition;
+  }
+
+  private DailyBalance toDailyBalance(CreditCard card, LocalDate date) {
+    DailyBalance dailyBalance = new DailyBalance();
+    dailyBalance.setCustomerId(card.getCustomerId());
+    dailyBalance.setCardId(card.getId());
+    dailyBalance.setCardNumber(card.getCardNumber());
+    dailyBalance.setDate(date);
+    dailyBalance.setCurrentBalance(card.getCurrentBalance());
+    dailyBalance.setAvailableCredit(card.getAvailableCredit());
+    dailyBalance.setCreditLimit(card.getCreditLimit());
+    dailyBalance.setCapturedAt(LocalDateTime.now());
+    return dailyBalance;
+  }
+
+  private DailyBalance toDailyBalance(CardBalanceChange change, LocalDate date) {
+    DailyBalance dailyBalance = new DailyBalance();
+    dailyBalance.setCustomerId(change.getCustomerId());
+    dailyBalance.setCardId(change.getId());
+    dailyBalance.setCardNumber(change.getCardNumber());
+    dailyBalance.setDate(date);
+    dailyBalance.setCurrentBalance(change.getCurrentBalance());
+    dailyBalance.setAvailableCredit(change.getAvailableCredit());
+    dailyBalance.setCreditLimit(change.getCreditLimit());
+    dailyBalance.setCapturedAt(LocalDateTime.now());
+    return dailyBalance;
+  }
+}
@@ -9,11 +9,19 @@ import com.bootcamp.ntt.card_service.client.dto.transaction.AccountUsage;
 import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
 import com.bootcamp.ntt.card_service.entity.DebitCard;
 import com.bootcamp.ntt.card_service.enums.CardType;
+import com.bootcamp.ntt.card_service.enums.OutboxEventType;
+import com.bootcamp.ntt.card_service.event.CardEventPublisher;
 import com.bootcamp.ntt.card_service.exception.BusinessRuleException;
 import com.bootcamp.ntt.card_service.exception.CardServiceException;
 import com.bootcamp.ntt.card_service.exception.EntityNotFoundException;
+import com.bootcamp.ntt.card_service.service.CardCacheService;
+import com.bootcamp.ntt.card_service.service.CardCounterService;
+import com.bootcamp.ntt.card_service.service.CardNumberAllocator;
+import com.bootcamp.ntt.card_service.service.CardNumberFilter;
 import com.bootcamp.ntt.card_service.service.ExternalServiceWrapper;
+import com.bootcamp.ntt.card_service.service.TransactionOutboxService;
 import com.bootcamp.ntt.card_service.utils.ErrorCodes;
+import com.bootcamp.ntt.card_service.mapper.CardEventMapper;
 import com.bootcamp.ntt.card_service.mapper.DebitCardMapper;
 import com.bootcamp.ntt.card_service.model.DebitCardResponse;
 import com.bootcamp.ntt.card_service.model.DebitCardCreateRequest;
@@ -27,14 +35,12 @@ import com.bootcamp.ntt.card_service.service.DebitCardService;
 import com.bootcamp.ntt.card_service.utils.CardUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -53,7 +59,13 @@ public class DebitCardServiceImpl implements DebitCardService {
   private final DebitCardMapper debitCardMapper;
   private final CardUtils cardUtils;
   private final ExternalServiceWrapper externalServiceWrapper;
-  private final ReactiveRedisTemplate<String, Object> redisTemplate;
+  private final TransactionOutboxService transactionOutboxService;
+  private final CardCacheService cardCacheService;
+  private final CardEventPublisher cardEventPublisher;
+  private final CardEventMapper cardEventMapper;
+  private final CardNumberAllocator cardNumberAllocator;
+  private final CardNumberFilter cardNumberFilter;
+  private final CardCounterService cardCounterService;
 
   @Override
   public Flux<DebitCardResponse> getDebitCardsByActive(Boolean isActive) {
@@ -74,22 +86,16 @@ public class DebitCardServiceImpl implements DebitCardService {
     String cacheKey = "debit:master:id:" + id;
     log.debug("Getting debit card by ID: {}", id);
 
-    return getCachedValue(cacheKey, DebitCardResponse.class)
-      .switchIfEmpty(
-        debitCardRepository.findById(id)
-          .map(debitCardMapper::toResponse)
-          .flatMap(response ->
-            setCachedValue(cacheKey, response, MASTER_DATA_TTL)
-              .thenReturn(response)
-          )
-          .doOnSuccess(card -> {
-            if (card != null) {
-              log.debug("Debit card found and cached: {}", id);
-            } else {
-              log.debug("Debit card not found: {}", id);
-            }
-          })
-      );
+    return cardCacheService.getOrLoad(cacheKey, DebitCardResponse.class, MASTER_DATA_TTL, () ->
+      debitCardRepository.findById(id)
+        .map(debitCardMapper::toResponse)
+        .doOnSuccess(card -> {
+          if (card != null) {
+            log.debug("Debit card found and cached: {}", id);
+          } else {
+            log.debug("Debit card not found: {}", id);
+          }
+        }));
   }
 
   @Override
@@ -97,33 +103,36 @@ public class DebitCardServiceImpl implements DebitCardService {
     String cacheKey = "debit:master:number:" + cardNumber;
     log.debug("Getting debit card by cardNumber: {}", cardNumber);
 
-    return getCachedValue(cacheKey, DebitCardResponse.class)
-      .switchIfEmpty(
-        debitCardRepository.findByCardNumber(cardNumber)
-          .map(debitCardMapper::toResponse)
-          .flatMap(response ->
-            setCachedValue(cacheKey, response, MASTER_DATA_TTL)
-              .thenReturn(response)
-          )
-          .doOnSuccess(card -> {
-            if (card != null) {
-              log.debug("Debit card found and cached: {}", cardNumber);
-            } else {
-              log.debug("Debit card not found: {}", cardNumber);
-            }
-          })
-      );
+    if (!cardNumberFilter.mightExist(cardNumber)) {
+      log.debug("Debit card number not issued, skipping lookup: {}", cardNumber);
+      return Mono.empty();
+    }
+
+    return cardCacheService.getOrLoad(cacheKey, DebitCardResponse.class, MASTER_DATA_TTL, () ->
+      debitCardRepository.findByCardNumber(cardNumber)
+        .map(debitCardMapper::toResponse)
+        .doOnSuccess(card -> {
+          if (card != null) {
+            log.debug("Debit card found and cached: {}", cardNumber);
+          } else {
+            log.debug("Debit card not found: {}", cardNumber);
+          }
+        }));
   }
 
   @Override
   public Mono<DebitCardResponse> createCard(DebitCardCreateRequest cardRequest) {
     log.debug("Creating debit card for customer: {}", cardRequest.getCustomerId());
 
-    return generateUniqueDebitCardNumber()
-      .map(cardNumber -> debitCardMapper.toEntity(cardRequest, cardNumber))
-      .flatMap(debitCardRepository::save)
+    return cardNumberAllocator.allocate(CardType.DEBIT, cardNumber ->
+        debitCardRepository.save(debitCardMapper.toEntity(cardRequest, cardNumber)))
+      .flatMap(saved -> cardCounterService.cardCreated(CardType.DEBIT, saved.isActive()).thenReturn(saved))
       .map(debitCardMapper::toResponse)
-      .doOnSuccess(response -> log.debug("Debit card created with ID: {}", response.getId()));
+      .doOnSuccess(response -> {
+        log.debug("Debit card created with ID: {}", response.getId());
+        // Borra posibles tombstones de "no encontrada" del id y el número
+        invalidateDebitCardCaches(response.getId(), response.getCardNumber());
+      });
   }
 
   @Override
@@ -149,6 +158,7 @@ public class DebitCardServiceImpl implements DebitCardService {
         String cardNumber = card.getCardNumber();
 
         return debitCardRepository.delete(card)
+          .then(cardCounterService.cardDeleted(CardType.DEBIT, card.isActive()))
           .doOnSuccess(unused -> {
             log.debug("Debit card deleted");
             invalidateDebitCardCaches(id, cardNumber);
@@ -158,64 +168,39 @@ public class DebitCardServiceImpl implements DebitCardService {
 
   @Override
   public Mono<DebitCardResponse> deactivateCard(String id) {
-    return debitCardRepository.findById(id)
-      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + id)))
-      .flatMap(card -> {
-        card.setActive(false);  // soft delete
-        return debitCardRepository.save(card);
-      })
+    return flipStatus(id, false)  // soft delete
+      .doOnNext(card -> cardEventPublisher.publish(cardEventMapper.toStatusChangedEvent(card)))
+      .switchIfEmpty(Mono.defer(() -> findCardForStatus(id)))
       .map(debitCardMapper::toResponse)
       .doOnSuccess(c -> log.debug("Card {} deactivated", id));
   }
 
   @Override
   public Mono<DebitCardResponse> activateCard(String id) {
-    return debitCardRepository.findById(id)
-      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + id)))
-      .flatMap(card -> {
-        card.setActive(true);  // reactivar
-        return debitCardRepository.save(card);
-      })
+    return flipStatus(id, true)  // reactivar
+      .doOnNext(card -> cardEventPublisher.publish(cardEventMapper.toStatusChangedEvent(card)))
+      .switchIfEmpty(Mono.defer(() -> findCardForStatus(id)))
       .map(debitCardMapper::toResponse)
       .doOnSuccess(c -> log.debug("Card {} activated", id));
   }
 
-  //helpers
-  private <T> Mono<T> getCachedValue(String key, Class<T> valueType) {
-    return redisTemplate.opsForValue()
-      .get(key)
-      .cast(valueType)
-      .doOnNext(cached -> log.debug("REDIS CACHE HIT: {}", key))
-      .onErrorResume(error -> {
-        log.warn("Redis read error for key {}: {}", key, error.getMessage());
-        return Mono.empty();
-      });
+  // Como en crédito: solo el cambio que coincide con el estado contrario mueve el contador
+  private Mono<DebitCard> flipStatus(String id, boolean active) {
+    return debitCardRepository.setActive(id, active)
+      .flatMap(card -> cardCounterService.statusChanged(CardType.DEBIT, !active, active).thenReturn(card));
   }
 
-  private Mono<Boolean> setCachedValue(String key, Object value, Duration ttl) {
-    return redisTemplate.opsForValue()
-      .set(key, value, ttl)
-      .doOnSuccess(success -> {
-        if (success) {
-          log.debug("REDIS CACHE SET: {} (TTL: {})", key, ttl);
-        } else {
-          log.warn("Redis cache SET failed for key: {}", key);
-        }
-      })
-      .onErrorResume(error -> {
-        log.error("Redis write error for key {}: {}", key, error.getMessage());
-        return Mono.just(false);
-      });
+  private Mono<DebitCard> findCardForStatus(String id) {
+    return debitCardRepository.findById(id)
+      .switchIfEmpty(Mono.error(new RuntimeException("Card not found with id: " + id)));
   }
 
   //invalidacion
   private void invalidateDebitCardCaches(String cardId, String cardNumber) {
-    Flux.just(
+    cardCacheService.evict(
         "debit:master:id:" + cardId,
         "debit:master:number:" + cardNumber
       )
-      .flatMap(redisTemplate::delete)
-      .doOnNext(deleted -> log.debug("Debit card cache invalidated: {}", deleted))
       .subscribe();
   }
 
@@ -304,12 +289,18 @@ public class DebitCardServiceImpl implements DebitCardService {
   public Mono<DebitPurchaseResponse> processDebitCardPurchase(String cardNumber, DebitPurchaseRequest request) {
     log.debug("Processing debit card purchase for card: {}", cardNumber);
 
+    if (!cardNumberFilter.mightExist(cardNumber)) {
+      return Mono.error(new EntityNotFoundException("Debit card not found: " + cardNumber));
+    }
+
     return debitCardRepository.findByCardNumber(cardNumber)
       .switchIfEmpty(Mono.error(new EntityNotFoundException("Debit card not found: " + cardNumber)))
       .flatMap(debitCard -> validateDebitCard(debitCard)
         .then(validateAmount(request.getAmount()))
         .then(processCascadePayment(debitCard, request.getAmount()))
-        .flatMap(accountsUsed -> createDebitPurchaseTransactionInTransactionService(debitCard, request, accountsUsed)
+        .flatMap(accountsUsed -> recordDebitPurchaseTransaction(debitCard, request, accountsUsed)
+          .doOnNext(transactionId -> cardEventPublisher.publish(
+            cardEventMapper.toDebitPurchaseEvent(debitCard, request.getAmount(), transactionId)))
           .map(transaction -> debitCardMapper.toDebitPurchaseResponse(debitCard, request, accountsUsed, transaction)))
       )
       .doOnSuccess(response -> log.debug("Purchase processed successfully for card: {}", cardNumber));
@@ -388,16 +379,17 @@ public class DebitCardServiceImpl implements DebitCardService {
     return Mono.just(orderedAccounts);
   }
 
-  private Mono<String> createDebitPurchaseTransactionInTransactionService(DebitCard debitCard,
-                                                                          DebitPurchaseRequest request,
-                                                                          List<AccountUsage> accountsUsed) {
+  private Mono<String> recordDebitPurchaseTransaction(DebitCard debitCard,
+                                                      DebitPurchaseRequest request,
+                                                      List<AccountUsage> accountsUsed) {
     TransactionRequest transactionRequest = debitCardMapper.toTransactionRequest(
       debitCard, request, accountsUsed, cardUtils.generateAuthCode());
 
-    return externalServiceWrapper.createDebitCardPurchaseTransactionWithCircuitBreaker(transactionRequest)
-      .then(Mono.just(generateTransactionId()))
+    // El registro en transaction-service lo hace el outbox en segundo plano
+    return transactionOutboxService.enqueue(OutboxEventType.DEBIT_PURCHASE, transactionRequest)
+      .then(Mono.fromCallable(this::generateTransactionId))
       .onErrorResume(error -> {
-        log.error("CRITICAL: Debit purchase transaction service failed after successful purchase: {}", error.getMessage());
+        log.error("CRITICAL: Debit purchase could not be queued after successful debits: {}", error.getMessage());
 
         // Rollback de los débitos en las cuentas
         return revertAccountDebits(accountsUsed)
@@ -463,16 +455,10 @@ public class DebitCardServiceImpl implements DebitCardService {
   public Mono<Integer> getActiveCardsCount() {
     log.debug("Getting total count of active debit cards");
 
-    return debitCardRepository.countByIsActiveAndType(true, CardType.DEBIT)
+    // Contador mantenido en cada alta, baja y cambio de estado; no recorre cards
+    return cardCounterService.getActiveCount(CardType.DEBIT)
       .map(Long::intValue)
       .doOnSuccess(count -> log.debug("Found {} active debit cards", count));
   }
 
-  private Mono<String> generateUniqueDebitCardNumber() {
-    String candidate = cardUtils.generateRandomCardNumber();
-    return debitCardRepository.findByCardNumber(candidate)
-      .flatMap(existing -> generateUniqueDebitCardNumber())
-      .switchIfEmpty(Mono.just(candidate));
-  }
-
 }
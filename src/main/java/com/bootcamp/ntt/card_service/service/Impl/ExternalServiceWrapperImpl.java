@@ -11,6 +11,7 @@ import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionResponse;
 import com.bootcamp.ntt.card_service.exception.AccountServiceUnavailableException;
 import com.bootcamp.ntt.card_service.exception.CustomerServiceUnavailableException;
 import com.bootcamp.ntt.card_service.exception.TransactionServiceUnavailableException;
+import com.bootcamp.ntt.card_service.metrics.CardMetrics;
 import com.bootcamp.ntt.card_service.model.TransactionsSummary;
 import com.bootcamp.ntt.card_service.service.ExternalServiceWrapper;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
@@ -43,6 +44,8 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
   private final TimeLimiter transactionServiceTimeLimiter;
   private final TimeLimiter accountServiceTimeLimiter;
 
+  private final CardMetrics cardMetrics;
+
   /**
    * Llama al customer-service con circuit breaker y timeout de 2s
    */
@@ -50,6 +53,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return customerServiceClient.getCustomerType(customerId)
       .transformDeferred(CircuitBreakerOperator.of(customerServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(customerServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("customer-service", "getCustomerType"))
       .doOnError(error -> log.warn("Customer service call failed for customerId={}: {}",
         customerId, error.getMessage()))
       .onErrorResume(this::handleCustomerServiceError);
@@ -62,6 +66,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return customerServiceClient.getCustomer(customerId)
       .transformDeferred(CircuitBreakerOperator.of(customerServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(customerServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("customer-service", "getCustomer"))
       .doOnError(error -> log.warn("Customer service call failed for customerId={}: {}",
         customerId, error.getMessage()))
       .onErrorResume(error -> handleCustomerNotFoundError(customerId, error));
@@ -74,6 +79,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return transactionServiceClient.createTransaction(transactionRequest)
       .transformDeferred(CircuitBreakerOperator.of(transactionServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(transactionServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("transaction-service", "createTransaction"))
       .doOnError(error -> log.error("Transaction service call failed for cardId={}: {}",
         transactionRequest.getCardId(), error.getMessage()))
       .onErrorResume(this::handleTransactionServiceError);
@@ -87,6 +93,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return accountServiceClient.getAccountBalance(accountId)
       .transformDeferred(CircuitBreakerOperator.of(accountServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(accountServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("account-service", "getAccountBalance"))
       .doOnError(error -> log.warn("Account service call failed for accountId={}: {}",
         accountId, error.getMessage()))
       .onErrorResume(error -> handleAccountBalanceError(accountId, error));
@@ -100,6 +107,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return accountServiceClient.debitAccount(accountId, request)
       .transformDeferred(CircuitBreakerOperator.of(accountServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(accountServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("account-service", "debitAccount"))
       .doOnError(error -> log.warn("Account debit service call failed for accountId={}: {}",
         accountId, error.getMessage()))
       .onErrorResume(error -> handleAccountDebitError(accountId, error));
@@ -113,6 +121,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return accountServiceClient.getAccountDetails(accountId)
       .transformDeferred(CircuitBreakerOperator.of(accountServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(accountServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("account-service", "getAccountDetails"))
       .doOnError(error -> log.warn("Account details service call failed for accountId={}: {}",
         accountId, error.getMessage()))
       .onErrorResume(error -> handleAccountDetailsError(accountId, error));
@@ -123,6 +132,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return accountServiceClient.creditAccount(accountId, request)
       .transformDeferred(CircuitBreakerOperator.of(accountServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(accountServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("account-service", "creditAccount"))
       .doOnError(error -> log.warn("Account credit service call failed for accountId={}: {}",
         accountId, error.getMessage()))
       .onErrorResume(error -> handleAccountCreditError(accountId, error));
@@ -136,6 +146,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return transactionServiceClient.getDebitCardTransactionsSummary(startDate, endDate)
       .transformDeferred(CircuitBreakerOperator.of(transactionServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(transactionServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("transaction-service", "getDebitCardTransactionsSummary"))
       .doOnError(error -> log.warn("Transaction summary service call failed for period {}-{}: {}",
         startDate, endDate, error.getMessage()))
       .onErrorResume(error -> handleTransactionSummaryError(startDate, endDate, error));
@@ -149,6 +160,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return transactionServiceClient.getLastCardMovements(cardId, limit)
       .transformDeferred(CircuitBreakerOperator.of(transactionServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(transactionServiceTimeLimiter))
+      .transform(cardMetrics.timedStream("transaction-service", "getLastCardMovements"))
       .doOnError(error -> log.warn("Card movements service call failed for cardId={}: {}",
         cardId, error.getMessage()))
       .onErrorResume(error -> handleCardMovementsError(cardId, error));
@@ -162,6 +174,7 @@ public class ExternalServiceWrapperImpl implements ExternalServiceWrapper {
     return transactionServiceClient.createDebitCardPurchaseTransaction(transactionRequest)
       .transformDeferred(CircuitBreakerOperator.of(transactionServiceCircuitBreaker))
       .transformDeferred(TimeLimiterOperator.of(transactionServiceTimeLimiter))
+      .transform(cardMetrics.timedCall("transaction-service", "createDebitCardPurchaseTransaction"))
       .doOnError(error -> log.error("Debit purchase transaction service call failed for cardNumber={}: {}",
         transactionRequest.getCardNumber(), error.getMessage()))
       .onErrorResume(this::handleDebitPurchaseTransactionServiceError);
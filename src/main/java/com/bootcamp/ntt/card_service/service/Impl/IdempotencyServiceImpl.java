@@ -0,0 +1,169 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.config.RedisConfig;
+import com.bootcamp.ntt.card_service.exception.CardServiceException;
+import com.bootcamp.ntt.card_service.service.IdempotencyService;
+import com.bootcamp.ntt.card_service.utils.ErrorCodes;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+  private static final String KEY_PREFIX = "idempotency:";
+  private static final String IN_PROGRESS = "IN_PROGRESS";
+
+  // Mismo JSON que los valores de Redis: campos en orden de declaración, estable entre réplicas
+  private static final RedisSerializer<Object> REQUEST_SERIALIZER = RedisConfig.jsonValueSerializer();
+
+  private final ReactiveRedisTemplate<String, Object> redisTemplate;
+
+  // Ejecuciones en curso en esta instancia: los duplicados concurrentes se suscriben al mismo Mono
+  private final Map<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+
+  @Value("${idempotency.response-ttl-hours:24}")
+  private long responseTtlHours;
+
+  @Value("${idempotency.lock-seconds:60}")
+  private long lockSeconds;
+
+  @Override
+  public <T> Mono<T> execute(String scope, String idempotencyKey, Object request, Class<T> responseType,
+                             Supplier<Mono<T>> operation) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return Mono.defer(operation);
+    }
+
+    String key = KEY_PREFIX + scope + ":" + idempotencyKey;
+    String requestHash = requestHash(request);
+
+    // Solo comparten ejecución los duplicados con el mismo cuerpo; otro cuerpo llega a Redis y se rechaza
+    return Mono.defer(() -> inFlight.computeIfAbsent(key + ":" + requestHash,
+        k -> resolve(key, requestHash, responseType, operation)
+          .cast(Object.class)
+          .doFinally(signal -> inFlight.remove(k))
+          .cache()))
+      .cast(responseType);
+  }
+
+  private <T> Mono<T> resolve(String key, String requestHash, Class<T> responseType, Supplier<Mono<T>> operation) {
+    return redisTemplate.opsForValue()
+      .get(key)
+      .onErrorResume(error -> {
+        log.warn("Redis read error for idempotency key {}: {}", key, error.getMessage());
+        return Mono.empty();
+      })
+      .flatMap(stored -> replayStored(key, requestHash, stored, responseType))
+      .switchIfEmpty(Mono.defer(() -> acquireAndExecute(key, requestHash, responseType, operation)));
+  }
+
+  private <T> Mono<T> acquireAndExecute(String key, String requestHash, Class<T> responseType,
+                                        Supplier<Mono<T>> operation) {
+    return redisTemplate.opsForValue()
+      .setIfAbsent(key, IN_PROGRESS + ":" + requestHash, Duration.ofSeconds(lockSeconds))
+      .onErrorResume(error -> {
+        // Sin Redis se ejecuta igual: la deduplicación local sigue cubriendo esta instancia
+        log.warn("Redis lock error for idempotency key {}: {}", key, error.getMessage());
+        return Mono.just(true);
+      })
+      .flatMap(acquired -> {
+        if (Boolean.TRUE.equals(acquired)) {
+          return executeAndStore(key, requestHash, operation);
+        }
+        // Otra instancia tomó la clave entre la lectura y el bloqueo
+        return redisTemplate.opsForValue()
+          .get(key)
+          .flatMap(stored -> replayStored(key, requestHash, stored, responseType))
+          .switchIfEmpty(Mono.error(inProgress()));
+      });
+  }
+
+  private <T> Mono<T> executeAndStore(String key, String requestHash, Supplier<Mono<T>> operation) {
+    return Mono.defer(operation)
+      .flatMap(response -> redisTemplate.opsForValue()
+        .set(key, new StoredResponse(requestHash, response), Duration.ofHours(responseTtlHours))
+        .onErrorResume(error -> {
+          log.error("Redis write error for idempotency key {}: {}", key, error.getMessage());
+          return Mono.just(false);
+        })
+        .thenReturn(response))
+      .onErrorResume(error -> redisTemplate.delete(key)
+        .onErrorResume(deleteError -> Mono.just(0L))
+        .then(Mono.error(error)));
+  }
+
+  private <T> Mono<T> replayStored(String key, String requestHash, Object stored, Class<T> responseType) {
+    Object response = stored;
+    if (stored instanceof StoredResponse) {
+      StoredResponse entry = (StoredResponse) stored;
+      if (!requestHash.equals(entry.getRequestHash())) {
+        return Mono.error(keyReused());
+      }
+      response = entry.getResponse();
+    } else if (stored instanceof String && ((String) stored).startsWith(IN_PROGRESS + ":")
+      && !stored.equals(IN_PROGRESS + ":" + requestHash)) {
+      return Mono.error(keyReused());
+    }
+    // Las respuestas guardadas sin hash (anteriores a este formato) se reproducen hasta que caduquen
+    if (responseType.isInstance(response)) {
+      log.info("Idempotent replay for key {}", key);
+      return Mono.just(responseType.cast(response));
+    }
+    return Mono.error(inProgress());
+  }
+
+  static String requestHash(Object request) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(REQUEST_SERIALIZER.serialize(request));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private CardServiceException inProgress() {
+    return new CardServiceException(
+      "A request with this Idempotency-Key is still being processed",
+      ErrorCodes.IDEMPOTENCY_KEY_IN_PROGRESS,
+      HttpStatus.CONFLICT);
+  }
+
+  private CardServiceException keyReused() {
+    return new CardServiceException(
+      "This Idempotency-Key was already used with a different request body",
+      ErrorCodes.IDEMPOTENCY_KEY_REUSED,
+      HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+
+  /**
+   * Respuesta guardada junto al hash del cuerpo que la produjo.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  static class StoredResponse {
+
+    private String requestHash;
+
+    private Object response;
+  }
+}
@@ -0,0 +1,158 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.PendingPosting;
+import com.bootcamp.ntt.card_service.entity.TransactionOutbox;
+import com.bootcamp.ntt.card_service.enums.OutboxEventType;
+import com.bootcamp.ntt.card_service.enums.OutboxStatus;
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+import com.bootcamp.ntt.card_service.repository.TransactionOutboxRepository;
+import com.bootcamp.ntt.card_service.service.ExternalServiceWrapper;
+import com.bootcamp.ntt.card_service.service.TransactionOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionOutboxServiceImpl implements TransactionOutboxService {
+
+  private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+  private final TransactionOutboxRepository transactionOutboxRepository;
+  private final CreditCardRepository creditCardRepository;
+  private final ExternalServiceWrapper externalServiceWrapper;
+
+  @Value("${outbox.transaction.batch-size:100}")
+  private int batchSize;
+
+  @Value("${outbox.transaction.concurrency:8}")
+  private int concurrency;
+
+  @Value("${outbox.transaction.max-attempts:20}")
+  private int maxAttempts;
+
+  @Value("${outbox.transaction.lease-seconds:30}")
+  private long leaseSeconds;
+
+  @Override
+  public Mono<TransactionOutbox> enqueue(OutboxEventType eventType, TransactionRequest transactionRequest) {
+    Instant now = Instant.now();
+
+    return transactionOutboxRepository.save(newEntry(eventType, transactionRequest, now, now))
+      .doOnSuccess(saved -> log.debug("Outbox entry {} queued ({})", saved.getId(), eventType));
+  }
+
+  @Override
+  public Mono<Long> drainPendingPostings() {
+    return creditCardRepository.findWithPendingPostings(batchSize)
+      .flatMap(this::movePendingPostings, concurrency)
+      .reduce(0L, Long::sum)
+      .doOnSuccess(moved -> {
+        if (moved > 0) {
+          log.debug("Moved {} pending postings to the outbox", moved);
+        }
+      });
+  }
+
+  // El _id del registro es el postingId: si una pasada anterior ya lo insertó y cayó antes de quitarlo
+  // de la tarjeta, la clave duplicada indica que solo falta ese paso y el envío no se repite
+  private Mono<Long> movePendingPostings(CreditCard card) {
+    List<PendingPosting> postings = card.getPendingPostings();
+    Instant now = Instant.now();
+
+    return Flux.fromIterable(postings)
+      .concatMap(posting -> {
+        posting.getPayload().setCardId(card.getId());
+        TransactionOutbox entry = newEntry(posting.getEventType(), posting.getPayload(), posting.getCreatedAt(), now);
+        entry.setId(posting.getPostingId());
+        return transactionOutboxRepository.insert(entry)
+          .onErrorResume(DuplicateKeyException.class, duplicate -> Mono.empty());
+      })
+      .then(Mono.defer(() -> creditCardRepository.removePendingPostings(card.getId(), postings.stream()
+        .map(PendingPosting::getPostingId)
+        .collect(Collectors.toList()))))
+      .thenReturn((long) postings.size());
+  }
+
+  private TransactionOutbox newEntry(OutboxEventType eventType, TransactionRequest transactionRequest,
+                                     Instant createdAt, Instant nextAttemptAt) {
+    TransactionOutbox entry = new TransactionOutbox();
+    entry.setEventType(eventType);
+    entry.setStatus(OutboxStatus.PENDING);
+    entry.setPayload(transactionRequest);
+    entry.setAttempts(0);
+    entry.setCreatedAt(createdAt);
+    entry.setNextAttemptAt(nextAttemptAt);
+    return entry;
+  }
+
+  @Override
+  public Mono<Long> publishPending() {
+    Instant now = Instant.now();
+    Duration lease = Duration.ofSeconds(leaseSeconds);
+
+    return transactionOutboxRepository.findDue(now, batchSize)
+      .flatMap(entry -> transactionOutboxRepository.claim(entry.getId(), now, lease), concurrency)
+      .flatMap(this::publish, concurrency)
+      .filter(Boolean::booleanValue)
+      .count()
+      .doOnSuccess(sent -> {
+        if (sent > 0) {
+          log.debug("Outbox batch published: {} entries", sent);
+        }
+      });
+  }
+
+  private Mono<Boolean> publish(TransactionOutbox entry) {
+    return Mono.defer(() -> post(entry))
+      .then(Mono.defer(() -> transactionOutboxRepository.markSent(entry.getId(), Instant.now())))
+      .thenReturn(true)
+      .onErrorResume(error -> handlePublishError(entry, error).thenReturn(false));
+  }
+
+  // Cada intento lleva el _id del registro: si markSent falla tras un envío correcto, el reenvío se descarta
+  private Mono<Void> post(TransactionOutbox entry) {
+    entry.getPayload().setIdempotencyKey(entry.getId());
+
+    switch (entry.getEventType()) {
+      case CHARGE:
+        return externalServiceWrapper.createTransactionWithCircuitBreaker(entry.getPayload());
+      case DEBIT_PURCHASE:
+        return externalServiceWrapper.createDebitCardPurchaseTransactionWithCircuitBreaker(entry.getPayload());
+      default:
+        return Mono.error(new IllegalStateException("Unsupported outbox event type: " + entry.getEventType()));
+    }
+  }
+
+  private Mono<Void> handlePublishError(TransactionOutbox entry, Throwable error) {
+    if (entry.getAttempts() >= maxAttempts) {
+      log.error("CRITICAL: Outbox entry {} ({}) failed after {} attempts: {}",
+        entry.getId(), entry.getEventType(), entry.getAttempts(), error.getMessage());
+      return transactionOutboxRepository.markFailed(entry.getId(), error.getMessage());
+    }
+
+    Instant nextAttemptAt = Instant.now().plus(backoff(entry.getAttempts()));
+    log.warn("Outbox entry {} ({}) attempt {} failed, retrying at {}: {}",
+      entry.getId(), entry.getEventType(), entry.getAttempts(), nextAttemptAt, error.getMessage());
+    return transactionOutboxRepository.markRetry(entry.getId(), error.getMessage(), nextAttemptAt);
+  }
+
+  // Backoff exponencial: 1s, 2s, 4s ... hasta MAX_BACKOFF
+  private Duration backoff(int attempts) {
+    long seconds = 1L << Math.min(Math.max(attempts - 1, 0), 20);
+    Duration delay = Duration.ofSeconds(seconds);
+    return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+  }
+}
@@ -0,0 +1,20 @@
+package com.bootcamp.ntt.card_service.service;
+
+import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
+import com.bootcamp.ntt.card_service.entity.TransactionOutbox;
+import com.bootcamp.ntt.card_service.enums.OutboxEventType;
+
+import reactor.core.publisher.Mono;
+
+public interface TransactionOutboxService {
+
+  Mono<TransactionOutbox> enqueue(OutboxEventType eventType, TransactionRequest transactionRequest);
+
+  /**
+   * Pasa al outbox los envíos guardados en pendingPostings de las tarjetas y los quita de ellas.
+   * Devuelve cuántos movió.
+   */
+  Mono<Long> drainPendingPostings();
+
+  Mono<Long> publishPending();
+}
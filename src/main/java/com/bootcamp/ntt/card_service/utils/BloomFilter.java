@@ -0,0 +1,92 @@
+package com.bootcamp.ntt.card_service.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas, seguro entre hilos. mightContain nunca da falsos negativos;
+ * no admite borrados, así que un elemento eliminado sigue "presente" hasta reconstruirlo.
+ */
+public final class BloomFilter {
+
+  private static final double LN2 = Math.log(2);
+
+  private final AtomicLongArray words;
+  private final long bitSize;
+  private final int hashFunctions;
+  private final AtomicLong setBits = new AtomicLong();
+
+  private BloomFilter(long bits, int hashFunctions) {
+    int wordCount = (int) Math.min(Integer.MAX_VALUE - 8L, Math.max(1L, (bits + 63) / 64));
+    this.words = new AtomicLongArray(wordCount);
+    this.bitSize = (long) wordCount * Long.SIZE;
+    this.hashFunctions = hashFunctions;
+  }
+
+  /**
+   * Dimensiona bits y funciones hash para la probabilidad de falso positivo pedida con ese número de elementos.
+   */
+  public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1L, expectedInsertions);
+    long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+    int hashFunctions = Math.max(1, (int) Math.round((double) bits / n * LN2));
+    return new BloomFilter(bits, hashFunctions);
+  }
+
+  public void put(String value) {
+    long hash1 = mix(fnv1a(value));
+    long hash2 = mix(hash1) | 1L;
+    for (int i = 0; i < hashFunctions; i++) {
+      setBit(Math.floorMod(hash1 + i * hash2, bitSize));
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long hash1 = mix(fnv1a(value));
+    long hash2 = mix(hash1) | 1L;
+    for (int i = 0; i < hashFunctions; i++) {
+      long index = Math.floorMod(hash1 + i * hash2, bitSize);
+      if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Probabilidad de falso positivo según los bits ya encendidos.
+   */
+  public double expectedFpp() {
+    return Math.pow((double) setBits.get() / bitSize, hashFunctions);
+  }
+
+  public long memoryBytes() {
+    return (long) words.length() * Long.BYTES;
+  }
+
+  private void setBit(long index) {
+    int word = (int) (index >>> 6);
+    long mask = 1L << index;
+    long previous = words.getAndAccumulate(word, mask, (current, bit) -> current | bit);
+    if ((previous & mask) == 0) {
+      setBits.incrementAndGet();
+    }
+  }
+
+  private static long fnv1a(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  // splitmix64: reparte bien los bits de FNV para el doble hashing
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -1,9 +1,19 @@
 package com.bootcamp.ntt.card_service.utils;
 
 import java.time.Duration;
+import java.time.YearMonth;
 
 public class CacheKeys {
   public static final Duration MASTER_DATA_TTL = Duration.ofHours(1);
   public static final Duration BALANCE_TTL = Duration.ofMinutes(15);
   public static final Duration ELIGIBILITY_TTL = Duration.ofMinutes(30);
+
+  // Un mes cerrado casi no cambia, pero su acumulado puede estar incompleto hasta el backfill:
+  // el TTL acota cuánto dura un promedio erróneo en caché. La captura atrasada invalida la clave
+  public static final Duration CLOSED_MONTH_REPORT_TTL = Duration.ofHours(24);
+  public static final Duration OPEN_MONTH_REPORT_TTL = Duration.ofMinutes(5);
+
+  public static String dailyAveragesKey(String customerId, YearMonth period) {
+    return "card:daily-averages:" + customerId + ":" + period;
+  }
 }
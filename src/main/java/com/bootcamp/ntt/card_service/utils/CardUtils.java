@@ -9,18 +9,48 @@ import java.security.SecureRandom;
 public class CardUtils {
 
   private static final SecureRandom random = new SecureRandom();
+  private static final int CARD_NUMBER_LENGTH = 16;
 
 
   public String generateAuthCode() {
     return "AUTH-" + System.currentTimeMillis();
   }
 
-  public String generateRandomCardNumber() {
-    StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < 16; i++) {
+  /**
+   * Número de 16 dígitos con el BIN indicado, dígitos aleatorios y dígito de control Luhn.
+   */
+  public String generateCardNumber(String bin) {
+    StringBuilder sb = new StringBuilder(bin);
+    while (sb.length() < CARD_NUMBER_LENGTH - 1) {
       sb.append(random.nextInt(10));
     }
-    return sb.toString();
+    return sb.append(luhnCheckDigit(sb)).toString();
+  }
+
+  public boolean isLuhnValid(String cardNumber) {
+    if (cardNumber == null || !cardNumber.matches("\\d{2,}")) {
+      return false;
+    }
+    int last = cardNumber.length() - 1;
+    return luhnCheckDigit(cardNumber.substring(0, last)) == cardNumber.charAt(last) - '0';
+  }
+
+  // Se duplica uno de cada dos dígitos empezando por el que quedará junto al dígito de control
+  private static int luhnCheckDigit(CharSequence digits) {
+    int sum = 0;
+    boolean doubled = true;
+    for (int i = digits.length() - 1; i >= 0; i--) {
+      int digit = digits.charAt(i) - '0';
+      if (doubled) {
+        digit *= 2;
+        if (digit > 9) {
+          digit -= 9;
+        }
+      }
+      sum += digit;
+      doubled = !doubled;
+    }
+    return (10 - sum % 10) % 10;
   }
 
 }
@@ -10,4 +10,7 @@ public final class ErrorCodes {
   public static final String CARD_INACTIVE = "CARD_INACTIVE";
   public static final String ACCOUNT_ALREADY_ASSOCIATED = "ACCOUNT_ALREADY_ASSOCIATED";
   public static final String INVALID_ACCOUNT_OWNERSHIP = "INVALID_ACCOUNT_OWNERSHIP";
+  public static final String INTERNAL_ERROR = "INTERNAL_ERROR";
+  public static final String IDEMPOTENCY_KEY_IN_PROGRESS = "IDEMPOTENCY_KEY_IN_PROGRESS";
+  public static final String IDEMPOTENCY_KEY_REUSED = "IDEMPOTENCY_KEY_REUSED";
 }
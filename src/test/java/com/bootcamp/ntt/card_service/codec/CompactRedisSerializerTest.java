@@ -0,0 +1,135 @@
+package com.bootcamp.ntt.card_service.codec;
+
+import com.bootcamp.ntt.card_service.config.RedisConfig;
+import com.bootcamp.ntt.card_service.model.ChargeAuthorizationResponse;
+import com.bootcamp.ntt.card_service.model.CreditCardResponse;
+import com.bootcamp.ntt.card_service.model.DebitCardResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+  private Jackson2JsonRedisSerializer<Object> jsonSerializer;
+  private CompactRedisSerializer serializer;
+  private CreditCardResponse creditCard;
+
+  @BeforeEach
+  void setUp() {
+    jsonSerializer = RedisConfig.jsonValueSerializer();
+    serializer = new CompactRedisSerializer(jsonSerializer,
+      List.of(new CreditCardResponseCodec(), new DebitCardResponseCodec()));
+
+    creditCard = new CreditCardResponse();
+    creditCard.setId("64f3cbb5f8a1e53d2f7c34e1");
+    creditCard.setCardNumber("4111111111111111");
+    creditCard.setCustomerId("68a0cdde7d68c910da0bc239");
+    creditCard.setCreditCardType(CreditCardResponse.CreditCardTypeEnum.PERSONAL);
+    creditCard.setCreditLimit(10000.0);
+    creditCard.setAvailableCredit(6000.0);
+    creditCard.setCurrentBalance(4000.0);
+    creditCard.setIsActive(true);
+    creditCard.setPaymentDueDate(LocalDate.of(2025, 9, 15));
+    creditCard.setMinimumPayment(200.0);
+    creditCard.setIsOverdue(false);
+    creditCard.setOverdueDays(0);
+    creditCard.setCreatedAt(OffsetDateTime.of(2025, 8, 18, 10, 15, 30, 123000000, ZoneOffset.UTC));
+    creditCard.setUpdatedAt(null);
+  }
+
+  @Test
+  void testCreditCardResponse_RoundTrip() {
+    byte[] bytes = serializer.serialize(creditCard);
+
+    assertEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+    assertEquals(creditCard, serializer.deserialize(bytes));
+  }
+
+  @Test
+  void testDebitCardResponse_RoundTrip() {
+    DebitCardResponse debitCard = new DebitCardResponse();
+    debitCard.setId("64f3cbb5f8a1e53d2f7c34e2");
+    debitCard.setCardNumber("4222222222222222");
+    debitCard.setCustomerId("68a0cdde7d68c910da0bc239");
+    debitCard.setPrimaryAccountId("acc_123456789");
+    debitCard.setAssociatedAccountIds(Arrays.asList("acc_987654321", "acc_456789123"));
+    debitCard.setIsActive(false);
+    debitCard.setCreatedAt(OffsetDateTime.of(2025, 8, 18, 10, 15, 30, 0, ZoneOffset.ofHours(-5)));
+
+    assertEquals(debitCard, serializer.deserialize(serializer.serialize(debitCard)));
+  }
+
+  @Test
+  void testTypeWithoutCodec_FallsBackToJson() {
+    ChargeAuthorizationResponse authorization = new ChargeAuthorizationResponse();
+    authorization.setStatus(ChargeAuthorizationResponse.StatusEnum.APPROVED);
+    authorization.setAuthorizedAmount(150.0);
+
+    byte[] bytes = serializer.serialize(authorization);
+
+    assertArrayEquals(jsonSerializer.serialize(authorization), bytes);
+    assertEquals(authorization, serializer.deserialize(bytes));
+  }
+
+  @Test
+  void testLegacyJsonEntry_IsStillReadable() {
+    byte[] legacy = jsonSerializer.serialize(creditCard);
+
+    assertEquals(creditCard, serializer.deserialize(legacy));
+  }
+
+  @Test
+  void testUnknownTypeId_Fails() {
+    byte[] bytes = serializer.serialize(creditCard);
+    bytes[2] = 99;
+
+    assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+  }
+
+  @Test
+  void testCachedValue_RoundTrip() {
+    byte[] bytes = serializer.serialize(new CachedValue(creditCard, 1_700_000_000_000L, 42L));
+
+    assertEquals(CompactRedisSerializer.ENVELOPE_TYPE_ID, bytes[2]);
+    CachedValue restored = (CachedValue) serializer.deserialize(bytes);
+    assertEquals(creditCard, restored.getValue());
+    assertEquals(1_700_000_000_000L, restored.getExpiresAtMillis());
+    assertEquals(42L, restored.getRecomputeMillis());
+  }
+
+  @Test
+  void testCachedValueWithoutCodec_WrapsJsonPayload() {
+    CachedValue restored = (CachedValue) serializer.deserialize(
+      serializer.serialize(new CachedValue("__card-cache:absent__", 1_700_000_000_000L, 0L)));
+
+    assertEquals("__card-cache:absent__", restored.getValue());
+    assertEquals(0L, restored.getRecomputeMillis());
+  }
+
+  @Test
+  void testCachedValue_JsonRoundTrip() {
+    CachedValue restored = (CachedValue) jsonSerializer.deserialize(
+      jsonSerializer.serialize(new CachedValue(creditCard, 1_700_000_000_000L, 42L)));
+
+    assertEquals(creditCard, restored.getValue());
+    assertEquals(1_700_000_000_000L, restored.getExpiresAtMillis());
+  }
+
+  @Test
+  void testBinaryPayload_IsSmallerThanJson() {
+    byte[] json = jsonSerializer.serialize(creditCard);
+    byte[] binary = serializer.serialize(creditCard);
+
+    assertTrue(binary.length < json.length / 2,
+      "binary payload should be less than half of JSON: " + binary.length + " vs " + json.length);
+  }
+}
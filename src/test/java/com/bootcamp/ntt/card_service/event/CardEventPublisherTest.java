@@ -0,0 +1,126 @@
+package com.bootcamp.ntt.card_service.event;
+
+import com.bootcamp.ntt.card_service.config.KafkaProducerConfig;
+import com.bootcamp.ntt.card_service.enums.CardEventType;
+import com.bootcamp.ntt.card_service.enums.CardType;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringJUnitConfig(CardEventPublisherTest.TestConfig.class)
+@EmbeddedKafka(partitions = 3, topics = "card-events",
+  bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class CardEventPublisherTest {
+
+  private static final String TOPIC = "card-events";
+  private static final long POLL_TIMEOUT_MS = 10000;
+
+  @Configuration
+  @EnableConfigurationProperties(KafkaProperties.class)
+  @Import({KafkaProducerConfig.class, CardEventPublisher.class})
+  static class TestConfig {
+  }
+
+  @Autowired
+  private CardEventPublisher cardEventPublisher;
+
+  @Autowired
+  private EmbeddedKafkaBroker embeddedKafka;
+
+  private Consumer<String, CardEvent> consumer;
+
+  @BeforeEach
+  void setUp() {
+    Map<String, Object> props = KafkaTestUtils.consumerProps("card-event-test", "false", embeddedKafka);
+    consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+      new JsonDeserializer<>(CardEvent.class, false)).createConsumer();
+    embeddedKafka.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+  }
+
+  @AfterEach
+  void tearDown() {
+    consumer.close();
+  }
+
+  @Test
+  void testSend_KeyedByCardNumber() {
+    // Given
+    CardEvent event = buildEvent("4111111111111111", CardEventType.CHARGE_AUTHORIZED);
+
+    // When
+    StepVerifier.create(cardEventPublisher.send(event))
+      .verifyComplete();
+
+    // Then
+    ConsumerRecord<String, CardEvent> record = KafkaTestUtils.getSingleRecord(consumer, TOPIC);
+    assertEquals("4111111111111111", record.key());
+    assertEquals(CardEventType.CHARGE_AUTHORIZED, record.value().getEventType());
+    assertEquals(0, BigDecimal.valueOf(150.0).compareTo(record.value().getAmount()));
+  }
+
+  @Test
+  void testSend_SameCardKeepsOrderInOnePartition() {
+    // Given
+    String cardNumber = "4222222222222222";
+    List<CardEventType> sent = List.of(
+      CardEventType.CHARGE_AUTHORIZED,
+      CardEventType.PAYMENT_PROCESSED,
+      CardEventType.CARD_DEACTIVATED);
+
+    // When
+    sent.forEach(type -> cardEventPublisher.send(buildEvent(cardNumber, type)).block());
+
+    // Then
+    List<CardEventType> received = new ArrayList<>();
+    Integer partition = null;
+    long deadline = System.currentTimeMillis() + POLL_TIMEOUT_MS;
+    while (received.size() < sent.size() && System.currentTimeMillis() < deadline) {
+      ConsumerRecords<String, CardEvent> records = KafkaTestUtils.getRecords(consumer, POLL_TIMEOUT_MS);
+      for (ConsumerRecord<String, CardEvent> record : records) {
+        if (partition == null) {
+          partition = record.partition();
+        }
+        assertEquals(partition, record.partition());
+        received.add(record.value().getEventType());
+      }
+    }
+    assertEquals(sent, received);
+  }
+
+  private CardEvent buildEvent(String cardNumber, CardEventType type) {
+    CardEvent event = new CardEvent();
+    event.setEventId(type.name() + "-" + cardNumber);
+    event.setEventType(type);
+    event.setCardType(CardType.CREDIT);
+    event.setCardId("card123");
+    event.setCardNumber(cardNumber);
+    event.setCustomerId("customer123");
+    event.setAmount(BigDecimal.valueOf(150.0));
+    event.setOccurredAt(Instant.now());
+    return event;
+  }
+}
@@ -0,0 +1,182 @@
+package com.bootcamp.ntt.card_service.metrics;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardMetricsTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private CardMetrics cardMetrics;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    cardMetrics = new CardMetrics(meterRegistry);
+  }
+
+  @Test
+  void testTimedCall_TagsDownstreamOperationAndOutcome() {
+    // When
+    StepVerifier.create(Mono.just("ok").transform(cardMetrics.timedCall("customer-service", "getCustomer")))
+      .expectNext("ok")
+      .verifyComplete();
+    StepVerifier.create(Mono.error(new RuntimeException("boom"))
+        .transform(cardMetrics.timedCall("customer-service", "getCustomer")))
+      .expectError()
+      .verify();
+
+    // Then
+    assertEquals(1, externalCalls("customer-service", "getCustomer", "success").count());
+    assertEquals(1, externalCalls("customer-service", "getCustomer", "error").count());
+  }
+
+  @Test
+  void testTimedCall_CircuitOpenAndTimeoutHaveOwnOutcome() {
+    // Given
+    CallNotPermittedException circuitOpen =
+      CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("account-service"));
+
+    // When
+    StepVerifier.create(Mono.error(circuitOpen).transform(cardMetrics.timedCall("account-service", "debitAccount")))
+      .expectError(CallNotPermittedException.class)
+      .verify();
+    StepVerifier.create(Mono.error(new TimeoutException())
+        .transform(cardMetrics.timedCall("account-service", "debitAccount")))
+      .expectError(TimeoutException.class)
+      .verify();
+
+    // Then
+    assertEquals(1, externalCalls("account-service", "debitAccount", "circuit_open").count());
+    assertEquals(1, externalCalls("account-service", "debitAccount", "timeout").count());
+  }
+
+  @Test
+  void testTimedCall_InFlightGaugeTracksOpenCalls() {
+    // Given
+    Sinks.One<String> response = Sinks.one();
+
+    // When
+    StepVerifier.create(response.asMono().transform(cardMetrics.timedCall("transaction-service", "createTransaction")))
+      .then(() -> assertEquals(1.0, inFlight("transaction-service")))
+      .then(() -> response.tryEmitValue("ok"))
+      .expectNext("ok")
+      .verifyComplete();
+
+    // Then
+    assertEquals(0.0, inFlight("transaction-service"));
+  }
+
+  @Test
+  void testTimedCall_Cancelled() {
+    // When
+    StepVerifier.create(Mono.never().transform(cardMetrics.timedCall("account-service", "getAccountBalance")))
+      .thenCancel()
+      .verify();
+
+    // Then
+    assertEquals(1, externalCalls("account-service", "getAccountBalance", "cancelled").count());
+    assertEquals(0.0, inFlight("account-service"));
+  }
+
+  @Test
+  void testTimedStream_RecordsOnCompletion() {
+    // When
+    StepVerifier.create(Flux.just(1, 2, 3)
+        .transform(cardMetrics.timedStream("transaction-service", "getLastCardMovements")))
+      .expectNextCount(3)
+      .verifyComplete();
+
+    // Then: una medida por llamada, no por elemento
+    assertEquals(1, externalCalls("transaction-service", "getLastCardMovements", "success").count());
+  }
+
+  @Test
+  void testRecordCharge_CountsByOutcomeAndReason() {
+    // When
+    cardMetrics.recordCharge("approved", null);
+    cardMetrics.recordCharge("approved", null);
+    cardMetrics.recordCharge("declined", "INSUFFICIENT_CREDIT");
+
+    // Then
+    assertEquals(2.0, meterRegistry.get("card.charges").tags("outcome", "approved", "reason", "none")
+      .counter().count());
+    assertEquals(1.0, meterRegistry.get("card.charges").tags("outcome", "declined", "reason", "INSUFFICIENT_CREDIT")
+      .counter().count());
+  }
+
+  @Test
+  void testDailyBalanceCapture_TimedByOutcome() {
+    // When
+    Timer.Sample sample = cardMetrics.startDailyBalanceCapture();
+    cardMetrics.stopDailyBalanceCapture(sample, CardMetrics.OUTCOME_SUCCESS);
+
+    // Then
+    assertEquals(1, meterRegistry.get("card.daily_balance.capture").tag("outcome", "success").timer().count());
+  }
+
+  @Test
+  void testTimedBalanceChunk_CountsInsertedAndExisting() {
+    // When: bloque de 500 con 480 fotos nuevas
+    StepVerifier.create(Mono.just(480).transform(cardMetrics.timedBalanceChunk(500)))
+      .expectNext(480)
+      .verifyComplete();
+    StepVerifier.create(Mono.<Integer>error(new RuntimeException("bulk failed"))
+        .transform(cardMetrics.timedBalanceChunk(500)))
+      .expectError()
+      .verify();
+
+    // Then
+    assertEquals(480.0, meterRegistry.get("card.daily_balance.snapshots").tag("result", "inserted")
+      .counter().count());
+    assertEquals(20.0, meterRegistry.get("card.daily_balance.snapshots").tag("result", "existing")
+      .counter().count());
+    assertEquals(1, meterRegistry.get("card.daily_balance.chunk").tag("outcome", "success").timer().count());
+    assertEquals(1, meterRegistry.get("card.daily_balance.chunk").tag("outcome", "error").timer().count());
+  }
+
+  @Test
+  void testRecordOverdueUpdates_CountsMarkedAndCleared() {
+    // When
+    cardMetrics.recordOverdueUpdates(12, 3);
+    cardMetrics.recordOverdueUpdates(1, 0);
+
+    // Then
+    assertEquals(13.0, meterRegistry.get("card.overdue.updates").tag("result", "overdue").counter().count());
+    assertEquals(3.0, meterRegistry.get("card.overdue.updates").tag("result", "cleared").counter().count());
+  }
+
+  @Test
+  void testRecordCounterCorrection_CountsDriftSize() {
+    // When: la desviación cuenta igual hacia arriba o hacia abajo
+    cardMetrics.recordCounterCorrection("CREDIT", -4);
+    cardMetrics.recordCounterCorrection("CREDIT", 2);
+    cardMetrics.recordCounterCorrection("DEBIT", 1);
+
+    // Then
+    assertEquals(6.0, meterRegistry.get("card.counters.corrections").tag("type", "CREDIT").counter().count());
+    assertEquals(1.0, meterRegistry.get("card.counters.corrections").tag("type", "DEBIT").counter().count());
+  }
+
+  private Timer externalCalls(String downstream, String operation, String outcome) {
+    return meterRegistry.get("card.external.calls")
+      .tags("downstream", downstream, "operation", operation, "outcome", outcome)
+      .timer();
+  }
+
+  private double inFlight(String downstream) {
+    return meterRegistry.get("card.external.inflight").tag("downstream", downstream).gauge().value();
+  }
+}
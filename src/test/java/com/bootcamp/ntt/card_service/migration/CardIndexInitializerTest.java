@@ -0,0 +1,126 @@
+package com.bootcamp.ntt.card_service.migration;
+
+import com.bootcamp.ntt.card_service.repository.CardIndexPlan;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardIndexInitializerTest {
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Mock
+  private ReactiveIndexOperations indexOps;
+
+  @InjectMocks
+  private CardIndexInitializer cardIndexInitializer;
+
+  @Test
+  void testRun_VerifyMode_MissingCardNumberIndex_FailsStartup() {
+    // Given
+    ReflectionTestUtils.setField(cardIndexInitializer, "mode", "verify");
+    stubIndexes(index("_id_", "_id", true));
+
+    // When / Then
+    IllegalStateException error = assertThrows(IllegalStateException.class, () -> cardIndexInitializer.run(null));
+    assertTrue(error.getMessage().contains(CardIndexPlan.CARD_NUMBER_INDEX));
+  }
+
+  @Test
+  void testRun_OffMode_NonUniqueCardNumberIndex_FailsStartup() {
+    // Given
+    ReflectionTestUtils.setField(cardIndexInitializer, "mode", "off");
+    stubIndexes(index("_id_", "_id", true), index("cardNumber_1", "cardNumber", false));
+
+    // When / Then
+    IllegalStateException error = assertThrows(IllegalStateException.class, () -> cardIndexInitializer.run(null));
+    assertTrue(error.getMessage().contains("must be unique"));
+  }
+
+  @Test
+  void testRun_OffMode_UniqueCardNumberIndex_StartsWithoutReconciling() {
+    // Given: el índice existe con otro nombre; se compara por claves
+    ReflectionTestUtils.setField(cardIndexInitializer, "mode", "off");
+    stubIndexes(index("_id_", "_id", true), index("cards_number_unique", "cardNumber", true));
+
+    // When / Then
+    assertDoesNotThrow(() -> cardIndexInitializer.run(null));
+    verify(indexOps, times(1)).getIndexInfo();
+  }
+
+  @Test
+  void testRun_VerifyMode_UniqueCardNumberIndex_ContinuesToReconcile() {
+    // Given
+    ReflectionTestUtils.setField(cardIndexInitializer, "mode", "verify");
+    stubIndexes(index("_id_", "_id", true), index("cardNumber_1", "cardNumber", true));
+
+    // When / Then: tras la comprobación se sigue con el informe de diferencias
+    assertDoesNotThrow(() -> cardIndexInitializer.run(null));
+    verify(indexOps, times(2)).getIndexInfo();
+  }
+
+  @Test
+  void testRun_CreateMode_CreatesMissingIndexesBeforeCheckingCardNumber() {
+    // Given: la segunda lectura ve el índice ya creado
+    ReflectionTestUtils.setField(cardIndexInitializer, "mode", "create");
+    when(mongoTemplate.indexOps(CardIndexPlan.COLLECTION)).thenReturn(indexOps);
+    when(indexOps.getIndexInfo()).thenReturn(
+      Flux.just(index("_id_", "_id", true)),
+      Flux.just(index("_id_", "_id", true), index("cardNumber_1", "cardNumber", true)));
+    when(indexOps.ensureIndex(any(IndexDefinition.class))).thenReturn(Mono.just("created"));
+
+    // When / Then
+    assertDoesNotThrow(() -> cardIndexInitializer.run(null));
+    verify(indexOps, times(CardIndexPlan.indexes().size())).ensureIndex(any(IndexDefinition.class));
+    verify(indexOps, times(2)).getIndexInfo();
+  }
+
+  @Test
+  void testRun_CreateMode_CardNumberIndexCannotBeCreated_FailsStartup() {
+    // Given: duplicados existentes impiden crear el índice único
+    ReflectionTestUtils.setField(cardIndexInitializer, "mode", "create");
+    stubIndexes(index("_id_", "_id", true));
+    when(indexOps.ensureIndex(any(IndexDefinition.class))).thenAnswer(invocation -> {
+      IndexDefinition declared = invocation.getArgument(0);
+      return CardIndexPlan.CARD_NUMBER_INDEX.equals(declared.getIndexOptions().getString("name"))
+        ? Mono.error(new IllegalStateException("E11000 duplicate key"))
+        : Mono.just("created");
+    });
+
+    // When / Then
+    IllegalStateException error = assertThrows(IllegalStateException.class, () -> cardIndexInitializer.run(null));
+    assertTrue(error.getMessage().contains(CardIndexPlan.CARD_NUMBER_INDEX));
+  }
+
+  private void stubIndexes(IndexInfo... indexes) {
+    when(mongoTemplate.indexOps(CardIndexPlan.COLLECTION)).thenReturn(indexOps);
+    when(indexOps.getIndexInfo()).thenReturn(Flux.just(indexes));
+  }
+
+  private IndexInfo index(String name, String key, boolean unique) {
+    return new IndexInfo(List.of(IndexField.create(key, Sort.Direction.ASC)), name, unique, false, "");
+  }
+}
@@ -0,0 +1,109 @@
+package com.bootcamp.ntt.card_service.migration;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceBucketStore;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DailyBalanceBucketMigrationTest {
+
+  @Mock
+  private DailyBalanceRepository dailyBalanceRepository;
+
+  @Mock
+  private DailyBalanceBucketStore bucketStore;
+
+  @InjectMocks
+  private DailyBalanceBucketMigration migration;
+
+  private List<DailyBalance> history;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(migration, "chunkSize", 2);
+    history = List.of(
+      balance("card123", LocalDate.of(2026, 10, 1)),
+      balance("card123", LocalDate.of(2026, 10, 2)),
+      balance("card456", LocalDate.of(2026, 10, 1)));
+    when(dailyBalanceRepository.findAll(Sort.by("customerId", "cardId", "date")))
+      .thenReturn(Flux.fromIterable(history));
+  }
+
+  @Test
+  void testMigrate_FirstRun_CopiesEveryDayInIndexOrderChunks() {
+    // Given
+    when(bucketStore.saveAll(anyList())).thenAnswer(invocation ->
+      Mono.just(invocation.<List<DailyBalance>>getArgument(0).size()));
+
+    // When / Then
+    StepVerifier.create(migration.migrate())
+      .expectNext(3L)
+      .verifyComplete();
+
+    List<List<DailyBalance>> chunks = captureChunks();
+    assertEquals(List.of(history.get(0), history.get(1)), chunks.get(0));
+    assertEquals(List.of(history.get(2)), chunks.get(1));
+  }
+
+  @Test
+  void testMigrate_Rerun_DaysAlreadyInBucketsCopyNothing() {
+    // Given: todos los días ya están en sus buckets, el $set con days.N: null no modifica nada
+    when(bucketStore.saveAll(anyList())).thenReturn(Mono.just(0));
+
+    // When / Then: relanzar no falla ni sobrescribe
+    StepVerifier.create(migration.migrate())
+      .expectNext(0L)
+      .verifyComplete();
+
+    assertEquals(2, captureChunks().size());
+  }
+
+  @Test
+  void testMigrate_RerunAfterLayoutSwitch_CopiesOnlyMissingDays() {
+    // Given: el primer bloque ya se copió, el segundo llegó entre medias
+    when(bucketStore.saveAll(anyList())).thenReturn(Mono.just(0), Mono.just(1));
+
+    // When / Then
+    StepVerifier.create(migration.migrate())
+      .expectNext(1L)
+      .verifyComplete();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<List<DailyBalance>> captureChunks() {
+    ArgumentCaptor<List<DailyBalance>> chunks = ArgumentCaptor.forClass(List.class);
+    verify(bucketStore, times(2)).saveAll(chunks.capture());
+    return chunks.getAllValues();
+  }
+
+  private DailyBalance balance(String cardId, LocalDate date) {
+    DailyBalance balance = new DailyBalance();
+    balance.setCustomerId("customer123");
+    balance.setCardId(cardId);
+    balance.setDate(date);
+    balance.setCurrentBalance(new BigDecimal("100.00"));
+    return balance;
+  }
+}
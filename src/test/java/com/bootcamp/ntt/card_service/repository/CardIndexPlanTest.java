@@ -0,0 +1,237 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.DebitCard;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Map.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardIndexPlanTest {
+
+  // Índice implícito de Mongo: también resuelve búsquedas por _id
+  private static final Index ID_INDEX = new Index().on("_id", Sort.Direction.ASC).unique();
+
+  // Criterios de las consultas custom sobre cards, copiados de los Query/Document de cada método.
+  // Un método custom nuevo tiene que aparecer aquí o en NOT_ON_CARDS para que el test pase
+  private static final Map<String, QueryShape> CUSTOM_QUERIES = Map.ofEntries(
+    entry("CreditCardRepositoryCustom.reserveCredit",
+      QueryShape.active(Set.of("cardNumber", "type", "isActive"), List.of())),
+    entry("CreditCardRepositoryCustom.convertLegacyMoney",
+      QueryShape.of(Set.of("type"), List.of())),
+    entry("CreditCardRepositoryCustom.findWithPendingPostings",
+      QueryShape.of(Set.of(), List.of("pendingPostings.createdAt"))),
+    entry("CreditCardRepositoryCustom.removePendingPostings",
+      QueryShape.of(Set.of("_id"), List.of())),
+    entry("CreditCardRepositoryCustom.applyPayment",
+      QueryShape.active(Set.of("cardNumber", "type", "isActive"), List.of())),
+    entry("CreditCardRepositoryCustom.updateFields",
+      QueryShape.of(Set.of("_id"), List.of())),
+    entry("CreditCardRepositoryCustom.setActive",
+      QueryShape.of(Set.of("_id", "isActive"), List.of())),
+    entry("DebitCardRepositoryCustom.setActive",
+      QueryShape.of(Set.of("_id", "isActive"), List.of())),
+    entry("CreditCardRepositoryCustom.findActivePartitionBoundaries",
+      QueryShape.active(Set.of("type", "isActive"), List.of("_id"))),
+    entry("CreditCardRepositoryCustom.findActiveByIdRange",
+      QueryShape.active(Set.of("type", "isActive"), List.of("_id"))),
+    entry("CreditCardRepositoryCustom.findActiveAfterId",
+      QueryShape.active(Set.of("type", "isActive"), List.of("_id"))),
+    entry("CreditCardRepositoryCustom.findPartitionBoundaries",
+      QueryShape.of(Set.of("type"), List.of("_id"))),
+    entry("CreditCardRepositoryCustom.findExistingCardNumbers",
+      QueryShape.of(Set.of("cardNumber"), List.of())),
+    // Sin igualdad: el rango cardNumber >= "" recorre cardNumber_1 entero
+    entry("CreditCardRepositoryCustom.findAllCardNumbers",
+      QueryShape.of(Set.of(), List.of("cardNumber"))),
+    entry("CreditCardRepositoryCustom.markOverdue",
+      QueryShape.of(Set.of("type"), List.of("_id"))),
+    entry("CreditCardRepositoryCustom.clearOverdue",
+      QueryShape.of(Set.of("type"), List.of("_id"))),
+    entry("CardSummaryRepository.findActiveCardSummaries",
+      QueryShape.active(Set.of("customerId", "isActive"), List.of())),
+    entry("CardCounterRepositoryCustom.countCards",
+      QueryShape.of(Set.of("type", "isActive"), List.of())));
+
+  private static final Set<String> NOT_ON_CARDS = Set.of(
+    // Metadatos de la colección, sin consulta
+    "CreditCardRepositoryCustom.estimateCardCount",
+    // Escriben en card_counters
+    "CardCounterRepositoryCustom.increment",
+    "CardCounterRepositoryCustom.reconcile");
+
+  // Sin Mongo embebido en el build, el "explain" se resuelve sobre el plan: los campos de igualdad de
+  // la consulta deben ser un prefijo del índice, seguidos de los de orden o rango en su orden. Un índice
+  // parcial solo vale si la consulta fija isActive=true, y entonces isActive ya no hace falta como clave.
+  @Test
+  void testEveryDerivedQueryIsServedByADeclaredIndex() {
+    List<String> unindexed = new ArrayList<>();
+    unindexed.addAll(unindexedQueries(CreditCardRepository.class, CreditCard.class));
+    unindexed.addAll(unindexedQueries(DebitCardRepository.class, DebitCard.class));
+
+    assertTrue(unindexed.isEmpty(), "Queries without a usable index: " + unindexed);
+  }
+
+  @Test
+  void testEveryCustomQueryIsServedByADeclaredIndex() {
+    List<String> unindexed = CUSTOM_QUERIES.entrySet().stream()
+      .filter(query -> !served(query.getValue()))
+      .map(Map.Entry::getKey)
+      .sorted()
+      .collect(Collectors.toList());
+
+    assertTrue(unindexed.isEmpty(), "Queries without a usable index: " + unindexed);
+  }
+
+  @Test
+  void testEveryCustomMethodIsListed() {
+    List<String> unlisted = new ArrayList<>();
+    for (Class<?> fragment : List.of(CreditCardRepositoryCustom.class, DebitCardRepositoryCustom.class,
+        CardCounterRepositoryCustom.class, CardSummaryRepository.class)) {
+      for (Method method : fragment.getMethods()) {
+        if (method.getDeclaringClass() != fragment) {
+          continue;
+        }
+        String name = fragment.getSimpleName() + "." + method.getName();
+        if (!CUSTOM_QUERIES.containsKey(name) && !NOT_ON_CARDS.contains(name)) {
+          unlisted.add(name);
+        }
+      }
+    }
+
+    assertTrue(unlisted.isEmpty(), "Custom queries missing from CardIndexPlanTest: " + unlisted);
+  }
+
+  @Test
+  void testPrefixMatch_EqualityBeforeRange() {
+    Index typeThenId = new Index().on("type", Sort.Direction.ASC).on("_id", Sort.Direction.ASC);
+    Index idThenType = new Index().on("_id", Sort.Direction.ASC).on("type", Sort.Direction.ASC);
+    QueryShape typeAndIdRange = QueryShape.of(Set.of("type"), List.of("_id"));
+
+    assertTrue(serves(typeThenId, typeAndIdRange));
+    // El rango delante de la igualdad obliga a recorrer todo el rango de _id
+    assertFalse(serves(idThenType, typeAndIdRange));
+    // Una igualdad fuera del índice se filtraría documento a documento
+    assertFalse(serves(typeThenId, QueryShape.of(Set.of("type", "customerId"), List.of("_id"))));
+    // Solo con el primer campo no basta si el orden pedido no sigue al prefijo
+    assertFalse(serves(new Index().on("type", Sort.Direction.ASC).on("isActive", Sort.Direction.ASC),
+      typeAndIdRange));
+  }
+
+  @Test
+  void testCardNumberIndexIsUnique() {
+    Index cardNumber = CardIndexPlan.indexes().stream()
+      .filter(index -> CardIndexPlan.CARD_NUMBER_INDEX.equals(index.getIndexOptions().getString("name")))
+      .findFirst()
+      .orElseThrow();
+
+    assertEquals(List.of("cardNumber"), new ArrayList<>(cardNumber.getIndexKeys().keySet()));
+    assertEquals(Boolean.TRUE, cardNumber.getIndexOptions().get("unique"));
+  }
+
+  @Test
+  void testAssociatedAccountIdsHasMultikeyIndex() {
+    assertTrue(CardIndexPlan.indexes().stream()
+      .anyMatch(index -> index.getIndexKeys().keySet().equals(Set.of("associatedAccountIds"))));
+  }
+
+  private static List<String> unindexedQueries(Class<?> repository, Class<?> entity) {
+    List<String> unindexed = new ArrayList<>();
+    for (Method method : repository.getDeclaredMethods()) {
+      PartTree tree = new PartTree(method.getName(), entity);
+      List<Part> parts = tree.getParts().stream().collect(Collectors.toList());
+      Set<String> equality = parts.stream()
+        .map(part -> part.getProperty().getSegment())
+        .collect(Collectors.toSet());
+      boolean activeOnly = parts.stream()
+        .anyMatch(part -> "isActive".equals(part.getProperty().getSegment()) && part.getType() == Part.Type.TRUE);
+      List<String> sort = tree.getSort().stream()
+        .map(Sort.Order::getProperty)
+        .collect(Collectors.toList());
+
+      if (!served(new QueryShape(equality, sort, activeOnly))) {
+        unindexed.add(repository.getSimpleName() + "." + method.getName());
+      }
+    }
+    return unindexed;
+  }
+
+  private static boolean served(QueryShape query) {
+    List<Index> candidates = new ArrayList<>(CardIndexPlan.indexes());
+    candidates.add(ID_INDEX);
+    return candidates.stream().anyMatch(index -> serves(index, query));
+  }
+
+  private static boolean serves(Index index, QueryShape query) {
+    Set<String> equality = query.equality;
+    if (isPartial(index)) {
+      if (!query.activeOnly) {
+        return false;
+      }
+      equality = equality.stream().filter(field -> !"isActive".equals(field)).collect(Collectors.toSet());
+    }
+
+    List<String> keys = new ArrayList<>(index.getIndexKeys().keySet());
+    int prefix = 0;
+    while (prefix < keys.size() && equality.contains(keys.get(prefix))) {
+      prefix++;
+    }
+
+    // Un índice único cubierto entero por igualdades devuelve como mucho un documento
+    if (isUnique(index) && prefix == keys.size()) {
+      return true;
+    }
+    if (prefix != equality.size() || (prefix == 0 && query.sortOrRange.isEmpty())) {
+      return false;
+    }
+    List<String> rest = keys.subList(prefix, keys.size());
+    return rest.size() >= query.sortOrRange.size()
+      && rest.subList(0, query.sortOrRange.size()).equals(query.sortOrRange);
+  }
+
+  private static boolean isPartial(Index index) {
+    Document options = index.getIndexOptions();
+    return options.containsKey("partialFilterExpression");
+  }
+
+  private static boolean isUnique(Index index) {
+    return Boolean.TRUE.equals(index.getIndexOptions().get("unique"));
+  }
+
+  private static final class QueryShape {
+
+    private final Set<String> equality;
+    private final List<String> sortOrRange;
+    private final boolean activeOnly;
+
+    private QueryShape(Set<String> equality, List<String> sortOrRange, boolean activeOnly) {
+      this.equality = equality;
+      this.sortOrRange = Collections.unmodifiableList(sortOrRange);
+      this.activeOnly = activeOnly;
+    }
+
+    static QueryShape of(Set<String> equality, List<String> sortOrRange) {
+      return new QueryShape(equality, sortOrRange, false);
+    }
+
+    // La consulta fija isActive=true: puede usar el índice parcial de activas
+    static QueryShape active(Set<String> equality, List<String> sortOrRange) {
+      return new QueryShape(equality, sortOrRange, true);
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.PendingPosting;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CreditCardRepositoryCustomImplTest {
+
+  private static final String CARD_NUMBER = "4111111111111111";
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Mock
+  private MongoCollection<Document> collection;
+
+  private CreditCardRepositoryCustomImpl repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new CreditCardRepositoryCustomImpl(mongoTemplate);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testReserveCredit_LegacyStringAmounts_ConvertsAndReserves() {
+    // Given: el documento guarda availableCredit como "3000.00", el $gte sobre Decimal128 no aplica
+    CreditCard reserved = new CreditCard();
+    reserved.setCardNumber(CARD_NUMBER);
+    reserved.setAvailableCredit(BigDecimal.valueOf(2000));
+
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+      eq(CreditCard.class))).thenReturn(Mono.empty(), Mono.just(reserved));
+    stubLegacyConversion(1L);
+
+    // When
+    Mono<CreditCard> result = repository.reserveCredit(CARD_NUMBER, BigDecimal.valueOf(1000), new PendingPosting());
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(reserved)
+      .verifyComplete();
+
+    ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+    ArgumentCaptor<List<Document>> pipeline = ArgumentCaptor.forClass(List.class);
+    verify(collection).updateMany(filter.capture(), pipeline.capture());
+
+    Document filterDocument = (Document) filter.getValue();
+    assertEquals(CARD_NUMBER, filterDocument.get("cardNumber"));
+    assertEquals("CREDIT", filterDocument.get("type"));
+    assertEquals(new Document("availableCredit", new Document("$type", "string")),
+      filterDocument.getList("$or", Document.class).get(0));
+
+    Document set = pipeline.getValue().get(0).get("$set", Document.class);
+    assertEquals(new Document("$toDecimal", "$availableCredit"), set.get("availableCredit"));
+    assertEquals(new Document("$toDecimal", "$creditLimit"), set.get("creditLimit"));
+    assertEquals(new Document("$toDecimal", "$currentBalance"), set.get("currentBalance"));
+    verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class),
+      any(FindAndModifyOptions.class), eq(CreditCard.class));
+  }
+
+  @Test
+  void testReserveCredit_DecimalAmountsInsufficient_DoesNotRetry() {
+    // Given
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+      eq(CreditCard.class))).thenReturn(Mono.empty());
+    stubLegacyConversion(0L);
+
+    // When / Then
+    StepVerifier.create(repository.reserveCredit(CARD_NUMBER, BigDecimal.valueOf(1000), new PendingPosting()))
+      .verifyComplete();
+
+    verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class),
+      any(FindAndModifyOptions.class), eq(CreditCard.class));
+  }
+
+  @Test
+  void testReserveCredit_PushesPostingInTheSameUpdate() {
+    // Given
+    PendingPosting posting = new PendingPosting();
+    posting.setPostingId("posting123");
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+      eq(CreditCard.class))).thenReturn(Mono.just(new CreditCard()));
+
+    // When
+    StepVerifier.create(repository.reserveCredit(CARD_NUMBER, new BigDecimal("250.00"), posting))
+      .expectNextCount(1)
+      .verifyComplete();
+
+    // Then: saldo y envío pendiente en una sola escritura
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+      eq(CreditCard.class));
+
+    Document updateObject = update.getValue().getUpdateObject();
+    assertEquals(new Decimal128(new BigDecimal("-250.00")),
+      updateObject.get("$inc", Document.class).get("availableCredit"));
+    assertEquals(posting, updateObject.get("$push", Document.class).get("pendingPostings"));
+  }
+
+  @Test
+  void testRemovePendingPostings_PullsOnlyGivenIds() {
+    // Given
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(CreditCard.class)))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(1L, 1L, null)));
+
+    // When
+    StepVerifier.create(repository.removePendingPostings("card123", List.of("posting123")))
+      .verifyComplete();
+
+    // Then
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(CreditCard.class));
+    assertEquals(new Document("_id", "card123"), query.getValue().getQueryObject());
+    assertEquals(new Document("pendingPostings",
+        new Document("postingId", new Document("$in", List.of("posting123")))),
+      update.getValue().getUpdateObject().get("$pull"));
+  }
+
+  @Test
+  void testApplyPayment_IncrementsBothBalancesGuardedByOutstandingBalance() {
+    // Given
+    CreditCard paid = new CreditCard();
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+      eq(CreditCard.class))).thenReturn(Mono.just(paid));
+
+    // When
+    StepVerifier.create(repository.applyPayment(CARD_NUMBER, new BigDecimal("500.00")))
+      .expectNext(paid)
+      .verifyComplete();
+
+    // Then
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+      eq(CreditCard.class));
+
+    Document filter = query.getValue().getQueryObject();
+    assertEquals(CARD_NUMBER, filter.get("cardNumber"));
+    assertEquals(true, filter.get("isActive"));
+    assertEquals(new Document("$gte", new Decimal128(new BigDecimal("500.00"))), filter.get("currentBalance"));
+
+    Document inc = update.getValue().getUpdateObject().get("$inc", Document.class);
+    assertEquals(new Decimal128(new BigDecimal("500.00")), inc.get("availableCredit"));
+    assertEquals(new Decimal128(new BigDecimal("-500.00")), inc.get("currentBalance"));
+  }
+
+  @Test
+  void testUpdateFields_SetsOnlyGivenFieldsAndReturnsPreviousDocument() {
+    // Given
+    CreditCard previous = new CreditCard();
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+      eq(CreditCard.class))).thenReturn(Mono.just(previous));
+
+    // When
+    StepVerifier.create(repository.updateFields("card123", new BigDecimal("8000"), null, null))
+      .expectNext(previous)
+      .verifyComplete();
+
+    // Then: los saldos no se reescriben
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+    verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), options.capture(),
+      eq(CreditCard.class));
+
+    assertEquals(new Document("creditLimit", new Decimal128(new BigDecimal("8000"))),
+      update.getValue().getUpdateObject().get("$set", Document.class));
+    assertFalse(options.getValue().isReturnNew());
+  }
+
+  @Test
+  void testSetActive_OnlyMatchesTheOppositeState() {
+    // Given
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+      eq(CreditCard.class))).thenReturn(Mono.empty());
+
+    // When
+    StepVerifier.create(repository.setActive("card123", false))
+      .verifyComplete();
+    StepVerifier.create(repository.setActive("card123", true))
+      .verifyComplete();
+
+    // Then: desactivar exige isActive=true; activar acepta false o ausente
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate, times(2)).findAndModify(query.capture(), update.capture(),
+      any(FindAndModifyOptions.class), eq(CreditCard.class));
+
+    assertEquals(new Document("_id", "card123").append("isActive", true),
+      query.getAllValues().get(0).getQueryObject());
+    assertEquals(new Document("_id", "card123").append("isActive", new Document("$ne", true)),
+      query.getAllValues().get(1).getQueryObject());
+    assertEquals(new Document("isActive", false),
+      update.getAllValues().get(0).getUpdateObject().get("$set", Document.class));
+  }
+
+  @Test
+  void testFindAllCardNumbers_CoveredByCardNumberIndex() {
+    // Given
+    when(mongoTemplate.getCollectionName(CreditCard.class)).thenReturn("cards");
+    when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("cards")))
+      .thenReturn(Flux.just(new Document("cardNumber", CARD_NUMBER)));
+
+    // When
+    StepVerifier.create(repository.findAllCardNumbers())
+      .expectNext(CARD_NUMBER)
+      .verifyComplete();
+
+    // Then: solo cardNumber, sin _id, y por el índice único
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(query.capture(), eq(Document.class), eq("cards"));
+    assertEquals(new Document("cardNumber", 1).append("_id", 0), query.getValue().getFieldsObject());
+    assertEquals(new Document("cardNumber", new Document("$gte", "")), query.getValue().getQueryObject());
+    assertEquals(CardIndexPlan.CARD_NUMBER_INDEX, query.getValue().getHint());
+  }
+
+  private void stubLegacyConversion(long modified) {
+    when(mongoTemplate.getCollectionName(CreditCard.class)).thenReturn("cards");
+    when(mongoTemplate.getCollection("cards")).thenReturn(Mono.just(collection));
+    when(collection.updateMany(any(Bson.class), anyList()))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(modified, modified, null)));
+  }
+}
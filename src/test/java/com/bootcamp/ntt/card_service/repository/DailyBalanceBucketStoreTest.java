@@ -0,0 +1,270 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.DailyBalanceBucket;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DailyBalanceBucketStoreTest {
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Mock
+  private MongoCollection<Document> collection;
+
+  @InjectMocks
+  private DailyBalanceBucketStore bucketStore;
+
+  @Test
+  void testFindByCustomerIdAndDateBetween_SkipsEmptyDaysAndOutOfRange() {
+    // Given
+    List<DailyBalanceBucket.DayBalance> days =
+      new ArrayList<>(Collections.nCopies(DailyBalanceBucket.DAYS_PER_BUCKET, null));
+    days.set(0, day(LocalDate.of(2026, 10, 1), "100.00"));
+    days.set(14, day(LocalDate.of(2026, 10, 15), "150.00"));
+    days.set(30, day(LocalDate.of(2026, 10, 31), "310.00"));
+
+    DailyBalanceBucket bucket = new DailyBalanceBucket();
+    bucket.setId("card123:2026-10");
+    bucket.setCustomerId("customer123");
+    bucket.setCardId("card123");
+    bucket.setCardNumber("4111111111111111");
+    bucket.setPeriod("2026-10");
+    bucket.setDays(days);
+
+    when(mongoTemplate.find(any(Query.class), eq(DailyBalanceBucket.class))).thenReturn(Flux.just(bucket));
+
+    // When
+    Flux<DailyBalance> result = bucketStore.findByCustomerIdAndDateBetween("customer123",
+      LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 20));
+
+    // Then
+    StepVerifier.create(result)
+      .assertNext(balance -> {
+        assertEquals(LocalDate.of(2026, 10, 1), balance.getDate());
+        assertEquals("card123", balance.getCardId());
+        assertEquals(new BigDecimal("100.00"), balance.getCurrentBalance());
+      })
+      .assertNext(balance -> assertEquals(LocalDate.of(2026, 10, 15), balance.getDate()))
+      .verifyComplete();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testSaveAll_FirstCaptureWins_SetsDayOnlyWhilePositionEmpty() {
+    // Given
+    stubBulkWrites(Mono.just(mock(BulkWriteResult.class)), Mono.just(bulkResult(1)));
+
+    // When
+    StepVerifier.create(bucketStore.saveAll(List.of(balance("card123", LocalDate.of(2026, 10, 5), "150.00"))))
+      .expectNext(1)
+      .verifyComplete();
+
+    // Then
+    List<List<WriteModel<Document>>> writes = captureBulkWrites(2);
+
+    // Fase 1: el bucket se crea una sola vez con sus 31 posiciones vacías
+    UpdateOneModel<Document> bucket = (UpdateOneModel<Document>) writes.get(0).get(0);
+    assertEquals(BsonDocument.parse("{\"_id\": \"card123:2026-10\"}"), render(bucket.getFilter()));
+    Document setOnInsert = ((Document) bucket.getUpdate()).get("$setOnInsert", Document.class);
+    assertEquals(Collections.nCopies(DailyBalanceBucket.DAYS_PER_BUCKET, null), setOnInsert.get("days"));
+    assertEquals("2026-10", setOnInsert.get("period"));
+    assertTrue(bucket.getOptions().isUpsert());
+
+    // Fase 2: la posición del día 5 (índice 4) solo se escribe si sigue a null
+    UpdateOneModel<Document> day = (UpdateOneModel<Document>) writes.get(1).get(0);
+    assertEquals(BsonDocument.parse("{\"$and\": [{\"_id\": \"card123:2026-10\"}, {\"days.4\": null}]}"),
+      render(day.getFilter()));
+    Document written = ((Document) day.getUpdate()).get("$set", Document.class).get("days.4", Document.class);
+    assertEquals(new Decimal128(new BigDecimal("150.00")), written.get("currentBalance"));
+    assertFalse(written.containsKey("_class"));
+    assertFalse(day.getOptions().isUpsert());
+  }
+
+  @Test
+  void testSaveAll_RecaptureOfSameDay_WritesNothing() {
+    // Given: el bucket y el día ya existen; el filtro days.N: null no coincide
+    stubBulkWrites(Mono.just(mock(BulkWriteResult.class)), Mono.just(bulkResult(0)));
+
+    // When / Then
+    StepVerifier.create(bucketStore.saveAll(List.of(balance("card123", LocalDate.of(2026, 10, 5), "999.00"))))
+      .expectNext(0)
+      .verifyComplete();
+  }
+
+  @Test
+  void testSaveAll_SameBucketTwice_OneUpsertPerBucket() {
+    // Given
+    stubBulkWrites(Mono.just(mock(BulkWriteResult.class)), Mono.just(bulkResult(2)));
+
+    // When
+    StepVerifier.create(bucketStore.saveAll(List.of(
+        balance("card123", LocalDate.of(2026, 10, 5), "150.00"),
+        balance("card123", LocalDate.of(2026, 10, 6), "160.00"))))
+      .expectNext(2)
+      .verifyComplete();
+
+    // Then
+    List<List<WriteModel<Document>>> writes = captureBulkWrites(2);
+    assertEquals(1, writes.get(0).size());
+    assertEquals(2, writes.get(1).size());
+  }
+
+  @Test
+  void testSaveAll_ConcurrentBucketCreation_DuplicateKeyIgnored() {
+    // Given: otra instancia creó el bucket entre medias
+    stubBulkWrites(Mono.error(bulkWriteException(11000)), Mono.just(bulkResult(1)));
+
+    // When / Then
+    StepVerifier.create(bucketStore.saveAll(List.of(balance("card123", LocalDate.of(2026, 10, 5), "150.00"))))
+      .expectNext(1)
+      .verifyComplete();
+
+    captureBulkWrites(2);
+  }
+
+  @Test
+  void testSaveAll_OtherBulkError_Propagates() {
+    // Given
+    PublisherProbe<BulkWriteResult> days = PublisherProbe.empty();
+    stubBulkWrites(Mono.error(bulkWriteException(121)), days.mono());
+
+    // When / Then: el día no se intenta escribir sin su bucket
+    StepVerifier.create(bucketStore.saveAll(List.of(balance("card123", LocalDate.of(2026, 10, 5), "150.00"))))
+      .expectError(MongoBulkWriteException.class)
+      .verify();
+
+    days.assertWasNotSubscribed();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testAggregateByCard_UnwindsDaysAndFiltersByDate() {
+    // Given
+    LocalDate start = LocalDate.of(2026, 9, 20);
+    LocalDate end = LocalDate.of(2026, 10, 10);
+    when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(MonthlyBalanceAggregate.class)))
+      .thenReturn(Flux.empty());
+
+    // When
+    StepVerifier.create(bucketStore.aggregateByCard("customer123", start, end))
+      .verifyComplete();
+
+    // Then
+    ArgumentCaptor<TypedAggregation<?>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+    verify(mongoTemplate).aggregate(aggregation.capture(), eq(MonthlyBalanceAggregate.class));
+    List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+    assertEquals(5, pipeline.size());
+    assertEquals(new Document("customerId", "customer123")
+        .append("period", new Document("$gte", "2026-09").append("$lte", "2026-10")),
+      pipeline.get(0).get("$match"));
+    assertEquals("$days", pipeline.get(1).get("$unwind"));
+    // Las posiciones null no tienen days.date y no pasan este filtro
+    assertEquals(new Document("days.date", new Document("$gte", start).append("$lte", end)),
+      pipeline.get(2).get("$match"));
+
+    Document group = pipeline.get(3).get("$group", Document.class);
+    assertEquals("$cardId", group.get("_id"));
+    assertEquals(new Document("$sum", "$days.currentBalance"), group.get("sumCurrentBalance"));
+    assertEquals(new Document("$sum", "$days.availableCredit"), group.get("sumAvailableCredit"));
+    assertEquals(new Document("$sum", 1), group.get("dayCount"));
+    assertEquals("$_id", pipeline.get(4).get("$project", Document.class).get("cardId"));
+  }
+
+  private void stubBulkWrites(Mono<BulkWriteResult> buckets, Mono<BulkWriteResult> days) {
+    MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+    converter.afterPropertiesSet();
+
+    when(mongoTemplate.getCollectionName(DailyBalanceBucket.class)).thenReturn("daily_balance_buckets");
+    when(mongoTemplate.getCollection("daily_balance_buckets")).thenReturn(Mono.just(collection));
+    when(mongoTemplate.getConverter()).thenReturn(converter);
+    when(collection.bulkWrite(anyList(), any())).thenReturn(buckets, days);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<List<WriteModel<Document>>> captureBulkWrites(int count) {
+    ArgumentCaptor<List<WriteModel<Document>>> writes = ArgumentCaptor.forClass(List.class);
+    verify(collection, times(count)).bulkWrite(writes.capture(), any());
+    return writes.getAllValues();
+  }
+
+  private BsonDocument render(Bson filter) {
+    return filter.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+  }
+
+  private BulkWriteResult bulkResult(int modified) {
+    BulkWriteResult result = mock(BulkWriteResult.class);
+    when(result.getModifiedCount()).thenReturn(modified);
+    return result;
+  }
+
+  private MongoBulkWriteException bulkWriteException(int code) {
+    BulkWriteError error = new BulkWriteError(code, "write error", new BsonDocument(), 0);
+    return new MongoBulkWriteException(mock(BulkWriteResult.class), List.of(error), null, new ServerAddress());
+  }
+
+  private DailyBalance balance(String cardId, LocalDate date, String currentBalance) {
+    DailyBalance balance = new DailyBalance();
+    balance.setCustomerId("customer123");
+    balance.setCardId(cardId);
+    balance.setCardNumber("4111111111111111");
+    balance.setDate(date);
+    balance.setCurrentBalance(new BigDecimal(currentBalance));
+    return balance;
+  }
+
+  private DailyBalanceBucket.DayBalance day(LocalDate date, String balance) {
+    DailyBalanceBucket.DayBalance day = new DailyBalanceBucket.DayBalance();
+    day.setDate(date);
+    day.setCurrentBalance(new BigDecimal(balance));
+    return day;
+  }
+}
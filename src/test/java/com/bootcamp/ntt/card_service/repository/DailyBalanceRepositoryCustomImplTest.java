@@ -0,0 +1,287 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.CardBalanceChange;
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+import com.mongodb.reactivestreams.client.AggregatePublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DailyBalanceRepositoryCustomImplTest {
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Mock
+  private MongoConverter converter;
+
+  @Mock
+  private MongoCollection<Document> collection;
+
+  @Mock
+  private AggregatePublisher<Document> aggregatePublisher;
+
+  private DailyBalanceRepositoryCustomImpl repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new DailyBalanceRepositoryCustomImpl(mongoTemplate);
+  }
+
+  @Test
+  void testRebuildMonthlyAggregates_Period_GroupsMonthAndMergesOnlyCoveringResults() {
+    // Given
+    stubAggregation();
+    when(mongoTemplate.getConverter()).thenReturn(converter);
+    when(converter.convertToMongoType(LocalDate.of(2026, 10, 1))).thenReturn("2026-10-01");
+    when(converter.convertToMongoType(LocalDate.of(2026, 10, 31))).thenReturn("2026-10-31");
+
+    // When
+    StepVerifier.create(repository.rebuildMonthlyAggregates(YearMonth.of(2026, 10)))
+      .verifyComplete();
+
+    // Then
+    List<Document> pipeline = capturePipeline();
+    assertEquals(4, pipeline.size());
+    assertEquals(new Document("date", new Document("$gte", "2026-10-01").append("$lte", "2026-10-31")),
+      pipeline.get(0).get("$match"));
+
+    Document group = pipeline.get(1).get("$group", Document.class);
+    Document groupId = group.get("_id", Document.class);
+    assertEquals("$cardId", groupId.get("cardId"));
+    assertEquals("%Y-%m", groupId.get("period", Document.class).get("$dateToString", Document.class).get("format"));
+    assertTrue(group.get("days", Document.class).containsKey("$addToSet"));
+
+    Document project = pipeline.get(2).get("$project", Document.class);
+    assertEquals(new Document("$concat", Arrays.asList("$_id.cardId", ":", "$_id.period")), project.get("_id"));
+    assertEquals(new Document("$size", "$days"), project.get("dayCount"));
+
+    Document merge = pipeline.get(3).get("$merge", Document.class);
+    assertEquals("monthly_balance_aggregates", merge.get("into"));
+    assertEquals("insert", merge.get("whenNotMatched"));
+    Document replaceWith = merge.getList("whenMatched", Document.class).get(0).get("$replaceWith", Document.class);
+    List<?> cond = replaceWith.getList("$cond", Object.class);
+    assertTrue(((Document) cond.get(0)).containsKey("$setIsSubset"));
+    assertEquals("$$new", cond.get(1));
+    assertEquals("$$ROOT", cond.get(2));
+  }
+
+  @Test
+  void testRebuildMonthlyAggregates_NoPeriod_RebuildsEveryMonth() {
+    // Given
+    stubAggregation();
+
+    // When
+    StepVerifier.create(repository.rebuildMonthlyAggregates(null))
+      .verifyComplete();
+
+    // Then
+    List<Document> pipeline = capturePipeline();
+    assertEquals(3, pipeline.size());
+    assertTrue(pipeline.get(0).containsKey("$group"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testCarryForward_MergesAggregateFirstThenSnapshots() {
+    // Given
+    LocalDate fromDate = LocalDate.of(2026, 10, 16);
+    LocalDate toDate = LocalDate.of(2026, 10, 17);
+    Instant since = Instant.parse("2026-10-16T05:00:00Z");
+    Instant until = Instant.parse("2026-10-17T05:00:00Z");
+    stubAggregation();
+    when(mongoTemplate.getCollectionName(CardBalanceChange.class)).thenReturn("card_balance_changes");
+    when(mongoTemplate.getConverter()).thenReturn(converter);
+    when(converter.convertToMongoType(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    // When
+    StepVerifier.create(repository.carryForward(fromDate, toDate, "card100", "card500", since, until))
+      .verifyComplete();
+
+    // Then
+    ArgumentCaptor<List<Document>> pipelines = ArgumentCaptor.forClass(List.class);
+    verify(collection, times(2)).aggregate(pipelines.capture());
+    List<Document> aggregatePipeline = pipelines.getAllValues().get(0);
+    List<Document> snapshotPipeline = pipelines.getAllValues().get(1);
+
+    // Mismo filtro en ambos: fotos del día anterior del rango, sin las tarjetas que cambiaron
+    Document match = new Document("date", fromDate)
+      .append("cardId", new Document("$gte", "card100").append("$lt", "card500"));
+    assertEquals(aggregatePipeline.subList(0, 4), snapshotPipeline.subList(0, 4));
+    assertEquals(match, aggregatePipeline.get(0).get("$match"));
+
+    // Anti-join en el pipeline por el _id de los cambios, sin listas de tarjetas armadas en memoria
+    Document changeId = aggregatePipeline.get(1).get("$addFields", Document.class).get("changeId", Document.class);
+    assertEquals(new Document("input", "$cardId").append("to", "objectId").append("onError", "$cardId"),
+      changeId.get("$convert"));
+    assertEquals(new Document()
+        .append("from", "card_balance_changes")
+        .append("localField", "changeId")
+        .append("foreignField", "_id")
+        .append("as", "changes"),
+      aggregatePipeline.get(2).get("$lookup"));
+    Document changedInWindow = new Document("changedAt", new Document("$gte", since).append("$lt", until));
+    assertEquals(new Document("changes", new Document("$not", new Document("$elemMatch", changedInWindow))),
+      aggregatePipeline.get(3).get("$match"));
+
+    // Acumulado: el día se suma una sola vez aunque el arrastre se repita
+    Document toAggregate = aggregatePipeline.get(4).get("$project", Document.class);
+    assertEquals(new Document("$concat", Arrays.asList("$cardId", ":2026-10")), toAggregate.get("_id"));
+    assertEquals(new Document("$literal", List.of(17)), toAggregate.get("days"));
+
+    Document mergeAggregate = aggregatePipeline.get(5).get("$merge", Document.class);
+    assertEquals("monthly_balance_aggregates", mergeAggregate.get("into"));
+    assertEquals("insert", mergeAggregate.get("whenNotMatched"));
+    Document set = mergeAggregate.getList("whenMatched", Document.class).get(0).get("$set", Document.class);
+    Document alreadyCounted = new Document("$in", Arrays.asList(17,
+      new Document("$ifNull", Arrays.asList("$days", Collections.emptyList()))));
+    assertEquals(new Document("$cond", Arrays.asList(alreadyCounted, "$days",
+      new Document("$concatArrays", Arrays.asList("$days", "$$new.days")))), set.get("days"));
+    assertEquals(new Document("$cond", Arrays.asList(alreadyCounted, "$dayCount",
+      new Document("$add", Arrays.asList("$dayCount", 1)))), set.get("dayCount"));
+
+    // Fotos: la captura ya existente del día se conserva
+    Document toSnapshot = snapshotPipeline.get(4).get("$project", Document.class);
+    assertEquals(0, toSnapshot.get("_id"));
+    assertEquals(new Document("$literal", toDate), toSnapshot.get("date"));
+    assertEquals(new Document("$merge", new Document()
+        .append("into", "daily_balances")
+        .append("on", Arrays.asList("customerId", "cardId", "date"))
+        .append("whenMatched", "keepExisting")
+        .append("whenNotMatched", "insert")),
+      snapshotPipeline.get(5));
+  }
+
+  @Test
+  void testCarryForward_FirstPartition_NoLowerBound() {
+    // Given
+    stubAggregation();
+    when(mongoTemplate.getCollectionName(CardBalanceChange.class)).thenReturn("card_balance_changes");
+    when(mongoTemplate.getConverter()).thenReturn(converter);
+    when(converter.convertToMongoType(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    // When
+    StepVerifier.create(repository.carryForward(LocalDate.of(2026, 10, 16), LocalDate.of(2026, 10, 17),
+        null, "card500", Instant.EPOCH, Instant.now()))
+      .verifyComplete();
+
+    // Then
+    Document cardId = capturePipelines().get(0).get(0).get("$match", Document.class).get("cardId", Document.class);
+    assertEquals(new Document("$lt", "card500"), cardId);
+  }
+
+  @Test
+  void testFindCustomerIds_DistinctCustomersOfTheDayInTheCardRange() {
+    // Given
+    LocalDate date = LocalDate.of(2026, 9, 30);
+    when(mongoTemplate.findDistinct(any(Query.class), eq("customerId"), eq(DailyBalance.class), eq(String.class)))
+      .thenReturn(Flux.just("customer1", "customer2"));
+
+    // When
+    StepVerifier.create(repository.findCustomerIds(date, "card100", "card500"))
+      .expectNext("customer1", "customer2")
+      .verifyComplete();
+
+    // Then
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).findDistinct(query.capture(), eq("customerId"), eq(DailyBalance.class), eq(String.class));
+    assertEquals(new Document("date", date)
+        .append("cardId", new Document("$gte", "card100").append("$lt", "card500")),
+      query.getValue().getQueryObject());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testAggregateByCard_GroupsByCardAndProjectsIdAsCardId() {
+    // Given
+    LocalDate start = LocalDate.of(2026, 9, 1);
+    LocalDate end = LocalDate.of(2026, 9, 30);
+    when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(MonthlyBalanceAggregate.class)))
+      .thenReturn(Flux.empty());
+
+    // When
+    StepVerifier.create(repository.aggregateByCard("customer123", start, end))
+      .verifyComplete();
+
+    // Then
+    ArgumentCaptor<TypedAggregation<?>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+    verify(mongoTemplate).aggregate(aggregation.capture(), eq(MonthlyBalanceAggregate.class));
+    assertEquals(DailyBalance.class, aggregation.getValue().getInputType());
+
+    List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+    assertEquals(3, pipeline.size());
+    assertEquals(new Document("customerId", "customer123")
+        .append("date", new Document("$gte", start).append("$lte", end)),
+      pipeline.get(0).get("$match"));
+
+    // $toDecimal cubre fotos guardadas como texto; $sum: 1 cuenta días, no importes
+    Document group = pipeline.get(1).get("$group", Document.class);
+    assertEquals("$cardId", group.get("_id"));
+    assertEquals(new Document("$first", "$cardNumber"), group.get("cardNumber"));
+    assertEquals(new Document("$sum", new Document("$toDecimal", "$currentBalance")), group.get("sumCurrentBalance"));
+    assertEquals(new Document("$sum", new Document("$toDecimal", "$availableCredit")), group.get("sumAvailableCredit"));
+    assertEquals(new Document("$sum", 1), group.get("dayCount"));
+
+    Document project = pipeline.get(2).get("$project", Document.class);
+    assertEquals("$_id", project.get("cardId"));
+    assertEquals(1, project.get("cardNumber"));
+    assertEquals(1, project.get("sumCurrentBalance"));
+    assertEquals(1, project.get("sumAvailableCredit"));
+    assertEquals(1, project.get("dayCount"));
+  }
+
+  private void stubAggregation() {
+    when(mongoTemplate.getCollectionName(DailyBalance.class)).thenReturn("daily_balances");
+    when(mongoTemplate.getCollectionName(MonthlyBalanceAggregate.class)).thenReturn("monthly_balance_aggregates");
+    when(mongoTemplate.getCollection("daily_balances")).thenReturn(Mono.just(collection));
+    when(collection.aggregate(anyList())).thenReturn(aggregatePublisher);
+    when(aggregatePublisher.allowDiskUse(true)).thenReturn(aggregatePublisher);
+    when(aggregatePublisher.toCollection()).thenReturn(Mono.empty());
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<List<Document>> capturePipelines() {
+    ArgumentCaptor<List<Document>> pipelines = ArgumentCaptor.forClass(List.class);
+    verify(collection, atLeastOnce()).aggregate(pipelines.capture());
+    return pipelines.getAllValues();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Document> capturePipeline() {
+    ArgumentCaptor<List<Document>> pipeline = ArgumentCaptor.forClass(List.class);
+    verify(collection).aggregate(pipeline.capture());
+    return pipeline.getValue();
+  }
+}
@@ -0,0 +1,120 @@
+package com.bootcamp.ntt.card_service.repository;
+
+import com.bootcamp.ntt.card_service.entity.TransactionOutbox;
+import com.bootcamp.ntt.card_service.enums.OutboxStatus;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionOutboxRepositoryCustomImplTest {
+
+  private static final Instant NOW = Instant.parse("2026-10-17T10:00:00Z");
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  private TransactionOutboxRepositoryCustomImpl repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new TransactionOutboxRepositoryCustomImpl(mongoTemplate);
+  }
+
+  @Test
+  void testFindDue_PendingOrExpiredLease_OldestFirst() {
+    // Given
+    when(mongoTemplate.find(any(Query.class), eq(TransactionOutbox.class))).thenReturn(Flux.empty());
+
+    // When
+    StepVerifier.create(repository.findDue(NOW, 50))
+      .verifyComplete();
+
+    // Then
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(query.capture(), eq(TransactionOutbox.class));
+    assertDue(query.getValue().getQueryObject());
+    assertEquals(new Document("createdAt", 1), query.getValue().getSortObject());
+    assertEquals(50, query.getValue().getLimit());
+  }
+
+  @Test
+  void testClaim_ExtendsLeaseAndCountsAttempt() {
+    // Given
+    TransactionOutbox claimed = new TransactionOutbox();
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+      eq(TransactionOutbox.class))).thenReturn(Mono.just(claimed));
+
+    // When
+    StepVerifier.create(repository.claim("outbox123", NOW, Duration.ofSeconds(30)))
+      .expectNext(claimed)
+      .verifyComplete();
+
+    // Then: el mismo filtro de vencimiento impide que dos instancias tomen el registro
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+    verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(),
+      eq(TransactionOutbox.class));
+
+    Document filter = query.getValue().getQueryObject();
+    assertEquals("outbox123", filter.get("_id"));
+    assertDue(filter.getList("$and", Document.class).get(0));
+
+    Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+    assertEquals(OutboxStatus.PROCESSING, set.get("status"));
+    assertEquals(NOW.plusSeconds(30), set.get("nextAttemptAt"));
+    assertEquals(new Document("attempts", 1), update.getValue().getUpdateObject().get("$inc"));
+    assertTrue(options.getValue().isReturnNew());
+  }
+
+  @Test
+  void testMarkRetry_BackToPendingAtNextAttempt() {
+    // Given
+    Instant nextAttemptAt = NOW.plusSeconds(4);
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(TransactionOutbox.class)))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+    // When
+    StepVerifier.create(repository.markRetry("outbox123", "timeout", nextAttemptAt))
+      .verifyComplete();
+
+    // Then
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(TransactionOutbox.class));
+    Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+    assertEquals(OutboxStatus.PENDING, set.get("status"));
+    assertEquals("timeout", set.get("lastError"));
+    assertEquals(nextAttemptAt, set.get("nextAttemptAt"));
+  }
+
+  private void assertDue(Document criteria) {
+    List<OutboxStatus> due = Arrays.asList(OutboxStatus.PENDING, OutboxStatus.PROCESSING);
+    assertEquals(due, criteria.get("status", Document.class).get("$in"));
+    assertEquals(new Document("$lte", NOW), criteria.get("nextAttemptAt"));
+  }
+}
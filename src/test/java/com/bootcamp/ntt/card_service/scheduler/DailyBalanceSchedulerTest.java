@@ -0,0 +1,85 @@
+package com.bootcamp.ntt.card_service.scheduler;
+
+import com.bootcamp.ntt.card_service.service.DailyBalanceCaptureService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DailyBalanceSchedulerTest {
+
+  @Mock
+  private DailyBalanceCaptureService dailyBalanceCaptureService;
+
+  @InjectMocks
+  private DailyBalanceScheduler scheduler;
+
+  @Test
+  void testCaptureDailyBalances_SkipsWhileCaptureInProgress() {
+    // Given
+    Sinks.Empty<Void> capture = Sinks.empty();
+    when(dailyBalanceCaptureService.captureDailyBalances()).thenReturn(capture.asMono());
+
+    // When: un segundo disparo con la primera captura aún en curso
+    scheduler.captureDailyBalances();
+    scheduler.captureDailyBalances();
+
+    // Then
+    verify(dailyBalanceCaptureService, times(1)).captureDailyBalances();
+
+    capture.tryEmitEmpty();
+    scheduler.captureDailyBalances();
+    verify(dailyBalanceCaptureService, times(2)).captureDailyBalances();
+  }
+
+  @Test
+  void testCaptureDailyBalances_SkipsWhileRecoveryInProgress() {
+    // Given
+    Sinks.One<Long> recovery = Sinks.one();
+    when(dailyBalanceCaptureService.processDuePartitions()).thenReturn(recovery.asMono());
+
+    // When
+    scheduler.recoverDailyBalancePartitions();
+    scheduler.captureDailyBalances();
+
+    // Then
+    verify(dailyBalanceCaptureService, never()).captureDailyBalances();
+  }
+
+  @Test
+  void testRecoverDailyBalancePartitions_SkipsWhileCaptureInProgress() {
+    // Given
+    Sinks.Empty<Void> capture = Sinks.empty();
+    when(dailyBalanceCaptureService.captureDailyBalances()).thenReturn(capture.asMono());
+
+    // When
+    scheduler.captureDailyBalances();
+    scheduler.recoverDailyBalancePartitions();
+
+    // Then
+    verify(dailyBalanceCaptureService, never()).processDuePartitions();
+  }
+
+  @Test
+  void testCaptureDailyBalances_FailedCaptureReleasesNextRun() {
+    // Given
+    when(dailyBalanceCaptureService.captureDailyBalances())
+      .thenReturn(Mono.error(new RuntimeException("mongo down")), Mono.empty());
+
+    // When
+    scheduler.captureDailyBalances();
+    scheduler.captureDailyBalances();
+
+    // Then
+    verify(dailyBalanceCaptureService, times(2)).captureDailyBalances();
+  }
+}
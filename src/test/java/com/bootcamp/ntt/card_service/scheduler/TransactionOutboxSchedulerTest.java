@@ -0,0 +1,75 @@
+package com.bootcamp.ntt.card_service.scheduler;
+
+import com.bootcamp.ntt.card_service.service.TransactionOutboxService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionOutboxSchedulerTest {
+
+  @Mock
+  private TransactionOutboxService transactionOutboxService;
+
+  @InjectMocks
+  private TransactionOutboxScheduler scheduler;
+
+  @Test
+  void testPublishPendingTransactions_SkipsWhileDrainInProgress() {
+    // Given
+    Sinks.One<Long> drain = Sinks.one();
+    when(transactionOutboxService.drainPendingPostings()).thenReturn(Mono.just(0L));
+    when(transactionOutboxService.publishPending()).thenReturn(drain.asMono());
+
+    // When: el segundo disparo llega con el primero aún en curso
+    scheduler.publishPendingTransactions();
+    scheduler.publishPendingTransactions();
+
+    // Then
+    verify(transactionOutboxService, times(1)).publishPending();
+
+    drain.tryEmitValue(3L);
+    scheduler.publishPendingTransactions();
+    verify(transactionOutboxService, times(2)).publishPending();
+  }
+
+  @Test
+  void testPublishPendingTransactions_MovesPendingPostingsBeforePublishing() {
+    // Given
+    when(transactionOutboxService.drainPendingPostings()).thenReturn(Mono.just(2L));
+    when(transactionOutboxService.publishPending()).thenReturn(Mono.just(2L));
+
+    // When
+    scheduler.publishPendingTransactions();
+
+    // Then
+    InOrder inOrder = inOrder(transactionOutboxService);
+    inOrder.verify(transactionOutboxService).drainPendingPostings();
+    inOrder.verify(transactionOutboxService).publishPending();
+  }
+
+  @Test
+  void testPublishPendingTransactions_FailedDrainReleasesNextRun() {
+    // Given
+    when(transactionOutboxService.drainPendingPostings()).thenReturn(Mono.just(0L));
+    when(transactionOutboxService.publishPending())
+      .thenReturn(Mono.error(new RuntimeException("mongo down")), Mono.just(0L));
+
+    // When
+    scheduler.publishPendingTransactions();
+    scheduler.publishPendingTransactions();
+
+    // Then
+    verify(transactionOutboxService, times(2)).publishPending();
+  }
+}
@@ -0,0 +1,247 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.entity.ChangeStreamState;
+import com.bootcamp.ntt.card_service.repository.CardBalanceChangeRepository;
+import com.bootcamp.ntt.card_service.repository.ChangeStreamStateRepository;
+import com.mongodb.MongoException;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceChangeTrackerImplTest {
+
+  private static final String RESUME_TOKEN = "{\"_data\": \"8263A1B2C3000000012B022C0100296E5A1004\"}";
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Mock
+  private CardBalanceChangeRepository changeRepository;
+
+  @Mock
+  private ChangeStreamStateRepository stateRepository;
+
+  @InjectMocks
+  private BalanceChangeTrackerImpl balanceChangeTracker;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(balanceChangeTracker, "captureMode", "change-stream");
+    ReflectionTestUtils.setField(balanceChangeTracker, "batchSize", 500);
+    ReflectionTestUtils.setField(balanceChangeTracker, "batchWindowMillis", 1000L);
+    ReflectionTestUtils.setField(balanceChangeTracker, "leaseSeconds", 60L);
+  }
+
+  @AfterEach
+  void tearDown() {
+    balanceChangeTracker.stopTracking();
+  }
+
+  @Test
+  void testCoversSince_ScanMode_False() {
+    // Given
+    ReflectionTestUtils.setField(balanceChangeTracker, "captureMode", "scan");
+
+    // When / Then
+    StepVerifier.create(balanceChangeTracker.coversSince(Instant.now().minus(Duration.ofDays(1))))
+      .expectNext(false)
+      .verifyComplete();
+    verifyNoInteractions(stateRepository, mongoTemplate);
+  }
+
+  @Test
+  void testCoversSince_OwnerOnAnotherInstanceUpToDate_True() {
+    // Given: esta instancia no tiene el stream, pero el dueño tiene el lease y el checkpoint al día
+    Instant now = Instant.now();
+    Instant coveredSince = now.minus(Duration.ofDays(3));
+    when(stateRepository.findById("cards"))
+      .thenReturn(Mono.just(ownedState("other-instance", now.plusSeconds(30), coveredSince, now.minusSeconds(5))));
+
+    // When / Then
+    StepVerifier.create(balanceChangeTracker.coversSince(coveredSince.plus(Duration.ofDays(1))))
+      .expectNext(true)
+      .verifyComplete();
+    StepVerifier.create(balanceChangeTracker.coversSince(coveredSince.minusSeconds(1)))
+      .expectNext(false)
+      .verifyComplete();
+  }
+
+  @Test
+  void testCoversSince_OwnerLeaseExpired_False() {
+    // Given: el dueño cayó; su checkpoint no dice nada de lo que pasó después
+    Instant now = Instant.now();
+    when(stateRepository.findById("cards")).thenReturn(Mono.just(
+      ownedState("other-instance", now.minusSeconds(1), now.minus(Duration.ofDays(3)), now.minusSeconds(5))));
+
+    // When / Then
+    StepVerifier.create(balanceChangeTracker.coversSince(now.minus(Duration.ofDays(1))))
+      .expectNext(false)
+      .verifyComplete();
+  }
+
+  @Test
+  void testCoversSince_OwnerCheckpointBehind_False() {
+    // Given: lease vigente pero el stream del dueño lleva más de un lease sin escribir su checkpoint
+    Instant now = Instant.now();
+    when(stateRepository.findById("cards")).thenReturn(Mono.just(
+      ownedState("other-instance", now.plusSeconds(30), now.minus(Duration.ofDays(3)), now.minusSeconds(120))));
+
+    // When / Then
+    StepVerifier.create(balanceChangeTracker.coversSince(now.minus(Duration.ofDays(1))))
+      .expectNext(false)
+      .verifyComplete();
+  }
+
+  @Test
+  void testStartTracking_LeaseHeldByAnotherInstance_DoesNotOpenStream() {
+    // Given: el upsert choca con el documento del dueño actual
+    when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ChangeStreamState.class)))
+      .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+
+    // When
+    balanceChangeTracker.startTracking();
+
+    // Then
+    verify(mongoTemplate, timeout(5000)).upsert(any(Query.class), any(Update.class), eq(ChangeStreamState.class));
+    verify(mongoTemplate, after(200).never()).changeStream(anyString(), any(ChangeStreamOptions.class), any());
+    verifyNoInteractions(stateRepository);
+  }
+
+  @Test
+  void testStartTracking_StoredToken_ResumesAfterIt() {
+    // Given
+    stubLeaseAcquired();
+    when(stateRepository.findById("cards"))
+      .thenReturn(Mono.just(ownedState(RESUME_TOKEN, Instant.now().minus(Duration.ofDays(3)))));
+    when(mongoTemplate.changeStream(eq("cards"), any(ChangeStreamOptions.class), eq(Document.class)))
+      .thenReturn(Flux.never());
+
+    // When
+    balanceChangeTracker.startTracking();
+
+    // Then
+    ArgumentCaptor<ChangeStreamOptions> options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+    verify(mongoTemplate, timeout(5000)).changeStream(eq("cards"), options.capture(), eq(Document.class));
+    assertEquals(BsonDocument.parse(RESUME_TOKEN), options.getValue().getResumeToken().orElseThrow());
+    assertTrue(options.getValue().isResumeAfter());
+    verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamState.class));
+
+    // El lease se toma solo si está libre, vencido o ya es de esta instancia
+    ArgumentCaptor<Query> lease = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).upsert(lease.capture(), any(Update.class), eq(ChangeStreamState.class));
+    assertEquals(3, lease.getValue().getQueryObject().getList("$or", Document.class).size());
+  }
+
+  @Test
+  void testStartTracking_NoToken_StartsFreshCoverage() {
+    // Given
+    stubLeaseAcquired();
+    when(stateRepository.findById("cards")).thenReturn(Mono.just(ownedState(null, null)));
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamState.class)))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+    when(mongoTemplate.changeStream(eq("cards"), any(ChangeStreamOptions.class), eq(Document.class)))
+      .thenReturn(Flux.never());
+
+    // When
+    Instant before = Instant.now();
+    balanceChangeTracker.startTracking();
+
+    // Then: solo el dueño reinicia la cobertura, sin reemplazar el documento del lease
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> fresh = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate, timeout(5000))
+      .updateFirst(query.capture(), fresh.capture(), eq(ChangeStreamState.class));
+    assertEquals(instanceId(), query.getValue().getQueryObject().get("owner"));
+    Instant coveredSince = (Instant) fresh.getValue().getUpdateObject().get("$set", Document.class).get("coveredSince");
+    assertFalse(coveredSince.isBefore(before));
+    verify(stateRepository, never()).save(any(ChangeStreamState.class));
+
+    ArgumentCaptor<ChangeStreamOptions> options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+    verify(mongoTemplate, timeout(5000)).changeStream(eq("cards"), options.capture(), eq(Document.class));
+    assertEquals(coveredSince, options.getValue().getResumeTimestamp().orElseThrow());
+  }
+
+  @Test
+  void testStartTracking_StaleToken_ForgetsPositionAndRestartsCoverage() {
+    // Given: el token ya no está en el oplog (ChangeStreamHistoryLost)
+    Instant oldCoverage = Instant.now().minus(Duration.ofDays(3));
+    stubLeaseAcquired();
+    when(stateRepository.findById("cards"))
+      .thenReturn(Mono.just(ownedState(RESUME_TOKEN, oldCoverage)), Mono.just(ownedState(null, oldCoverage)));
+    when(mongoTemplate.changeStream(eq("cards"), any(ChangeStreamOptions.class), eq(Document.class)))
+      .thenReturn(Flux.error(new MongoException(286, "Resume of change stream was not possible")), Flux.never());
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamState.class)))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+    // When
+    Instant before = Instant.now();
+    balanceChangeTracker.startTracking();
+
+    // Then: se borra el token y, tras el reintento, la cobertura empieza de nuevo
+    ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate, timeout(5000).times(2))
+      .updateFirst(any(Query.class), updates.capture(), eq(ChangeStreamState.class));
+    assertEquals(new Document("resumeToken", 1), updates.getAllValues().get(0).getUpdateObject().get("$unset"));
+    Instant coveredSince = (Instant) updates.getAllValues().get(1).getUpdateObject()
+      .get("$set", Document.class).get("coveredSince");
+    assertFalse(coveredSince.isBefore(before));
+    verify(mongoTemplate, timeout(5000).times(2))
+      .changeStream(eq("cards"), any(ChangeStreamOptions.class), eq(Document.class));
+  }
+
+  private void stubLeaseAcquired() {
+    when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ChangeStreamState.class)))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+  }
+
+  private String instanceId() {
+    String instanceId = (String) ReflectionTestUtils.getField(balanceChangeTracker, "instanceId");
+    assertNotNull(instanceId);
+    return instanceId;
+  }
+
+  // Estado con el lease de esta instancia
+  private ChangeStreamState ownedState(String resumeToken, Instant coveredSince) {
+    ChangeStreamState state = ownedState(instanceId(), Instant.now().plusSeconds(60), coveredSince, null);
+    state.setResumeToken(resumeToken);
+    return state;
+  }
+
+  private ChangeStreamState ownedState(String owner, Instant leaseUntil, Instant coveredSince, Instant checkpointAt) {
+    ChangeStreamState state = new ChangeStreamState();
+    state.setId("cards");
+    state.setOwner(owner);
+    state.setLeaseUntil(leaseUntil);
+    state.setCoveredSince(coveredSince);
+    state.setCheckpointAt(checkpointAt);
+    return state;
+  }
+}
@@ -0,0 +1,165 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.codec.CachedValue;
+import com.bootcamp.ntt.card_service.model.CreditCardResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardCacheServiceImplTest {
+
+  private static final String KEY = "card:master:id:card123";
+  private static final Duration TTL = Duration.ofHours(1);
+
+  @Mock
+  private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+  @Mock
+  private ReactiveValueOperations<String, Object> valueOperations;
+
+  private CardCacheServiceImpl cardCacheService;
+  private CreditCardResponse cardResponse;
+
+  @BeforeEach
+  void setUp() {
+    cardCacheService = new CardCacheServiceImpl(redisTemplate, new SimpleMeterRegistry(), 100, 30, "test-channel");
+    ReflectionTestUtils.setField(cardCacheService, "earlyRefreshBeta", 1.0);
+    ReflectionTestUtils.setField(cardCacheService, "defaultRecomputeMillis", 50L);
+
+    cardResponse = new CreditCardResponse();
+    cardResponse.setId("card123");
+
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+  }
+
+  @Test
+  void testGetOrLoad_ConcurrentMisses_LoadOnce() {
+    when(valueOperations.get(KEY)).thenReturn(Mono.empty());
+    when(valueOperations.set(eq(KEY), any(CachedValue.class), eq(TTL))).thenReturn(Mono.just(true));
+
+    Sinks.One<CreditCardResponse> database = Sinks.one();
+    AtomicInteger loads = new AtomicInteger();
+
+    Mono<CreditCardResponse> first = cardCacheService.getOrLoad(KEY, CreditCardResponse.class, TTL, () -> {
+      loads.incrementAndGet();
+      return database.asMono();
+    });
+    Mono<CreditCardResponse> second = cardCacheService.getOrLoad(KEY, CreditCardResponse.class, TTL, () -> {
+      loads.incrementAndGet();
+      return database.asMono();
+    });
+
+    StepVerifier.create(Mono.zip(first, second))
+      .then(() -> database.tryEmitValue(cardResponse))
+      .expectNextMatches(results -> results.getT1() == cardResponse && results.getT2() == cardResponse)
+      .verifyComplete();
+
+    assertEquals(1, loads.get());
+    verify(valueOperations, times(1)).set(eq(KEY), argThat(wraps(cardResponse)), eq(TTL));
+  }
+
+  @Test
+  void testGetOrLoad_AfterLoad_ServedFromLocalCache() {
+    when(valueOperations.get(KEY)).thenReturn(Mono.empty());
+    when(valueOperations.set(eq(KEY), any(CachedValue.class), eq(TTL))).thenReturn(Mono.just(true));
+    AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      StepVerifier.create(cardCacheService.getOrLoad(KEY, CreditCardResponse.class, TTL,
+          () -> Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return cardResponse;
+          })))
+        .expectNext(cardResponse)
+        .verifyComplete();
+    }
+
+    assertEquals(1, loads.get());
+    verify(valueOperations, times(1)).get(KEY);
+  }
+
+  @Test
+  void testGetOrLoad_NearExpiry_RefreshesInBackground() {
+    ReflectionTestUtils.setField(cardCacheService, "earlyRefreshBeta", 1_000_000.0);
+    CreditCardResponse refreshed = new CreditCardResponse();
+    refreshed.setId("card123");
+
+    // La expiración lógica viaja en el propio valor: no hace falta consultar el TTL
+    CachedValue stored = new CachedValue(cardResponse, System.currentTimeMillis() + 5, 50);
+    when(valueOperations.get(KEY)).thenReturn(Mono.just(stored));
+    when(valueOperations.set(eq(KEY), any(CachedValue.class), eq(TTL))).thenReturn(Mono.just(true));
+    AtomicInteger loads = new AtomicInteger();
+
+    StepVerifier.create(cardCacheService.getOrLoad(KEY, CreditCardResponse.class, TTL,
+        () -> Mono.fromCallable(() -> {
+          loads.incrementAndGet();
+          return refreshed;
+        })))
+      .expectNextMatches(result -> result == cardResponse)
+      .verifyComplete();
+
+    assertEquals(1, loads.get());
+    verify(valueOperations).set(eq(KEY), argThat(wraps(refreshed)), eq(TTL));
+    verify(redisTemplate, never()).getExpire(anyString());
+  }
+
+  @Test
+  void testGetOrLoad_LegacyValueWithoutEnvelope_NoEarlyRefresh() {
+    ReflectionTestUtils.setField(cardCacheService, "earlyRefreshBeta", 1_000_000.0);
+    when(valueOperations.get(KEY)).thenReturn(Mono.just(cardResponse));
+    AtomicInteger loads = new AtomicInteger();
+
+    StepVerifier.create(cardCacheService.getOrLoad(KEY, CreditCardResponse.class, TTL,
+        () -> Mono.fromCallable(() -> {
+          loads.incrementAndGet();
+          return cardResponse;
+        })))
+      .expectNextMatches(result -> result == cardResponse)
+      .verifyComplete();
+
+    assertEquals(0, loads.get());
+    verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+  }
+
+  @Test
+  void testGetOrLoad_NotFound_CachesTombstone() {
+    ReflectionTestUtils.setField(cardCacheService, "negativeTtlSeconds", 30L);
+    when(valueOperations.get(KEY)).thenReturn(Mono.empty());
+    when(valueOperations.set(eq(KEY), any(), eq(Duration.ofSeconds(30)))).thenReturn(Mono.just(true));
+    AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      StepVerifier.create(cardCacheService.getOrLoad(KEY, CreditCardResponse.class, TTL,
+          () -> Mono.<CreditCardResponse>fromRunnable(loads::incrementAndGet)))
+        .verifyComplete();
+    }
+
+    // Las consultas repetidas de una tarjeta inexistente no vuelven a Mongo
+    assertEquals(1, loads.get());
+    verify(valueOperations, times(1)).set(eq(KEY), any(), eq(Duration.ofSeconds(30)));
+    StepVerifier.create(cardCacheService.get(KEY, CreditCardResponse.class))
+      .verifyComplete();
+  }
+
+  private static ArgumentMatcher<Object> wraps(Object value) {
+    return stored -> stored instanceof CachedValue && ((CachedValue) stored).getValue() == value;
+  }
+}
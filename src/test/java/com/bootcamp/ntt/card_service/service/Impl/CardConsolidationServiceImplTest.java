@@ -0,0 +1,186 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.client.TransactionServiceClient;
+import com.bootcamp.ntt.card_service.entity.CardSummaryProjection;
+import com.bootcamp.ntt.card_service.mapper.CardMapper;
+import com.bootcamp.ntt.card_service.mapper.CreditCardMapper;
+import com.bootcamp.ntt.card_service.mapper.DebitCardMapper;
+import com.bootcamp.ntt.card_service.model.CreditCardSummary;
+import com.bootcamp.ntt.card_service.model.DebitCardSummary;
+import com.bootcamp.ntt.card_service.repository.CardSummaryRepository;
+import com.bootcamp.ntt.card_service.service.CreditCardService;
+import com.bootcamp.ntt.card_service.service.DebitCardService;
+import com.bootcamp.ntt.card_service.service.ExternalServiceWrapper;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardConsolidationServiceImplTest {
+
+  private static final String CUSTOMER_ID = "customer123";
+
+  @Mock
+  private DebitCardService debitCardService;
+
+  @Mock
+  private CreditCardService creditCardService;
+
+  @Mock
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Mock
+  private CardMapper cardMapper;
+
+  @Mock
+  private TransactionServiceClient transactionServiceClient;
+
+  @Mock
+  private ExternalServiceWrapper externalServiceWrapper;
+
+  private MappingMongoConverter converter;
+
+  private CardConsolidationServiceImpl cardConsolidationService;
+
+  @BeforeEach
+  void setUp() {
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+    converter.afterPropertiesSet();
+
+    cardConsolidationService = new CardConsolidationServiceImpl(debitCardService, creditCardService,
+      new CardSummaryRepository(mongoTemplate), new CreditCardMapper(), new DebitCardMapper(), cardMapper,
+      transactionServiceClient, externalServiceWrapper);
+  }
+
+  @Test
+  void testGetCustomerCardsSummary_MixedTypes_SplitsActiveCardsAndMapsAmounts() {
+    // Given: documentos de cards tal como están guardados, con importes nuevos y antiguos
+    stubCards(
+      new Document("_id", "credit1").append("customerId", CUSTOMER_ID).append("type", "CREDIT")
+        .append("isActive", true).append("cardNumber", "4111111111111111")
+        .append("availableCredit", new Decimal128(new BigDecimal("3000.00")))
+        .append("currentBalance", new Decimal128(new BigDecimal("2000.00"))),
+      // Formato anterior a reserveCredit: importes como texto
+      new Document("_id", "credit2").append("customerId", CUSTOMER_ID).append("type", "CREDIT")
+        .append("isActive", true).append("cardNumber", "4111111111112222")
+        .append("availableCredit", "1500.50")
+        .append("currentBalance", "499.50"),
+      new Document("_id", "credit3").append("customerId", CUSTOMER_ID).append("type", "CREDIT")
+        .append("isActive", false).append("cardNumber", "4111111111113333")
+        .append("availableCredit", new Decimal128(new BigDecimal("100.00"))),
+      new Document("_id", "debit1").append("customerId", CUSTOMER_ID).append("type", "DEBIT")
+        .append("isActive", true).append("cardNumber", "4222222222221111")
+        .append("primaryAccountId", "account1"),
+      new Document("_id", "debit2").append("customerId", CUSTOMER_ID).append("type", "DEBIT")
+        .append("isActive", false).append("cardNumber", "4222222222222222")
+        .append("primaryAccountId", "account2"),
+      new Document("_id", "other").append("customerId", "customer999").append("type", "CREDIT")
+        .append("isActive", true).append("cardNumber", "4111111111119999"));
+
+    // When / Then
+    StepVerifier.create(cardConsolidationService.getCustomerCardsSummary(CUSTOMER_ID))
+      .assertNext(response -> {
+        assertEquals(CUSTOMER_ID, response.getCustomerId());
+        assertEquals(3, response.getTotalActiveCards());
+
+        Map<String, CreditCardSummary> credit = response.getCreditCards().stream()
+          .collect(Collectors.toMap(CreditCardSummary::getCardId, Function.identity()));
+        assertEquals(List.of("credit1", "credit2"), credit.keySet().stream().sorted().collect(Collectors.toList()));
+        assertEquals(new BigDecimal("3000.00"), credit.get("credit1").getAvailableCredit());
+        assertEquals(new BigDecimal("2000.00"), credit.get("credit1").getCurrentBalance());
+        assertEquals(new BigDecimal("1500.50"), credit.get("credit2").getAvailableCredit());
+        assertEquals(new BigDecimal("499.50"), credit.get("credit2").getCurrentBalance());
+        assertTrue(credit.get("credit2").getIsActive());
+
+        assertEquals(1, response.getDebitCards().size());
+        DebitCardSummary debit = response.getDebitCards().get(0);
+        assertEquals("debit1", debit.getCardId());
+        assertEquals("account1", debit.getPrimaryAccountId());
+        assertTrue(debit.getIsActive());
+      })
+      .verifyComplete();
+
+    // Una sola consulta para ambos tipos y sin leer más campos que los del resumen
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(query.capture(), eq(CardSummaryProjection.class), eq("cards"));
+    assertFalse(query.getValue().getQueryObject().containsKey("type"));
+    assertEquals(new Document()
+        .append("cardNumber", 1).append("type", 1).append("isActive", 1).append("availableCredit", 1)
+        .append("currentBalance", 1).append("primaryAccountId", 1),
+      query.getValue().getFieldsObject());
+    verifyNoInteractions(creditCardService, debitCardService);
+  }
+
+  @Test
+  void testGetCustomerCardsSummary_CreditCardWithoutAmounts_DefaultsToZero() {
+    // Given
+    stubCards(new Document("_id", "credit1").append("customerId", CUSTOMER_ID).append("type", "CREDIT")
+      .append("isActive", true).append("cardNumber", "4111111111111111"));
+
+    // When / Then
+    StepVerifier.create(cardConsolidationService.getCustomerCardsSummary(CUSTOMER_ID))
+      .assertNext(response -> {
+        CreditCardSummary summary = response.getCreditCards().get(0);
+        assertEquals(BigDecimal.ZERO, summary.getAvailableCredit());
+        assertEquals(BigDecimal.ZERO, summary.getCurrentBalance());
+        assertTrue(response.getDebitCards().isEmpty());
+      })
+      .verifyComplete();
+  }
+
+  @Test
+  void testGetCustomerCardsSummary_NoActiveCards_EmptySummary() {
+    // Given
+    stubCards(new Document("_id", "debit1").append("customerId", CUSTOMER_ID).append("type", "DEBIT")
+      .append("isActive", false).append("cardNumber", "4222222222221111"));
+
+    // When / Then
+    StepVerifier.create(cardConsolidationService.getCustomerCardsSummary(CUSTOMER_ID))
+      .assertNext(response -> {
+        assertEquals(0, response.getTotalActiveCards());
+        assertTrue(response.getCreditCards().isEmpty());
+        assertTrue(response.getDebitCards().isEmpty());
+      })
+      .verifyComplete();
+  }
+
+  // Aplica las igualdades del Query real sobre los documentos y los lee con el conversor de Spring
+  private void stubCards(Document... cards) {
+    when(mongoTemplate.find(any(Query.class), eq(CardSummaryProjection.class), eq("cards")))
+      .thenAnswer(invocation -> {
+        Document criteria = invocation.<Query>getArgument(0).getQueryObject();
+        return Flux.fromArray(cards)
+          .filter(card -> criteria.entrySet().stream()
+            .allMatch(criterion -> Objects.equals(card.get(criterion.getKey()), criterion.getValue())))
+          .map(card -> converter.read(CardSummaryProjection.class, card));
+      });
+  }
+}
@@ -0,0 +1,122 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.entity.CardCounter;
+import com.bootcamp.ntt.card_service.enums.CardType;
+import com.bootcamp.ntt.card_service.metrics.CardMetrics;
+import com.bootcamp.ntt.card_service.repository.CardCounterRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardCounterServiceImplTest {
+
+  @Mock
+  private CardCounterRepository cardCounterRepository;
+
+  @Mock
+  private CardMetrics cardMetrics;
+
+  @InjectMocks
+  private CardCounterServiceImpl cardCounterService;
+
+  @Test
+  void testReconcile_CorrectsOnlyDriftSeenTwice() {
+    // Given
+    when(cardCounterRepository.findById(anyString()))
+      .thenAnswer(invocation -> Mono.just(seededCounter(invocation.getArgument(0), 0L)));
+    when(cardCounterRepository.findById("CREDIT:ACTIVE")).thenReturn(Mono.just(seededCounter("CREDIT:ACTIVE", 10L)));
+    when(cardCounterRepository.countCards(any(CardType.class), anyBoolean())).thenReturn(Mono.just(0L));
+    when(cardCounterRepository.countCards(CardType.CREDIT, true)).thenReturn(Mono.just(12L));
+    when(cardCounterRepository.reconcile(CardType.CREDIT, true, 10L, 12L)).thenReturn(Mono.just(true));
+
+    // When / Then
+    // Primera pasada: la diferencia puede ser una alta en curso, no se toca
+    StepVerifier.create(cardCounterService.reconcile())
+      .expectNext(0L)
+      .verifyComplete();
+    verify(cardCounterRepository, never()).reconcile(any(), anyBoolean(), anyLong(), anyLong());
+
+    // Segunda pasada con la misma diferencia: se corrige
+    StepVerifier.create(cardCounterService.reconcile())
+      .expectNext(1L)
+      .verifyComplete();
+    verify(cardCounterRepository).reconcile(CardType.CREDIT, true, 10L, 12L);
+    verify(cardMetrics).recordCounterCorrection("CREDIT", 2L);
+  }
+
+  @Test
+  void testReconcile_CounterNeverSeeded_SetsRealCountImmediately() {
+    // Given: el primer $inc tras el despliegue creó CREDIT:ACTIVE con count=1 y sin reconciledAt
+    CardCounter createdByInc = new CardCounter();
+    createdByInc.setId("CREDIT:ACTIVE");
+    createdByInc.setCount(1L);
+
+    when(cardCounterRepository.findById(anyString())).thenReturn(Mono.empty());
+    when(cardCounterRepository.findById("CREDIT:ACTIVE")).thenReturn(Mono.just(createdByInc));
+    when(cardCounterRepository.countCards(any(CardType.class), anyBoolean())).thenReturn(Mono.just(0L));
+    when(cardCounterRepository.countCards(CardType.CREDIT, true)).thenReturn(Mono.just(500L));
+    when(cardCounterRepository.reconcile(any(CardType.class), anyBoolean(), anyLong(), anyLong()))
+      .thenReturn(Mono.just(true));
+
+    // When / Then: se siembran los cuatro en la primera pasada, incluidos los que no existen
+    StepVerifier.create(cardCounterService.reconcile())
+      .expectNext(4L)
+      .verifyComplete();
+
+    verify(cardCounterRepository).reconcile(CardType.CREDIT, true, 1L, 500L);
+    verify(cardCounterRepository).reconcile(CardType.DEBIT, false, 0L, 0L);
+    verifyNoInteractions(cardMetrics);
+  }
+
+  @Test
+  void testGetActiveCount_CounterNotSeeded_CountsCards() {
+    // Given
+    CardCounter createdByInc = new CardCounter();
+    createdByInc.setId("DEBIT:ACTIVE");
+    createdByInc.setCount(-1L);
+    when(cardCounterRepository.findById("DEBIT:ACTIVE")).thenReturn(Mono.just(createdByInc));
+    when(cardCounterRepository.countCards(CardType.DEBIT, true)).thenReturn(Mono.just(42L));
+
+    // When / Then
+    StepVerifier.create(cardCounterService.getActiveCount(CardType.DEBIT))
+      .expectNext(42L)
+      .verifyComplete();
+  }
+
+  @Test
+  void testGetActiveCount_SeededCounter_ReadsCounter() {
+    when(cardCounterRepository.findById("DEBIT:ACTIVE")).thenReturn(Mono.just(seededCounter("DEBIT:ACTIVE", 7L)));
+
+    StepVerifier.create(cardCounterService.getActiveCount(CardType.DEBIT))
+      .expectNext(7L)
+      .verifyComplete();
+
+    verify(cardCounterRepository, never()).countCards(any(), anyBoolean());
+  }
+
+  @Test
+  void testStatusChanged_SameStatus_DoesNothing() {
+    StepVerifier.create(cardCounterService.statusChanged(CardType.DEBIT, true, true))
+      .verifyComplete();
+
+    verifyNoInteractions(cardCounterRepository);
+  }
+
+  private static CardCounter seededCounter(String id, long count) {
+    CardCounter counter = new CardCounter();
+    counter.setId(id);
+    counter.setCount(count);
+    counter.setReconciledAt(Instant.parse("2026-10-17T00:00:00Z"));
+    return counter;
+  }
+}
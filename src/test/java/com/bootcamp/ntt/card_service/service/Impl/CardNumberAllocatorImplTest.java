@@ -0,0 +1,122 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.enums.CardType;
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+import com.bootcamp.ntt.card_service.service.CardNumberFilter;
+import com.bootcamp.ntt.card_service.utils.CardUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberAllocatorImplTest {
+
+  private static final String CREDIT_BIN = "455700";
+
+  @Mock
+  private CreditCardRepository creditCardRepository;
+
+  @Mock
+  private CardUtils mockCardUtils;
+
+  @Mock
+  private CardNumberFilter cardNumberFilter;
+
+  private CardNumberAllocatorImpl allocator(CardUtils cardUtils) {
+    CardNumberAllocatorImpl allocator = new CardNumberAllocatorImpl(creditCardRepository, cardUtils, cardNumberFilter,
+      new SimpleMeterRegistry(), List.of(CREDIT_BIN), List.of("455800"));
+    ReflectionTestUtils.setField(allocator, "poolSize", 2);
+    ReflectionTestUtils.setField(allocator, "lowWater", 1);
+    ReflectionTestUtils.setField(allocator, "checkBatchSize", 10);
+    ReflectionTestUtils.setField(allocator, "maxAttempts", 3);
+    return allocator;
+  }
+
+  @Test
+  void testAllocate_DuplicateKey_RetriesWithAnotherLuhnValidNumber() {
+    // Given
+    CardUtils cardUtils = new CardUtils();
+    CardNumberAllocatorImpl allocator = allocator(cardUtils);
+    when(cardNumberFilter.recordIssued(anyString())).thenReturn(Mono.empty());
+    List<String> attempted = new ArrayList<>();
+
+    // When
+    Mono<String> result = allocator.allocate(CardType.CREDIT, number -> {
+      attempted.add(number);
+      return attempted.size() == 1 ? Mono.error(new DuplicateKeyException("E11000 cardNumber")) : Mono.just(number);
+    });
+
+    // Then
+    StepVerifier.create(result)
+      .expectNextMatches(number -> number.equals(attempted.get(1)))
+      .verifyComplete();
+
+    assertEquals(2, attempted.size());
+    verify(cardNumberFilter).recordIssued(attempted.get(1));
+    // El filtro descarta los candidatos: el relleno no consulta Mongo
+    verify(creditCardRepository, never()).findExistingCardNumbers(anyList());
+    attempted.forEach(number -> {
+      assertEquals(16, number.length());
+      assertTrue(number.startsWith(CREDIT_BIN));
+      assertTrue(cardUtils.isLuhnValid(number));
+    });
+  }
+
+  @Test
+  void testAllocate_AlwaysDuplicate_FailsAfterMaxAttempts() {
+    // Given
+    CardNumberAllocatorImpl allocator = allocator(new CardUtils());
+    List<String> attempted = new ArrayList<>();
+
+    // When
+    Mono<String> result = allocator.allocate(CardType.CREDIT, number -> {
+      attempted.add(number);
+      return Mono.error(new DuplicateKeyException("E11000 cardNumber"));
+    });
+
+    // Then
+    StepVerifier.create(result)
+      .expectError(DuplicateKeyException.class)
+      .verify();
+
+    assertEquals(3, attempted.size());
+  }
+
+  @Test
+  void testNextNumber_RefillSkipsNumbersAlreadyInUse() {
+    // Given
+    CardNumberAllocatorImpl allocator = allocator(mockCardUtils);
+    when(mockCardUtils.generateCardNumber(CREDIT_BIN))
+      .thenReturn("4557000000000001", "4557000000000019", "4557000000000027");
+    when(cardNumberFilter.mightExist(anyString())).thenReturn(true);
+    when(creditCardRepository.findExistingCardNumbers(anyList()))
+      .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<String>>getArgument(0))
+        .filter("4557000000000001"::equals));
+
+    // When
+    String first = allocator.nextNumber(CardType.CREDIT);
+    String second = allocator.nextNumber(CardType.CREDIT);
+
+    // Then
+    // El pool vacío entrega un número sin comprobar; el relleno descarta el que ya existe
+    assertEquals("4557000000000027", first);
+    assertEquals("4557000000000019", second);
+    verify(creditCardRepository, times(2)).findExistingCardNumbers(anyList());
+  }
+}
@@ -0,0 +1,141 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberFilterImplTest {
+
+  private static final String CHANNEL = "card-numbers:issued";
+  private static final String EXISTING = "4557880000000001";
+  private static final String ISSUED_DURING_REBUILD = "4557880000000002";
+  private static final String NEVER_ISSUED = "4557889999999999";
+
+  @Mock
+  private CreditCardRepository creditCardRepository;
+
+  @Mock
+  private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private CardNumberFilterImpl cardNumberFilter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    cardNumberFilter = new CardNumberFilterImpl(creditCardRepository, redisTemplate, meterRegistry, CHANNEL);
+    ReflectionTestUtils.setField(cardNumberFilter, "falsePositiveRate", 0.01);
+    ReflectionTestUtils.setField(cardNumberFilter, "minCapacity", 1000L);
+    ReflectionTestUtils.setField(cardNumberFilter, "capacityFactor", 2.0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    cardNumberFilter.unsubscribeFromIssuedNumbers();
+  }
+
+  @Test
+  void testMightExist_NotReady_LetsEveryLookupThrough() {
+    // When / Then: sin filtro cargado nunca se descarta un número
+    assertTrue(cardNumberFilter.mightExist(NEVER_ISSUED));
+    assertTrue(cardNumberFilter.mightExist(EXISTING));
+
+    assertEquals(2.0, meterRegistry.get("card.number_filter.checks").tag("result", "unavailable").counter().count());
+    verifyNoInteractions(creditCardRepository);
+  }
+
+  @Test
+  void testMightExist_RebuiltWithoutChannel_StaysUnavailable() {
+    // Given: el canal no está escuchando, así que podrían faltar altas de otras instancias
+    when(creditCardRepository.estimateCardCount()).thenReturn(Mono.just(1L));
+    when(creditCardRepository.findAllCardNumbers()).thenReturn(Flux.just(EXISTING));
+
+    // When
+    StepVerifier.create(cardNumberFilter.rebuild())
+      .expectNext(1L)
+      .verifyComplete();
+
+    // Then
+    assertTrue(cardNumberFilter.mightExist(NEVER_ISSUED));
+  }
+
+  @Test
+  void testRebuild_Ready_RejectsNumbersNeverIssued() {
+    // Given
+    listenToChannel();
+    when(creditCardRepository.estimateCardCount()).thenReturn(Mono.just(1L));
+    when(creditCardRepository.findAllCardNumbers()).thenReturn(Flux.just(EXISTING));
+
+    // When
+    StepVerifier.create(cardNumberFilter.rebuild())
+      .expectNext(1L)
+      .verifyComplete();
+
+    // Then
+    assertTrue(cardNumberFilter.mightExist(EXISTING));
+    assertFalse(cardNumberFilter.mightExist(NEVER_ISSUED));
+    assertEquals(1.0, meterRegistry.get("card.number_filter.checks").tag("result", "absent").counter().count());
+  }
+
+  @Test
+  void testRebuild_NumberIssuedWhileLoading_KeptInNewFilter() {
+    // Given: el alta llega cuando la carga ya pasó por su posición y antes del cambio de filtro
+    listenToChannel();
+    when(redisTemplate.convertAndSend(CHANNEL, ISSUED_DURING_REBUILD)).thenReturn(Mono.just(1L));
+    when(creditCardRepository.estimateCardCount()).thenReturn(Mono.just(1L));
+    when(creditCardRepository.findAllCardNumbers()).thenReturn(Flux.just(EXISTING)
+      .concatWith(Mono.<String>fromRunnable(() -> cardNumberFilter.recordIssued(ISSUED_DURING_REBUILD).block())));
+
+    // When
+    StepVerifier.create(cardNumberFilter.rebuild())
+      .expectNext(1L)
+      .verifyComplete();
+
+    // Then
+    assertTrue(cardNumberFilter.mightExist(ISSUED_DURING_REBUILD));
+    assertTrue(cardNumberFilter.mightExist(EXISTING));
+  }
+
+  @Test
+  void testRecordIssued_AfterRebuild_VisibleImmediately() {
+    // Given
+    listenToChannel();
+    when(redisTemplate.convertAndSend(CHANNEL, ISSUED_DURING_REBUILD)).thenReturn(Mono.just(1L));
+    when(creditCardRepository.estimateCardCount()).thenReturn(Mono.just(1L));
+    when(creditCardRepository.findAllCardNumbers()).thenReturn(Flux.just(EXISTING));
+    StepVerifier.create(cardNumberFilter.rebuild())
+      .expectNext(1L)
+      .verifyComplete();
+
+    // When
+    StepVerifier.create(cardNumberFilter.recordIssued(ISSUED_DURING_REBUILD))
+      .verifyComplete();
+
+    // Then
+    assertTrue(cardNumberFilter.mightExist(ISSUED_DURING_REBUILD));
+  }
+
+  private void listenToChannel() {
+    doReturn(Flux.never()).when(redisTemplate).listenToChannel(CHANNEL);
+    cardNumberFilter.subscribeToIssuedNumbers();
+  }
+}
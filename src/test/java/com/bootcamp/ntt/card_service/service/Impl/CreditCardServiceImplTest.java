@@ -3,15 +3,26 @@ package com.bootcamp.ntt.card_service.service.Impl;
 import com.bootcamp.ntt.card_service.client.CustomerServiceClient;
 import com.bootcamp.ntt.card_service.client.TransactionServiceClient;
 import com.bootcamp.ntt.card_service.client.dto.customer.CustomerTypeResponse;
-import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
 import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.PendingPosting;
 import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
 import com.bootcamp.ntt.card_service.enums.CardType;
+import com.bootcamp.ntt.card_service.event.CardEventPublisher;
 import com.bootcamp.ntt.card_service.exception.BusinessRuleException;
+import com.bootcamp.ntt.card_service.exception.CardServiceException;
+import com.bootcamp.ntt.card_service.mapper.CardEventMapper;
 import com.bootcamp.ntt.card_service.mapper.CreditCardMapper;
+import com.bootcamp.ntt.card_service.metrics.CardMetrics;
 import com.bootcamp.ntt.card_service.model.*;
 import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
-import com.bootcamp.ntt.card_service.repository.DailyBalanceRepository;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceStore;
+import com.bootcamp.ntt.card_service.repository.MonthlyBalanceAggregateRepository;
+import com.bootcamp.ntt.card_service.service.CardCacheService;
+import com.bootcamp.ntt.card_service.service.CardCounterService;
+import com.bootcamp.ntt.card_service.service.CardNumberAllocator;
+import com.bootcamp.ntt.card_service.service.CardNumberFilter;
+import com.bootcamp.ntt.card_service.service.ExternalServiceWrapper;
 import com.bootcamp.ntt.card_service.utils.CardUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,13 +30,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -37,7 +54,10 @@ class CreditCardServiceImplTest {
   private CreditCardRepository creditCardRepository;
 
   @Mock
-  private DailyBalanceRepository dailyBalanceRepository;
+  private DailyBalanceStore dailyBalanceStore;
+
+  @Mock
+  private MonthlyBalanceAggregateRepository monthlyBalanceAggregateRepository;
 
   @Mock
   private CreditCardMapper creditCardMapper;
@@ -48,9 +68,33 @@ class CreditCardServiceImplTest {
   @Mock
   private TransactionServiceClient transactionServiceClient;
 
+  @Mock
+  private ExternalServiceWrapper externalServiceWrapper;
+
   @Mock
   private CardUtils cardUtils;
 
+  @Mock
+  private CardEventPublisher cardEventPublisher;
+
+  @Mock
+  private CardEventMapper cardEventMapper;
+
+  @Mock
+  private CardCacheService cardCacheService;
+
+  @Mock
+  private CardMetrics cardMetrics;
+
+  @Mock
+  private CardNumberAllocator cardNumberAllocator;
+
+  @Mock
+  private CardNumberFilter cardNumberFilter;
+
+  @Mock
+  private CardCounterService cardCounterService;
+
   @InjectMocks
   private CreditCardServiceImpl creditCardService;
 
@@ -85,10 +129,21 @@ class CreditCardServiceImplTest {
     mockCreateRequest.setCreditLimit(5000.0);
   }
 
+  // Simula un fallo de caché: getOrLoad ejecuta directamente el loader del servicio
+  private void stubCacheMiss(String cacheKey) {
+    stubCacheMiss(cacheKey, CreditCardResponse.class);
+  }
+
+  private <T> void stubCacheMiss(String cacheKey, Class<T> valueType) {
+    when(cardCacheService.getOrLoad(eq(cacheKey), eq(valueType), any(Duration.class), any()))
+      .thenAnswer(invocation -> invocation.<Supplier<Mono<T>>>getArgument(3).get());
+  }
+
   @Test
   void testGetCardById_Success() {
     // Given
     String cardId = "card123";
+    stubCacheMiss("card:master:id:card123");
     when(creditCardRepository.findById(cardId)).thenReturn(Mono.just(mockCreditCard));
     when(creditCardMapper.toResponse(mockCreditCard)).thenReturn(mockCreditCardResponse);
 
@@ -108,6 +163,7 @@ class CreditCardServiceImplTest {
   void testGetCardById_NotFound() {
     // Given
     String cardId = "nonexistent";
+    stubCacheMiss("card:master:id:nonexistent");
     when(creditCardRepository.findById(cardId)).thenReturn(Mono.empty());
 
     // When
@@ -130,9 +186,9 @@ class CreditCardServiceImplTest {
       .thenReturn(Mono.just(mockCustomerTypeResponse));
     when(creditCardRepository.countByCustomerIdAndIsActiveTrue("customer123"))
       .thenReturn(Mono.just(0L));
-    when(cardUtils.generateRandomCardNumber()).thenReturn(generatedCardNumber);
-    when(creditCardRepository.findByCardNumber(generatedCardNumber))
-      .thenReturn(Mono.empty());
+    when(cardNumberAllocator.allocate(eq(CardType.CREDIT), any()))
+      .thenAnswer(invocation -> invocation.<Function<String, Mono<CreditCard>>>getArgument(1)
+        .apply(generatedCardNumber));
     when(creditCardMapper.toEntity(mockCreateRequest, "PERSONAL", generatedCardNumber))
       .thenReturn(mockCreditCard);
     when(creditCardRepository.save(mockCreditCard)).thenReturn(Mono.just(mockCreditCard));
@@ -178,22 +234,18 @@ class CreditCardServiceImplTest {
     String cardNumber = "4111111111111111";
     ChargeAuthorizationRequest request = new ChargeAuthorizationRequest();
     request.setAmount(1000.0);
-    //request.setMerchant("Test Store");
 
     String authCode = "AUTH123";
     ChargeAuthorizationResponse successResponse = new ChargeAuthorizationResponse();
-    //successResponse.setApproved(true);
     successResponse.setAuthorizationCode(authCode);
 
-    when(creditCardRepository.findByCardNumber(cardNumber))
-      .thenReturn(Mono.just(mockCreditCard));
+    PendingPosting posting = new PendingPosting();
+
+    when(cardNumberFilter.mightExist(cardNumber)).thenReturn(true);
     when(cardUtils.generateAuthCode()).thenReturn(authCode);
-    when(creditCardRepository.save(any(CreditCard.class)))
+    when(creditCardMapper.toPendingCharge(request, authCode)).thenReturn(posting);
+    when(creditCardRepository.reserveCredit(cardNumber, BigDecimal.valueOf(1000.0), posting))
       .thenReturn(Mono.just(mockCreditCard));
-    when(creditCardMapper.toTransactionRequest(any(CreditCard.class), eq(request), eq(authCode)))
-      .thenReturn(new TransactionRequest());
-    when(transactionServiceClient.createTransaction(any(TransactionRequest.class)))
-      .thenReturn(Mono.empty());
     when(creditCardMapper.toChargeApprovedResponse(any(CreditCard.class), eq(1000.0), eq(authCode)))
       .thenReturn(successResponse);
 
@@ -205,9 +257,241 @@ class CreditCardServiceImplTest {
       .expectNext(successResponse)
       .verifyComplete();
 
-    verify(creditCardRepository).findByCardNumber(cardNumber);
-    verify(creditCardRepository).save(any(CreditCard.class));
-    verify(transactionServiceClient).createTransaction(any(TransactionRequest.class));
+    // El envío viaja en la misma escritura que la reserva; nada más toca Mongo en la petición
+    verify(creditCardRepository).reserveCredit(cardNumber, BigDecimal.valueOf(1000.0), posting);
+    verify(creditCardRepository, never()).findByCardNumber(anyString());
+    verify(creditCardRepository, never()).save(any());
+    verify(externalServiceWrapper, never()).createTransactionWithCircuitBreaker(any());
+  }
+
+  @Test
+  void testAuthorizeCharge_NumberNeverIssued_SkipsDatabase() {
+    // Given
+    ChargeAuthorizationRequest request = new ChargeAuthorizationRequest();
+    request.setAmount(100.0);
+    when(cardNumberFilter.mightExist("4000000000000000")).thenReturn(false);
+
+    // When
+    Mono<ChargeAuthorizationResponse> result = creditCardService.authorizeCharge("4000000000000000", request);
+
+    // Then
+    StepVerifier.create(result)
+      .expectErrorMessage("Card not found with id: 4000000000000000")
+      .verify();
+
+    verifyNoInteractions(creditCardRepository);
+  }
+
+  @Test
+  void testAuthorizeChargeBatch_CardNotFound_EmitsErrorResult() {
+    // Given
+    BatchChargeAuthorizationRequest item = new BatchChargeAuthorizationRequest();
+    item.setReferenceId("ref-1");
+    item.setCardNumber("4000000000000000");
+    item.setAmount(100.0);
+
+    ChargeAuthorizationRequest request = new ChargeAuthorizationRequest();
+    request.setAmount(100.0);
+
+    BatchChargeAuthorizationResult errorResult = new BatchChargeAuthorizationResult();
+    errorResult.setOutcome(BatchChargeAuthorizationResult.OutcomeEnum.ERROR);
+
+    when(creditCardMapper.toChargeAuthorizationRequest(item)).thenReturn(request);
+    when(cardNumberFilter.mightExist("4000000000000000")).thenReturn(true);
+    when(creditCardRepository.reserveCredit(eq("4000000000000000"), eq(BigDecimal.valueOf(100.0)), any()))
+      .thenReturn(Mono.empty());
+    when(creditCardRepository.findByCardNumber("4000000000000000")).thenReturn(Mono.empty());
+    when(creditCardMapper.toBatchChargeErrorResult(eq(item), eq("CARD_NOT_FOUND"), any()))
+      .thenReturn(errorResult);
+
+    // When
+    Flux<BatchChargeAuthorizationResult> result = creditCardService.authorizeChargeBatch(Flux.just(item));
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(errorResult)
+      .verifyComplete();
+  }
+
+  @Test
+  void testAuthorizeChargeBatch_Approved_EmitsAuthorizationResult() {
+    // Given
+    String cardNumber = "4111111111111111";
+    BatchChargeAuthorizationRequest item = batchItem("ref-1", cardNumber, 1000.0);
+    ChargeAuthorizationRequest request = new ChargeAuthorizationRequest();
+    request.setAmount(1000.0);
+
+    ChargeAuthorizationResponse approved = new ChargeAuthorizationResponse();
+    approved.setAuthorizationCode("AUTH123");
+    BatchChargeAuthorizationResult approvedResult = new BatchChargeAuthorizationResult();
+    approvedResult.setOutcome(BatchChargeAuthorizationResult.OutcomeEnum.APPROVED);
+
+    when(creditCardMapper.toChargeAuthorizationRequest(item)).thenReturn(request);
+    when(cardNumberFilter.mightExist(cardNumber)).thenReturn(true);
+    when(cardUtils.generateAuthCode()).thenReturn("AUTH123");
+    when(creditCardRepository.reserveCredit(eq(cardNumber), eq(BigDecimal.valueOf(1000.0)), any()))
+      .thenReturn(Mono.just(mockCreditCard));
+    when(creditCardMapper.toChargeApprovedResponse(any(CreditCard.class), eq(1000.0), eq("AUTH123")))
+      .thenReturn(approved);
+    when(creditCardMapper.toBatchChargeResult(item, approved)).thenReturn(approvedResult);
+
+    // When
+    Flux<BatchChargeAuthorizationResult> result = creditCardService.authorizeChargeBatch(Flux.just(item));
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(approvedResult)
+      .verifyComplete();
+
+    verify(creditCardMapper, never()).toBatchChargeErrorResult(any(), any(), any());
+  }
+
+  @Test
+  void testAuthorizeChargeBatch_Declined_EmitsDeclinedResult() {
+    // Given: un rechazo no es un error del lote
+    String cardNumber = "4111111111111111";
+    BatchChargeAuthorizationRequest item = batchItem("ref-1", cardNumber, 5000.0);
+    ChargeAuthorizationRequest request = new ChargeAuthorizationRequest();
+    request.setAmount(5000.0);
+
+    ChargeAuthorizationResponse declined = new ChargeAuthorizationResponse();
+    declined.setDeclineReason(ChargeAuthorizationResponse.DeclineReasonEnum.INSUFFICIENT_CREDIT);
+    BatchChargeAuthorizationResult declinedResult = new BatchChargeAuthorizationResult();
+    declinedResult.setOutcome(BatchChargeAuthorizationResult.OutcomeEnum.DECLINED);
+
+    when(creditCardMapper.toChargeAuthorizationRequest(item)).thenReturn(request);
+    when(cardNumberFilter.mightExist(cardNumber)).thenReturn(true);
+    when(creditCardRepository.reserveCredit(eq(cardNumber), eq(BigDecimal.valueOf(5000.0)), any()))
+      .thenReturn(Mono.empty());
+    when(creditCardRepository.findByCardNumber(cardNumber)).thenReturn(Mono.just(mockCreditCard));
+    when(creditCardMapper.toChargeDeclinedResponse(3000.0, "INSUFFICIENT_CREDIT")).thenReturn(declined);
+    when(creditCardMapper.toBatchChargeResult(item, declined)).thenReturn(declinedResult);
+
+    // When
+    Flux<BatchChargeAuthorizationResult> result = creditCardService.authorizeChargeBatch(Flux.just(item));
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(declinedResult)
+      .verifyComplete();
+  }
+
+  @Test
+  void testAuthorizeChargeBatch_BusinessRuleViolation_UsesExceptionCode() {
+    // Given
+    BatchChargeAuthorizationRequest item = batchItem("ref-1", "4111111111111111", 100.0);
+    BatchChargeAuthorizationResult errorResult = stubBatchError(item,
+      new BusinessRuleException("CARD_BLOCKED", "Card blocked by fraud rules"));
+    when(creditCardMapper.toBatchChargeErrorResult(item, "CARD_BLOCKED", "Card blocked by fraud rules"))
+      .thenReturn(errorResult);
+
+    // When / Then
+    StepVerifier.create(creditCardService.authorizeChargeBatch(Flux.just(item)))
+      .expectNext(errorResult)
+      .verifyComplete();
+  }
+
+  @Test
+  void testAuthorizeChargeBatch_CardServiceException_UsesErrorCode() {
+    // Given
+    BatchChargeAuthorizationRequest item = batchItem("ref-1", "4111111111111111", 100.0);
+    BatchChargeAuthorizationResult errorResult = stubBatchError(item, new CardServiceException(
+      "Charge could not be recorded. Charge authorization reverted.", "CHARGE_NOT_RECORDED",
+      HttpStatus.SERVICE_UNAVAILABLE));
+    when(creditCardMapper.toBatchChargeErrorResult(eq(item), eq("CHARGE_NOT_RECORDED"), any()))
+      .thenReturn(errorResult);
+
+    // When / Then
+    StepVerifier.create(creditCardService.authorizeChargeBatch(Flux.just(item)))
+      .expectNext(errorResult)
+      .verifyComplete();
+  }
+
+  @Test
+  void testAuthorizeChargeBatch_UntypedErrorMentioningNotFound_InternalError() {
+    // Given: el texto del mensaje ya no decide el código
+    BatchChargeAuthorizationRequest item = batchItem("ref-1", "4111111111111111", 100.0);
+    BatchChargeAuthorizationResult errorResult = stubBatchError(item,
+      new RuntimeException("index not found: cardNumber_1"));
+    when(creditCardMapper.toBatchChargeErrorResult(eq(item), eq("INTERNAL_ERROR"), any()))
+      .thenReturn(errorResult);
+
+    // When / Then
+    StepVerifier.create(creditCardService.authorizeChargeBatch(Flux.just(item)))
+      .expectNext(errorResult)
+      .verifyComplete();
+  }
+
+  private BatchChargeAuthorizationRequest batchItem(String referenceId, String cardNumber, Double amount) {
+    BatchChargeAuthorizationRequest item = new BatchChargeAuthorizationRequest();
+    item.setReferenceId(referenceId);
+    item.setCardNumber(cardNumber);
+    item.setAmount(amount);
+    return item;
+  }
+
+  // La reserva falla con la excepción dada antes de llegar a la respuesta
+  private BatchChargeAuthorizationResult stubBatchError(BatchChargeAuthorizationRequest item, RuntimeException error) {
+    ChargeAuthorizationRequest request = new ChargeAuthorizationRequest();
+    request.setAmount(item.getAmount());
+    when(creditCardMapper.toChargeAuthorizationRequest(item)).thenReturn(request);
+    when(cardNumberFilter.mightExist(item.getCardNumber())).thenReturn(true);
+    when(creditCardRepository.reserveCredit(eq(item.getCardNumber()), eq(BigDecimal.valueOf(item.getAmount())),
+        any()))
+      .thenReturn(Mono.error(error));
+
+    BatchChargeAuthorizationResult errorResult = new BatchChargeAuthorizationResult();
+    errorResult.setOutcome(BatchChargeAuthorizationResult.OutcomeEnum.ERROR);
+    return errorResult;
+  }
+
+  @Test
+  void testGetCustomerDailyAverages_ReadsMonthlyAggregates() {
+    // Given
+    MonthlyBalanceAggregate aggregate = new MonthlyBalanceAggregate();
+    aggregate.setCardId("card123");
+    aggregate.setSumCurrentBalance(BigDecimal.valueOf(6000));
+    aggregate.setSumAvailableCredit(BigDecimal.valueOf(9000));
+    aggregate.setDayCount(3);
+
+    CustomerDailyAverageResponseProductsInner product = new CustomerDailyAverageResponseProductsInner();
+    CustomerDailyAverageResponse response = new CustomerDailyAverageResponse();
+    response.setProducts(List.of(product));
+
+    stubCacheMiss("card:daily-averages:customer123:2026-10", CustomerDailyAverageResponse.class);
+    when(monthlyBalanceAggregateRepository.findByCustomerIdAndYearAndMonth("customer123", 2026, 10))
+      .thenReturn(Flux.just(aggregate));
+    when(creditCardMapper.toDailyAverageProduct(eq(aggregate), anyInt())).thenReturn(product);
+    when(creditCardMapper.toDailyAverageResponse("customer123", 2026, 10, List.of(product))).thenReturn(response);
+
+    // When
+    Mono<CustomerDailyAverageResponse> result = creditCardService.getCustomerDailyAverages("customer123", 2026, 10);
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(response)
+      .verifyComplete();
+
+    verifyNoInteractions(dailyBalanceStore);
+  }
+
+  @Test
+  void testGetCustomerDailyAverages_ClosedMonth_CachedWithBoundedTtl() {
+    // Given
+    CustomerDailyAverageResponse cached = new CustomerDailyAverageResponse();
+    when(cardCacheService.getOrLoad(eq("card:daily-averages:customer123:2020-01"),
+        eq(CustomerDailyAverageResponse.class), eq(Duration.ofHours(24)), any()))
+      .thenReturn(Mono.just(cached));
+
+    // When
+    Mono<CustomerDailyAverageResponse> result = creditCardService.getCustomerDailyAverages("customer123", 2020, 1);
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(cached)
+      .verifyComplete();
+
+    verifyNoInteractions(monthlyBalanceAggregateRepository, dailyBalanceStore);
   }
 
   @Test
@@ -218,9 +502,11 @@ class CreditCardServiceImplTest {
     request.setAmount(5000.0); // Más del crédito disponible (3000)
 
     ChargeAuthorizationResponse declinedResponse = new ChargeAuthorizationResponse();
-    //declinedResponse.setApproved(false);
     declinedResponse.setDeclineReason(ChargeAuthorizationResponse.DeclineReasonEnum.INSUFFICIENT_CREDIT);
 
+    when(cardNumberFilter.mightExist(cardNumber)).thenReturn(true);
+    when(creditCardRepository.reserveCredit(eq(cardNumber), eq(BigDecimal.valueOf(5000.0)), any()))
+      .thenReturn(Mono.empty());
     when(creditCardRepository.findByCardNumber(cardNumber))
       .thenReturn(Mono.just(mockCreditCard));
     when(creditCardMapper.toChargeDeclinedResponse(3000.0, "INSUFFICIENT_CREDIT"))
@@ -236,7 +522,6 @@ class CreditCardServiceImplTest {
 
     verify(creditCardRepository).findByCardNumber(cardNumber);
     verify(creditCardRepository, never()).save(any());
-    verify(transactionServiceClient, never()).createTransaction(any());
   }
 
   @Test
@@ -248,9 +533,11 @@ class CreditCardServiceImplTest {
     request.setAmount(1000.0);
 
     ChargeAuthorizationResponse declinedResponse = new ChargeAuthorizationResponse();
-    //declinedResponse.setApproved(false);
     declinedResponse.setDeclineReason(ChargeAuthorizationResponse.DeclineReasonEnum.CARD_INACTIVE);
 
+    when(cardNumberFilter.mightExist(cardNumber)).thenReturn(true);
+    when(creditCardRepository.reserveCredit(eq(cardNumber), eq(BigDecimal.valueOf(1000.0)), any()))
+      .thenReturn(Mono.empty());
     when(creditCardRepository.findByCardNumber(cardNumber))
       .thenReturn(Mono.just(mockCreditCard));
     when(creditCardMapper.toChargeDeclinedResponse(3000.0, "CARD_INACTIVE"))
@@ -278,24 +565,98 @@ class CreditCardServiceImplTest {
     successResponse.setSuccess(true);
     successResponse.setActualPaymentAmount(500.0);
 
-    when(creditCardRepository.findByCardNumber(cardNumber))
-      .thenReturn(Mono.just(mockCreditCard));
-    when(creditCardRepository.save(any(CreditCard.class)))
+    when(creditCardRepository.applyPayment(cardNumber, BigDecimal.valueOf(500.0)))
       .thenReturn(Mono.just(mockCreditCard));
-    when(creditCardMapper.toPaymentSuccessResponse(any(CreditCard.class),
-      eq(BigDecimal.valueOf(500.0)), eq(BigDecimal.valueOf(500.0))))
+    when(creditCardMapper.toPaymentSuccessResponse(mockCreditCard,
+      BigDecimal.valueOf(500.0), BigDecimal.valueOf(500.0)))
       .thenReturn(successResponse);
 
     // When
     Mono<PaymentProcessResponse> result = creditCardService.processPayment(cardNumber, paymentRequest);
 
-    // Then
+    // Then: una sola escritura condicional, sin leer la tarjeta ni guardarla entera
     StepVerifier.create(result)
       .expectNext(successResponse)
       .verifyComplete();
 
-    verify(creditCardRepository).findByCardNumber(cardNumber);
-    verify(creditCardRepository).save(any(CreditCard.class));
+    verify(creditCardRepository, never()).findByCardNumber(any());
+    verify(creditCardRepository, never()).save(any());
+  }
+
+  @Test
+  void testProcessPayment_AmountExceedsBalance_PaysFullBalance() {
+    // Given: debe 2000 y paga 2500
+    String cardNumber = "4111111111111111";
+    PaymentProcessRequest paymentRequest = new PaymentProcessRequest();
+    paymentRequest.setAmount(2500.0);
+
+    PaymentProcessResponse successResponse = new PaymentProcessResponse();
+    successResponse.setSuccess(true);
+
+    when(creditCardRepository.applyPayment(cardNumber, BigDecimal.valueOf(2500.0))).thenReturn(Mono.empty());
+    when(creditCardRepository.findByCardNumber(cardNumber)).thenReturn(Mono.just(mockCreditCard));
+    when(creditCardRepository.applyPayment(cardNumber, BigDecimal.valueOf(2000)))
+      .thenReturn(Mono.just(mockCreditCard));
+    when(creditCardMapper.toPaymentSuccessResponse(mockCreditCard,
+      BigDecimal.valueOf(2500.0), BigDecimal.valueOf(2000)))
+      .thenReturn(successResponse);
+
+    // When / Then
+    StepVerifier.create(creditCardService.processPayment(cardNumber, paymentRequest))
+      .expectNext(successResponse)
+      .verifyComplete();
+
+    verify(creditCardRepository, never()).save(any());
+  }
+
+  @Test
+  void testProcessPayment_BalanceChangedBeforeRead_RetriesConditionalWrite() {
+    // Given: el primer intento no aplica, pero al leer el saldo ya cubre el pago (otro cargo entre medias)
+    String cardNumber = "4111111111111111";
+    PaymentProcessRequest paymentRequest = new PaymentProcessRequest();
+    paymentRequest.setAmount(500.0);
+
+    PaymentProcessResponse successResponse = new PaymentProcessResponse();
+    successResponse.setSuccess(true);
+
+    when(creditCardRepository.applyPayment(cardNumber, BigDecimal.valueOf(500.0)))
+      .thenReturn(Mono.empty(), Mono.just(mockCreditCard));
+    when(creditCardRepository.findByCardNumber(cardNumber)).thenReturn(Mono.just(mockCreditCard));
+    when(creditCardMapper.toPaymentSuccessResponse(mockCreditCard,
+      BigDecimal.valueOf(500.0), BigDecimal.valueOf(500.0)))
+      .thenReturn(successResponse);
+
+    // When / Then
+    StepVerifier.create(creditCardService.processPayment(cardNumber, paymentRequest))
+      .expectNext(successResponse)
+      .verifyComplete();
+
+    verify(creditCardRepository, times(2)).applyPayment(cardNumber, BigDecimal.valueOf(500.0));
+  }
+
+  @Test
+  void testProcessPayment_CardInactive() {
+    // Given
+    mockCreditCard.setActive(false);
+    String cardNumber = "4111111111111111";
+    PaymentProcessRequest paymentRequest = new PaymentProcessRequest();
+    paymentRequest.setAmount(500.0);
+
+    PaymentProcessResponse failedResponse = new PaymentProcessResponse();
+    failedResponse.setSuccess(false);
+
+    when(creditCardRepository.applyPayment(cardNumber, BigDecimal.valueOf(500.0))).thenReturn(Mono.empty());
+    when(creditCardRepository.findByCardNumber(cardNumber)).thenReturn(Mono.just(mockCreditCard));
+    when(creditCardMapper.toPaymentFailedResponse("card123", BigDecimal.valueOf(500.0),
+      PaymentProcessResponse.ErrorCodeEnum.CARD_INACTIVE, "Card is not active"))
+      .thenReturn(failedResponse);
+
+    // When / Then
+    StepVerifier.create(creditCardService.processPayment(cardNumber, paymentRequest))
+      .expectNext(failedResponse)
+      .verifyComplete();
+
+    verify(creditCardRepository, times(1)).applyPayment(any(), any());
   }
 
   @Test
@@ -310,6 +671,7 @@ class CreditCardServiceImplTest {
     failedResponse.setSuccess(false);
     failedResponse.setErrorCode(PaymentProcessResponse.ErrorCodeEnum.ZERO_CURRENT_BALANCE);
 
+    when(creditCardRepository.applyPayment(cardNumber, BigDecimal.valueOf(500.0))).thenReturn(Mono.empty());
     when(creditCardRepository.findByCardNumber(cardNumber))
       .thenReturn(Mono.just(mockCreditCard));
     when(creditCardMapper.toPaymentFailedResponse(eq("card123"), eq(BigDecimal.valueOf(500.0)),
@@ -350,11 +712,12 @@ class CreditCardServiceImplTest {
   void testDeactivateCard_Success() {
     // Given
     String cardId = "card123";
-    when(creditCardRepository.findById(cardId))
-      .thenReturn(Mono.just(mockCreditCard));
-    when(creditCardRepository.save(any(CreditCard.class)))
+    // setActive devuelve la tarjeta ya cambiada solo si estaba activa
+    mockCreditCard.setActive(false);
+    when(creditCardRepository.setActive(cardId, false))
       .thenReturn(Mono.just(mockCreditCard));
-    when(creditCardMapper.toResponse(mockCreditCard))
+    when(cardCounterService.statusChanged(CardType.CREDIT, true, false)).thenReturn(Mono.empty());
+    when(creditCardMapper.toResponse(argThat(card -> !card.isActive())))
       .thenReturn(mockCreditCardResponse);
 
     // When
@@ -365,16 +728,92 @@ class CreditCardServiceImplTest {
       .expectNext(mockCreditCardResponse)
       .verifyComplete();
 
-    verify(creditCardRepository).findById(cardId);
-    verify(creditCardRepository).save(argThat(card -> !card.isActive()));
+    verify(creditCardRepository, never()).save(any());
+    verify(cardCounterService).statusChanged(CardType.CREDIT, true, false);
+  }
+
+  @Test
+  void testDeactivateCard_AlreadyInactive_LeavesCounterAlone() {
+    // Given: otra petición la desactivó antes; la escritura condicional no coincide
+    String cardId = "card123";
+    mockCreditCard.setActive(false);
+    when(creditCardRepository.setActive(cardId, false)).thenReturn(Mono.empty());
+    when(creditCardRepository.findById(cardId)).thenReturn(Mono.just(mockCreditCard));
+    when(creditCardMapper.toResponse(mockCreditCard)).thenReturn(mockCreditCardResponse);
+
+    // When
+    StepVerifier.create(creditCardService.deactivateCard(cardId))
+      .expectNext(mockCreditCardResponse)
+      .verifyComplete();
+
+    // Then
+    verifyNoInteractions(cardCounterService);
+    verify(cardEventPublisher, never()).publish(any());
+  }
+
+  @Test
+  void testUpdateCard_RequestedStatusAlreadySet_LeavesCounterAlone() {
+    // Given
+    String cardId = "card123";
+    CreditCardUpdateRequest updateRequest = new CreditCardUpdateRequest();
+    updateRequest.setIsActive(true);
+
+    when(creditCardRepository.updateFields(cardId, null, null, null)).thenReturn(Mono.just(mockCreditCard));
+    when(creditCardMapper.updateEntity(mockCreditCard, updateRequest)).thenReturn(mockCreditCard);
+    when(creditCardRepository.setActive(cardId, true)).thenReturn(Mono.empty());
+    when(cardCacheService.evict("card:master:id:card123", "card:master:number:4111111111111111",
+      "card:balance:4111111111111111", "card:eligibility:customer123")).thenReturn(Mono.empty());
+    when(creditCardMapper.toResponse(mockCreditCard)).thenReturn(mockCreditCardResponse);
+
+    // When
+    StepVerifier.create(creditCardService.updateCard(cardId, updateRequest))
+      .expectNext(mockCreditCardResponse)
+      .verifyComplete();
+
+    // Then
+    verify(creditCardRepository).setActive(cardId, true);
+    verifyNoInteractions(cardCounterService);
+  }
+
+  @Test
+  void testUpdateCard_SetsOnlyRequestedFields() {
+    // Given
+    String cardId = "card123";
+    CreditCardUpdateRequest updateRequest = new CreditCardUpdateRequest();
+    updateRequest.setCreditLimit(8000.0);
+
+    CreditCard updated = new CreditCard();
+    updated.setId(cardId);
+    updated.setCardNumber("4111111111111111");
+    updated.setCustomerId("customer123");
+    updated.setActive(true);
+    updated.setCreditLimit(BigDecimal.valueOf(8000.0));
+
+    when(creditCardRepository.updateFields(cardId, BigDecimal.valueOf(8000.0), null, null))
+      .thenReturn(Mono.just(mockCreditCard));
+    when(creditCardMapper.updateEntity(mockCreditCard, updateRequest)).thenReturn(updated);
+    when(cardCacheService.evict("card:master:id:card123", "card:master:number:4111111111111111",
+      "card:balance:4111111111111111", "card:eligibility:customer123")).thenReturn(Mono.empty());
+    when(creditCardMapper.toResponse(updated)).thenReturn(mockCreditCardResponse);
+
+    // When
+    StepVerifier.create(creditCardService.updateCard(cardId, updateRequest))
+      .expectNext(mockCreditCardResponse)
+      .verifyComplete();
+
+    // Then: el evento compara con el límite anterior devuelto por la misma escritura
+    verify(cardEventMapper).toCreditLimitChangedEvent(updated, BigDecimal.valueOf(5000));
+    verify(creditCardRepository, never()).save(any());
+    verify(creditCardRepository, never()).setActive(anyString(), anyBoolean());
   }
 
   @Test
   void testDeactivateCard_NotFound() {
     // Given
     String cardId = "nonexistent";
-    when(creditCardRepository.findById(cardId))
+    when(creditCardRepository.setActive(cardId, false))
       .thenReturn(Mono.empty());
+    when(creditCardRepository.findById(cardId)).thenReturn(Mono.empty());
 
     // When
     Mono<CreditCardResponse> result = creditCardService.deactivateCard(cardId);
@@ -390,7 +829,7 @@ class CreditCardServiceImplTest {
   @Test
   void testGetActiveCardsCount() {
     // Given
-    when(creditCardRepository.countByIsActiveAndType(true, CardType.CREDIT))
+    when(cardCounterService.getActiveCount(CardType.CREDIT))
       .thenReturn(Mono.just(5L));
 
     // When
@@ -401,33 +840,28 @@ class CreditCardServiceImplTest {
       .expectNext(5)
       .verifyComplete();
 
-    verify(creditCardRepository).countByIsActiveAndType(true, CardType.CREDIT);
+    verify(creditCardRepository, never()).countByIsActiveAndType(any(), any());
   }
 
   @Test
-  void testGenerateUniqueCardNumber_RetryUntilUnique() {
+  void testRecomputeOverdueStatus_UpdatesEachPartition() {
     // Given
-    String firstAttempt = "1111111111111111";
-    String uniqueNumber = "2222222222222222";
-
-    when(cardUtils.generateRandomCardNumber())
-      .thenReturn(firstAttempt)
-      .thenReturn(uniqueNumber);
-    when(creditCardRepository.findByCardNumber(firstAttempt))
-      .thenReturn(Mono.just(mockCreditCard)); // Ya existe
-    when(creditCardRepository.findByCardNumber(uniqueNumber))
-      .thenReturn(Mono.empty()); // No existe, es único
+    ReflectionTestUtils.setField(creditCardService, "overduePartitions", 2);
+    when(creditCardRepository.findPartitionBoundaries(2)).thenReturn(Mono.just(List.of("card500")));
+    when(creditCardRepository.markOverdue(any(LocalDate.class), isNull(), eq("card500"))).thenReturn(Mono.just(3L));
+    when(creditCardRepository.clearOverdue(any(LocalDate.class), isNull(), eq("card500"))).thenReturn(Mono.just(1L));
+    when(creditCardRepository.markOverdue(any(LocalDate.class), eq("card500"), isNull())).thenReturn(Mono.just(2L));
+    when(creditCardRepository.clearOverdue(any(LocalDate.class), eq("card500"), isNull())).thenReturn(Mono.just(0L));
 
     // When
-    Mono<String> result = creditCardService.generateUniqueCardNumber();
+    Mono<Long> result = creditCardService.recomputeOverdueStatus();
 
     // Then
     StepVerifier.create(result)
-      .expectNext(uniqueNumber)
+      .expectNext(6L)
       .verifyComplete();
 
-    verify(cardUtils, times(2)).generateRandomCardNumber();
-    verify(creditCardRepository).findByCardNumber(firstAttempt);
-    verify(creditCardRepository).findByCardNumber(uniqueNumber);
+    verify(cardMetrics).recordOverdueUpdates(5L, 1L);
+    verify(creditCardRepository, never()).save(any(CreditCard.class));
   }
 }
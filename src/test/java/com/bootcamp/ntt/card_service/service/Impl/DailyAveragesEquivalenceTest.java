@@ -0,0 +1,146 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.MonthlyBalanceAggregate;
+import com.bootcamp.ntt.card_service.mapper.CreditCardMapper;
+import com.bootcamp.ntt.card_service.model.CustomerDailyAverageResponse;
+import com.bootcamp.ntt.card_service.model.CustomerDailyAverageResponseProductsInner;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceStore;
+import com.bootcamp.ntt.card_service.repository.MonthlyBalanceAggregateRepository;
+import com.bootcamp.ntt.card_service.service.CardCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * El pipeline de agregación y el cálculo en memoria deben producir los mismos promedios.
+ * Los documentos del pipeline son las sumas calculadas a mano sobre las mismas fotos, con la forma
+ * que deja su $project (cardId desde _id); las etapas se comprueban en DailyBalanceRepositoryCustomImplTest.
+ */
+@ExtendWith(MockitoExtension.class)
+class DailyAveragesEquivalenceTest {
+
+  private static final String CUSTOMER_ID = "customer123";
+  private static final LocalDate START = LocalDate.of(2026, 9, 1);
+  private static final LocalDate END = LocalDate.of(2026, 9, 30);
+
+  @Mock
+  private DailyBalanceStore dailyBalanceStore;
+
+  @Mock
+  private MonthlyBalanceAggregateRepository monthlyBalanceAggregateRepository;
+
+  @Mock
+  private CardCacheService cardCacheService;
+
+  @Spy
+  private CreditCardMapper creditCardMapper = new CreditCardMapper();
+
+  @InjectMocks
+  private CreditCardServiceImpl creditCardService;
+
+  private List<DailyBalance> snapshots;
+
+  @BeforeEach
+  void setUp() {
+    snapshots = List.of(
+      snapshot("card123", "4111111111111111", 1, "1500.10", "3499.90"),
+      snapshot("card123", "4111111111111111", 2, "1620.335", "3379.665"),
+      snapshot("card123", "4111111111111111", 3, "0.005", "4999.995"),
+      snapshot("card456", "4222222222222222", 1, "250.00", null),
+      snapshot("card456", "4222222222222222", 2, "249.99", "750.01"));
+
+    when(monthlyBalanceAggregateRepository.findByCustomerIdAndYearAndMonth(CUSTOMER_ID, 2026, 9))
+      .thenReturn(Flux.empty());
+    when(cardCacheService.getOrLoad(any(), eq(CustomerDailyAverageResponse.class), any(Duration.class), any()))
+      .thenAnswer(invocation -> invocation.<Supplier<Mono<CustomerDailyAverageResponse>>>getArgument(3).get());
+  }
+
+  @Test
+  void testPipelineAndInMemoryAverages_AreEquivalent() {
+    ReflectionTestUtils.setField(creditCardService, "dailyAveragesPipelineEnabled", false);
+    when(dailyBalanceStore.findByCustomerIdAndDateBetween(CUSTOMER_ID, START, END))
+      .thenReturn(Flux.fromIterable(snapshots));
+    List<CustomerDailyAverageResponseProductsInner> inMemory = products();
+
+    ReflectionTestUtils.setField(creditCardService, "dailyAveragesPipelineEnabled", true);
+    when(dailyBalanceStore.aggregateByCard(CUSTOMER_ID, START, END))
+      .thenReturn(Flux.just(
+        // 1500.10 + 1620.335 + 0.005 / 3499.90 + 3379.665 + 4999.995
+        pipelineResult("card123", "4111111111111111", "3120.440", "11879.560", 3),
+        // $sum ignora el availableCredit nulo del día 1, pero $sum: 1 sí cuenta el día
+        pipelineResult("card456", "4222222222222222", "499.99", "750.01", 2)));
+    List<CustomerDailyAverageResponseProductsInner> pipeline = products();
+
+    assertEquals(inMemory, pipeline);
+  }
+
+  @Test
+  void testInMemoryAverages_RoundHalfUpPerCard() {
+    ReflectionTestUtils.setField(creditCardService, "dailyAveragesPipelineEnabled", false);
+    when(dailyBalanceStore.findByCustomerIdAndDateBetween(CUSTOMER_ID, START, END))
+      .thenReturn(Flux.fromIterable(snapshots));
+
+    List<CustomerDailyAverageResponseProductsInner> products = products();
+
+    assertEquals(2, products.size());
+    assertEquals("card123", products.get(0).getCardId());
+    assertEquals(1040.15, products.get(0).getAverageDailyBalance());
+    assertEquals(3959.85, products.get(0).getAverageDailyAvailable());
+    assertEquals(3, products.get(0).getTotalDaysWithData());
+    assertEquals(250.00, products.get(1).getAverageDailyBalance());
+    assertEquals(375.01, products.get(1).getAverageDailyAvailable());
+    assertEquals(2, products.get(1).getTotalDaysWithData());
+  }
+
+  private List<CustomerDailyAverageResponseProductsInner> products() {
+    CustomerDailyAverageResponse response = creditCardService.getCustomerDailyAverages(CUSTOMER_ID, 2026, 9).block();
+    List<CustomerDailyAverageResponseProductsInner> products = new ArrayList<>(response.getProducts());
+    products.sort(Comparator.comparing(CustomerDailyAverageResponseProductsInner::getCardId));
+    return products;
+  }
+
+  // Forma del documento que devuelve el pipeline: _id y cardId con el id de la tarjeta
+  private MonthlyBalanceAggregate pipelineResult(String cardId, String cardNumber, String sumCurrentBalance,
+                                                 String sumAvailableCredit, int dayCount) {
+    MonthlyBalanceAggregate aggregate = new MonthlyBalanceAggregate();
+    aggregate.setId(cardId);
+    aggregate.setCardId(cardId);
+    aggregate.setCardNumber(cardNumber);
+    aggregate.setSumCurrentBalance(new BigDecimal(sumCurrentBalance));
+    aggregate.setSumAvailableCredit(new BigDecimal(sumAvailableCredit));
+    aggregate.setDayCount(dayCount);
+    return aggregate;
+  }
+
+  private DailyBalance snapshot(String cardId, String cardNumber, int day, String balance, String available) {
+    DailyBalance dailyBalance = new DailyBalance();
+    dailyBalance.setCustomerId(CUSTOMER_ID);
+    dailyBalance.setCardId(cardId);
+    dailyBalance.setCardNumber(cardNumber);
+    dailyBalance.setDate(START.withDayOfMonth(day));
+    dailyBalance.setCurrentBalance(new BigDecimal(balance));
+    dailyBalance.setAvailableCredit(available != null ? new BigDecimal(available) : null);
+    return dailyBalance;
+  }
+}
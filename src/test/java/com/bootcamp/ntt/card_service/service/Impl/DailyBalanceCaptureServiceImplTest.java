@@ -0,0 +1,467 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.entity.CardBalanceChange;
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.DailyBalance;
+import com.bootcamp.ntt.card_service.entity.DailyBalanceCaptureRun;
+import com.bootcamp.ntt.card_service.entity.DailyBalancePartition;
+import com.bootcamp.ntt.card_service.enums.CaptureMode;
+import com.bootcamp.ntt.card_service.enums.PartitionStatus;
+import com.bootcamp.ntt.card_service.metrics.CardMetrics;
+import com.bootcamp.ntt.card_service.repository.CardBalanceChangeRepository;
+import com.bootcamp.ntt.card_service.repository.CarryForwardStore;
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceCaptureRunRepository;
+import com.bootcamp.ntt.card_service.repository.DailyBalancePartitionRepository;
+import com.bootcamp.ntt.card_service.repository.DailyBalanceStore;
+import com.bootcamp.ntt.card_service.repository.MonthlyBalanceAggregateRepository;
+import com.bootcamp.ntt.card_service.service.BalanceChangeTracker;
+import com.bootcamp.ntt.card_service.service.CardCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyBalanceCaptureServiceImplTest {
+
+  @Mock
+  private CreditCardRepository creditCardRepository;
+
+  // Formato por documento: admite el arrastre de la captura por cambios
+  @Mock(extraInterfaces = CarryForwardStore.class)
+  private DailyBalanceStore dailyBalanceStore;
+
+  @Mock
+  private DailyBalanceCaptureRunRepository captureRunRepository;
+
+  @Mock
+  private DailyBalancePartitionRepository partitionRepository;
+
+  @Mock
+  private MonthlyBalanceAggregateRepository monthlyBalanceAggregateRepository;
+
+  @Mock
+  private CardMetrics cardMetrics;
+
+  @Mock
+  private CardCacheService cardCacheService;
+
+  @Mock
+  private CardBalanceChangeRepository changeRepository;
+
+  @Mock
+  private BalanceChangeTracker balanceChangeTracker;
+
+  @InjectMocks
+  private DailyBalanceCaptureServiceImpl dailyBalanceCaptureService;
+
+  private DailyBalancePartition partition;
+  private CreditCard card;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(dailyBalanceCaptureService, "chunkSize", 2);
+    ReflectionTestUtils.setField(dailyBalanceCaptureService, "writeConcurrency", 1);
+    ReflectionTestUtils.setField(dailyBalanceCaptureService, "partitions", 4);
+    ReflectionTestUtils.setField(dailyBalanceCaptureService, "leaseSeconds", 300L);
+    ReflectionTestUtils.setField(dailyBalanceCaptureService, "retryDelaySeconds", 60L);
+    ReflectionTestUtils.setField(dailyBalanceCaptureService, "changesOverlapSeconds", 300L);
+
+    partition = new DailyBalancePartition();
+    partition.setId("2026-10-17:000");
+    partition.setDate(LocalDate.now());
+    partition.setUpperBound("card500");
+
+    card = new CreditCard();
+    card.setId("card123");
+    card.setCustomerId("customer123");
+    card.setCurrentBalance(BigDecimal.valueOf(2000));
+  }
+
+  @Test
+  void testCaptureDailyBalances_CreatesPlanAndWritesInChunks() {
+    // Given
+    CreditCard secondCard = new CreditCard();
+    secondCard.setId("card456");
+    CreditCard thirdCard = new CreditCard();
+    thirdCard.setId("card789");
+
+    when(captureRunRepository.findById(anyString())).thenReturn(Mono.empty());
+    when(creditCardRepository.findActivePartitionBoundaries(4)).thenReturn(Mono.just(List.of("card500")));
+    when(captureRunRepository.insert(any(DailyBalanceCaptureRun.class)))
+      .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(partitionRepository.insert(any(DailyBalancePartition.class)))
+      .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(partitionRepository.claimNext(anyString(), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.just(partition), Mono.empty());
+    when(creditCardRepository.findActiveByIdRange(null, "card500"))
+      .thenReturn(Flux.just(card, secondCard, thirdCard));
+    when(cardMetrics.timedBalanceChunk(anyInt())).thenReturn(Function.identity());
+    when(dailyBalanceStore.saveAll(anyList()))
+      .thenAnswer(invocation -> Mono.just(invocation.<List<DailyBalance>>getArgument(0).size()));
+    when(monthlyBalanceAggregateRepository.addSnapshots(anyList())).thenReturn(Mono.empty());
+    when(partitionRepository.saveCheckpoint(eq("2026-10-17:000"), anyString(), anyString(), anyLong(), anyLong(),
+        any(Instant.class)))
+      .thenReturn(Mono.just(true));
+    when(partitionRepository.markCompleted(eq("2026-10-17:000"), anyString(), any(Instant.class)))
+      .thenReturn(Mono.just(true));
+
+    // When
+    Mono<Void> result = dailyBalanceCaptureService.captureDailyBalances();
+
+    // Then
+    StepVerifier.create(result)
+      .verifyComplete();
+
+    verify(partitionRepository, times(2)).insert(any(DailyBalancePartition.class));
+    verify(dailyBalanceStore, times(2)).saveAll(anyList());
+    verify(monthlyBalanceAggregateRepository, times(2)).addSnapshots(anyList());
+    verify(partitionRepository).saveCheckpoint(eq("2026-10-17:000"), anyString(), eq("card456"), eq(2L), eq(2L),
+      any(Instant.class));
+    verify(partitionRepository).saveCheckpoint(eq("2026-10-17:000"), anyString(), eq("card789"), eq(1L), eq(1L),
+      any(Instant.class));
+    verify(cardMetrics).stopDailyBalanceCapture(any(), eq(CardMetrics.OUTCOME_SUCCESS));
+  }
+
+  @Test
+  void testProcessDuePartitions_WriteFails_ReleasesPartition() {
+    // Given
+    when(partitionRepository.claimNext(anyString(), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.just(partition), Mono.empty());
+    when(captureRunRepository.findById(partition.getDate().toString())).thenReturn(Mono.empty());
+    when(creditCardRepository.findActiveByIdRange(null, "card500")).thenReturn(Flux.just(card));
+    when(cardMetrics.timedBalanceChunk(anyInt())).thenReturn(Function.identity());
+    when(dailyBalanceStore.saveAll(anyList())).thenReturn(Mono.error(new RuntimeException("mongo down")));
+    when(partitionRepository.release(eq("2026-10-17:000"), anyString(), any(Instant.class))).thenReturn(Mono.empty());
+
+    // When
+    Mono<Long> result = dailyBalanceCaptureService.processDuePartitions();
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(0L)
+      .verifyComplete();
+
+    verify(partitionRepository, never()).markCompleted(anyString(), anyString(), any());
+  }
+
+  @Test
+  void testProcessDuePartitions_BackDatedCapture_EvictsClosedMonthReport() {
+    // Given
+    partition.setDate(LocalDate.of(2020, 1, 31));
+
+    when(partitionRepository.claimNext(anyString(), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.just(partition), Mono.empty());
+    when(captureRunRepository.findById(partition.getDate().toString())).thenReturn(Mono.empty());
+    when(creditCardRepository.findActiveByIdRange(null, "card500")).thenReturn(Flux.just(card));
+    when(cardMetrics.timedBalanceChunk(anyInt())).thenReturn(Function.identity());
+    when(dailyBalanceStore.saveAll(anyList())).thenReturn(Mono.just(1));
+    when(monthlyBalanceAggregateRepository.addSnapshots(anyList())).thenReturn(Mono.empty());
+    when(cardCacheService.evict("card:daily-averages:customer123:2020-01")).thenReturn(Mono.empty());
+    when(partitionRepository.saveCheckpoint(eq("2026-10-17:000"), anyString(), eq("card123"), eq(1L), eq(1L),
+        any(Instant.class)))
+      .thenReturn(Mono.just(true));
+    when(partitionRepository.markCompleted(eq("2026-10-17:000"), anyString(), any(Instant.class)))
+      .thenReturn(Mono.just(true));
+
+    // When
+    Mono<Long> result = dailyBalanceCaptureService.processDuePartitions();
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(1L)
+      .verifyComplete();
+
+    verify(cardCacheService).evict("card:daily-averages:customer123:2020-01");
+  }
+
+  @Test
+  void testProcessDuePartitions_WithCheckpoint_ResumesAfterLastCard() {
+    // Given
+    partition.setCheckpoint("card123");
+    CreditCard remainingCard = new CreditCard();
+    remainingCard.setId("card456");
+
+    when(partitionRepository.claimNext(anyString(), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.just(partition), Mono.empty());
+    when(captureRunRepository.findById(partition.getDate().toString())).thenReturn(Mono.empty());
+    when(creditCardRepository.findActiveAfterId("card123", "card500")).thenReturn(Flux.just(remainingCard));
+    when(cardMetrics.timedBalanceChunk(anyInt())).thenReturn(Function.identity());
+    when(dailyBalanceStore.saveAll(anyList())).thenReturn(Mono.just(1));
+    when(monthlyBalanceAggregateRepository.addSnapshots(anyList())).thenReturn(Mono.empty());
+    when(partitionRepository.saveCheckpoint(eq("2026-10-17:000"), anyString(), eq("card456"), eq(1L), eq(1L),
+        any(Instant.class)))
+      .thenReturn(Mono.just(true));
+    when(partitionRepository.markCompleted(eq("2026-10-17:000"), anyString(), any(Instant.class)))
+      .thenReturn(Mono.just(true));
+
+    // When
+    Mono<Long> result = dailyBalanceCaptureService.processDuePartitions();
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(1L)
+      .verifyComplete();
+
+    verify(creditCardRepository, never()).findActiveByIdRange(any(), any());
+  }
+
+  @Test
+  void testProcessDuePartitions_ChangesMode_WritesChangedCardsAndCarriesRest() {
+    // Given
+    DailyBalanceCaptureRun run = new DailyBalanceCaptureRun();
+    run.setMode(CaptureMode.CHANGES);
+    run.setChangesSince(Instant.now().minus(Duration.ofDays(1)));
+    run.setPreviousDate(LocalDate.now().minusDays(1));
+
+    CardBalanceChange changed = new CardBalanceChange();
+    changed.setId("card123");
+    changed.setCustomerId("customer123");
+    changed.setActive(true);
+    changed.setCurrentBalance(BigDecimal.valueOf(2500));
+    CardBalanceChange deleted = new CardBalanceChange();
+    deleted.setId("card456");
+    deleted.setDeleted(true);
+
+    when(partitionRepository.claimNext(anyString(), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.just(partition), Mono.empty());
+    when(captureRunRepository.findById(partition.getDate().toString())).thenReturn(Mono.just(run));
+    when(changeRepository.findChangedSince(run.getChangesSince(), null, "card500"))
+      .thenReturn(Flux.just(changed, deleted));
+    when(cardMetrics.timedBalanceChunk(anyInt())).thenReturn(Function.identity());
+    when(dailyBalanceStore.saveAll(anyList())).thenReturn(Mono.just(1));
+    when(monthlyBalanceAggregateRepository.addSnapshots(anyList())).thenReturn(Mono.empty());
+    when(partitionRepository.saveCheckpoint(eq("2026-10-17:000"), anyString(), eq("card123"), eq(1L), eq(1L),
+        any(Instant.class)))
+      .thenReturn(Mono.just(true));
+    when(carryForwardStore().carryForward(eq(run.getPreviousDate()), eq(partition.getDate()), isNull(),
+        eq("card500"), eq(run.getChangesSince()), any(Instant.class)))
+      .thenReturn(Mono.empty());
+    when(partitionRepository.markCompleted(eq("2026-10-17:000"), anyString(), any(Instant.class)))
+      .thenReturn(Mono.just(true));
+
+    // When
+    Mono<Long> result = dailyBalanceCaptureService.processDuePartitions();
+
+    // Then
+    StepVerifier.create(result)
+      .expectNext(1L)
+      .verifyComplete();
+
+    verify(dailyBalanceStore).saveAll(argThat(balances -> balances.size() == 1
+      && "card123".equals(balances.get(0).getCardId())
+      && BigDecimal.valueOf(2500).equals(balances.get(0).getCurrentBalance())));
+    verifyNoInteractions(creditCardRepository);
+  }
+
+  @Test
+  void testEvictCarriedMonthReports_ClosedMonth_EvictsCustomersOfThePartition() {
+    // Given: la partición arrastró fotos a un mes que se cerró mientras corría
+    YearMonth closedMonth = YearMonth.now().minusMonths(1);
+    DailyBalancePartition closed = new DailyBalancePartition();
+    closed.setDate(closedMonth.atEndOfMonth());
+    closed.setUpperBound("card500");
+
+    when(carryForwardStore().findCustomerIds(closed.getDate(), null, "card500"))
+      .thenReturn(Flux.just("customer1", "customer2", "customer3"));
+    // Un evict por bloque de chunkSize claves
+    when(cardCacheService.evict("card:daily-averages:customer1:" + closedMonth,
+        "card:daily-averages:customer2:" + closedMonth))
+      .thenReturn(Mono.empty());
+    when(cardCacheService.evict("card:daily-averages:customer3:" + closedMonth)).thenReturn(Mono.empty());
+
+    // When
+    Mono<Void> result = ReflectionTestUtils.invokeMethod(dailyBalanceCaptureService, "evictCarriedMonthReports",
+      closed);
+
+    // Then
+    StepVerifier.create(result)
+      .verifyComplete();
+  }
+
+  @Test
+  void testEvictCarriedMonthReports_CurrentMonth_EvictsNothing() {
+    // When
+    Mono<Void> result = ReflectionTestUtils.invokeMethod(dailyBalanceCaptureService, "evictCarriedMonthReports",
+      partition);
+
+    // Then
+    StepVerifier.create(result)
+      .verifyComplete();
+    verify(carryForwardStore(), never()).findCustomerIds(any(), any(), any());
+    verifyNoInteractions(cardCacheService);
+  }
+
+  @Test
+  void testProcessDuePartitions_ChangesPlanWithBucketedLayout_CapturesAllCards() {
+    // Given: el plan se creó por cambios y después se pasó a buckets, que no arrastran
+    DailyBalanceStore bucketStore = mock(DailyBalanceStore.class);
+    ReflectionTestUtils.setField(dailyBalanceCaptureService, "dailyBalanceStore", bucketStore);
+
+    DailyBalanceCaptureRun run = new DailyBalanceCaptureRun();
+    run.setMode(CaptureMode.CHANGES);
+    run.setChangesSince(Instant.now().minus(Duration.ofDays(1)));
+
+    when(partitionRepository.claimNext(anyString(), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.just(partition), Mono.empty());
+    when(captureRunRepository.findById(partition.getDate().toString())).thenReturn(Mono.just(run));
+    when(creditCardRepository.findActiveByIdRange(null, "card500")).thenReturn(Flux.just(card));
+    when(cardMetrics.timedBalanceChunk(anyInt())).thenReturn(Function.identity());
+    when(bucketStore.saveAll(anyList())).thenReturn(Mono.just(1));
+    when(monthlyBalanceAggregateRepository.addSnapshots(anyList())).thenReturn(Mono.empty());
+    when(partitionRepository.saveCheckpoint(eq("2026-10-17:000"), anyString(), eq("card123"), eq(1L), eq(1L),
+        any(Instant.class)))
+      .thenReturn(Mono.just(true));
+    when(partitionRepository.markCompleted(eq("2026-10-17:000"), anyString(), any(Instant.class)))
+      .thenReturn(Mono.just(true));
+
+    // When / Then
+    StepVerifier.create(dailyBalanceCaptureService.processDuePartitions())
+      .expectNext(1L)
+      .verifyComplete();
+
+    verifyNoInteractions(changeRepository);
+  }
+
+  @Test
+  void testSelectMode_PreviousDayCompleteAndCovered_UsesChanges() {
+    // Given
+    LocalDate today = LocalDate.now();
+    DailyBalanceCaptureRun previous = previousRun(today);
+    Instant since = previous.getCreatedAt().minusSeconds(300);
+    stubPlanCreation(today);
+    when(captureRunRepository.findById(today.minusDays(1).toString())).thenReturn(Mono.just(previous));
+    when(partitionRepository.countByDateAndStatusNot(today.minusDays(1), PartitionStatus.COMPLETED))
+      .thenReturn(Mono.just(0L));
+    when(balanceChangeTracker.coversSince(since)).thenReturn(Mono.just(true));
+
+    // When
+    DailyBalanceCaptureRun run = createPlan();
+
+    // Then
+    assertEquals(CaptureMode.CHANGES, run.getMode());
+    assertEquals(since, run.getChangesSince());
+    assertEquals(today.minusDays(1), run.getPreviousDate());
+  }
+
+  @Test
+  void testSelectMode_PreviousDayUnfinished_Scans() {
+    // Given: arrastrar desde un día a medias dejaría tarjetas sin foto
+    LocalDate today = LocalDate.now();
+    stubPlanCreation(today);
+    when(captureRunRepository.findById(today.minusDays(1).toString())).thenReturn(Mono.just(previousRun(today)));
+    when(partitionRepository.countByDateAndStatusNot(today.minusDays(1), PartitionStatus.COMPLETED))
+      .thenReturn(Mono.just(2L));
+
+    // When
+    DailyBalanceCaptureRun run = createPlan();
+
+    // Then
+    assertEquals(CaptureMode.SCAN, run.getMode());
+    assertNull(run.getChangesSince());
+    verifyNoInteractions(balanceChangeTracker);
+  }
+
+  @Test
+  void testSelectMode_StreamDoesNotCoverPreviousRun_Scans() {
+    // Given: el resume token caducó y la cobertura del stream se reinició después de la captura anterior
+    LocalDate today = LocalDate.now();
+    stubPlanCreation(today);
+    when(captureRunRepository.findById(today.minusDays(1).toString())).thenReturn(Mono.just(previousRun(today)));
+    when(partitionRepository.countByDateAndStatusNot(today.minusDays(1), PartitionStatus.COMPLETED))
+      .thenReturn(Mono.just(0L));
+    when(balanceChangeTracker.coversSince(any(Instant.class))).thenReturn(Mono.just(false));
+
+    // When
+    DailyBalanceCaptureRun run = createPlan();
+
+    // Then
+    assertEquals(CaptureMode.SCAN, run.getMode());
+    assertNull(run.getPreviousDate());
+  }
+
+  @Test
+  void testSelectMode_NoPreviousRun_Scans() {
+    // Given
+    LocalDate today = LocalDate.now();
+    stubPlanCreation(today);
+    when(captureRunRepository.findById(today.minusDays(1).toString())).thenReturn(Mono.empty());
+
+    // When
+    DailyBalanceCaptureRun run = createPlan();
+
+    // Then
+    assertEquals(CaptureMode.SCAN, run.getMode());
+    verifyNoInteractions(balanceChangeTracker);
+  }
+
+  @Test
+  void testSelectMode_LayoutWithoutCarryForward_Scans() {
+    // Given
+    LocalDate today = LocalDate.now();
+    ReflectionTestUtils.setField(dailyBalanceCaptureService, "dailyBalanceStore", mock(DailyBalanceStore.class));
+    stubPlanCreation(today);
+
+    // When
+    DailyBalanceCaptureRun run = createPlan();
+
+    // Then
+    assertEquals(CaptureMode.SCAN, run.getMode());
+    verify(captureRunRepository, never()).findById(today.minusDays(1).toString());
+    verifyNoInteractions(balanceChangeTracker);
+  }
+
+  // El plan se crea al empezar la captura; sin particiones disponibles no se escribe nada más
+  private void stubPlanCreation(LocalDate today) {
+    when(captureRunRepository.findById(today.toString())).thenReturn(Mono.empty());
+    when(creditCardRepository.findActivePartitionBoundaries(4)).thenReturn(Mono.just(List.of()));
+    when(captureRunRepository.insert(any(DailyBalanceCaptureRun.class)))
+      .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(partitionRepository.insert(any(DailyBalancePartition.class)))
+      .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(partitionRepository.claimNext(anyString(), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.empty());
+  }
+
+  private DailyBalanceCaptureRun createPlan() {
+    StepVerifier.create(dailyBalanceCaptureService.captureDailyBalances())
+      .verifyComplete();
+
+    ArgumentCaptor<DailyBalanceCaptureRun> run = ArgumentCaptor.forClass(DailyBalanceCaptureRun.class);
+    verify(captureRunRepository).insert(run.capture());
+    return run.getValue();
+  }
+
+  private DailyBalanceCaptureRun previousRun(LocalDate today) {
+    DailyBalanceCaptureRun previous = new DailyBalanceCaptureRun();
+    previous.setId(today.minusDays(1).toString());
+    previous.setDate(today.minusDays(1));
+    previous.setCreatedAt(Instant.now().minus(Duration.ofDays(1)));
+    return previous;
+  }
+
+  private CarryForwardStore carryForwardStore() {
+    return (CarryForwardStore) dailyBalanceStore;
+  }
+}
@@ -0,0 +1,215 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.exception.CardServiceException;
+import com.bootcamp.ntt.card_service.model.ChargeAuthorizationRequest;
+import com.bootcamp.ntt.card_service.model.ChargeAuthorizationResponse;
+import com.bootcamp.ntt.card_service.service.Impl.IdempotencyServiceImpl.StoredResponse;
+import com.bootcamp.ntt.card_service.utils.ErrorCodes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+  private static final String REDIS_KEY = "idempotency:authorize-charge:4111:key-1";
+
+  @Mock
+  private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+  @Mock
+  private ReactiveValueOperations<String, Object> valueOperations;
+
+  @InjectMocks
+  private IdempotencyServiceImpl idempotencyService;
+
+  private ChargeAuthorizationRequest request;
+
+  private String requestHash;
+
+  private ChargeAuthorizationResponse approvedResponse;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(idempotencyService, "responseTtlHours", 24L);
+    ReflectionTestUtils.setField(idempotencyService, "lockSeconds", 60L);
+
+    request = new ChargeAuthorizationRequest();
+    request.setAmount(1000.0);
+    requestHash = IdempotencyServiceImpl.requestHash(request);
+
+    approvedResponse = new ChargeAuthorizationResponse();
+    approvedResponse.setStatus(ChargeAuthorizationResponse.StatusEnum.APPROVED);
+  }
+
+  @Test
+  void testExecute_WithoutKey_RunsOperation() {
+    StepVerifier.create(idempotencyService.execute("authorize-charge:4111", null, request,
+        ChargeAuthorizationResponse.class, () -> Mono.just(approvedResponse)))
+      .expectNext(approvedResponse)
+      .verifyComplete();
+
+    verifyNoInteractions(redisTemplate);
+  }
+
+  @Test
+  void testExecute_StoredResponse_ReplaysWithoutRunning() {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(new StoredResponse(requestHash, approvedResponse)));
+    AtomicInteger executions = new AtomicInteger();
+
+    StepVerifier.create(idempotencyService.execute("authorize-charge:4111", "key-1", request,
+        ChargeAuthorizationResponse.class, () -> Mono.fromCallable(() -> {
+          executions.incrementAndGet();
+          return approvedResponse;
+        })))
+      .expectNext(approvedResponse)
+      .verifyComplete();
+
+    assertEquals(0, executions.get());
+  }
+
+  @Test
+  void testExecute_ConcurrentDuplicates_RunOnce() {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.empty());
+    when(valueOperations.setIfAbsent(eq(REDIS_KEY), eq("IN_PROGRESS:" + requestHash), any(Duration.class)))
+      .thenReturn(Mono.just(true));
+    when(valueOperations.set(eq(REDIS_KEY), eq(new StoredResponse(requestHash, approvedResponse)), any(Duration.class)))
+      .thenReturn(Mono.just(true));
+
+    Sinks.One<ChargeAuthorizationResponse> pending = Sinks.one();
+    AtomicInteger executions = new AtomicInteger();
+
+    Mono<ChargeAuthorizationResponse> first = idempotencyService.execute("authorize-charge:4111", "key-1", request,
+      ChargeAuthorizationResponse.class, () -> {
+        executions.incrementAndGet();
+        return pending.asMono();
+      });
+    Mono<ChargeAuthorizationResponse> duplicate = idempotencyService.execute("authorize-charge:4111", "key-1", request,
+      ChargeAuthorizationResponse.class, () -> {
+        executions.incrementAndGet();
+        return Mono.just(new ChargeAuthorizationResponse());
+      });
+
+    StepVerifier.create(Mono.zip(first, duplicate))
+      .then(() -> pending.tryEmitValue(approvedResponse))
+      .assertNext(results -> {
+        assertSame(approvedResponse, results.getT1());
+        assertSame(approvedResponse, results.getT2());
+      })
+      .verifyComplete();
+
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void testExecute_InProgressOnAnotherInstance_ReturnsConflict() {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just("IN_PROGRESS:" + requestHash));
+
+    StepVerifier.create(idempotencyService.execute("authorize-charge:4111", "key-1", request,
+        ChargeAuthorizationResponse.class, () -> Mono.just(approvedResponse)))
+      .expectErrorSatisfies(error -> assertCardServiceError(error,
+        ErrorCodes.IDEMPOTENCY_KEY_IN_PROGRESS, HttpStatus.CONFLICT))
+      .verify();
+  }
+
+  @Test
+  void testExecute_InProgressWithDifferentBody_ReturnsUnprocessable() {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just("IN_PROGRESS:" + requestHash));
+    ChargeAuthorizationRequest otherRequest = new ChargeAuthorizationRequest();
+    otherRequest.setAmount(2000.0);
+
+    StepVerifier.create(idempotencyService.execute("authorize-charge:4111", "key-1", otherRequest,
+        ChargeAuthorizationResponse.class, () -> Mono.just(approvedResponse)))
+      .expectErrorSatisfies(error -> assertCardServiceError(error,
+        ErrorCodes.IDEMPOTENCY_KEY_REUSED, HttpStatus.UNPROCESSABLE_ENTITY))
+      .verify();
+  }
+
+  @Test
+  void testExecute_StoredResponseForDifferentBody_ReturnsUnprocessableWithoutRunning() {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(new StoredResponse(requestHash, approvedResponse)));
+    ChargeAuthorizationRequest otherRequest = new ChargeAuthorizationRequest();
+    otherRequest.setAmount(2000.0);
+    AtomicInteger executions = new AtomicInteger();
+
+    StepVerifier.create(idempotencyService.execute("authorize-charge:4111", "key-1", otherRequest,
+        ChargeAuthorizationResponse.class, () -> Mono.fromCallable(() -> {
+          executions.incrementAndGet();
+          return approvedResponse;
+        })))
+      .expectErrorSatisfies(error -> assertCardServiceError(error,
+        ErrorCodes.IDEMPOTENCY_KEY_REUSED, HttpStatus.UNPROCESSABLE_ENTITY))
+      .verify();
+
+    assertEquals(0, executions.get());
+  }
+
+  @Test
+  void testExecute_StoredResponseWithoutHash_ReplaysUntilExpiry() {
+    // Entrada guardada antes de ligar la clave al cuerpo
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(approvedResponse));
+
+    StepVerifier.create(idempotencyService.execute("authorize-charge:4111", "key-1", request,
+        ChargeAuthorizationResponse.class, () -> Mono.just(new ChargeAuthorizationResponse())))
+      .expectNext(approvedResponse)
+      .verifyComplete();
+  }
+
+  @Test
+  void testRequestHash_SameBodySameHash() {
+    ChargeAuthorizationRequest sameRequest = new ChargeAuthorizationRequest();
+    sameRequest.setAmount(1000.0);
+    ChargeAuthorizationRequest otherRequest = new ChargeAuthorizationRequest();
+    otherRequest.setAmount(1000.01);
+
+    assertEquals(requestHash, IdempotencyServiceImpl.requestHash(sameRequest));
+    assertNotEquals(requestHash, IdempotencyServiceImpl.requestHash(otherRequest));
+  }
+
+  @Test
+  void testExecute_OperationFails_ReleasesKey() {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.empty());
+    when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(), any(Duration.class))).thenReturn(Mono.just(true));
+    when(redisTemplate.delete(REDIS_KEY)).thenReturn(Mono.just(1L));
+
+    StepVerifier.create(idempotencyService.execute("authorize-charge:4111", "key-1", request,
+        ChargeAuthorizationResponse.class, () -> Mono.error(new RuntimeException("downstream failed"))))
+      .expectErrorMessage("downstream failed")
+      .verify();
+
+    verify(redisTemplate).delete(REDIS_KEY);
+  }
+
+  private void assertCardServiceError(Throwable error, String errorCode, HttpStatus status) {
+    CardServiceException exception = assertInstanceOf(CardServiceException.class, error);
+    assertEquals(errorCode, exception.getErrorCode());
+    assertEquals(status, exception.getHttpStatus());
+  }
+}
@@ -0,0 +1,309 @@
+package com.bootcamp.ntt.card_service.service.Impl;
+
+import com.bootcamp.ntt.card_service.client.dto.transaction.TransactionRequest;
+import com.bootcamp.ntt.card_service.entity.CreditCard;
+import com.bootcamp.ntt.card_service.entity.PendingPosting;
+import com.bootcamp.ntt.card_service.entity.TransactionOutbox;
+import com.bootcamp.ntt.card_service.enums.OutboxEventType;
+import com.bootcamp.ntt.card_service.enums.OutboxStatus;
+import com.bootcamp.ntt.card_service.repository.CreditCardRepository;
+import com.bootcamp.ntt.card_service.repository.TransactionOutboxRepository;
+import com.bootcamp.ntt.card_service.service.ExternalServiceWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionOutboxServiceImplTest {
+
+  private static final String OUTBOX_ID = "outbox123";
+
+  @Mock
+  private TransactionOutboxRepository transactionOutboxRepository;
+
+  @Mock
+  private CreditCardRepository creditCardRepository;
+
+  @Mock
+  private ExternalServiceWrapper externalServiceWrapper;
+
+  @InjectMocks
+  private TransactionOutboxServiceImpl transactionOutboxService;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(transactionOutboxService, "batchSize", 100);
+    ReflectionTestUtils.setField(transactionOutboxService, "concurrency", 8);
+    ReflectionTestUtils.setField(transactionOutboxService, "maxAttempts", 20);
+    ReflectionTestUtils.setField(transactionOutboxService, "leaseSeconds", 30L);
+  }
+
+  @Test
+  void testPublishPending_Success_SendsOutboxIdAsIdempotencyKey() {
+    // Given
+    TransactionOutbox claimed = entry(OutboxStatus.PROCESSING, 1);
+    stubClaim(entry(OutboxStatus.PENDING, 0), claimed);
+    when(externalServiceWrapper.createTransactionWithCircuitBreaker(any(TransactionRequest.class)))
+      .thenReturn(Mono.empty());
+    when(transactionOutboxRepository.markSent(eq(OUTBOX_ID), any(Instant.class))).thenReturn(Mono.empty());
+
+    // When / Then
+    StepVerifier.create(transactionOutboxService.publishPending())
+      .expectNext(1L)
+      .verifyComplete();
+
+    ArgumentCaptor<TransactionRequest> request = ArgumentCaptor.forClass(TransactionRequest.class);
+    verify(externalServiceWrapper).createTransactionWithCircuitBreaker(request.capture());
+    assertEquals(OUTBOX_ID, request.getValue().getIdempotencyKey());
+    verify(transactionOutboxRepository, never()).markRetry(anyString(), anyString(), any(Instant.class));
+  }
+
+  @Test
+  void testPublishPending_ExpiredLease_ReclaimsAndResendsWithSameKey() {
+    // Given: otra instancia cayó con el registro en PROCESSING y el lease ya venció
+    TransactionOutbox abandoned = entry(OutboxStatus.PROCESSING, 1);
+    TransactionOutbox reclaimed = entry(OutboxStatus.PROCESSING, 2);
+    reclaimed.setEventType(OutboxEventType.DEBIT_PURCHASE);
+    stubClaim(abandoned, reclaimed);
+    when(externalServiceWrapper.createDebitCardPurchaseTransactionWithCircuitBreaker(any(TransactionRequest.class)))
+      .thenReturn(Mono.empty());
+    when(transactionOutboxRepository.markSent(eq(OUTBOX_ID), any(Instant.class))).thenReturn(Mono.empty());
+
+    // When / Then
+    StepVerifier.create(transactionOutboxService.publishPending())
+      .expectNext(1L)
+      .verifyComplete();
+
+    ArgumentCaptor<Duration> lease = ArgumentCaptor.forClass(Duration.class);
+    verify(transactionOutboxRepository).claim(eq(OUTBOX_ID), any(Instant.class), lease.capture());
+    assertEquals(Duration.ofSeconds(30), lease.getValue());
+
+    ArgumentCaptor<TransactionRequest> request = ArgumentCaptor.forClass(TransactionRequest.class);
+    verify(externalServiceWrapper).createDebitCardPurchaseTransactionWithCircuitBreaker(request.capture());
+    assertEquals(OUTBOX_ID, request.getValue().getIdempotencyKey());
+  }
+
+  @Test
+  void testPublishPending_ClaimedByAnotherInstance_Skipped() {
+    // Given
+    when(transactionOutboxRepository.findDue(any(Instant.class), eq(100)))
+      .thenReturn(Flux.just(entry(OutboxStatus.PENDING, 0)));
+    when(transactionOutboxRepository.claim(eq(OUTBOX_ID), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.empty());
+
+    // When / Then
+    StepVerifier.create(transactionOutboxService.publishPending())
+      .expectNext(0L)
+      .verifyComplete();
+
+    verifyNoInteractions(externalServiceWrapper);
+  }
+
+  @Test
+  void testPublishPending_SendFails_SchedulesExponentialBackoff() {
+    // Given: tercer intento, le corresponden 4 segundos
+    stubClaim(entry(OutboxStatus.PENDING, 2), entry(OutboxStatus.PROCESSING, 3));
+    when(externalServiceWrapper.createTransactionWithCircuitBreaker(any(TransactionRequest.class)))
+      .thenReturn(Mono.error(new RuntimeException("transaction-service down")));
+    when(transactionOutboxRepository.markRetry(eq(OUTBOX_ID), eq("transaction-service down"), any(Instant.class)))
+      .thenReturn(Mono.empty());
+
+    // When
+    Instant before = Instant.now();
+    StepVerifier.create(transactionOutboxService.publishPending())
+      .expectNext(0L)
+      .verifyComplete();
+    Instant after = Instant.now();
+
+    // Then
+    ArgumentCaptor<Instant> nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+    verify(transactionOutboxRepository).markRetry(eq(OUTBOX_ID), anyString(), nextAttemptAt.capture());
+    assertFalse(nextAttemptAt.getValue().isBefore(before.plusSeconds(4)));
+    assertFalse(nextAttemptAt.getValue().isAfter(after.plusSeconds(4)));
+    verify(transactionOutboxRepository, never()).markSent(anyString(), any(Instant.class));
+  }
+
+  @Test
+  void testPublishPending_BackoffCappedAtTenMinutes() {
+    // Given
+    stubClaim(entry(OutboxStatus.PENDING, 14), entry(OutboxStatus.PROCESSING, 15));
+    when(externalServiceWrapper.createTransactionWithCircuitBreaker(any(TransactionRequest.class)))
+      .thenReturn(Mono.error(new RuntimeException("timeout")));
+    when(transactionOutboxRepository.markRetry(eq(OUTBOX_ID), eq("timeout"), any(Instant.class)))
+      .thenReturn(Mono.empty());
+
+    // When
+    Instant before = Instant.now();
+    StepVerifier.create(transactionOutboxService.publishPending())
+      .expectNext(0L)
+      .verifyComplete();
+    Instant after = Instant.now();
+
+    // Then
+    ArgumentCaptor<Instant> nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+    verify(transactionOutboxRepository).markRetry(eq(OUTBOX_ID), anyString(), nextAttemptAt.capture());
+    assertFalse(nextAttemptAt.getValue().isBefore(before.plus(Duration.ofMinutes(10))));
+    assertFalse(nextAttemptAt.getValue().isAfter(after.plus(Duration.ofMinutes(10))));
+  }
+
+  @Test
+  void testPublishPending_MaxAttemptsReached_MarksFailed() {
+    // Given
+    stubClaim(entry(OutboxStatus.PENDING, 19), entry(OutboxStatus.PROCESSING, 20));
+    when(externalServiceWrapper.createTransactionWithCircuitBreaker(any(TransactionRequest.class)))
+      .thenReturn(Mono.error(new RuntimeException("rejected")));
+    when(transactionOutboxRepository.markFailed(OUTBOX_ID, "rejected")).thenReturn(Mono.empty());
+
+    // When / Then
+    StepVerifier.create(transactionOutboxService.publishPending())
+      .expectNext(0L)
+      .verifyComplete();
+
+    verify(transactionOutboxRepository, never()).markRetry(anyString(), anyString(), any(Instant.class));
+  }
+
+  @Test
+  void testPublishPending_MarkSentFails_RetriesWithSameIdempotencyKey() {
+    // Given: el envío llegó pero no se pudo marcar como enviado
+    stubClaim(entry(OutboxStatus.PENDING, 0), entry(OutboxStatus.PROCESSING, 1));
+    when(externalServiceWrapper.createTransactionWithCircuitBreaker(any(TransactionRequest.class)))
+      .thenReturn(Mono.empty());
+    when(transactionOutboxRepository.markSent(eq(OUTBOX_ID), any(Instant.class)))
+      .thenReturn(Mono.error(new RuntimeException("write concern timeout")));
+    when(transactionOutboxRepository.markRetry(eq(OUTBOX_ID), eq("write concern timeout"), any(Instant.class)))
+      .thenReturn(Mono.empty());
+
+    // When / Then: no se cuenta como enviado y el reintento llevará la misma clave
+    StepVerifier.create(transactionOutboxService.publishPending())
+      .expectNext(0L)
+      .verifyComplete();
+
+    ArgumentCaptor<TransactionRequest> request = ArgumentCaptor.forClass(TransactionRequest.class);
+    verify(externalServiceWrapper).createTransactionWithCircuitBreaker(request.capture());
+    assertEquals(OUTBOX_ID, request.getValue().getIdempotencyKey());
+    verify(transactionOutboxRepository).markRetry(eq(OUTBOX_ID), anyString(), any(Instant.class));
+  }
+
+  @Test
+  void testEnqueue_PendingAndDueImmediately() {
+    // Given
+    when(transactionOutboxRepository.save(any(TransactionOutbox.class)))
+      .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+    // When / Then
+    StepVerifier.create(transactionOutboxService.enqueue(OutboxEventType.CHARGE, new TransactionRequest()))
+      .assertNext(saved -> {
+        assertEquals(OutboxStatus.PENDING, saved.getStatus());
+        assertEquals(0, saved.getAttempts());
+        assertEquals(saved.getCreatedAt(), saved.getNextAttemptAt());
+        assertNotNull(saved.getPayload());
+      })
+      .verifyComplete();
+  }
+
+  @Test
+  void testDrainPendingPostings_InsertsWithPostingIdThenRemovesFromCard() {
+    // Given
+    CreditCard card = cardWithPosting("posting123");
+    when(creditCardRepository.findWithPendingPostings(100)).thenReturn(Flux.just(card));
+    when(transactionOutboxRepository.insert(any(TransactionOutbox.class)))
+      .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(creditCardRepository.removePendingPostings("card123", List.of("posting123"))).thenReturn(Mono.empty());
+
+    // When / Then
+    StepVerifier.create(transactionOutboxService.drainPendingPostings())
+      .expectNext(1L)
+      .verifyComplete();
+
+    ArgumentCaptor<TransactionOutbox> inserted = ArgumentCaptor.forClass(TransactionOutbox.class);
+    verify(transactionOutboxRepository).insert(inserted.capture());
+    assertEquals("posting123", inserted.getValue().getId());
+    assertEquals(OutboxStatus.PENDING, inserted.getValue().getStatus());
+    assertEquals("card123", inserted.getValue().getPayload().getCardId());
+  }
+
+  @Test
+  void testDrainPendingPostings_AlreadyInOutbox_OnlyRemovesFromCard() {
+    // Given: una pasada anterior insertó el registro y cayó antes del $pull
+    CreditCard card = cardWithPosting("posting123");
+    when(creditCardRepository.findWithPendingPostings(100)).thenReturn(Flux.just(card));
+    when(transactionOutboxRepository.insert(any(TransactionOutbox.class)))
+      .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+    when(creditCardRepository.removePendingPostings("card123", List.of("posting123"))).thenReturn(Mono.empty());
+
+    // When / Then
+    StepVerifier.create(transactionOutboxService.drainPendingPostings())
+      .expectNext(1L)
+      .verifyComplete();
+
+    verify(creditCardRepository).removePendingPostings("card123", List.of("posting123"));
+  }
+
+  @Test
+  void testDrainPendingPostings_InsertFails_KeepsPostingOnCard() {
+    // Given
+    CreditCard card = cardWithPosting("posting123");
+    when(creditCardRepository.findWithPendingPostings(100)).thenReturn(Flux.just(card));
+    when(transactionOutboxRepository.insert(any(TransactionOutbox.class)))
+      .thenReturn(Mono.error(new RuntimeException("mongo down")));
+
+    // When / Then: la siguiente pasada lo vuelve a intentar
+    StepVerifier.create(transactionOutboxService.drainPendingPostings())
+      .expectError(RuntimeException.class)
+      .verify();
+
+    verify(creditCardRepository, never()).removePendingPostings(anyString(), anyList());
+  }
+
+  private CreditCard cardWithPosting(String postingId) {
+    PendingPosting posting = new PendingPosting();
+    posting.setPostingId(postingId);
+    posting.setEventType(OutboxEventType.CHARGE);
+    posting.setPayload(new TransactionRequest());
+    posting.setCreatedAt(Instant.now());
+
+    CreditCard card = new CreditCard();
+    card.setId("card123");
+    card.setPendingPostings(List.of(posting));
+    return card;
+  }
+
+  private void stubClaim(TransactionOutbox due, TransactionOutbox claimed) {
+    when(transactionOutboxRepository.findDue(any(Instant.class), eq(100))).thenReturn(Flux.just(due));
+    when(transactionOutboxRepository.claim(eq(OUTBOX_ID), any(Instant.class), any(Duration.class)))
+      .thenReturn(Mono.just(claimed));
+  }
+
+  private TransactionOutbox entry(OutboxStatus status, int attempts) {
+    TransactionRequest payload = new TransactionRequest();
+    payload.setCardId("card123");
+    payload.setAmount(100.0);
+
+    TransactionOutbox entry = new TransactionOutbox();
+    entry.setId(OUTBOX_ID);
+    entry.setEventType(OutboxEventType.CHARGE);
+    entry.setStatus(status);
+    entry.setAttempts(attempts);
+    entry.setPayload(payload);
+    return entry;
+  }
+}
@@ -0,0 +1,69 @@
+package com.bootcamp.ntt.card_service.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+  private static final int INSERTIONS = 200_000;
+  private static final double TARGET_FPP = 0.01;
+
+  @Test
+  void testMightContain_NoFalseNegatives() {
+    // Given
+    BloomFilter filter = BloomFilter.create(INSERTIONS, TARGET_FPP);
+    for (int i = 0; i < INSERTIONS; i++) {
+      filter.put(cardNumber(i));
+    }
+
+    // When / Then
+    for (int i = 0; i < INSERTIONS; i++) {
+      assertTrue(filter.mightContain(cardNumber(i)), "false negative for " + cardNumber(i));
+    }
+  }
+
+  @Test
+  void testMightContain_FalsePositiveRateNearTarget() {
+    // Given
+    BloomFilter filter = BloomFilter.create(INSERTIONS, TARGET_FPP);
+    for (int i = 0; i < INSERTIONS; i++) {
+      filter.put(cardNumber(i));
+    }
+
+    // When: números nunca insertados
+    int falsePositives = 0;
+    for (int i = INSERTIONS; i < 2 * INSERTIONS; i++) {
+      if (filter.mightContain(cardNumber(i))) {
+        falsePositives++;
+      }
+    }
+
+    // Then
+    double observed = (double) falsePositives / INSERTIONS;
+    assertTrue(observed > TARGET_FPP / 2 && observed < TARGET_FPP * 1.5, "observed fpp " + observed);
+    assertEquals(TARGET_FPP, filter.expectedFpp(), TARGET_FPP / 2);
+  }
+
+  @Test
+  void testExpectedFpp_EmptyFilterIsZero() {
+    BloomFilter filter = BloomFilter.create(INSERTIONS, TARGET_FPP);
+
+    assertEquals(0.0, filter.expectedFpp());
+  }
+
+  @Test
+  void testMemoryBytes_SizedForTargetRate() {
+    // m = -n ln(p) / ln(2)^2 ≈ 9.59 bits por elemento con p = 1%
+    BloomFilter filter = BloomFilter.create(INSERTIONS, TARGET_FPP);
+
+    long expectedBytes = (long) Math.ceil(-INSERTIONS * Math.log(TARGET_FPP) / (Math.log(2) * Math.log(2)) / 8);
+    assertEquals(expectedBytes, filter.memoryBytes(), Long.BYTES);
+  }
+
+  // Números consecutivos con el mismo BIN, como los que emite el asignador
+  private static String cardNumber(int sequence) {
+    return String.format("455788%010d", sequence);
+  }
+}